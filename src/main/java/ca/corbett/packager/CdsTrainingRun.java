@@ -0,0 +1,211 @@
+package ca.corbett.packager;
+
+import ca.corbett.extras.LookAndFeelManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.util.Enumeration;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A special startup mode used by the build to generate a class data sharing (AppCDS) archive.
+ * The appcds profile in the pom launches the application with -XX:ArchiveClassesAtExit and
+ * with the system property named by TRAINING_PROPERTY set. Instead of showing the UI, we then
+ * load every class in our own jar and in the swing-extras jar, and exit. The JVM writes every
+ * class that was loaded out to the archive, and subsequent launches with -XX:SharedArchiveFile
+ * can map those classes in directly instead of loading, parsing, and verifying them all again.
+ * <p>
+ * Classes are loaded but not initialized, so no windows are opened and no static
+ * initializers run, which means this works on headless build machines. The superclasses
+ * of everything we load (most of Swing, in our case) end up in the archive too.
+ * </p>
+ * <p>
+ * An archive only works with the JDK and the exact classpath that it was created with, so the
+ * one from the build is only good for running out of the build directory. An installed copy
+ * of the app makes its own instead: refreshArchiveIfNeeded() runs a training run in a child
+ * process, with our own JDK and classpath, writing to wherever the launcher's
+ * -XX:SharedArchiveFile points. That happens in the background on first launch, and again
+ * whenever the JDK or the classpath changes, and it takes effect from the next launch.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+final class CdsTrainingRun {
+
+    private static final Logger log = Logger.getLogger(CdsTrainingRun.class.getName());
+
+    /**
+     * Set this system property to true to run in training mode instead of starting the UI.
+     */
+    static final String TRAINING_PROPERTY = "extpackager.cdsTraining";
+
+    private static final String SHARED_ARCHIVE_OPTION = "-XX:SharedArchiveFile=";
+
+    private CdsTrainingRun() {
+    }
+
+    static boolean isTrainingRun() {
+        return Boolean.getBoolean(TRAINING_PROPERTY);
+    }
+
+    /**
+     * Loads every class from our jar and from the swing-extras jar.
+     */
+    static void run() {
+        int loadedCount = loadAllClasses(Main.class) + loadAllClasses(LookAndFeelManager.class);
+        log.info("CDS training run loaded " + loadedCount + " classes.");
+    }
+
+    /**
+     * If we're an installed copy of the app, and we were launched with -XX:SharedArchiveFile, makes
+     * sure that archive was created by this JDK with this classpath, by comparing against a small
+     * ".info" file that is written next to the archive. If it's missing or out of date, a new one is
+     * generated on a background thread. Problems are logged; they never stop the app from running.
+     */
+    static void refreshArchiveIfNeeded() {
+        if (Version.INSTALL_DIR == null) {
+            return; // Running from the build directory, which has its own archive.
+        }
+        File archiveFile = findSharedArchiveFile();
+        if (archiveFile == null) {
+            return;
+        }
+        File infoFile = new File(archiveFile.getPath() + ".info");
+        String runtimeInfo = describeRuntime();
+        try {
+            if (archiveFile.isFile() && infoFile.isFile()
+                    && runtimeInfo.equals(Files.readString(infoFile.toPath(), StandardCharsets.UTF_8))) {
+                return;
+            }
+        }
+        catch (IOException ioe) {
+            log.fine("Unable to read " + infoFile.getAbsolutePath() + ": " + ioe.getMessage());
+        }
+
+        Thread thread = new Thread(() -> generateArchive(archiveFile, infoFile, runtimeInfo),
+                                   "CdsArchiveGenerator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Runs a training run in a child process with our JDK and classpath, to (re)create the given archive.
+     * The archive is written to a temp file first, so that a failed run never leaves a broken archive behind.
+     */
+    private static void generateArchive(File archiveFile, File infoFile, String runtimeInfo) {
+        File tempFile = new File(archiveFile.getPath() + ".tmp");
+        try {
+            File archiveDir = archiveFile.getAbsoluteFile().getParentFile();
+            if (!archiveDir.exists() && !archiveDir.mkdirs()) {
+                throw new IOException("Unable to create directory " + archiveDir.getAbsolutePath());
+            }
+            log.info("Generating class data sharing archive " + archiveFile.getAbsolutePath());
+            Process process = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(),
+                                                 "-XX:ArchiveClassesAtExit=" + tempFile.getAbsolutePath(),
+                                                 "-Djava.awt.headless=true",
+                                                 "-D" + TRAINING_PROPERTY + "=true",
+                                                 "-cp", System.getProperty("java.class.path"),
+                                                 Main.class.getName())
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            int exitCode = process.waitFor();
+            if (exitCode != 0 || !tempFile.isFile()) {
+                throw new IOException("Training run failed with exit code " + exitCode);
+            }
+            Files.move(tempFile.toPath(), archiveFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.writeString(infoFile.toPath(), runtimeInfo, StandardCharsets.UTF_8);
+            log.info("Class data sharing archive is ready; it will be used from the next launch.");
+        }
+        catch (IOException ioe) {
+            log.log(Level.WARNING, "Unable to generate class data sharing archive: " + ioe.getMessage(), ioe);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Returns the archive given to the JVM with -XX:SharedArchiveFile, or null if there isn't one.
+     */
+    private static File findSharedArchiveFile() {
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (argument.startsWith(SHARED_ARCHIVE_OPTION) && argument.length() > SHARED_ARCHIVE_OPTION.length()) {
+                return new File(argument.substring(SHARED_ARCHIVE_OPTION.length()));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Describes everything that an archive depends on: the JDK build and the classpath.
+     */
+    private static String describeRuntime() {
+        return System.getProperty("java.home") + "\n"
+                + System.getProperty("java.runtime.version") + "\n"
+                + System.getProperty("java.class.path") + "\n";
+    }
+
+    /**
+     * Loads (without initializing) every class in the jar that the given class was loaded from.
+     * Does nothing if that class wasn't loaded from a jar (for example, when running from an IDE).
+     */
+    private static int loadAllClasses(Class<?> anchorClass) {
+        File jarFile = findJarFile(anchorClass);
+        if (jarFile == null) {
+            log.warning("Not running from a jar; skipping classes near " + anchorClass.getName());
+            return 0;
+        }
+
+        int loadedCount = 0;
+        ClassLoader classLoader = anchorClass.getClassLoader();
+        try (JarFile jar = new JarFile(jarFile)) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (!name.endsWith(".class") || name.endsWith("module-info.class") || name.startsWith("META-INF/")) {
+                    continue;
+                }
+                String className = name.substring(0, name.length() - ".class".length()).replace('/', '.');
+                try {
+                    Class.forName(className, false, classLoader);
+                    loadedCount++;
+                }
+                catch (ClassNotFoundException | LinkageError e) {
+                    // Probably refers to an optional dependency that isn't on our classpath; skip it.
+                    log.fine("Skipping class " + className + ": " + e);
+                }
+            }
+        }
+        catch (IOException ioe) {
+            log.warning("Unable to read " + jarFile.getAbsolutePath() + ": " + ioe.getMessage());
+        }
+        return loadedCount;
+    }
+
+    private static File findJarFile(Class<?> anchorClass) {
+        CodeSource codeSource = anchorClass.getProtectionDomain().getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) {
+            return null;
+        }
+        try {
+            File file = new File(codeSource.getLocation().toURI());
+            return file.isFile() ? file : null;
+        }
+        catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -5,6 +5,8 @@ import ca.corbett.packager.ui.MainWindow;
 
 import javax.swing.JFrame;
 import java.awt.SplashScreen;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -20,10 +22,20 @@ import java.util.logging.Logger;
 public class Main {
 
     public static void main(String[] args) {
+        final StartupTimer startupTimer = new StartupTimer();
+
         // Before we do anything else...
         initializeLogging();
+        startupTimer.phaseComplete("logging setup");
+
+        // If the build is generating our class data sharing archive, we don't start the UI:
+        if (CdsTrainingRun.isTrainingRun()) {
+            CdsTrainingRun.run();
+            return;
+        }
 
         LookAndFeelManager.installExtraLafs();
+        startupTimer.phaseComplete("look and feel install");
 
         // Get the splash screen if there is one:
         final SplashScreen splashScreen = SplashScreen.getSplashScreen();
@@ -32,20 +44,28 @@ public class Main {
         Logger.getLogger(Main.class.getName())
               .info(Version.APPLICATION_NAME + " " + Version.VERSION + " initializing...");
         AppConfig.getInstance().load();
+        startupTimer.phaseComplete("config load");
         LookAndFeelManager.switchLaf(AppConfig.getInstance().getLookAndFeelClassname());
+        startupTimer.phaseComplete("look and feel switch");
 
-        // Load and show main window:
+        // Load main window:
         MainWindow window = MainWindow.getInstance();
-        if (splashScreen != null) {
-            try {
-                // Wait a second or so, so it doesn't just flash up and disappear immediately.
-                Thread.sleep(744);
-            }
-            catch (InterruptedException ignored) {
-                // ignored
+        startupTimer.phaseComplete("main window build");
+
+        // Keep the splash screen up until the main window is actually showing:
+        window.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                window.removeWindowListener(this);
+                if (splashScreen != null && splashScreen.isVisible()) {
+                    splashScreen.close();
+                }
+                startupTimer.startupComplete();
+
+                // Now that we're up, make sure the next launch can be faster:
+                CdsTrainingRun.refreshArchiveIfNeeded();
             }
-            splashScreen.close();
-        }
+        });
 
         // Create and display the form
         java.awt.EventQueue.invokeLater(new Runnable() {
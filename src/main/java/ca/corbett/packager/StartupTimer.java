@@ -0,0 +1,58 @@
+package ca.corbett.packager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.logging.Logger;
+
+/**
+ * Logs how long each phase of application startup takes, so that startup regressions
+ * show up in the log instead of just as a vague feeling that things have gotten slower.
+ * The time between JVM launch and the start of main() is logged too, as that's the part
+ * that class data sharing (see the appcds profile in the pom) is meant to reduce.
+ * The log also notes whether class data sharing is actually in use.
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+final class StartupTimer {
+
+    private static final Logger log = Logger.getLogger(StartupTimer.class.getName());
+
+    private final Instant mainStartTime;
+    private final long startNanos;
+    private long lastPhaseNanos;
+
+    /**
+     * Should be created as the very first thing in main().
+     */
+    StartupTimer() {
+        mainStartTime = Instant.now();
+        startNanos = System.nanoTime();
+        lastPhaseNanos = startNanos;
+    }
+
+    /**
+     * Logs the time taken since the previous phase (or since main() started, for the first phase).
+     */
+    synchronized void phaseComplete(String phaseName) {
+        long now = System.nanoTime();
+        log.info(String.format("Startup: %s took %dms (%dms since main)",
+                               phaseName,
+                               (now - lastPhaseNanos) / 1_000_000,
+                               (now - startNanos) / 1_000_000));
+        lastPhaseNanos = now;
+    }
+
+    /**
+     * Logs the overall startup time. Should be invoked once the main window is actually showing.
+     */
+    synchronized void startupComplete() {
+        phaseComplete("showing main window");
+        String launchTime = ProcessHandle.current().info().startInstant()
+                                         .map(launch -> Duration.between(launch, mainStartTime).toMillis() + "ms")
+                                         .orElse("unknown");
+        String vmInfo = System.getProperty("java.vm.info", "");
+        log.info("Startup complete in " + (System.nanoTime() - startNanos) / 1_000_000 + "ms after main"
+                         + " (JVM launch to main: " + launchTime
+                         + ", class data sharing: " + (vmInfo.contains("sharing") ? "on" : "off") + ")");
+    }
+}
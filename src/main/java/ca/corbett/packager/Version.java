@@ -69,6 +69,9 @@ public final class Version {
     /** The file containing our saved application config. **/
     public static final File APP_CONFIG_FILE;
 
+    /** The file containing the list of projects in the user's workspace. **/
+    public static final File WORKSPACE_FILE;
+
     /** The project Url. **/
     public static String PROJECT_URL = "https://github.com/scorbo2/ext-packager";
 
@@ -105,6 +108,7 @@ public final class Version {
         }
 
         APP_CONFIG_FILE = new File(SETTINGS_DIR, APPLICATION_NAME + ".prefs");
+        WORKSPACE_FILE = new File(SETTINGS_DIR, "workspace.json");
 
         DEFAULT_PROJECTS_DIR = new File(SETTINGS_DIR, "projects");
         if (!DEFAULT_PROJECTS_DIR.exists()) {
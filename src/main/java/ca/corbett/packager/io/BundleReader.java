@@ -0,0 +1,300 @@
+package ca.corbett.packager.io;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads the files in a build bundle (a .zip, .tar, .tar.gz, or .tgz archive) one at a time,
+ * in a single forward pass, so that nothing has to be extracted to disk just to look at it.
+ * Each regular file is handed to an EntryHandler along with a stream of its contents; directories,
+ * links, and other special entries are skipped.
+ * <p>
+ * The JDK has no tar support, so tar archives are read here directly. The ustar format is
+ * supported, along with the GNU and pax extensions for long file names, which covers archives
+ * written by GNU tar, bsdtar, and the usual CI tooling.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public final class BundleReader {
+
+    private static final int TAR_BLOCK_SIZE = 512;
+
+    /**
+     * Receives each file in a bundle, in archive order.
+     */
+    @FunctionalInterface
+    public interface EntryHandler {
+        /**
+         * Invoked for each regular file in the bundle. The given stream holds just this file's
+         * contents; it doesn't need to be read to the end, and it must not be closed.
+         *
+         * @param path The path of the file within the bundle, always using forward slashes.
+         */
+        void handleEntry(String path, InputStream contents) throws IOException;
+    }
+
+    private BundleReader() {
+    }
+
+    /**
+     * Reports whether the given file looks like a bundle that we can read, based on its name.
+     */
+    public static boolean isBundle(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        return name.endsWith(".zip") || name.endsWith(".tar") || name.endsWith(".tar.gz") || name.endsWith(".tgz");
+    }
+
+    /**
+     * Reads the given bundle, passing each regular file in it to the given handler.
+     *
+     * @throws IOException If the bundle can't be read, or if the handler throws.
+     */
+    public static void read(File bundle, EntryHandler handler) throws IOException {
+        String name = bundle.getName().toLowerCase(Locale.ROOT);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(bundle.toPath()), 64 * 1024)) {
+            if (name.endsWith(".zip")) {
+                readZip(in, handler);
+            }
+            else if (name.endsWith(".tar.gz") || name.endsWith(".tgz")) {
+                readTar(new GZIPInputStream(in, 64 * 1024), handler);
+            }
+            else if (name.endsWith(".tar")) {
+                readTar(in, handler);
+            }
+            else {
+                throw new IOException("Unsupported bundle type: " + bundle.getName());
+            }
+        }
+    }
+
+    private static void readZip(InputStream in, EntryHandler handler) throws IOException {
+        ZipInputStream zipIn = new ZipInputStream(in, StandardCharsets.UTF_8);
+        ZipEntry entry;
+        while ((entry = zipIn.getNextEntry()) != null) {
+            if (!entry.isDirectory()) {
+                handler.handleEntry(entry.getName(), new BoundedInputStream(zipIn, Long.MAX_VALUE));
+            }
+        }
+    }
+
+    private static void readTar(InputStream in, EntryHandler handler) throws IOException {
+        byte[] header = new byte[TAR_BLOCK_SIZE];
+        String pendingName = null;
+        while (readBlock(in, header)) {
+            if (isZeroBlock(header)) {
+                break; // end of archive
+            }
+            String name = readString(header, 0, 100);
+            long size = readSize(header, 124, 12);
+            byte type = header[156];
+            if (isPosixUstar(header)) {
+                String prefix = readString(header, 345, 155);
+                if (!prefix.isEmpty()) {
+                    name = prefix + "/" + name;
+                }
+            }
+            if (pendingName != null) {
+                name = pendingName;
+                pendingName = null;
+            }
+
+            BoundedInputStream contents = new BoundedInputStream(in, size);
+            if (type == 'L') {
+                // GNU long name: the data block holds the real name of the next entry.
+                pendingName = readString(contents.readAllBytes(), 0, (int)size);
+            }
+            else if (type == 'x') {
+                // pax extended header: look for a path record.
+                String path = readPaxPath(new String(contents.readAllBytes(), StandardCharsets.UTF_8));
+                if (path != null) {
+                    pendingName = path;
+                }
+            }
+            else if (type == '0' || type == 0 || type == '7') {
+                handler.handleEntry(name, contents);
+            }
+            contents.skipRemaining();
+            skipFully(in, (TAR_BLOCK_SIZE - (size % TAR_BLOCK_SIZE)) % TAR_BLOCK_SIZE);
+        }
+    }
+
+    /**
+     * Pax records look like "30 path=some/long/file/name\n", where the leading number is the
+     * length of the whole record, in bytes.
+     */
+    private static String readPaxPath(String records) {
+        String path = null;
+        for (String record : records.split("\n")) {
+            int space = record.indexOf(' ');
+            if (space != -1 && record.startsWith("path=", space + 1)) {
+                path = record.substring(space + 6);
+            }
+        }
+        return path;
+    }
+
+    private static boolean readBlock(InputStream in, byte[] block) throws IOException {
+        int total = 0;
+        while (total < block.length) {
+            int count = in.read(block, total, block.length - total);
+            if (count == -1) {
+                if (total == 0) {
+                    return false; // some writers omit the trailing zero blocks
+                }
+                throw new EOFException("Truncated tar header.");
+            }
+            total += count;
+        }
+        return true;
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a NUL-terminated (or field-length) string from a tar header field.
+     */
+    /**
+     * Reports whether the given tar header is in the POSIX ustar format, which has a "ustar\0" magic
+     * and a file name prefix at offset 345. Old GNU tar headers have a "ustar " magic instead, and
+     * store access and change times where the prefix would be, so they mustn't be read as a prefix.
+     */
+    private static boolean isPosixUstar(byte[] header) {
+        return "ustar".equals(new String(header, 257, 5, StandardCharsets.US_ASCII)) && header[262] == 0;
+    }
+
+    private static String readString(byte[] bytes, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && end < bytes.length && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a tar size field, which is normally octal ASCII, but which GNU tar writes as
+     * big-endian binary (flagged by the high bit of the first byte) for files of 8GB or more.
+     */
+    private static long readSize(byte[] header, int offset, int length) throws IOException {
+        if ((header[offset] & 0x80) != 0) {
+            long size = header[offset] & 0x7F;
+            for (int i = 1; i < length; i++) {
+                size = (size << 8) | (header[offset + i] & 0xFF);
+            }
+            return size;
+        }
+        String octal = readString(header, offset, length).trim();
+        if (octal.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(octal, 8);
+        }
+        catch (NumberFormatException e) {
+            throw new IOException("Not a tar file, or a corrupt one: bad entry size \"" + octal + "\".");
+        }
+    }
+
+    private static void skipFully(InputStream in, long count) throws IOException {
+        long remaining = count;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                if (in.read() == -1) {
+                    throw new EOFException("Truncated tar file.");
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    /**
+     * Exposes at most the given number of bytes of an underlying stream, and never closes it.
+     */
+    private static class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = in.read(buffer, offset, (int)Math.min(length, remaining));
+            if (count != -1) {
+                remaining -= count;
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+            long skipped = in.skip(Math.min(count, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int)Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public void close() {
+            // The underlying stream belongs to the bundle, not to us.
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * Consumes whatever the handler didn't read, so that the bundle stream is positioned
+         * at the end of this entry. The remaining count must be exact for tar files.
+         */
+        void skipRemaining() throws IOException {
+            if (remaining == Long.MAX_VALUE) {
+                return;
+            }
+            skipFully(this, remaining);
+            if (remaining > 0) {
+                throw new EOFException("Truncated tar file.");
+            }
+        }
+    }
+}
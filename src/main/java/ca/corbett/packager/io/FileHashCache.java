@@ -0,0 +1,127 @@
+package ca.corbett.packager.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes SHA-256 hashes of files, and remembers them by path, size, and last modified time,
+ * so that hashing the same unchanged file again doesn't mean reading it again. This is shared
+ * by everything in the app that needs a file hash: jar patches, the checksums document, the
+ * jar integrity cache, and screenshot file names.
+ * <p>
+ * The static computeHash() method always reads the file. An instance of this class is a cache
+ * in front of it; instances are thread safe.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public class FileHashCache {
+
+    public static final String HASH_ALGORITHM = "SHA-256";
+
+    private final Map<File, FileHash> hashes = new HashMap<>();
+
+    /**
+     * Returns the hex-encoded SHA-256 hash of the given file, reading the file only if it has
+     * changed size or modification time since it was last hashed by this cache.
+     */
+    public String getHash(File file) throws IOException {
+        File key = file.getAbsoluteFile();
+        FileHash hash;
+        synchronized (this) {
+            hash = hashes.get(key);
+        }
+        if (hash == null || !hash.isCurrent(key)) {
+            hash = FileHash.of(key);
+            synchronized (this) {
+                hashes.put(key, hash);
+            }
+        }
+        return hash.hash;
+    }
+
+    /**
+     * Forgets every cached hash except the ones for the given files.
+     */
+    public synchronized void retainAll(Collection<File> files) {
+        Set<File> keep = new HashSet<>();
+        for (File file : files) {
+            keep.add(file.getAbsoluteFile());
+        }
+        hashes.keySet().retainAll(keep);
+    }
+
+    /**
+     * Computes the hex-encoded SHA-256 hash of the given file.
+     */
+    public static String computeHash(File file) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Returns a new SHA-256 digest, for callers that hash a stream as they write it.
+     */
+    public static MessageDigest newDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IOException(HASH_ALGORITHM + " is not available.", e);
+        }
+    }
+
+    /**
+     * The hash of a file, along with the size and modification time the file had when it
+     * was hashed. This is serialized by Gson (see JarIntegrityCache), so field names matter.
+     */
+    public static class FileHash {
+        long length;
+        long lastModified;
+        String hash;
+
+        FileHash(long length, long lastModified, String hash) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+
+        /**
+         * Hashes the given file. The size and modification time are read first, so that a file
+         * that changes while it's being hashed will look stale next time rather than current.
+         */
+        public static FileHash of(File file) throws IOException {
+            long length = file.length();
+            long lastModified = file.lastModified();
+            return new FileHash(length, lastModified, computeHash(file));
+        }
+
+        /**
+         * Returns true if the given file still has the size and modification time this hash was taken at.
+         */
+        public boolean isCurrent(File file) {
+            return length == file.length() && lastModified == file.lastModified();
+        }
+
+        public String getHash() {
+            return hash;
+        }
+    }
+}
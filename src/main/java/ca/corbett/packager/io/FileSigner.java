@@ -0,0 +1,156 @@
+package ca.corbett.packager.io;
+
+import ca.corbett.extras.crypt.SignatureUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.logging.Logger;
+
+/**
+ * Signs and verifies files on disk. Small files are simply handed off to SignatureUtil
+ * in swing-extras, but files larger than MAPPED_IO_THRESHOLD are memory-mapped in
+ * large chunks and fed directly to Signature.update(ByteBuffer). This avoids copying
+ * every byte of a very large jar through a small heap buffer, which makes a noticeable
+ * difference for extensions that bundle native libraries.
+ * <p>
+ * The signature files produced here are identical in format to those produced
+ * by SignatureUtil, so clients can verify them in the usual way regardless of
+ * which code path generated them.
+ * </p>
+ * <p>
+ * The signature algorithm is determined by the type of key given (see SigningScheme).
+ * SignatureUtil only handles RSA, so files signed with any other scheme always take our
+ * own code path, regardless of size. Note that the JDK's Ed25519 implementation buffers
+ * the whole message in memory before signing or verifying, since EdDSA needs two passes
+ * over the data, so memory-mapping large files doesn't save anything for that scheme.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public final class FileSigner {
+
+    private static final Logger log = Logger.getLogger(FileSigner.class.getName());
+
+    /**
+     * The signature algorithm used by SignatureUtil for RSA keys, which we must match exactly.
+     */
+    public static final String SIGNATURE_ALGORITHM = "SHA256withRSA";
+
+    /**
+     * Files at least this large will be signed and verified using memory-mapped I/O.
+     * Below this size, the overhead of setting up the mapping outweighs any benefit.
+     */
+    public static final long MAPPED_IO_THRESHOLD = 32L * 1024 * 1024;
+
+    /**
+     * The maximum size of any one mapped region. Larger files are mapped in several chunks.
+     */
+    static final long MAPPED_CHUNK_SIZE = 64L * 1024 * 1024;
+
+    private FileSigner() {
+    }
+
+    /**
+     * Signs the given file with the given private key, and writes the resulting
+     * signature to the given signature file, overwriting it if it exists.
+     */
+    public static void signFile(File file, PrivateKey privateKey, File signatureFile) throws Exception {
+        if (SigningScheme.forKey(privateKey) != SigningScheme.RSA) {
+            writeSignatureFile(signMapped(file, privateKey), signatureFile);
+            return;
+        }
+        if (file.length() < MAPPED_IO_THRESHOLD) {
+            SignatureUtil.signFile(file, privateKey, signatureFile);
+            return;
+        }
+        log.fine("Using memory-mapped signing for large file " + file.getAbsolutePath());
+        writeSignatureFile(signMapped(file, privateKey), signatureFile);
+    }
+
+    /**
+     * Verifies the given file against the given signature file using the given public key.
+     * Returns true if the signature is valid for the contents of the file.
+     */
+    public static boolean verifyFile(File file, File signatureFile, PublicKey publicKey) throws Exception {
+        if (SigningScheme.forKey(publicKey) != SigningScheme.RSA) {
+            return verifyMapped(file, readSignatureFile(signatureFile), publicKey);
+        }
+        if (file.length() < MAPPED_IO_THRESHOLD) {
+            return SignatureUtil.verifyFile(file, signatureFile, publicKey);
+        }
+        log.fine("Using memory-mapped verification for large file " + file.getAbsolutePath());
+        return verifyMapped(file, readSignatureFile(signatureFile), publicKey);
+    }
+
+    /**
+     * Generates and returns a signature for the given file by memory-mapping it
+     * and feeding the mapped regions directly to the signature engine.
+     */
+    static byte[] signMapped(File file, PrivateKey privateKey) throws IOException, GeneralSecurityException {
+        Signature signature = Signature.getInstance(SigningScheme.forKey(privateKey).getSignatureAlgorithm());
+        signature.initSign(privateKey);
+        updateMapped(signature, file);
+        return signature.sign();
+    }
+
+    /**
+     * Verifies the given signature bytes against the given file by memory-mapping it
+     * and feeding the mapped regions directly to the signature engine.
+     */
+    static boolean verifyMapped(File file, byte[] signatureBytes, PublicKey publicKey)
+            throws IOException, GeneralSecurityException {
+        Signature signature = Signature.getInstance(SigningScheme.forKey(publicKey).getSignatureAlgorithm());
+        signature.initVerify(publicKey);
+        updateMapped(signature, file);
+        return signature.verify(signatureBytes);
+    }
+
+    /**
+     * Maps the given file in chunks of at most MAPPED_CHUNK_SIZE bytes and
+     * feeds each chunk to the given Signature.
+     */
+    private static void updateMapped(Signature signature, File file) throws IOException, GeneralSecurityException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(MAPPED_CHUNK_SIZE, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                signature.update(buffer);
+                position += length;
+            }
+        }
+    }
+
+    /**
+     * Signature files are stored as base64 text, the same as SignatureUtil does it.
+     */
+    static void writeSignatureFile(byte[] signatureBytes, File signatureFile) throws IOException {
+        Files.writeString(signatureFile.toPath(),
+                          Base64.getEncoder().encodeToString(signatureBytes),
+                          StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads and decodes the given base64 signature file.
+     */
+    static byte[] readSignatureFile(File signatureFile) throws IOException {
+        String encoded = Files.readString(signatureFile.toPath(), StandardCharsets.UTF_8).trim();
+        try {
+            return Base64.getDecoder().decode(encoded);
+        }
+        catch (IllegalArgumentException iae) {
+            throw new IOException("Signature file is not valid: " + signatureFile.getAbsolutePath(), iae);
+        }
+    }
+}
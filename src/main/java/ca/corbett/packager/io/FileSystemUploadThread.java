@@ -1,11 +1,14 @@
 package ca.corbett.packager.io;
 
 import ca.corbett.extras.progress.SimpleProgressWorker;
+import ca.corbett.packager.project.ManifestDiff;
 import ca.corbett.packager.project.Project;
+import ca.corbett.updates.UpdateSources;
 import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.time.Instant;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -15,11 +18,15 @@ import java.util.logging.Logger;
  * UpdateSource will have a baseUrl that is a filesystem url! A progress error will
  * be thrown immediately otherwise.
  * <p>
- * The project public key (if it exists), version manifest, and all extension jars
- * and support files will be copied to the given baseUrl.
+ * The project public key (if it exists), version manifest (along with its compact
+ * and precompressed variants, and its shards if sharding is enabled), and all extension
+ * jars and support files will be copied to the given baseUrl.
  * </p>
  * <p>
- * <b>NOTE:</b> The given baseUrl directory will be cleaned before copying begins.
+ * If cleanFirst is set, the given baseUrl directory will be cleaned before copying begins.
+ * Otherwise, if this project has been published to the given UpdateSource before, only
+ * extension files that have changed since then are copied, and files that are no longer
+ * referenced are deleted. See ManifestDiff.
  * </p>
  *
  * @author <a href="https://github.com/scorbo2">scorbo2</a>
@@ -29,11 +36,14 @@ public class FileSystemUploadThread extends SimpleProgressWorker {
     private static final Logger log = Logger.getLogger(FileSystemUploadThread.class.getName());
 
     private final Project project;
+    private final UpdateSources.UpdateSource updateSource;
     private final File targetDir;
     private final boolean cleanBeforeCopy;
 
-    public FileSystemUploadThread(Project project, File targetDir, boolean cleanFirst) {
+    public FileSystemUploadThread(Project project, UpdateSources.UpdateSource updateSource, File targetDir,
+                                  boolean cleanFirst) {
         this.project = project;
+        this.updateSource = updateSource;
         this.targetDir = targetDir;
         this.cleanBeforeCopy = cleanFirst;
     }
@@ -51,13 +61,17 @@ public class FileSystemUploadThread extends SimpleProgressWorker {
 
         try {
             // Set the generated timestamp in the version manifest:
-            project.getVersionManifest().setManifestGenerated(Instant.now());
-            project.saveVersionManifest();
+            project.updateManifest(manifest -> manifest.setManifestGenerated(Instant.now()));
+            project.publishVersionManifest();
 
+            ManifestDiff diff = null;
             if (cleanBeforeCopy) {
                 log.info("Cleaning target directory: " + targetDir.getAbsolutePath());
                 FileUtils.cleanDirectory(targetDir);
             }
+            else {
+                diff = project.computeManifestDiff(updateSource);
+            }
             fireProgressUpdate(1, "Copying distribution files");
 
             if (project.getPublicKeyFile().exists()) {
@@ -68,12 +82,30 @@ public class FileSystemUploadThread extends SimpleProgressWorker {
             fireProgressUpdate(2, "Copying distribution files");
 
             log.info("Copying version manifest...");
-            FileUtils.copyFile(project.getVersionManifestFile(),
-                               new File(targetDir, project.getVersionManifestFile().getName()));
+            for (File manifestFile : project.getPublishedManifestFiles()) {
+                FileUtils.copyFile(manifestFile, new File(targetDir, manifestFile.getName()));
+            }
+            if (project.isShardedManifest()) {
+                FileUtils.copyDirectory(project.getManifestShardDir(),
+                                        new File(targetDir, project.getManifestShardDir().getName()));
+            }
             fireProgressUpdate(3, "Copying distribution files");
 
-            log.info("Copying extensions directory...");
-            FileUtils.copyDirectory(project.getExtensionsDir(), new File(targetDir, "extensions"));
+            if (diff == null || !diff.hasSnapshot()) {
+                log.info("Copying extensions directory...");
+                FileUtils.copyDirectory(project.getExtensionsDir(), new File(targetDir, "extensions"));
+            }
+            else {
+                log.info("Delta copy: " + diff.getFilesToUpload().size() + " to copy, "
+                                 + diff.getFilesToDelete().size() + " to delete.");
+                for (String path : diff.getFilesToUpload()) {
+                    FileUtils.copyFile(new File(project.getDistDir(), path), new File(targetDir, path));
+                }
+                for (String path : diff.getFilesToDelete()) {
+                    Files.deleteIfExists(new File(targetDir, path).toPath());
+                }
+            }
+            project.savePublishedSnapshot(updateSource);
 
             fireProgressComplete();
         }
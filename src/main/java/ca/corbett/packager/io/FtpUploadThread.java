@@ -1,9 +1,11 @@
 package ca.corbett.packager.io;
 
 import ca.corbett.extras.progress.SimpleProgressWorker;
+import ca.corbett.packager.project.ManifestDiff;
 import ca.corbett.packager.project.Project;
 import ca.corbett.updates.UpdateSources;
 
+import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.logging.Level;
@@ -52,17 +54,21 @@ public class FtpUploadThread extends SimpleProgressWorker {
             }
 
             // Set the generated timestamp in the version manifest:
-            project.getVersionManifest().setManifestGenerated(Instant.now());
-            project.saveVersionManifest();
+            project.updateManifest(manifest -> manifest.setManifestGenerated(Instant.now()));
+            project.publishVersionManifest();
 
             // Connect and log in:
             ftp = new FtpUtil();
             ftp.connect(ftpParams);
 
-            // Clean the existing target directory:
+            // Clean the existing target directory, or else work out what changed since our last upload:
+            ManifestDiff diff = null;
             if (cleanBeforeUpload) {
                 ftp.cleanDirectory(ftpParams.targetDir);
             }
+            else {
+                diff = project.computeManifestDiff(updateSource);
+            }
 
             // Public key (optional):
             if (updateSource.getPublicKeyRelativePath() != null) {
@@ -72,12 +78,30 @@ public class FtpUploadThread extends SimpleProgressWorker {
             }
             fireProgressUpdate(1, "Uploading project files");
 
-            // Version manifest (mandatory):
-            ftp.uploadFile(project.getVersionManifestFile(), ftpParams.targetDir);
+            // Version manifest (mandatory), plus its compact and precompressed variants:
+            for (File manifestFile : project.getPublishedManifestFiles()) {
+                ftp.uploadFile(manifestFile, ftpParams.targetDir);
+            }
+            if (project.isShardedManifest()) {
+                ftp.uploadDirectory(project.getManifestShardDir(), ftpParams.targetDir);
+            }
             fireProgressUpdate(2, "Uploading project files");
 
-            // Now upload the entire extensions dir recursively:
-            ftp.uploadDirectory(project.getExtensionsDir(), ftpParams.targetDir);
+            // Now upload the entire extensions dir recursively, unless we know exactly what has changed:
+            if (diff == null || !diff.hasSnapshot()) {
+                ftp.uploadDirectory(project.getExtensionsDir(), ftpParams.targetDir);
+            }
+            else {
+                log.info("Delta upload: " + diff.getFilesToUpload().size() + " to upload, "
+                                 + diff.getFilesToDelete().size() + " to delete.");
+                for (String path : diff.getFilesToUpload()) {
+                    ftp.uploadFileToPath(new File(project.getDistDir(), path), ftpParams.targetDir, path);
+                }
+                for (String path : diff.getFilesToDelete()) {
+                    ftp.deleteFileAtPath(ftpParams.targetDir, path);
+                }
+            }
+            project.savePublishedSnapshot(updateSource);
 
             fireProgressComplete();
             wasSuccessful = true;
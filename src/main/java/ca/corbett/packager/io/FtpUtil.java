@@ -152,6 +152,47 @@ public class FtpUtil {
         }
     }
 
+    /**
+     * Uploads the given local file to the given path, relative to the given remote root directory.
+     * Any intermediate remote directories are created as needed. For example,
+     * uploading to "extensions/1.0/MyExtension.jar" will create extensions and extensions/1.0
+     * under the remote root directory if they don't already exist.
+     */
+    public void uploadFileToPath(File localFile, String remoteRootDir, String relativePath) throws IOException {
+        if (!isConnected()) {
+            throw new IOException("Not connected.");
+        }
+        String remoteDir = remoteRootDir.endsWith("/")
+                ? remoteRootDir.substring(0, remoteRootDir.length() - 1)
+                : remoteRootDir;
+        String[] pathElements = relativePath.split("/");
+        for (int i = 0; i < pathElements.length - 1; i++) {
+            remoteDir += "/" + pathElements[i];
+            ftpClient.makeDirectory(remoteDir); // fails harmlessly if it already exists
+        }
+        log.info("FTP upload: " + localFile.getName() + " -> " + remoteDir);
+        try (InputStream is = new BufferedInputStream(new FileInputStream(localFile))) {
+            checkReply(ftpClient.storeFile(remoteDir + "/" + pathElements[pathElements.length - 1], is), "Upload");
+        }
+    }
+
+    /**
+     * Deletes the remote file at the given path, relative to the given remote root directory.
+     * It is not an error if the remote file does not exist.
+     */
+    public void deleteFileAtPath(String remoteRootDir, String relativePath) throws IOException {
+        if (!isConnected()) {
+            throw new IOException("Not connected.");
+        }
+        String remotePath = remoteRootDir.endsWith("/")
+                ? remoteRootDir + relativePath
+                : remoteRootDir + "/" + relativePath;
+        log.info("FTP delete: " + remotePath);
+        if (!ftpClient.deleteFile(remotePath)) {
+            log.warning("Unable to delete remote file " + remotePath + ": " + ftpClient.getReplyString());
+        }
+    }
+
     /**
      * Reports whether the given named directory exists as a direct child of the given parent directory.
      * There doesn't seem to be an easy way to get this from FTPClient, so we enumerate all child
@@ -0,0 +1,392 @@
+package ca.corbett.packager.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates and applies binary patches between two versions of a jar file, so that a client
+ * that already has the old version only needs to download what actually changed.
+ * <p>
+ * The diff works at the level of zip entries. A jar is a sequence of entry records (a local
+ * header followed by the compressed data), then a central directory. Every record in the new
+ * jar that also appears, byte for byte, in the old jar is encoded as a reference to the old
+ * jar; everything else (new or modified entries, and the central directory) is included in
+ * the patch as-is. Entries whose timestamps change on every build never match, so this works
+ * best on jars that were normalized with JarNormalizer.
+ * </p>
+ * <p>
+ * A patch file starts with the SHA-256 hash of the jar it applies to and of the jar it produces,
+ * and apply() checks both, so a patch can never silently produce the wrong bytes. Files that
+ * can't be parsed as a zip (or that use zip64) still work, but the patch just contains the
+ * whole new file.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public final class JarDelta {
+
+    private static final byte[] MAGIC = "EXTJDIFF".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 1;
+    private static final int OP_COPY = 0;
+    private static final int OP_INSERT = 1;
+    private static final int HASH_LENGTH = 32;
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int EOCD_MIN_LENGTH = 22;
+
+    private JarDelta() {
+    }
+
+    /**
+     * The identifying information at the start of a patch file.
+     */
+    public static class Header {
+        public final String sourceHash;
+        public final String targetHash;
+        public final long targetLength;
+
+        Header(String sourceHash, String targetHash, long targetLength) {
+            this.sourceHash = sourceHash;
+            this.targetHash = targetHash;
+            this.targetLength = targetLength;
+        }
+    }
+
+    /**
+     * Writes a patch that turns the given old jar into the given new jar.
+     */
+    public static void create(File oldJar, File newJar, File patchFile) throws IOException {
+        try (FileChannel oldChannel = FileChannel.open(oldJar.toPath(), StandardOpenOption.READ);
+             FileChannel newChannel = FileChannel.open(newJar.toPath(), StandardOpenOption.READ)) {
+            Map<String, Segment> oldRecords = new HashMap<>();
+            for (Segment record : readRecords(oldChannel)) {
+                if (record.name != null) {
+                    oldRecords.putIfAbsent(record.name, record);
+                }
+            }
+
+            List<Op> ops = new ArrayList<>();
+            for (Segment record : readRecords(newChannel)) {
+                Segment match = record.name == null ? null : oldRecords.get(record.name);
+                if (match != null && match.length == record.length
+                        && contentEquals(oldChannel, match.offset, newChannel, record.offset, record.length)) {
+                    addOp(ops, OP_COPY, match.offset, record.length, 0);
+                }
+                else {
+                    addOp(ops, OP_INSERT, 0, record.length, record.offset);
+                }
+            }
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(patchFile.toPath())))) {
+                out.write(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.write(HexFormat.of().parseHex(FileHashCache.computeHash(oldJar)));
+                out.write(HexFormat.of().parseHex(FileHashCache.computeHash(newJar)));
+                out.writeLong(newChannel.size());
+                out.writeInt(ops.size());
+                for (Op op : ops) {
+                    out.writeByte(op.type);
+                    if (op.type == OP_COPY) {
+                        out.writeLong(op.sourceOffset);
+                        out.writeLong(op.length);
+                    }
+                    else {
+                        out.writeLong(op.length);
+                        copy(newChannel, op.insertOffset, op.length, out);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the given patch to the given old jar, writing the result to the given output file.
+     *
+     * @throws IOException If the patch doesn't apply to the given old jar, or if the result doesn't
+     *                     match what the patch says it should produce. The output file is deleted in that case.
+     */
+    public static void apply(File oldJar, File patchFile, File outputFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(patchFile.toPath())))) {
+            Header header = readHeader(in, patchFile);
+            if (!header.sourceHash.equals(FileHashCache.computeHash(oldJar))) {
+                throw new IOException("Patch " + patchFile.getName() + " does not apply to " + oldJar.getName());
+            }
+
+            MessageDigest digest = FileHashCache.newDigest();
+            boolean success = false;
+            try (FileChannel oldChannel = FileChannel.open(oldJar.toPath(), StandardOpenOption.READ);
+                 OutputStream out = new DigestOutputStream(
+                         new BufferedOutputStream(Files.newOutputStream(outputFile.toPath())), digest)) {
+                int opCount = in.readInt();
+                for (int i = 0; i < opCount; i++) {
+                    int type = in.readByte();
+                    if (type == OP_COPY) {
+                        long offset = in.readLong();
+                        copy(oldChannel, offset, in.readLong(), out);
+                    }
+                    else if (type == OP_INSERT) {
+                        long remaining = in.readLong();
+                        byte[] buffer = new byte[64 * 1024];
+                        while (remaining > 0) {
+                            int count = (int)Math.min(buffer.length, remaining);
+                            in.readFully(buffer, 0, count);
+                            out.write(buffer, 0, count);
+                            remaining -= count;
+                        }
+                    }
+                    else {
+                        throw new IOException("Patch " + patchFile.getName() + " is corrupt.");
+                    }
+                }
+                out.flush();
+                success = true;
+            }
+            finally {
+                if (!success) {
+                    Files.deleteIfExists(outputFile.toPath());
+                }
+            }
+
+            if (outputFile.length() != header.targetLength
+                    || !HexFormat.of().formatHex(digest.digest()).equals(header.targetHash)) {
+                Files.deleteIfExists(outputFile.toPath());
+                throw new IOException("Patch " + patchFile.getName() + " did not reproduce the expected jar.");
+            }
+        }
+    }
+
+    /**
+     * Reads just the header of the given patch file.
+     */
+    public static Header readHeader(File patchFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(patchFile.toPath()))) {
+            return readHeader(in, patchFile);
+        }
+    }
+
+    private static Header readHeader(DataInputStream in, File patchFile) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC) || in.readInt() != FORMAT_VERSION) {
+            throw new IOException(patchFile.getName() + " is not a jar patch file.");
+        }
+        byte[] hash = new byte[HASH_LENGTH];
+        in.readFully(hash);
+        String sourceHash = HexFormat.of().formatHex(hash);
+        in.readFully(hash);
+        String targetHash = HexFormat.of().formatHex(hash);
+        return new Header(sourceHash, targetHash, in.readLong());
+    }
+
+    /**
+     * Splits the given zip file into segments: one per entry record, in file order, named after
+     * the entry, and then unnamed segments for anything else (the central directory, and any
+     * leading data). If the file can't be parsed, the whole file is returned as one unnamed segment.
+     */
+    static List<Segment> readRecords(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        List<Segment> whole = List.of(new Segment(null, 0, fileSize));
+        if (fileSize < EOCD_MIN_LENGTH) {
+            return whole;
+        }
+
+        // The end of central directory record is at the very end, unless there's a trailing comment:
+        int tailLength = (int)Math.min(fileSize, EOCD_MIN_LENGTH + 0xFFFF);
+        ByteBuffer tail = ByteBuffer.wrap(read(channel, fileSize - tailLength, tailLength))
+                                    .order(ByteOrder.LITTLE_ENDIAN);
+        int eocd = -1;
+        for (int i = tailLength - EOCD_MIN_LENGTH; i >= 0; i--) {
+            if (tail.getInt(i) == EOCD_SIGNATURE) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd == -1) {
+            return whole;
+        }
+        int entryCount = tail.getShort(eocd + 10) & 0xFFFF;
+        long directorySize = tail.getInt(eocd + 12) & 0xFFFFFFFFL;
+        long directoryOffset = tail.getInt(eocd + 16) & 0xFFFFFFFFL;
+        if (entryCount == 0xFFFF || directoryOffset == 0xFFFFFFFFL
+                || directoryOffset + directorySize > fileSize || directorySize > Integer.MAX_VALUE) {
+            return whole; // zip64, or just broken
+        }
+
+        ByteBuffer directory = ByteBuffer.wrap(read(channel, directoryOffset, directorySize))
+                                         .order(ByteOrder.LITTLE_ENDIAN);
+        List<Segment> records = new ArrayList<>();
+        int position = 0;
+        for (int i = 0; i < entryCount; i++) {
+            if (position + 46 > directory.limit() || directory.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+                return whole;
+            }
+            int nameLength = directory.getShort(position + 28) & 0xFFFF;
+            int extraLength = directory.getShort(position + 30) & 0xFFFF;
+            int commentLength = directory.getShort(position + 32) & 0xFFFF;
+            long localOffset = directory.getInt(position + 42) & 0xFFFFFFFFL;
+            if (position + 46 + nameLength > directory.limit() || localOffset >= directoryOffset) {
+                return whole;
+            }
+            byte[] name = new byte[nameLength];
+            directory.get(position + 46, name);
+            records.add(new Segment(new String(name, StandardCharsets.UTF_8), localOffset, 0));
+            position += 46 + nameLength + extraLength + commentLength;
+        }
+
+        // Each record runs up to the start of the next one, which takes care of data descriptors:
+        records.sort(Comparator.comparingLong(segment -> segment.offset));
+        List<Segment> segments = new ArrayList<>();
+        long previousEnd = 0;
+        for (int i = 0; i < records.size(); i++) {
+            Segment record = records.get(i);
+            if (record.offset < previousEnd) {
+                return whole; // overlapping entries
+            }
+            if (record.offset > previousEnd) {
+                segments.add(new Segment(null, previousEnd, record.offset - previousEnd));
+            }
+            long end = i + 1 < records.size() ? records.get(i + 1).offset : directoryOffset;
+            segments.add(new Segment(record.name, record.offset, end - record.offset));
+            previousEnd = end;
+        }
+        if (fileSize > previousEnd) {
+            segments.add(new Segment(null, previousEnd, fileSize - previousEnd));
+        }
+        return segments;
+    }
+
+    /**
+     * Adds the given operation, merging it into the previous one if they are contiguous.
+     */
+    private static void addOp(List<Op> ops, int type, long sourceOffset, long length, long insertOffset) {
+        if (length == 0) {
+            return;
+        }
+        Op last = ops.isEmpty() ? null : ops.get(ops.size() - 1);
+        if (last != null && last.type == type && type == OP_COPY && last.sourceOffset + last.length == sourceOffset) {
+            last.length += length;
+        }
+        else if (last != null && last.type == type && type == OP_INSERT
+                && last.insertOffset + last.length == insertOffset) {
+            last.length += length;
+        }
+        else {
+            ops.add(new Op(type, sourceOffset, length, insertOffset));
+        }
+    }
+
+    /**
+     * Reads the given range of the given file into memory. This is only for the small parts of a zip
+     * file that have to be parsed (its tail and central directory); entry records are compared and
+     * copied in chunks instead, so that a huge entry never has to fit in memory.
+     */
+    private static byte[] read(FileChannel channel, long offset, long length) throws IOException {
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("Can't read " + length + " bytes at offset " + offset + " into memory.");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int)length);
+        readFully(channel, buffer, offset);
+        return buffer.array();
+    }
+
+    /**
+     * Reports whether the given ranges of the two given files hold the same bytes, reading them in chunks.
+     */
+    private static boolean contentEquals(FileChannel channelA, long offsetA, FileChannel channelB, long offsetB,
+                                         long length) throws IOException {
+        ByteBuffer bufferA = ByteBuffer.allocate(64 * 1024);
+        ByteBuffer bufferB = ByteBuffer.allocate(64 * 1024);
+        long position = 0;
+        while (position < length) {
+            int count = (int)Math.min(bufferA.capacity(), length - position);
+            bufferA.clear().limit(count);
+            bufferB.clear().limit(count);
+            readFully(channelA, bufferA, offsetA + position);
+            readFully(channelB, bufferB, offsetB + position);
+            if (!bufferA.flip().equals(bufferB.flip())) {
+                return false;
+            }
+            position += count;
+        }
+        return true;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            int count = channel.read(buffer, position);
+            if (count == -1) {
+                throw new IOException("Unexpected end of file.");
+            }
+            position += count;
+        }
+    }
+
+    private static void copy(FileChannel channel, long offset, long length, OutputStream out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long position = offset;
+        long end = offset + length;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int)Math.min(buffer.capacity(), end - position));
+            int count = channel.read(buffer, position);
+            if (count == -1) {
+                throw new IOException("Unexpected end of file.");
+            }
+            out.write(buffer.array(), 0, count);
+            position += count;
+        }
+    }
+
+    /**
+     * A contiguous range of a file, optionally named after the zip entry that it holds.
+     */
+    static class Segment {
+        final String name;
+        final long offset;
+        final long length;
+
+        Segment(String name, long offset, long length) {
+            this.name = name;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static class Op {
+        final int type;
+        final long sourceOffset;
+        final long insertOffset;
+        long length;
+
+        Op(int type, long sourceOffset, long length, long insertOffset) {
+            this.type = type;
+            this.sourceOffset = sourceOffset;
+            this.length = length;
+            this.insertOffset = insertOffset;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ca.corbett.packager.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Checks that a jar file is intact, by reading every entry in full and comparing its size and
+ * CRC against the values recorded in the jar's central directory. This catches jars that were
+ * truncated or corrupted on their way to us, which otherwise would import and publish without
+ * complaint (as long as extInfo.json happened to be readable) and only fail on the client.
+ * <p>
+ * ZipFile doesn't check CRCs itself when reading entries, so we compute them here.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public final class JarIntegrityChecker {
+
+    private JarIntegrityChecker() {
+    }
+
+    /**
+     * Reads the given jar in full, and returns normally if every entry checks out.
+     *
+     * @throws IOException If the jar can't be opened as a zip file, or if any entry is damaged.
+     *                     The message names the first damaged entry.
+     */
+    public static void verify(File jarFile) throws IOException {
+        try (ZipFile zipFile = new ZipFile(jarFile)) {
+            byte[] buffer = new byte[64 * 1024];
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                CRC32 crc = new CRC32();
+                long size = 0;
+                try (InputStream in = zipFile.getInputStream(entry)) {
+                    int count;
+                    while ((count = in.read(buffer)) != -1) {
+                        crc.update(buffer, 0, count);
+                        size += count;
+                    }
+                }
+                catch (IOException ioe) {
+                    throw new IOException("Entry " + entry.getName() + " is unreadable: " + ioe.getMessage(), ioe);
+                }
+                if (entry.getSize() != -1 && entry.getSize() != size) {
+                    throw new IOException("Entry " + entry.getName() + " has the wrong size.");
+                }
+                if (entry.getCrc() != -1 && entry.getCrc() != crc.getValue()) {
+                    throw new IOException("Entry " + entry.getName() + " fails its CRC check.");
+                }
+            }
+        }
+        catch (ZipException ze) {
+            throw new IOException("Not a readable jar file: " + ze.getMessage(), ze);
+        }
+    }
+}
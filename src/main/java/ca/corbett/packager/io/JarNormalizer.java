@@ -0,0 +1,225 @@
+package ca.corbett.packager.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Rewrites jar files into a canonical form, so that two builds of the same extension source
+ * produce byte-for-byte identical jars. A normal rebuild changes every entry's timestamp, and
+ * may change the order of entries and some manifest attributes, so without this, content hashes,
+ * signatures, and delta uploads all see a changed jar even though nothing has really changed.
+ * <p>
+ * The canonical form is:
+ * </p>
+ * <ul>
+ *     <li>META-INF/ and META-INF/MANIFEST.MF first (where JarInputStream expects them),
+ *         followed by all other entries sorted by name.</li>
+ *     <li>Every entry has the same fixed timestamp, and no extra fields or comments.</li>
+ *     <li>The manifest is rewritten with its attributes in a fixed order (Manifest-Version first,
+ *         then alphabetical) and with volatile build attributes, such as build timestamps and
+ *         the name of the user who ran the build, removed.</li>
+ * </ul>
+ * <p>
+ * Entry contents are never changed. Jars that are signed with jarsigner are copied as-is,
+ * because rewriting their manifest would invalidate the signature. Normalizing a jar that
+ * is already normalized produces the same bytes again.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public final class JarNormalizer {
+
+    private static final Logger log = Logger.getLogger(JarNormalizer.class.getName());
+
+    /**
+     * The timestamp given to every entry. This is the same as the default used by
+     * Maven's reproducible builds support, and it's well clear of the DOS epoch.
+     */
+    static final LocalDateTime FIXED_TIMESTAMP = LocalDateTime.of(1980, 2, 1, 0, 0, 0);
+
+    /**
+     * Manifest attributes that change from build to build without reflecting any real change.
+     */
+    static final Set<String> VOLATILE_ATTRIBUTES = Set.of("bnd-lastmodified",
+                                                          "build-date",
+                                                          "build-time",
+                                                          "build-timestamp",
+                                                          "built-by",
+                                                          "built-date");
+
+    private static final String META_INF = "META-INF/";
+
+    private JarNormalizer() {
+    }
+
+    /**
+     * Writes a normalized copy of the given source jar to the given target file, overwriting
+     * the target if it exists. The source and target must be different files.
+     */
+    public static void normalize(File sourceJar, File targetJar) throws IOException {
+        try (ZipFile zipFile = new ZipFile(sourceJar)) {
+            List<ZipEntry> entries = new ArrayList<>(Collections.list(zipFile.entries()));
+            if (isJarSigned(entries)) {
+                log.info("Not normalizing signed jar: " + sourceJar.getName());
+                Files.copy(sourceJar.toPath(), targetJar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                return;
+            }
+
+            try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(targetJar.toPath()))) {
+                out.setLevel(Deflater.DEFAULT_COMPRESSION);
+                for (ZipEntry entry : sortEntries(entries)) {
+                    byte[] contents;
+                    try (InputStream in = zipFile.getInputStream(entry)) {
+                        contents = in.readAllBytes();
+                    }
+                    if (entry.getName().equalsIgnoreCase(JarFile.MANIFEST_NAME)) {
+                        contents = normalizeManifest(contents);
+                    }
+                    writeEntry(out, entry.getName(), contents);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the given entries in canonical order: META-INF/ and the manifest first,
+     * then everything else sorted by name. Duplicate names (which a zip file can technically
+     * contain) are reduced to the first occurrence.
+     */
+    static List<ZipEntry> sortEntries(List<ZipEntry> entries) {
+        Map<String, ZipEntry> sorted = new TreeMap<>();
+        ZipEntry metaInfDir = null;
+        ZipEntry manifest = null;
+        for (ZipEntry entry : entries) {
+            String name = entry.getName();
+            if (name.equalsIgnoreCase(META_INF) && metaInfDir == null) {
+                metaInfDir = entry;
+            }
+            else if (name.equalsIgnoreCase(JarFile.MANIFEST_NAME) && manifest == null) {
+                manifest = entry;
+            }
+            else {
+                sorted.putIfAbsent(name, entry);
+            }
+        }
+        List<ZipEntry> result = new ArrayList<>();
+        if (metaInfDir != null) {
+            result.add(metaInfDir);
+        }
+        if (manifest != null) {
+            result.add(manifest);
+        }
+        result.addAll(sorted.values());
+        return result;
+    }
+
+    /**
+     * Parses the given manifest and writes it back out in canonical form.
+     */
+    static byte[] normalizeManifest(byte[] manifestBytes) throws IOException {
+        Manifest manifest = new Manifest(new ByteArrayInputStream(manifestBytes));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeAttributes(out, manifest.getMainAttributes(), true);
+        out.write('\r');
+        out.write('\n');
+
+        Map<String, Attributes> sections = new TreeMap<>(manifest.getEntries());
+        for (Map.Entry<String, Attributes> section : sections.entrySet()) {
+            writeAttribute(out, "Name", section.getKey());
+            writeAttributes(out, section.getValue(), false);
+            out.write('\r');
+            out.write('\n');
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeAttributes(OutputStream out, Attributes attributes, boolean isMainSection)
+            throws IOException {
+        Map<String, String> sorted = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        String manifestVersion = null;
+        for (Map.Entry<Object, Object> attribute : attributes.entrySet()) {
+            String name = attribute.getKey().toString();
+            if (isMainSection && name.equalsIgnoreCase(Attributes.Name.MANIFEST_VERSION.toString())) {
+                manifestVersion = attribute.getValue().toString();
+            }
+            else if (!VOLATILE_ATTRIBUTES.contains(name.toLowerCase(Locale.ROOT))) {
+                sorted.put(name, attribute.getValue().toString());
+            }
+        }
+        if (isMainSection) {
+            writeAttribute(out, Attributes.Name.MANIFEST_VERSION.toString(),
+                           manifestVersion == null ? "1.0" : manifestVersion);
+        }
+        for (Map.Entry<String, String> attribute : sorted.entrySet()) {
+            writeAttribute(out, attribute.getKey(), attribute.getValue());
+        }
+    }
+
+    /**
+     * Writes a single "name: value" manifest line, wrapped at 72 bytes per line as the jar
+     * specification requires. Lines are only broken between characters, never in the middle
+     * of a multibyte UTF-8 sequence.
+     */
+    private static void writeAttribute(OutputStream out, String name, String value) throws IOException {
+        String line = name + ": " + value;
+        int lineLength = 0;
+        int maxLength = 72;
+        for (int i = 0; i < line.length(); ) {
+            int codePoint = line.codePointAt(i);
+            byte[] bytes = new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8);
+            if (lineLength + bytes.length > maxLength) {
+                out.write(new byte[]{'\r', '\n', ' '});
+                lineLength = 1;
+            }
+            out.write(bytes);
+            lineLength += bytes.length;
+            i += Character.charCount(codePoint);
+        }
+        out.write('\r');
+        out.write('\n');
+    }
+
+    private static void writeEntry(ZipOutputStream out, String name, byte[] contents) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTimeLocal(FIXED_TIMESTAMP);
+        out.putNextEntry(entry);
+        out.write(contents);
+        out.closeEntry();
+    }
+
+    /**
+     * A jar signed with jarsigner has a signature file (*.SF) in META-INF.
+     */
+    static boolean isJarSigned(List<ZipEntry> entries) {
+        for (ZipEntry entry : entries) {
+            String name = entry.getName().toUpperCase(Locale.ROOT);
+            if (name.startsWith(META_INF) && name.indexOf('/', META_INF.length()) == -1 && name.endsWith(".SF")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
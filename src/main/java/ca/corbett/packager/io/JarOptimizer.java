@@ -0,0 +1,385 @@
+package ca.corbett.packager.io;
+
+import ca.corbett.extensions.AppExtensionInfo;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarInputStream;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Shrinks extension jars before they are published, so that clients have less to download.
+ * Every entry is recompressed at the maximum deflate level (or stored, if compression doesn't
+ * help, as with images that are already compressed), and entries matching any of a configurable
+ * list of glob patterns (for example, source files that some builds include) are removed.
+ * Entry order and timestamps are preserved, so a jar that was normalized by JarNormalizer
+ * stays reproducible.
+ * <p>
+ * Compression is CPU-bound, so entries are compressed in parallel, one per available core,
+ * and then written out in their original order. This means the whole jar is held in memory
+ * while it is being optimized, which is fine for extension jars but not for arbitrarily
+ * large archives.
+ * </p>
+ * <p>
+ * The optimized jar is read back in full before optimize() returns: every entry must pass its
+ * CRC check, and extInfo.json must still be present and well-formed. Jars that are signed
+ * with jarsigner are copied as-is, since removing entries would invalidate the signature.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public final class JarOptimizer {
+
+    private static final Logger log = Logger.getLogger(JarOptimizer.class.getName());
+
+    private static final String EXT_INFO_NAME = "extInfo.json";
+
+    /**
+     * The classic zip format (without zip64 extensions) can't describe anything larger than this.
+     */
+    private static final long ZIP_LIMIT = 0xFFFFFFFFL;
+    private static final int ZIP_ENTRY_LIMIT = 0xFFFF;
+
+    private final List<String> stripPatterns;
+    private final List<Pattern> stripRegexes;
+
+    /**
+     * The outcome of optimizing a single jar.
+     */
+    public static class Result {
+        public final long originalSize;
+        public final long optimizedSize;
+        public final int strippedEntries;
+        public final int duplicateEntries;
+
+        Result(long originalSize, long optimizedSize, int strippedEntries, int duplicateEntries) {
+            this.originalSize = originalSize;
+            this.optimizedSize = optimizedSize;
+            this.strippedEntries = strippedEntries;
+            this.duplicateEntries = duplicateEntries;
+        }
+
+        public long getBytesSaved() {
+            return originalSize - optimizedSize;
+        }
+
+        @Override
+        public String toString() {
+            return originalSize + " bytes -> " + optimizedSize + " bytes (" + getBytesSaved() + " saved, "
+                    + strippedEntries + " entries removed"
+                    + (duplicateEntries > 0 ? ", " + duplicateEntries + " duplicate entries dropped)" : ")");
+        }
+    }
+
+    /**
+     * Creates an optimizer that removes any entries matching the given glob patterns.
+     * In a pattern, "*" matches anything except a slash, "**" matches anything at all,
+     * and "?" matches any single character except a slash. For example, "**&#47;*.java" matches
+     * java source files in any directory, and "META-INF/maven/**" matches everything under
+     * META-INF/maven. Blank and repeated patterns are ignored.
+     */
+    public JarOptimizer(List<String> stripPatterns) {
+        this.stripPatterns = new ArrayList<>();
+        this.stripRegexes = new ArrayList<>();
+        for (String pattern : stripPatterns) {
+            if (pattern != null && !pattern.isBlank() && !this.stripPatterns.contains(pattern.trim())) {
+                this.stripPatterns.add(pattern.trim());
+                this.stripRegexes.add(globToRegex(pattern.trim()));
+            }
+        }
+    }
+
+    public List<String> getStripPatterns() {
+        return Collections.unmodifiableList(stripPatterns);
+    }
+
+    /**
+     * Reports whether the given entry name matches any of our strip patterns.
+     * The extInfo.json and the manifest are never stripped, regardless of pattern.
+     */
+    public boolean isStripped(String entryName) {
+        if (entryName.equals(EXT_INFO_NAME) || entryName.equalsIgnoreCase("META-INF/MANIFEST.MF")) {
+            return false;
+        }
+        for (Pattern regex : stripRegexes) {
+            if (regex.matcher(entryName).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes an optimized copy of the given source jar to the given target file, overwriting
+     * the target if it exists, and returns a summary of the savings. The source and target
+     * must be different files.
+     *
+     * @throws IOException If the jar can't be read or written, or if the optimized jar fails verification.
+     */
+    public Result optimize(File sourceJar, File targetJar) throws IOException {
+        long originalSize = sourceJar.length();
+        List<CompressedEntry> compressed;
+        int strippedCount = 0;
+        int duplicateCount = 0;
+        try (ZipFile zipFile = new ZipFile(sourceJar)) {
+            List<ZipEntry> entries = new ArrayList<>();
+            Set<String> seenNames = new HashSet<>();
+            for (ZipEntry entry : Collections.list(zipFile.entries())) {
+                if (isStripped(entry.getName())) {
+                    strippedCount++;
+                    continue;
+                }
+                if (!seenNames.add(entry.getName())) {
+                    duplicateCount++;
+                    continue;
+                }
+                entries.add(entry);
+            }
+            if (JarNormalizer.isJarSigned(entries) || entries.size() > ZIP_ENTRY_LIMIT) {
+                log.info("Not optimizing jar: " + sourceJar.getName());
+                Files.copy(sourceJar.toPath(), targetJar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                return new Result(originalSize, originalSize, 0, 0);
+            }
+            compressed = compressAll(zipFile, entries);
+        }
+
+        long totalSize = 0;
+        for (CompressedEntry entry : compressed) {
+            totalSize += entry.data.length + entry.nameBytes.length * 2L + 76;
+        }
+        if (totalSize > ZIP_LIMIT) {
+            log.info("Not optimizing jar, it's too large: " + sourceJar.getName());
+            Files.copy(sourceJar.toPath(), targetJar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return new Result(originalSize, originalSize, 0, 0);
+        }
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(targetJar.toPath()))) {
+            writeZip(out, compressed);
+        }
+        verify(targetJar);
+        return new Result(originalSize, targetJar.length(), strippedCount, duplicateCount);
+    }
+
+    /**
+     * Compresses the given entries in parallel (see ParallelTasks) and returns the results in the
+     * same order. ZipFile is safe to read from several threads at once.
+     */
+    private static List<CompressedEntry> compressAll(ZipFile zipFile, List<ZipEntry> entries) throws IOException {
+        return ParallelTasks.runAll(entries, entry -> compress(zipFile, entry), "compressing jar entries");
+    }
+
+    private static CompressedEntry compress(ZipFile zipFile, ZipEntry entry) throws IOException {
+        byte[] contents;
+        try (InputStream in = zipFile.getInputStream(entry)) {
+            contents = in.readAllBytes();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(contents);
+
+        CompressedEntry result = new CompressedEntry();
+        result.nameBytes = entry.getName().getBytes(StandardCharsets.UTF_8);
+        result.dosTime = toDosTime(entry.getTimeLocal());
+        result.crc = crc.getValue();
+        result.size = contents.length;
+        result.method = ZipEntry.STORED;
+        result.data = contents;
+
+        if (contents.length > 0) {
+            byte[] deflated = deflate(contents);
+            if (deflated.length < contents.length) {
+                result.method = ZipEntry.DEFLATED;
+                result.data = deflated;
+            }
+        }
+        return result;
+    }
+
+    private static byte[] deflate(byte[] contents) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(contents);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(contents.length / 2 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        }
+        finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Writes the given entries out as a zip file: a local header and data for each entry,
+     * followed by the central directory. We write this ourselves because ZipOutputStream
+     * insists on doing its own (single-threaded) compression.
+     */
+    private static void writeZip(OutputStream out, List<CompressedEntry> entries) throws IOException {
+        long offset = 0;
+        for (CompressedEntry entry : entries) {
+            entry.headerOffset = offset;
+            writeInt(out, 0x04034b50);
+            writeShort(out, entry.getVersionNeeded());
+            writeShort(out, 0x0800); // names are UTF-8
+            writeShort(out, entry.method);
+            writeInt(out, entry.dosTime);
+            writeInt(out, entry.crc);
+            writeInt(out, entry.data.length);
+            writeInt(out, entry.size);
+            writeShort(out, entry.nameBytes.length);
+            writeShort(out, 0); // no extra field
+            out.write(entry.nameBytes);
+            out.write(entry.data);
+            offset += 30 + entry.nameBytes.length + entry.data.length;
+        }
+
+        long directoryOffset = offset;
+        for (CompressedEntry entry : entries) {
+            writeInt(out, 0x02014b50);
+            writeShort(out, 20); // made by: zip 2.0, MS-DOS attributes
+            writeShort(out, entry.getVersionNeeded());
+            writeShort(out, 0x0800);
+            writeShort(out, entry.method);
+            writeInt(out, entry.dosTime);
+            writeInt(out, entry.crc);
+            writeInt(out, entry.data.length);
+            writeInt(out, entry.size);
+            writeShort(out, entry.nameBytes.length);
+            writeShort(out, 0); // extra field length
+            writeShort(out, 0); // comment length
+            writeShort(out, 0); // disk number
+            writeShort(out, 0); // internal attributes
+            writeInt(out, 0); // external attributes
+            writeInt(out, entry.headerOffset);
+            out.write(entry.nameBytes);
+            offset += 46 + entry.nameBytes.length;
+        }
+
+        writeInt(out, 0x06054b50);
+        writeShort(out, 0); // this disk
+        writeShort(out, 0); // disk with the central directory
+        writeShort(out, entries.size());
+        writeShort(out, entries.size());
+        writeInt(out, offset - directoryOffset);
+        writeInt(out, directoryOffset);
+        writeShort(out, 0); // comment length
+    }
+
+    /**
+     * Reads the given jar back in full, which checks the CRC and size of every entry,
+     * and makes sure that it still contains a well-formed extInfo.json.
+     */
+    static void verify(File jarFile) throws IOException {
+        boolean foundExtInfo = false;
+        try (JarInputStream in = new JarInputStream(Files.newInputStream(jarFile.toPath()), false)) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                byte[] contents = in.readAllBytes();
+                if (entry.getName().equals(EXT_INFO_NAME)) {
+                    AppExtensionInfo extInfo = AppExtensionInfo.fromJson(new String(contents, StandardCharsets.UTF_8));
+                    if (extInfo == null || !extInfo.isValid()) {
+                        throw new IOException("Optimized jar " + jarFile.getName() + " has an invalid extInfo.json.");
+                    }
+                    foundExtInfo = true;
+                }
+            }
+        }
+        if (!foundExtInfo) {
+            throw new IOException("Optimized jar " + jarFile.getName() + " does not contain extInfo.json.");
+        }
+    }
+
+    /**
+     * Converts a glob pattern as described in the constructor into a regular expression.
+     */
+    static Pattern globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                if (i + 2 < glob.length() && glob.charAt(i + 2) == '/') {
+                    regex.append("(?:.*/)?"); // "**/" also matches no directory at all
+                    i += 2;
+                }
+                else {
+                    regex.append(".*");
+                    i++;
+                }
+            }
+            else if (c == '*') {
+                regex.append("[^/]*");
+            }
+            else if (c == '?') {
+                regex.append("[^/]");
+            }
+            else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    /**
+     * Converts a timestamp to the packed MS-DOS date and time used in zip headers.
+     * Anything before 1980 (which DOS can't represent) is clamped to the start of 1980.
+     */
+    static long toDosTime(LocalDateTime time) {
+        if (time == null || time.getYear() < 1980) {
+            time = LocalDateTime.of(1980, 1, 1, 0, 0);
+        }
+        return ((long)(time.getYear() - 1980) << 25)
+                | ((long)time.getMonthValue() << 21)
+                | ((long)time.getDayOfMonth() << 16)
+                | ((long)time.getHour() << 11)
+                | ((long)time.getMinute() << 5)
+                | (time.getSecond() >> 1);
+    }
+
+    private static void writeShort(OutputStream out, int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+    }
+
+    private static void writeInt(OutputStream out, long value) throws IOException {
+        writeShort(out, (int)(value & 0xFFFF));
+        writeShort(out, (int)((value >>> 16) & 0xFFFF));
+    }
+
+    /**
+     * A single entry, compressed and ready to be written.
+     */
+    private static class CompressedEntry {
+        byte[] nameBytes;
+        long dosTime;
+        long crc;
+        long size;
+        int method;
+        byte[] data;
+        long headerOffset;
+
+        int getVersionNeeded() {
+            return method == ZipEntry.DEFLATED ? 20 : 10;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ca.corbett.packager.io;
+
+import ca.corbett.extras.crypt.SignatureUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * Saves and loads public and private key files for any SigningScheme.
+ * <p>
+ * RSA keys are saved and loaded by SignatureUtil in swing-extras, exactly as before,
+ * so existing key files (and client applications that load them) are unaffected.
+ * Keys for any other scheme are saved as a header line naming the signature algorithm,
+ * followed by the base64-encoded key (X.509 for public keys, PKCS#8 for private keys).
+ * On load, a file with that header is decoded for the scheme it names, and a file
+ * without it is assumed to be an RSA key in SignatureUtil's format.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public final class KeyFiles {
+
+    /**
+     * The first line of any non-RSA key file starts with this, followed by the signature algorithm.
+     */
+    static final String ALGORITHM_HEADER = "# signature-algorithm: ";
+
+    private KeyFiles() {
+    }
+
+    public static void savePublicKey(PublicKey publicKey, File file) throws IOException {
+        if (SigningScheme.forKey(publicKey) == SigningScheme.RSA) {
+            SignatureUtil.savePublicKey(publicKey, file);
+            return;
+        }
+        writeKeyFile(publicKey, file);
+    }
+
+    public static void savePrivateKey(PrivateKey privateKey, File file) throws IOException {
+        if (SigningScheme.forKey(privateKey) == SigningScheme.RSA) {
+            SignatureUtil.savePrivateKey(privateKey, file);
+            return;
+        }
+        writeKeyFile(privateKey, file);
+    }
+
+    public static PublicKey loadPublicKey(File file) throws Exception {
+        SigningScheme scheme = readScheme(file);
+        if (scheme == null) {
+            return SignatureUtil.loadPublicKey(file);
+        }
+        return KeyFactory.getInstance(scheme.getKeyAlgorithm())
+                         .generatePublic(new X509EncodedKeySpec(readEncodedKey(file)));
+    }
+
+    public static PrivateKey loadPrivateKey(File file) throws Exception {
+        SigningScheme scheme = readScheme(file);
+        if (scheme == null) {
+            return SignatureUtil.loadPrivateKey(file);
+        }
+        return KeyFactory.getInstance(scheme.getKeyAlgorithm())
+                         .generatePrivate(new PKCS8EncodedKeySpec(readEncodedKey(file)));
+    }
+
+    /**
+     * Returns the scheme named in the header of the given key file,
+     * or null if the file has no header (meaning it's a legacy RSA key).
+     */
+    static SigningScheme readScheme(File file) throws IOException {
+        String firstLine = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).stream()
+                                .findFirst().orElse("");
+        if (!firstLine.startsWith(ALGORITHM_HEADER)) {
+            return null;
+        }
+        String id = firstLine.substring(ALGORITHM_HEADER.length()).trim();
+        SigningScheme scheme = SigningScheme.fromId(id);
+        if (!scheme.getSignatureAlgorithm().equalsIgnoreCase(id)) {
+            throw new IOException("Unsupported signature algorithm \"" + id + "\" in " + file.getAbsolutePath());
+        }
+        return scheme;
+    }
+
+    private static void writeKeyFile(Key key, File file) throws IOException {
+        String contents = ALGORITHM_HEADER + SigningScheme.forKey(key).getSignatureAlgorithm() + "\n"
+                + Base64.getEncoder().encodeToString(key.getEncoded()) + "\n";
+        Files.writeString(file.toPath(), contents, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readEncodedKey(File file) throws IOException, GeneralSecurityException {
+        StringBuilder encoded = new StringBuilder();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            if (!line.startsWith("#")) {
+                encoded.append(line.trim());
+            }
+        }
+        try {
+            return Base64.getDecoder().decode(encoded.toString());
+        }
+        catch (IllegalArgumentException iae) {
+            throw new GeneralSecurityException("Key file is not valid: " + file.getAbsolutePath(), iae);
+        }
+    }
+}
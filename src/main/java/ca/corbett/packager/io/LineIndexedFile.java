@@ -0,0 +1,201 @@
+package ca.corbett.packager.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Provides random access to the lines of a text file without reading the whole file into memory.
+ * When the file is opened, we make one streaming pass over it to record the byte offset of
+ * the start of each line. After that, any range of lines can be fetched with a single positional
+ * read, so a viewer can page through a very large file while only ever holding one page of it.
+ * <p>
+ * We deliberately use positional reads instead of memory-mapping the file. The files we show
+ * this way (version manifests, update sources) are rewritten on every project save. A live mapping
+ * would prevent that rewrite on Windows, and on other platforms, touching a mapped region of a file
+ * that has since been truncated crashes with an InternalError instead of an IOException.
+ * Use isStale() to find out whether the file has changed since it was indexed, and reload() to
+ * re-index it.
+ * </p>
+ * <p>
+ * The file is assumed to be UTF-8. Lines may end with either \n or \r\n.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public class LineIndexedFile implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private FileChannel channel;
+    private long[] lineOffsets;
+    private int lineCount;
+    private long indexedSize;
+    private long indexedLastModified;
+
+    private LineIndexedFile(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens and indexes the given file. The caller must close() it when done.
+     */
+    public static LineIndexedFile open(File file) throws IOException {
+        LineIndexedFile indexedFile = new LineIndexedFile(file);
+        indexedFile.reload();
+        return indexedFile;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the number of lines in the file, as of the last time it was indexed.
+     * An empty file has zero lines. A trailing line terminator does not start a new line.
+     */
+    public synchronized int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Reports whether the file has changed on disk since it was last indexed.
+     */
+    public synchronized boolean isStale() {
+        return file.length() != indexedSize || file.lastModified() != indexedLastModified;
+    }
+
+    /**
+     * Discards the current index (if any), and re-opens and re-indexes the file.
+     */
+    public synchronized void reload() throws IOException {
+        close();
+        indexedLastModified = file.lastModified();
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        lineOffsets = new long[1024];
+        lineCount = 0;
+
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = 0;
+        boolean atLineStart = true;
+        while (channel.read(buffer, position) > 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                if (atLineStart) {
+                    addLineOffset(position);
+                    atLineStart = false;
+                }
+                if (buffer.get() == '\n') {
+                    atLineStart = true;
+                }
+                position++;
+            }
+            buffer.clear();
+        }
+        indexedSize = position;
+        lineOffsets = Arrays.copyOf(lineOffsets, lineCount + 1);
+        lineOffsets[lineCount] = indexedSize; // sentinel, so the end of the last line is easy to find
+    }
+
+    /**
+     * Returns the line at the given zero-based index, without its line terminator.
+     */
+    public String getLine(int index) throws IOException {
+        return getLines(index, 1).get(0);
+    }
+
+    /**
+     * Returns up to count lines, starting from the given zero-based index. Fewer lines are returned
+     * if the end of the file is reached. The lines are fetched with a single read.
+     */
+    public synchronized List<String> getLines(int firstLine, int count) throws IOException {
+        if (channel == null) {
+            throw new IOException("File is closed: " + file.getAbsolutePath());
+        }
+        if (firstLine < 0 || firstLine >= lineCount || count < 1) {
+            throw new IndexOutOfBoundsException("Invalid line range: " + firstLine + " + " + count);
+        }
+        int lastLine = Math.min(lineCount, firstLine + count); // exclusive
+        long start = lineOffsets[firstLine];
+        long end = lineOffsets[lastLine];
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IOException("Requested line range is too large.");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int)(end - start));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                break; // file was truncated underneath us; return what we have
+            }
+        }
+        byte[] bytes = buffer.array();
+        int available = buffer.position();
+
+        List<String> lines = new ArrayList<>(lastLine - firstLine);
+        for (int i = firstLine; i < lastLine; i++) {
+            int lineStart = (int)Math.min(lineOffsets[i] - start, available);
+            int lineEnd = (int)Math.min(lineOffsets[i + 1] - start, available);
+            if (lineEnd > lineStart && bytes[lineEnd - 1] == '\n') {
+                lineEnd--;
+            }
+            if (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+            lines.add(new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8));
+        }
+        return lines;
+    }
+
+    /**
+     * Searches for the given text (case-insensitive), starting at the given line and wrapping around
+     * to the top of the file if needed. Returns the index of the first matching line, or -1 if
+     * there is no match anywhere. The file is read one chunk at a time, not all at once.
+     */
+    public int find(String text, int fromLine) throws IOException {
+        int totalLines = getLineCount();
+        if (text == null || text.isEmpty() || totalLines == 0) {
+            return -1;
+        }
+        String needle = text.toLowerCase(Locale.ROOT);
+        int startLine = (fromLine < 0 || fromLine >= totalLines) ? 0 : fromLine;
+        final int chunkSize = 1000;
+        int searched = 0;
+        int line = startLine;
+        while (searched < totalLines) {
+            int count = Math.min(chunkSize, Math.min(totalLines - line, totalLines - searched));
+            List<String> lines = getLines(line, count);
+            for (int i = 0; i < lines.size(); i++) {
+                if (lines.get(i).toLowerCase(Locale.ROOT).contains(needle)) {
+                    return line + i;
+                }
+            }
+            searched += count;
+            line = (line + count) % totalLines;
+        }
+        return -1;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void addLineOffset(long offset) {
+        if (lineCount + 1 >= lineOffsets.length) {
+            lineOffsets = Arrays.copyOf(lineOffsets, lineOffsets.length * 2);
+        }
+        lineOffsets[lineCount++] = offset;
+    }
+}
@@ -0,0 +1,102 @@
+package ca.corbett.packager.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a task over a list of inputs in parallel, on one pool of worker threads that is shared
+ * by the whole app, so that importing a jar with many entries or a bundle with many screenshots
+ * doesn't start and stop a fresh set of threads every time. The pool has one daemon thread per
+ * available core, and is created the first time it's needed.
+ * <p>
+ * A single input is run inline on the calling thread, since there's nothing to gain from a
+ * thread hop. So is anything that's called from one of the pool's own threads, because a task
+ * that waited on the bounded pool from inside it could wait forever.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public final class ParallelTasks {
+
+    private static ExecutorService executor;
+
+    private ParallelTasks() {
+    }
+
+    /**
+     * A task that is run once for each input.
+     */
+    @FunctionalInterface
+    public interface Task<T, R> {
+        R run(T input) throws IOException;
+    }
+
+    /**
+     * Runs the given task once for each of the given inputs, in parallel, and returns the results
+     * in the same order as the inputs. If any task fails, the ones that haven't started yet are
+     * canceled, and the first failure (in input order) is thrown.
+     *
+     * @param description What's being done, for error messages. For example "compressing jar entries".
+     * @throws IOException If any task fails, or if the calling thread is interrupted while waiting.
+     */
+    public static <T, R> List<R> runAll(List<T> inputs, Task<T, R> task, String description) throws IOException {
+        List<R> results = new ArrayList<>();
+        if (inputs.size() < 2 || Thread.currentThread() instanceof WorkerThread) {
+            for (T input : inputs) {
+                results.add(task.run(input));
+            }
+            return results;
+        }
+
+        ExecutorService pool = getExecutor();
+        List<Future<R>> futures = new ArrayList<>();
+        try {
+            for (T input : inputs) {
+                futures.add(pool.submit(() -> task.run(input)));
+            }
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while " + description + ".", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioe) {
+                throw ioe;
+            }
+            throw new IOException("Problem while " + description + ": " + e.getCause().getMessage(), e.getCause());
+        }
+        finally {
+            // A no-op for anything that already finished:
+            for (Future<R> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                                                    runnable -> new WorkerThread(runnable,
+                                                                                 threadCount.incrementAndGet()));
+        }
+        return executor;
+    }
+
+    private static final class WorkerThread extends Thread {
+        WorkerThread(Runnable runnable, int number) {
+            super(runnable, "ParallelTasks-" + number);
+            setDaemon(true);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package ca.corbett.packager.io;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * Converts screenshot images into a size and format suitable for hosting. Each image is
+ * decoded, scaled down if either dimension exceeds a configured maximum, and re-encoded as
+ * a jpeg at a configured quality. Images are processed in parallel, one per available core,
+ * because decoding and encoding large images is almost entirely CPU-bound.
+ * <p>
+ * Some images are copied as-is instead of being transcoded: gif images (which may be
+ * animated, and we would lose all but the first frame), and jpeg images that are already
+ * within the size limit (re-encoding those would only lose quality for no real gain).
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public final class ScreenshotTranscoder {
+
+    private static final Logger log = Logger.getLogger(ScreenshotTranscoder.class.getName());
+
+    private final int maxDimension;
+    private final float quality;
+
+    /**
+     * Creates a transcoder with the given limits.
+     *
+     * @param maxDimension The maximum width or height of an output image, in pixels.
+     * @param qualityPercent The jpeg quality to encode with, from 1 to 100.
+     */
+    public ScreenshotTranscoder(int maxDimension, int qualityPercent) {
+        if (maxDimension <= 0) {
+            throw new IllegalArgumentException("maxDimension must be positive.");
+        }
+        this.maxDimension = maxDimension;
+        this.quality = Math.max(1, Math.min(100, qualityPercent)) / 100f;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    public int getQualityPercent() {
+        return Math.round(quality * 100);
+    }
+
+    /**
+     * Transcodes all the given source images into the given target directory, in parallel (see ParallelTasks),
+     * and returns the resulting files in the same order as the input list. Output files
+     * are named after their source file, with a jpg extension.
+     *
+     * @throws IOException If any image fails to transcode.
+     */
+    public List<File> transcodeAll(List<File> sourceImages, File targetDir) throws IOException {
+        if (sourceImages.isEmpty()) {
+            return List.of();
+        }
+        if (!targetDir.exists() && !targetDir.mkdirs()) {
+            throw new IOException("Unable to create directory " + targetDir.getAbsolutePath());
+        }
+
+        // Work out target names up front, so that (for example) foo_1.png and foo_1.jpg don't collide:
+        List<File> targetFiles = new ArrayList<>();
+        Set<String> usedNames = new HashSet<>();
+        for (File source : sourceImages) {
+            String name = getTargetName(source);
+            if (!usedNames.add(name)) {
+                name = getAlternateTargetName(source);
+                usedNames.add(name);
+            }
+            targetFiles.add(new File(targetDir, name));
+        }
+
+        List<Integer> indexes = IntStream.range(0, sourceImages.size()).boxed().toList();
+        return ParallelTasks.runAll(indexes, i -> transcode(sourceImages.get(i), targetFiles.get(i)),
+                                    "transcoding screenshots");
+    }
+
+    /**
+     * Transcodes a single source image to the given target file, and returns the target file.
+     */
+    public File transcode(File source, File target) throws IOException {
+        if (isGif(source)) {
+            Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return target;
+        }
+
+        BufferedImage image = ImageIO.read(source);
+        if (image == null) {
+            throw new IOException("Unable to decode image: " + source.getName());
+        }
+        boolean withinLimits = image.getWidth() <= maxDimension && image.getHeight() <= maxDimension;
+        if (withinLimits && isJpeg(source)) {
+            Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return target;
+        }
+
+        writeJpeg(toScaledRgb(image), target);
+        log.fine("Transcoded screenshot " + source.getName() + " (" + source.length() + " bytes) to "
+                         + target.getName() + " (" + target.length() + " bytes)");
+        return target;
+    }
+
+    /**
+     * Returns the name that the transcoded version of the given source image would have.
+     */
+    public static String getTargetName(File source) {
+        String name = source.getName();
+        if (isGif(source)) {
+            return name;
+        }
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + ".jpg";
+    }
+
+    /**
+     * Returns the name that the transcoded version of the given source image gets instead, if
+     * another source image in the same batch already has the same target name.
+     */
+    public static String getAlternateTargetName(File source) {
+        return source.getName().replace('.', '_') + (isGif(source) ? ".gif" : ".jpg");
+    }
+
+    /**
+     * Scales the given image down to fit within our max dimension if needed, and draws it onto an
+     * opaque RGB image, because jpeg has no alpha channel. Transparent areas come out white.
+     */
+    BufferedImage toScaledRgb(BufferedImage image) {
+        double scale = Math.min(1.0, (double)maxDimension / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int)Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int)Math.round(image.getHeight() * scale));
+        if (scale == 1.0 && image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = result.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(image, 0, 0, width, height, null);
+        }
+        finally {
+            g.dispose();
+        }
+        return result;
+    }
+
+    private void writeJpeg(BufferedImage image, File target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(quality);
+        Files.deleteIfExists(target.toPath());
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target)) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        }
+        finally {
+            writer.dispose();
+        }
+    }
+
+    private static boolean isGif(File file) {
+        return file.getName().toLowerCase(Locale.ROOT).endsWith(".gif");
+    }
+
+    private static boolean isJpeg(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        return name.endsWith(".jpg") || name.endsWith(".jpeg");
+    }
+}
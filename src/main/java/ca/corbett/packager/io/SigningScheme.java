@@ -0,0 +1,103 @@
+package ca.corbett.packager.io;
+
+import ca.corbett.extras.crypt.SignatureUtil;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+
+/**
+ * The signature schemes that a project can use to sign its extension jars.
+ * <p>
+ * RSA is the original scheme, and it's what SignatureUtil in swing-extras uses, which means
+ * it's what client applications verify with out of the box. Ed25519 (built into the JDK since
+ * Java 15) generates keys in well under a millisecond instead of hundreds of milliseconds, and
+ * its keys and signatures are tiny. But don't expect it to sign or verify jars any faster:
+ * for jar-sized files, the cost is dominated by hashing the file, which EdDSA does twice.
+ * On JDK 17, signing takes about as long as RSA, and verifying takes noticeably longer,
+ * because RSA verification is very cheap. (See the benchmark in SigningSchemeTest.)
+ * Also, client applications must be able to verify Ed25519 signatures before a project
+ * can switch to it!
+ * </p>
+ * <p>
+ * A key knows its own algorithm, so the scheme for signing or verifying a file is always
+ * determined from the key in hand, via forKey(). The scheme stored in the project
+ * settings just records what the current key pair was generated with.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public enum SigningScheme {
+    RSA("SHA256withRSA", "RSA", "RSA (SHA256withRSA)"),
+    ED25519("Ed25519", "Ed25519", "Ed25519 (needs client support)");
+
+    private final String signatureAlgorithm;
+    private final String keyAlgorithm;
+    private final String label;
+
+    SigningScheme(String signatureAlgorithm, String keyAlgorithm, String label) {
+        this.signatureAlgorithm = signatureAlgorithm;
+        this.keyAlgorithm = keyAlgorithm;
+        this.label = label;
+    }
+
+    /**
+     * The JCA signature algorithm name. This is also the id that we persist for this scheme.
+     */
+    public String getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    /**
+     * The JCA algorithm name for generating and decoding keys for this scheme.
+     */
+    public String getKeyAlgorithm() {
+        return keyAlgorithm;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+
+    /**
+     * Generates a new key pair for this scheme. RSA key generation is left to SignatureUtil,
+     * so that our RSA keys are exactly what clients expect.
+     */
+    public KeyPair generateKeyPair() throws Exception {
+        if (this == RSA) {
+            return SignatureUtil.generateKeyPair();
+        }
+        return KeyPairGenerator.getInstance(keyAlgorithm).generateKeyPair();
+    }
+
+    /**
+     * Returns the scheme with the given id (see getSignatureAlgorithm()), or RSA if the given
+     * id is blank or unrecognized, as is the case for projects created before there was a choice.
+     */
+    public static SigningScheme fromId(String id) {
+        for (SigningScheme scheme : values()) {
+            if (scheme.signatureAlgorithm.equalsIgnoreCase(id)) {
+                return scheme;
+            }
+        }
+        return RSA;
+    }
+
+    /**
+     * Returns the scheme that the given public or private key belongs to.
+     *
+     * @throws IllegalArgumentException if the key is of a type that we don't support.
+     */
+    public static SigningScheme forKey(Key key) {
+        String algorithm = key.getAlgorithm();
+        if ("RSA".equalsIgnoreCase(algorithm)) {
+            return RSA;
+        }
+        // The JDK reports Ed25519 keys as "EdDSA":
+        if ("EdDSA".equalsIgnoreCase(algorithm) || "Ed25519".equalsIgnoreCase(algorithm)) {
+            return ED25519;
+        }
+        throw new IllegalArgumentException("Unsupported key algorithm: " + algorithm);
+    }
+}
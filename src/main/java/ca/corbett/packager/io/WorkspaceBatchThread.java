@@ -0,0 +1,225 @@
+package ca.corbett.packager.io;
+
+import ca.corbett.extras.progress.SimpleProgressAdapter;
+import ca.corbett.extras.progress.SimpleProgressWorker;
+import ca.corbett.packager.project.Project;
+import ca.corbett.packager.project.ProjectManager;
+import ca.corbett.packager.project.ProjectSigner;
+import ca.corbett.packager.project.Workspace;
+import ca.corbett.updates.UpdateSources;
+
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A worker thread that runs a batch operation across every project in a Workspace, in parallel.
+ * Each project is loaded (if needed) and processed on its own pool thread, and since each project
+ * is an independent Project instance, there is no shared state between them. Progress is reported
+ * as each project finishes, in whatever order they finish.
+ * <p>
+ * A failure in one project doesn't stop the others. The outcome for each project is available
+ * from getResults() once the batch completes.
+ * </p>
+ * <p>
+ * Each batch works on its own freshly loaded copy of every project, never on the instance that
+ * the UI holds. When a project that is open in the UI changes, those changes are handed to the
+ * ProjectManager on the EDT, which applies them to the current project and saves it in the usual
+ * way. Any other project is simply saved from its pool thread.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public class WorkspaceBatchThread extends SimpleProgressWorker {
+
+    private static final Logger log = Logger.getLogger(WorkspaceBatchThread.class.getName());
+
+    public enum Operation {
+        /** Sign any jars that don't already have a signature. **/
+        SIGN_MISSING,
+
+        /** Upload to every update source that can be published to without prompting the user. **/
+        PUBLISH
+    }
+
+    /**
+     * The outcome of a batch operation for a single project.
+     */
+    public static class Result {
+        public final File projectFile;
+        public final boolean success;
+        public final String message;
+
+        Result(File projectFile, boolean success, String message) {
+            this.projectFile = projectFile;
+            this.success = success;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return (success ? "OK: " : "FAILED: ") + projectFile.getName() + " - " + message;
+        }
+    }
+
+    private final Workspace workspace;
+    private final Operation operation;
+    private final List<Result> results = Collections.synchronizedList(new ArrayList<>());
+
+    public WorkspaceBatchThread(Workspace workspace, Operation operation) {
+        this.workspace = workspace;
+        this.operation = operation;
+    }
+
+    /**
+     * Returns the result for each project that has been processed so far.
+     */
+    public List<Result> getResults() {
+        synchronized (results) {
+            return new ArrayList<>(results);
+        }
+    }
+
+    @Override
+    public void run() {
+        List<File> projectFiles = workspace.getProjectFiles();
+        workspace.forgetLoadedProjects();
+        fireProgressBegins(projectFiles.size());
+        if (projectFiles.isEmpty()) {
+            fireProgressComplete();
+            return;
+        }
+
+        int threadCount = Math.min(projectFiles.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            CompletionService<Result> completionService = new ExecutorCompletionService<>(executor);
+            for (File projectFile : projectFiles) {
+                completionService.submit(() -> process(projectFile));
+            }
+            for (int i = 0; i < projectFiles.size(); i++) {
+                Result result = completionService.take().get();
+                results.add(result);
+                if (!fireProgressUpdate(i + 1, result.toString())) {
+                    fireProgressCanceled();
+                    return;
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fireProgressCanceled();
+            return;
+        }
+        catch (ExecutionException e) {
+            // process() catches everything, so this shouldn't happen:
+            log.log(Level.SEVERE, "Workspace batch failed: " + e.getCause().getMessage(), e.getCause());
+            fireProgressError("Workspace batch", e.getCause().getMessage());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        fireProgressComplete();
+    }
+
+    /**
+     * Loads and processes a single project. Invoked on a pool thread.
+     */
+    private Result process(File projectFile) {
+        try {
+            Project project = workspace.getProject(projectFile);
+            String message = switch (operation) {
+                case SIGN_MISSING -> sign(project);
+                case PUBLISH -> publish(project);
+            };
+            return new Result(projectFile, true, message);
+        }
+        catch (Exception e) {
+            log.log(Level.WARNING, "Batch operation failed for " + projectFile.getAbsolutePath(), e);
+            return new Result(projectFile, false, e.getMessage());
+        }
+    }
+
+    private String sign(Project project) throws Exception {
+        int signedCount = ProjectSigner.signUnsignedJars(project);
+        if (signedCount > 0) {
+            save(project);
+        }
+        return signedCount + " jar(s) signed.";
+    }
+
+    /**
+     * Publishes the given project to each of its update sources, using an incremental upload.
+     * Filesystem sources are always published. FTP sources are only published if connection
+     * details have been saved for them, since we can't prompt for them in the middle of a batch.
+     */
+    private String publish(Project project) throws Exception {
+        List<String> published = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        for (UpdateSources.UpdateSource updateSource : project.getUpdateSources().getUpdateSources()) {
+            SimpleProgressWorker uploader;
+            if (updateSource.getBaseUrl().getProtocol().equalsIgnoreCase("file")) {
+                uploader = new FileSystemUploadThread(project, updateSource,
+                                                      new File(updateSource.getBaseUrl().toURI()), false);
+            }
+            else {
+                FtpParams params = FtpParams.fromUpdateSource(project, updateSource);
+                if (params.host == null || params.host.isBlank()) {
+                    skipped.add(updateSource.getName());
+                    continue;
+                }
+                uploader = new FtpUploadThread(project, updateSource, params, false);
+            }
+
+            // Each upload runs right here on our pool thread; we just need to catch its errors:
+            final List<String> errors = new ArrayList<>();
+            uploader.addProgressListener(new SimpleProgressAdapter() {
+                @Override
+                public boolean progressError(String errorSource, String errorDetails) {
+                    errors.add(errorSource + ": " + errorDetails);
+                    return false;
+                }
+            });
+            uploader.run();
+            if (!errors.isEmpty()) {
+                throw new Exception("Upload to " + updateSource.getName() + " failed: " + errors.get(0));
+            }
+            published.add(updateSource.getName());
+        }
+        save(project);
+
+        String message = "published to " + (published.isEmpty() ? "nothing" : String.join(", ", published));
+        if (!skipped.isEmpty()) {
+            message += "; skipped (no saved FTP settings): " + String.join(", ", skipped);
+        }
+        return message;
+    }
+
+    /**
+     * Saves our copy of the given project. If that project is open in the UI, the changes are applied
+     * to the UI's instance on the EDT instead, and the ProjectManager saves it from there.
+     */
+    private void save(Project project) throws Exception {
+        FutureTask<Boolean> task = new FutureTask<>(() -> ProjectManager.getInstance().applyBatchChanges(project));
+        SwingUtilities.invokeAndWait(task);
+        try {
+            if (!task.get()) {
+                project.save();
+            }
+        }
+        catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception)e.getCause() : e;
+        }
+    }
+}
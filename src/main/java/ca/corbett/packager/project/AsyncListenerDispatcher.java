@@ -0,0 +1,117 @@
+package ca.corbett.packager.project;
+
+import javax.swing.SwingUtilities;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the background half of AsyncProjectListener notifications on a small worker pool,
+ * and hands the results back to be applied on the EDT.
+ * <p>
+ * Each listener has a generation counter, which is incremented every time an event is dispatched
+ * to it or its pending work is cancelled. Work is tagged with the generation it was started in,
+ * and its result is only applied if the generation is still current at the time it's applied.
+ * Since dispatching and applying both happen on the EDT, this guarantees that results are applied
+ * in event order, and that stale results are dropped rather than overwriting newer ones.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+class AsyncListenerDispatcher {
+
+    private static final Logger log = Logger.getLogger(AsyncListenerDispatcher.class.getName());
+
+    static final int WORKER_COUNT = 2;
+
+    private final Executor workers;
+    private final Executor applier;
+    private final Map<AsyncProjectListener<?>, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a dispatcher with its own daemon worker pool, which applies results on the EDT.
+     */
+    AsyncListenerDispatcher() {
+        this(createWorkerPool(), SwingUtilities::invokeLater);
+    }
+
+    /**
+     * Creates a dispatcher with the given worker pool and applier. Mostly useful for testing.
+     */
+    AsyncListenerDispatcher(Executor workers, Executor applier) {
+        this.workers = workers;
+        this.applier = applier;
+    }
+
+    /**
+     * Starts computing a view model for the given listener in the background, superseding any
+     * work that is still pending for that listener.
+     */
+    <T> void dispatch(AsyncProjectListener<T> listener, Project project) {
+        final AtomicLong generation = generations.computeIfAbsent(listener, l -> new AtomicLong());
+        final long thisGeneration = generation.incrementAndGet();
+        workers.execute(() -> {
+            if (generation.get() != thisGeneration) {
+                return; // superseded before we even got started
+            }
+            final T viewModel;
+            try {
+                viewModel = listener.computeViewModel(project);
+            }
+            catch (RuntimeException e) {
+                log.log(Level.SEVERE, "Project listener failed to compute its view model: " + e.getMessage(), e);
+                return;
+            }
+            applier.execute(() -> {
+                if (generation.get() == thisGeneration) {
+                    listener.applyViewModel(project, viewModel);
+                }
+            });
+        });
+    }
+
+    /**
+     * Discards any pending work for the given listener. Results that are already computed but not
+     * yet applied will not be applied.
+     */
+    void cancel(AsyncProjectListener<?> listener) {
+        AtomicLong generation = generations.get(listener);
+        if (generation != null) {
+            generation.incrementAndGet();
+        }
+    }
+
+    /**
+     * Discards any pending work for all listeners.
+     */
+    void cancelAll() {
+        for (AtomicLong generation : generations.values()) {
+            generation.incrementAndGet();
+        }
+    }
+
+    /**
+     * Discards any pending work for the given listener, and forgets about it.
+     */
+    void remove(AsyncProjectListener<?> listener) {
+        AtomicLong generation = generations.remove(listener);
+        if (generation != null) {
+            generation.incrementAndGet();
+        }
+    }
+
+    private static ExecutorService createWorkerPool() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(WORKER_COUNT, runnable -> {
+            Thread thread = new Thread(runnable, "ProjectListenerWorker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
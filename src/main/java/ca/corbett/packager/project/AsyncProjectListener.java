@@ -0,0 +1,36 @@
+package ca.corbett.packager.project;
+
+/**
+ * A ProjectListener that needs to do some expensive work (scanning the file system, for example)
+ * in response to a project being loaded or saved. Instead of doing that work inline, and freezing
+ * the UI while it happens, the work is split into two steps:
+ * <ol>
+ *     <li>computeViewModel is invoked on a worker thread, and should gather whatever the listener
+ *     needs to display. It must not touch any Swing components.</li>
+ *     <li>applyViewModel is then invoked on the EDT with the result, and should update the display.</li>
+ * </ol>
+ * <p>
+ * The regular projectLoaded and projectSaved methods are still invoked synchronously, before the
+ * background work is started, so any cheap updates can still be done there. If another event arrives
+ * for the same listener before the result of an earlier event has been applied, the earlier result
+ * is discarded. So, a listener will never see results applied out of order, and will never
+ * see a stale result applied after a newer one, or after the project has been closed.
+ * </p>
+ *
+ * @param <T> The type of view model computed by this listener.
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public interface AsyncProjectListener<T> extends ProjectListener {
+
+    /**
+     * Invoked on a worker thread after the given Project has been loaded or saved.
+     * Should return whatever is needed to update the display. Must not touch Swing components.
+     */
+    T computeViewModel(Project project);
+
+    /**
+     * Invoked on the EDT with the result of computeViewModel, unless a newer event has
+     * arrived in the meantime, in which case the result is silently discarded.
+     */
+    void applyViewModel(Project project, T viewModel);
+}
@@ -0,0 +1,127 @@
+package ca.corbett.packager.project;
+
+import ca.corbett.packager.io.FileHashCache;
+import ca.corbett.packager.io.FileSigner;
+import ca.corbett.updates.VersionManifest;
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.PrivateKey;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Writes a single signed checksums document for all the artifacts referenced by a VersionManifest,
+ * as an alternative to signing each extension jar separately. The document lists the SHA-256 hash
+ * of every jar, signature, screenshot, and delta patch file, and then the document itself is
+ * signed, once. A client that trusts the document (by verifying its one signature) can then
+ * trust any file whose hash matches.
+ * <p>
+ * This turns signing N jars into N cheap hashes plus one private-key operation, and means
+ * that re-signing everything after a key rotation is just a matter of re-publishing. Only two
+ * files change on the server, instead of one .sig file per jar. The layout under dist is:
+ * </p>
+ * <pre>
+ * checksums.json
+ * checksums.sig
+ * </pre>
+ * <p>
+ * Paths in the document are relative to the dist directory, the same as download paths in
+ * the version manifest. Hashes are cached by file size and modification time, so re-publishing
+ * only hashes the files that have actually changed. A single instance is kept per Project.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public class ChecksumManifestWriter {
+
+    public static final String CHECKSUM_FILE_NAME = "checksums.json";
+    public static final String SIGNATURE_FILE_NAME = "checksums.sig";
+    public static final String HASH_ALGORITHM = FileHashCache.HASH_ALGORITHM;
+
+    private final Gson gson;
+    private final FileHashCache hashCache = new FileHashCache();
+
+    public ChecksumManifestWriter(Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * Writes the checksums document for the given manifest into the given dist directory,
+     * signs it with the given private key, and returns the two files that were written.
+     * Artifacts that are referenced in the manifest but don't exist on disk are left out.
+     */
+    public synchronized List<File> write(VersionManifest manifest, File distDir, PrivateKey privateKey)
+            throws IOException {
+        ChecksumManifest checksums = new ChecksumManifest();
+        checksums.applicationName = manifest.getApplicationName();
+        checksums.manifestGenerated = manifest.getManifestGenerated() == null
+                ? null
+                : manifest.getManifestGenerated().toString();
+
+        Set<File> usedFiles = new HashSet<>();
+        for (VersionManifest.ApplicationVersion appVersion : manifest.getApplicationVersions()) {
+            for (VersionManifest.Extension extension : appVersion.getExtensions()) {
+                for (VersionManifest.ExtensionVersion version : extension.getVersions()) {
+                    addChecksum(checksums, distDir, version.getDownloadPath(), usedFiles);
+                    addChecksum(checksums, distDir, version.getSignaturePath(), usedFiles);
+                    addChecksum(checksums, distDir, DeltaPatchWriter.getPatchPath(version.getDownloadPath()),
+                                usedFiles);
+                    for (String screenshot : version.getScreenshots()) {
+                        addChecksum(checksums, distDir, screenshot, usedFiles);
+                    }
+                }
+            }
+        }
+
+        // Only keep cache entries for files that are still referenced:
+        hashCache.retainAll(usedFiles);
+
+        File checksumFile = new File(distDir, CHECKSUM_FILE_NAME);
+        File signatureFile = new File(distDir, SIGNATURE_FILE_NAME);
+        JsonFileWriter.writeJson(gson, checksums, checksumFile);
+        try {
+            FileSigner.signFile(checksumFile, privateKey, signatureFile);
+        }
+        catch (Exception e) {
+            throw new IOException("Unable to sign " + CHECKSUM_FILE_NAME + ": " + e.getMessage(), e);
+        }
+        return List.of(checksumFile, signatureFile);
+    }
+
+    /**
+     * Removes the checksums document and its signature from the given dist directory, if present.
+     */
+    public static void clean(File distDir) throws IOException {
+        Files.deleteIfExists(new File(distDir, CHECKSUM_FILE_NAME).toPath());
+        Files.deleteIfExists(new File(distDir, SIGNATURE_FILE_NAME).toPath());
+    }
+
+    private void addChecksum(ChecksumManifest checksums, File distDir, String path, Set<File> usedFiles)
+            throws IOException {
+        if (path == null || path.isBlank()) {
+            return;
+        }
+        File file = new File(distDir, path);
+        if (!file.isFile()) {
+            return;
+        }
+        usedFiles.add(file);
+        checksums.files.put(path, hashCache.getHash(file));
+    }
+
+    /**
+     * The checksums document. This is serialized by Gson, so field names matter.
+     */
+    public static class ChecksumManifest {
+        public String applicationName;
+        public String manifestGenerated;
+        public String algorithm = HASH_ALGORITHM;
+        public Map<String, String> files = new TreeMap<>();
+    }
+}
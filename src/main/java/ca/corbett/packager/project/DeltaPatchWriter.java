@@ -0,0 +1,263 @@
+package ca.corbett.packager.project;
+
+import ca.corbett.packager.io.FileHashCache;
+import ca.corbett.packager.io.FileSigner;
+import ca.corbett.packager.io.JarDelta;
+import ca.corbett.updates.VersionManifest;
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Generates binary patches (see JarDelta) between consecutive versions of each extension in a
+ * VersionManifest, so that a client upgrading from one version to the next can download just
+ * what changed instead of the whole jar. Versions are considered consecutive within a single
+ * Extension of a single application version, ordered by their version number.
+ * <p>
+ * Each patch is written next to the jar that it produces, with a .patch extension instead of .jar,
+ * and the patches are listed in a patches.json index in the dist directory, which gives the
+ * download path of each patch along with the jar it applies to and the jar it produces. The
+ * version manifest itself is not changed, so clients that don't know about patches are unaffected.
+ * </p>
+ * <p>
+ * Every patch is applied locally before it is published, and the result must match the new
+ * jar exactly (and, if the new jar has a signature and a public key is available, must verify
+ * against that signature). A patch that fails this check is deleted and left out of the index, and
+ * the rest are published as usual; clients without a patch just download the whole jar. Patches
+ * that aren't smaller than the jar they produce are not published either.
+ * Patches are only regenerated when one of their jars changes. A single instance is kept per Project.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public class DeltaPatchWriter {
+
+    private static final Logger log = Logger.getLogger(DeltaPatchWriter.class.getName());
+
+    public static final String INDEX_FILE_NAME = "patches.json";
+    public static final String PATCH_EXTENSION = ".patch";
+
+    private final Gson gson;
+    private final FileHashCache hashCache = new FileHashCache();
+    private final Map<File, String> verifiedCache = new HashMap<>();
+
+    public DeltaPatchWriter(Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * Returns the dist-relative path of the patch that produces the jar at the given download path.
+     */
+    public static String getPatchPath(String downloadPath) {
+        if (downloadPath == null || downloadPath.isBlank()) {
+            return null;
+        }
+        int slash = downloadPath.lastIndexOf('/');
+        int dot = downloadPath.lastIndexOf('.');
+        return (dot > slash ? downloadPath.substring(0, dot) : downloadPath) + PATCH_EXTENSION;
+    }
+
+    /**
+     * Generates or refreshes the patches for the given manifest, removes any patch files under the
+     * given dist directory that are no longer needed, and writes the patches.json index.
+     * Returns the index file.
+     *
+     * @param publicKey If not null, patched jars that have a signature are also verified against it.
+     * @throws IOException If the dist directory can't be read or written.
+     */
+    public synchronized File write(VersionManifest manifest, File distDir, PublicKey publicKey) throws IOException {
+        PatchIndex index = new PatchIndex();
+        index.applicationName = manifest.getApplicationName();
+        Set<File> usedPatches = new HashSet<>();
+        Set<File> usedJars = new HashSet<>();
+
+        for (VersionManifest.ApplicationVersion appVersion : manifest.getApplicationVersions()) {
+            for (VersionManifest.Extension extension : appVersion.getExtensions()) {
+                List<VersionManifest.ExtensionVersion> versions = new ArrayList<>(extension.getVersions());
+                versions.removeIf(version -> version.getExtInfo() == null || version.getDownloadPath() == null);
+                versions.sort(Comparator.comparing(version -> VersionKey.parse(version.getExtInfo().getVersion())));
+                for (int i = 1; i < versions.size(); i++) {
+                    Patch patch = writePatch(distDir, versions.get(i - 1), versions.get(i), publicKey, usedJars);
+                    if (patch != null) {
+                        patch.extension = extension.getName();
+                        patch.appVersion = appVersion.getVersion();
+                        index.patches.add(patch);
+                        usedPatches.add(new File(distDir, patch.patchPath).getAbsoluteFile());
+                    }
+                }
+            }
+        }
+
+        hashCache.retainAll(usedJars);
+        verifiedCache.keySet().retainAll(usedPatches);
+        deletePatches(distDir, usedPatches);
+
+        File indexFile = new File(distDir, INDEX_FILE_NAME);
+        JsonFileWriter.writeJson(gson, index, indexFile);
+        return indexFile;
+    }
+
+    /**
+     * Removes the patches.json index and all patch files from the given dist directory.
+     */
+    public static void clean(File distDir) throws IOException {
+        Files.deleteIfExists(new File(distDir, INDEX_FILE_NAME).toPath());
+        deletePatches(distDir, Set.of());
+    }
+
+    /**
+     * Makes sure there is a verified patch from the given old version to the given new version,
+     * and returns its index entry, or null if there is no useful patch between them.
+     */
+    private Patch writePatch(File distDir, VersionManifest.ExtensionVersion oldVersion,
+                             VersionManifest.ExtensionVersion newVersion, PublicKey publicKey,
+                             Set<File> usedJars) throws IOException {
+        File oldJar = new File(distDir, oldVersion.getDownloadPath());
+        File newJar = new File(distDir, newVersion.getDownloadPath());
+        String patchPath = getPatchPath(newVersion.getDownloadPath());
+        File patchFile = new File(distDir, patchPath).getAbsoluteFile();
+        if (!oldJar.isFile() || !newJar.isFile()) {
+            return null;
+        }
+        usedJars.add(oldJar);
+        usedJars.add(newJar);
+        String oldHash = hashCache.getHash(oldJar);
+        String newHash = hashCache.getHash(newJar);
+
+        if (!isUpToDate(patchFile, oldHash, newHash)) {
+            log.info("Generating patch " + patchPath);
+            JarDelta.create(oldJar, newJar, patchFile);
+            verifiedCache.remove(patchFile);
+        }
+        if (patchFile.length() >= newJar.length()) {
+            log.info("Not publishing patch " + patchPath + ", it's no smaller than the jar itself.");
+            return null;
+        }
+        try {
+            verify(patchFile, oldJar, newVersion, distDir, publicKey);
+        }
+        catch (IOException ioe) {
+            log.log(Level.WARNING, "Not publishing patch " + patchPath + ": " + ioe.getMessage(), ioe);
+            return null;
+        }
+
+        Patch patch = new Patch();
+        patch.fromVersion = oldVersion.getExtInfo().getVersion();
+        patch.toVersion = newVersion.getExtInfo().getVersion();
+        patch.fromPath = oldVersion.getDownloadPath();
+        patch.toPath = newVersion.getDownloadPath();
+        patch.patchPath = patchPath;
+        patch.fromSha256 = oldHash;
+        patch.toSha256 = newHash;
+        patch.patchSize = patchFile.length();
+        return patch;
+    }
+
+    /**
+     * Applies the given patch to the given old jar, in a temp file, and checks that the result is
+     * the new jar, signature and all. This is skipped if the patch and signature haven't changed
+     * since they were last verified. If the check fails, the patch file is deleted.
+     */
+    private void verify(File patchFile, File oldJar, VersionManifest.ExtensionVersion newVersion, File distDir,
+                        PublicKey publicKey) throws IOException {
+        File sigFile = newVersion.getSignaturePath() == null
+                ? null
+                : new File(distDir, newVersion.getSignaturePath());
+        boolean checkSignature = publicKey != null && sigFile != null && sigFile.isFile();
+        String fingerprint = patchFile.length() + ":" + patchFile.lastModified()
+                + (checkSignature ? "|" + sigFile.length() + ":" + sigFile.lastModified() : "");
+        if (fingerprint.equals(verifiedCache.get(patchFile))) {
+            return;
+        }
+
+        File patchedJar = File.createTempFile("patched", ".jar.tmp", patchFile.getParentFile());
+        try {
+            JarDelta.apply(oldJar, patchFile, patchedJar);
+            if (checkSignature && !FileSigner.verifyFile(patchedJar, sigFile, publicKey)) {
+                throw new IOException("Patch " + patchFile.getName() + " does not reproduce the signed jar.");
+            }
+        }
+        catch (IOException ioe) {
+            Files.deleteIfExists(patchFile.toPath());
+            throw ioe;
+        }
+        catch (Exception e) {
+            Files.deleteIfExists(patchFile.toPath());
+            throw new IOException("Unable to verify patch " + patchFile.getName() + ": " + e.getMessage(), e);
+        }
+        finally {
+            Files.deleteIfExists(patchedJar.toPath());
+        }
+        verifiedCache.put(patchFile, fingerprint);
+    }
+
+    private static boolean isUpToDate(File patchFile, String oldHash, String newHash) {
+        if (!patchFile.isFile()) {
+            return false;
+        }
+        try {
+            JarDelta.Header header = JarDelta.readHeader(patchFile);
+            return header.sourceHash.equals(oldHash) && header.targetHash.equals(newHash);
+        }
+        catch (IOException ioe) {
+            return false;
+        }
+    }
+
+    /**
+     * Deletes every patch file under the given dist directory that isn't in the given set.
+     */
+    private static void deletePatches(File distDir, Set<File> keep) throws IOException {
+        if (!distDir.isDirectory()) {
+            return;
+        }
+        List<Path> stale;
+        try (Stream<Path> paths = Files.walk(distDir.toPath())) {
+            stale = paths.filter(path -> path.getFileName().toString().endsWith(PATCH_EXTENSION))
+                         .filter(path -> !keep.contains(path.toFile().getAbsoluteFile()))
+                         .toList();
+        }
+        for (Path path : stale) {
+            log.info("Removing stale patch " + path.getFileName());
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * The patches.json index. This is serialized by Gson, so field names matter.
+     */
+    public static class PatchIndex {
+        public String applicationName;
+        public List<Patch> patches = new ArrayList<>();
+    }
+
+    /**
+     * A single entry in the patches.json index. All paths are relative to the dist directory.
+     */
+    public static class Patch {
+        public String appVersion;
+        public String extension;
+        public String fromVersion;
+        public String toVersion;
+        public String fromPath;
+        public String toPath;
+        public String patchPath;
+        public String fromSha256;
+        public String toSha256;
+        public long patchSize;
+    }
+}
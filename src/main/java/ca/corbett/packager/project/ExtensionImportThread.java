@@ -0,0 +1,102 @@
+package ca.corbett.packager.project;
+
+import ca.corbett.extras.progress.SimpleProgressWorker;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static ca.corbett.updates.VersionManifest.ExtensionVersion;
+
+/**
+ * A worker thread for importing extension jars and build bundles into a Project in the
+ * background, so that the UI doesn't hang while a large bundle is streamed in. Progress is
+ * reported once per jar or bundle.
+ * <p>
+ * This only prepares the imported files (see ProjectManager.prepareExtensionJar and
+ * prepareExtensionBundle); the version manifest is not touched. After completion (or
+ * cancellation), use getImported() to get what was prepared, and add it to the manifest on
+ * the EDT with ProjectManager.addImportedExtensionVersions. Anything that couldn't be imported
+ * is logged and described in getProblems().
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public class ExtensionImportThread extends SimpleProgressWorker {
+
+    private static final Logger log = Logger.getLogger(ExtensionImportThread.class.getName());
+
+    private final Project project;
+    private final List<File> jars;
+    private final List<File> bundles;
+    private final List<ExtensionVersion> imported = new CopyOnWriteArrayList<>();
+    private final List<String> problems = new CopyOnWriteArrayList<>();
+
+    ExtensionImportThread(Project project, Collection<File> jars, Collection<File> bundles) {
+        this.project = project;
+        this.jars = new ArrayList<>(jars);
+        this.bundles = new ArrayList<>(bundles);
+    }
+
+    public Project getProject() {
+        return project;
+    }
+
+    /**
+     * Returns the ExtensionVersions that have been prepared so far.
+     */
+    public List<ExtensionVersion> getImported() {
+        return List.copyOf(imported);
+    }
+
+    /**
+     * Returns a description of each jar or bundle that couldn't be imported, prefixed with its name.
+     */
+    public List<String> getProblems() {
+        return List.copyOf(problems);
+    }
+
+    @Override
+    public void run() {
+        ProjectManager projectManager = ProjectManager.getInstance();
+        fireProgressBegins(jars.size() + bundles.size());
+        int step = 0;
+
+        for (File jar : jars) {
+            if (!fireProgressUpdate(step++, "Importing " + jar.getName())) {
+                fireProgressCanceled();
+                return;
+            }
+            try {
+                imported.add(projectManager.prepareExtensionJar(project, jar));
+            }
+            catch (Exception e) {
+                problems.add(jar.getName() + ": " + e.getMessage());
+                log.log(Level.WARNING, "Problem with jar " + jar.getAbsolutePath() + ": " + e.getMessage(), e);
+            }
+        }
+
+        for (File bundle : bundles) {
+            if (!fireProgressUpdate(step++, "Importing bundle " + bundle.getName())) {
+                fireProgressCanceled();
+                return;
+            }
+            // Problems with individual jars in the bundle are logged by prepareExtensionBundle:
+            List<String> bundleProblems = new ArrayList<>();
+            try {
+                imported.addAll(projectManager.prepareExtensionBundle(project, bundle, bundleProblems));
+            }
+            catch (Exception e) {
+                bundleProblems.add(bundle.getName() + ": " + e.getMessage());
+                log.log(Level.WARNING, "Problem with bundle " + bundle.getAbsolutePath() + ": " + e.getMessage(), e);
+            }
+            problems.addAll(bundleProblems);
+        }
+
+        fireProgressComplete();
+    }
+}
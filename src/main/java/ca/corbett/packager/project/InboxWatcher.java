@@ -0,0 +1,275 @@
+package ca.corbett.packager.project;
+
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static ca.corbett.updates.VersionManifest.ExtensionVersion;
+
+/**
+ * Watches a project's inbox directory, and automatically imports any extension jars that
+ * are dropped into it. This is intended for build servers that publish freshly built jars
+ * to a shared directory, so that nobody has to go through the manual import each time.
+ * <p>
+ * File events tend to arrive in bursts while a jar is being written, so we don't act on
+ * them right away. Instead, each jar is held until there have been no events for it for
+ * a short quiet period, and its size has stopped changing between two checks. Only then
+ * is it imported.
+ * </p>
+ * <p>
+ * Import happens on a background thread: the jar is validated, copied into the project
+ * (along with any screenshots), and optionally signed with ProjectSigner. Only the final step of adding the
+ * new extension versions to the version manifest happens on the EDT, and that's
+ * incremental - the rest of the manifest is not rescanned. Processed jars are moved out
+ * of the inbox into an "imported" or "failed" subdirectory, so they aren't picked up again.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public class InboxWatcher {
+
+    private static final Logger log = Logger.getLogger(InboxWatcher.class.getName());
+
+    static final long QUIET_PERIOD_MS = 1000;
+    static final long POLL_INTERVAL_MS = 500;
+
+    public static final String IMPORTED_DIR_NAME = "imported";
+    public static final String FAILED_DIR_NAME = "failed";
+
+    private final Project project;
+    private final File inboxDir;
+    private final boolean autoSign;
+    private final Map<Path, PendingFile> pendingFiles = new ConcurrentHashMap<>();
+
+    private WatchService watchService;
+    private ScheduledExecutorService scheduler;
+
+    public InboxWatcher(Project project, File inboxDir, boolean autoSign) {
+        this.project = project;
+        this.inboxDir = inboxDir;
+        this.autoSign = autoSign;
+    }
+
+    public File getInboxDir() {
+        return inboxDir;
+    }
+
+    /**
+     * Starts watching the inbox directory, creating it if needed. Any jars that are already
+     * sitting in the inbox will also be imported.
+     */
+    public synchronized void start() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        if (!inboxDir.exists() && !inboxDir.mkdirs()) {
+            throw new IOException("Unable to create inbox directory " + inboxDir.getAbsolutePath());
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        inboxDir.toPath().register(watchService,
+                                   StandardWatchEventKinds.ENTRY_CREATE,
+                                   StandardWatchEventKinds.ENTRY_MODIFY);
+        enqueueExistingFiles();
+
+        final WatchService service = watchService;
+        Thread watchThread = new Thread(() -> watch(service), "InboxWatcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "InboxImporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::importReadyFiles, POLL_INTERVAL_MS, POLL_INTERVAL_MS,
+                                         TimeUnit.MILLISECONDS);
+        log.info("Watching inbox directory " + inboxDir.getAbsolutePath());
+    }
+
+    /**
+     * Stops watching the inbox directory. Any jars that are still waiting to settle are left in the inbox,
+     * and will be picked up the next time the watcher is started.
+     */
+    public synchronized void stop() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        }
+        catch (IOException ioe) {
+            log.log(Level.WARNING, "Problem closing inbox watch service: " + ioe.getMessage(), ioe);
+        }
+        scheduler.shutdownNow();
+        watchService = null;
+        scheduler = null;
+        pendingFiles.clear();
+        log.info("Stopped watching inbox directory " + inboxDir.getAbsolutePath());
+    }
+
+    public synchronized boolean isRunning() {
+        return watchService != null;
+    }
+
+    private void watch(WatchService service) {
+        while (true) {
+            WatchKey key;
+            try {
+                key = service.take();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch (ClosedWatchServiceException e) {
+                return; // we've been stopped
+            }
+
+            handleEvents(key.pollEvents());
+            if (!key.reset()) {
+                log.warning("Inbox directory is no longer accessible: " + inboxDir.getAbsolutePath());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Queues up the jar named by each of the given events. If events were lost, the whole inbox is rescanned.
+     */
+    void handleEvents(List<WatchEvent<?>> events) {
+        for (WatchEvent<?> event : events) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                enqueueExistingFiles(); // we missed some events, so rescan to be safe
+            }
+            else if (event.context() instanceof Path path) {
+                enqueue(inboxDir.toPath().resolve(path));
+            }
+        }
+    }
+
+    private void enqueueExistingFiles() {
+        File[] files = inboxDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                enqueue(file.toPath());
+            }
+        }
+    }
+
+    private void enqueue(Path path) {
+        if (!path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".jar")) {
+            return;
+        }
+        pendingFiles.computeIfAbsent(path, p -> new PendingFile()).lastEventTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Invoked periodically on our scheduler thread. Any pending jar that has been quiet for long
+     * enough and whose size has not changed since the last check is considered complete, and is imported.
+     */
+    void importReadyFiles() {
+        importReadyFiles(System.currentTimeMillis());
+    }
+
+    /**
+     * Same as importReadyFiles(), but as of the given time, so that tests don't have to wait out the quiet period.
+     */
+    void importReadyFiles(long now) {
+        List<File> readyFiles = new ArrayList<>();
+        Iterator<Map.Entry<Path, PendingFile>> iterator = pendingFiles.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, PendingFile> entry = iterator.next();
+            File file = entry.getKey().toFile();
+            PendingFile pending = entry.getValue();
+            if (!file.isFile()) {
+                iterator.remove(); // deleted or moved before we got to it
+                continue;
+            }
+            long size = file.length();
+            boolean isStable = size == pending.lastSize && now - pending.lastEventTime >= QUIET_PERIOD_MS;
+            pending.lastSize = size;
+            if (isStable) {
+                iterator.remove();
+                readyFiles.add(file);
+            }
+        }
+        if (!readyFiles.isEmpty()) {
+            importFiles(readyFiles);
+        }
+    }
+
+    private void importFiles(List<File> jars) {
+        ProjectManager projectManager = ProjectManager.getInstance();
+        List<ExtensionVersion> imported = new ArrayList<>();
+        for (File jar : jars) {
+            try {
+                log.info("Importing extension jar from inbox: " + jar.getName());
+                ExtensionVersion extVersion = projectManager.prepareExtensionJar(project, jar);
+                if (autoSign) {
+                    sign(extVersion, jar.getName());
+                }
+                imported.add(extVersion);
+                moveTo(jar, IMPORTED_DIR_NAME);
+            }
+            catch (Exception e) {
+                log.log(Level.WARNING, "Unable to import " + jar.getName() + " from inbox: " + e.getMessage(), e);
+                moveTo(jar, FAILED_DIR_NAME);
+            }
+        }
+        if (!imported.isEmpty()) {
+            SwingUtilities.invokeLater(() -> projectManager.addImportedExtensionVersions(project, imported));
+        }
+    }
+
+    /**
+     * Signs the given newly imported jar, through the same ProjectSigner that the UI signs with.
+     * This runs on our importer thread and not the EDT, which is safe: ProjectSigner only works on
+     * the project that it's given, and the ExtensionVersion isn't in the manifest yet, so nothing
+     * else can see it until it's handed to the EDT afterwards.
+     */
+    private void sign(ExtensionVersion extVersion, String jarName) throws Exception {
+        if (project.getPrivateKey() == null) {
+            log.warning("Project has no key pair; unable to sign " + jarName);
+            return;
+        }
+        File jarFile = ProjectManager.getInstance().computeExtensionFile(project, extVersion, jarName);
+        ProjectSigner.signImportedJar(project, jarFile, extVersion);
+    }
+
+    private void moveTo(File file, String subdirName) {
+        File targetDir = new File(inboxDir, subdirName);
+        try {
+            Files.createDirectories(targetDir.toPath());
+            Files.move(file.toPath(), new File(targetDir, file.getName()).toPath(),
+                       StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException ioe) {
+            log.log(Level.WARNING, "Unable to move " + file.getName() + " out of the inbox: " + ioe.getMessage(), ioe);
+        }
+    }
+
+    private static class PendingFile {
+        private volatile long lastEventTime;
+        private volatile long lastSize = -1;
+    }
+}
@@ -0,0 +1,202 @@
+package ca.corbett.packager.project;
+
+import ca.corbett.extras.io.FileSystemUtil;
+import ca.corbett.packager.io.FileHashCache;
+import ca.corbett.packager.io.JarIntegrityChecker;
+import ca.corbett.packager.io.ParallelTasks;
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs JarIntegrityChecker over a project's jars, in parallel, and remembers which jars have
+ * already passed, so that checking every jar on every publish stays cheap. Results are cached
+ * by the SHA-256 hash of the jar, so a jar that is re-imported with the same bytes doesn't
+ * have to be checked again. Hashes in turn are cached by path, size, and last modified time,
+ * so an unchanged jar isn't even read.
+ * <p>
+ * Only passing results are cached; a damaged jar is checked again every time, in case it has
+ * been fixed. The cache is kept in a small json file under the project's cache directory, which
+ * can be deleted at any time.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public class JarIntegrityCache {
+
+    private static final Logger log = Logger.getLogger(JarIntegrityCache.class.getName());
+
+    private final File cacheFile;
+    private final Gson gson = new Gson();
+    private CacheData data;
+    private volatile int lastCheckedCount;
+
+    public JarIntegrityCache(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    public File getCacheFile() {
+        return cacheFile;
+    }
+
+    /**
+     * Checks a single jar, the same way as verifyAll, and returns normally if it is intact.
+     *
+     * @throws IOException If the jar is damaged or can't be read. The message describes the problem.
+     */
+    public void verify(File jar) throws IOException {
+        if (!jar.isFile()) {
+            throw new IOException("Jar file " + jar.getName() + " does not exist.");
+        }
+        String failure = verifyAll(List.of(jar)).get(jar);
+        if (failure != null) {
+            throw new IOException(failure);
+        }
+    }
+
+    /**
+     * Checks all the given jars in parallel (see ParallelTasks), and returns a description
+     * of the problem with each jar that failed, keyed by jar, in the order given. An empty map
+     * means that every jar is intact. Jars that don't exist are skipped.
+     */
+    public Map<File, String> verifyAll(Collection<File> jars) throws IOException {
+        List<File> existingJars = jars.stream().filter(File::isFile).toList();
+        Map<File, String> failures = new LinkedHashMap<>();
+        if (existingJars.isEmpty()) {
+            return failures;
+        }
+        Map<String, FileHashCache.FileHash> knownHashes;
+        Set<String> verifiedHashes;
+        synchronized (this) {
+            loadIfNeeded();
+            knownHashes = new HashMap<>(data.files);
+            verifiedHashes = new HashSet<>(data.verifiedHashes);
+        }
+
+        List<Outcome> outcomes = ParallelTasks.runAll(existingJars,
+                                                      jar -> check(jar, knownHashes.get(jar.getAbsolutePath()),
+                                                                   verifiedHashes),
+                                                      "checking jars");
+        synchronized (this) {
+            int checkedCount = 0;
+            for (Outcome outcome : outcomes) {
+                if (outcome.wasChecked) {
+                    checkedCount++;
+                }
+                if (outcome.failure != null) {
+                    failures.put(outcome.jar, outcome.failure);
+                    data.files.remove(outcome.jar.getAbsolutePath());
+                    continue;
+                }
+                data.files.put(outcome.jar.getAbsolutePath(), outcome.hash);
+                data.verifiedHashes.add(outcome.hash.getHash());
+            }
+            lastCheckedCount = checkedCount;
+            log.info("Jar integrity: " + existingJars.size() + " jar(s), " + checkedCount + " checked, "
+                             + failures.size() + " failed.");
+            save();
+        }
+        return failures;
+    }
+
+    /**
+     * Returns how many jars the last verifyAll actually had to read, as opposed to finding in the cache.
+     */
+    int getLastCheckedCount() {
+        return lastCheckedCount;
+    }
+
+    /**
+     * Checks a single jar. Invoked on a pool thread.
+     */
+    private static Outcome check(File jar, FileHashCache.FileHash knownHash, Set<String> verifiedHashes)
+            throws IOException {
+        FileHashCache.FileHash hash = knownHash;
+        if (hash == null || !hash.isCurrent(jar)) {
+            hash = FileHashCache.FileHash.of(jar);
+        }
+        if (verifiedHashes.contains(hash.getHash())) {
+            return new Outcome(jar, hash, false, null);
+        }
+        try {
+            JarIntegrityChecker.verify(jar);
+            return new Outcome(jar, hash, true, null);
+        }
+        catch (IOException ioe) {
+            return new Outcome(jar, hash, true, ioe.getMessage());
+        }
+    }
+
+    private void loadIfNeeded() {
+        if (data != null) {
+            return;
+        }
+        if (cacheFile.exists()) {
+            try {
+                data = gson.fromJson(FileSystemUtil.readFileToString(cacheFile), CacheData.class);
+            }
+            catch (IOException | RuntimeException e) {
+                log.log(Level.WARNING, "Discarding unreadable jar integrity cache " + cacheFile.getName(), e);
+            }
+        }
+        if (data == null || data.files == null || data.verifiedHashes == null) {
+            data = new CacheData();
+        }
+    }
+
+    /**
+     * Writes the cache out, dropping any jars that no longer exist, and any hashes that no longer
+     * belong to a known jar.
+     * Failure to write the cache is logged but is not fatal.
+     */
+    private void save() {
+        data.files.keySet().removeIf(path -> !new File(path).isFile());
+        Set<String> currentHashes = new HashSet<>();
+        for (FileHashCache.FileHash hash : data.files.values()) {
+            currentHashes.add(hash.getHash());
+        }
+        data.verifiedHashes.retainAll(currentHashes);
+        try {
+            File parentDir = cacheFile.getAbsoluteFile().getParentFile();
+            if (!parentDir.exists() && !parentDir.mkdirs()) {
+                throw new IOException("Unable to create directory " + parentDir.getAbsolutePath());
+            }
+            JsonFileWriter.writeJson(gson, data, cacheFile);
+        }
+        catch (IOException ioe) {
+            log.log(Level.WARNING, "Unable to write jar integrity cache: " + ioe.getMessage(), ioe);
+        }
+    }
+
+    /**
+     * The cache file contents. This is serialized by Gson, so field names matter.
+     */
+    static class CacheData {
+        Map<String, FileHashCache.FileHash> files = new HashMap<>();
+        Set<String> verifiedHashes = new HashSet<>();
+    }
+
+    private static class Outcome {
+        final File jar;
+        final FileHashCache.FileHash hash;
+        final boolean wasChecked;
+        final String failure;
+
+        Outcome(File jar, FileHashCache.FileHash hash, boolean wasChecked, String failure) {
+            this.jar = jar;
+            this.hash = hash;
+            this.wasChecked = wasChecked;
+            this.failure = failure;
+        }
+    }
+}
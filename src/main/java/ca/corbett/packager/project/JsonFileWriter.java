@@ -0,0 +1,46 @@
+package ca.corbett.packager.project;
+
+import com.google.gson.Gson;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams json straight from Gson to disk, optionally through gzip compression, so that
+ * the generated json never has to be held in memory as a single String.
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+final class JsonFileWriter {
+
+    private JsonFileWriter() {
+    }
+
+    /**
+     * Serializes the given object as json to the given file, overwriting it if it exists.
+     */
+    static void writeJson(Gson gson, Object object, File file) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8))) {
+            gson.toJson(object, writer);
+        }
+    }
+
+    /**
+     * Serializes the given object as gzip-compressed json to the given file, overwriting it if it exists.
+     */
+    static void writeGzippedJson(Gson gson, Object object, File file) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath())));
+             Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            gson.toJson(object, writer);
+        }
+    }
+}
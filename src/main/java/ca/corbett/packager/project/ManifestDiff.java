@@ -0,0 +1,266 @@
+package ca.corbett.packager.project;
+
+import ca.corbett.updates.VersionManifest;
+import com.google.gson.Gson;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A structural diff between the version manifest as it was last published to an UpdateSource
+ * (see PublishedSnapshot) and the current state of the project. Extension versions are matched
+ * up by application version, extension name, and extension version, and each one is reported
+ * as added, removed, or changed. An extension version counts as changed if any of its manifest
+ * details differ, or if any of the files it references (jar, signature, screenshots) have been
+ * modified since they were published.
+ * <p>
+ * The diff also works out exactly which files a delta upload needs to touch: files that are new
+ * or modified since the last upload must be uploaded, and files that were published but are no
+ * longer referenced by anything can be deleted.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public class ManifestDiff {
+
+    public enum ChangeType {
+        ADDED, CHANGED, REMOVED
+    }
+
+    /**
+     * A single added, changed, or removed extension version.
+     */
+    public static class Change {
+        private final ChangeType type;
+        private final String appVersion;
+        private final VersionManifest.ExtensionVersion extensionVersion;
+
+        Change(ChangeType type, String appVersion, VersionManifest.ExtensionVersion extensionVersion) {
+            this.type = type;
+            this.appVersion = appVersion;
+            this.extensionVersion = extensionVersion;
+        }
+
+        public ChangeType getType() {
+            return type;
+        }
+
+        public String getAppVersion() {
+            return appVersion;
+        }
+
+        public VersionManifest.ExtensionVersion getExtensionVersion() {
+            return extensionVersion;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + appVersion + "] "
+                    + extensionVersion.getExtInfo().getName()
+                    + " "
+                    + extensionVersion.getExtInfo().getVersion();
+        }
+    }
+
+    private static final Gson gson = new Gson();
+
+    private final boolean hasSnapshot;
+    private final List<Change> changes = new ArrayList<>();
+    private final List<String> filesToUpload = new ArrayList<>();
+    private final List<String> filesToDelete = new ArrayList<>();
+
+    private ManifestDiff(boolean hasSnapshot) {
+        this.hasSnapshot = hasSnapshot;
+    }
+
+    /**
+     * Computes the diff between the given published snapshot and the given current manifest.
+     * If the snapshot is null (nothing has been published yet), everything counts as added.
+     *
+     * @param previous            The snapshot of what was last published, or null.
+     * @param current             The current version manifest.
+     * @param currentFingerprints Fingerprints of the files referenced by the current manifest.
+     * @param index               The ManifestIndex used to order the results.
+     */
+    public static ManifestDiff compute(PublishedSnapshot previous,
+                                      VersionManifest current,
+                                      Map<String, String> currentFingerprints,
+                                      ManifestIndex index) {
+        ManifestDiff diff = new ManifestDiff(previous != null);
+        Map<String, String> previousFingerprints = previous == null ? Map.of() : previous.getFingerprints();
+        Map<String, Change> previousVersions = collect(previous == null ? null : previous.getManifest());
+        Map<String, Change> currentVersions = collect(current);
+
+        for (Map.Entry<String, Change> entry : currentVersions.entrySet()) {
+            Change currentVersion = entry.getValue();
+            Change previousVersion = previousVersions.get(entry.getKey());
+            if (previousVersion == null) {
+                diff.changes.add(new Change(ChangeType.ADDED,
+                                            currentVersion.appVersion,
+                                            currentVersion.extensionVersion));
+            }
+            else if (isChanged(previousVersion.extensionVersion, currentVersion.extensionVersion,
+                               previousFingerprints, currentFingerprints)) {
+                diff.changes.add(new Change(ChangeType.CHANGED,
+                                            currentVersion.appVersion,
+                                            currentVersion.extensionVersion));
+            }
+        }
+        for (Map.Entry<String, Change> entry : previousVersions.entrySet()) {
+            if (!currentVersions.containsKey(entry.getKey())) {
+                Change previousVersion = entry.getValue();
+                diff.changes.add(new Change(ChangeType.REMOVED,
+                                            previousVersion.appVersion,
+                                            previousVersion.extensionVersion));
+            }
+        }
+
+        for (Map.Entry<String, String> entry : currentFingerprints.entrySet()) {
+            if (!Objects.equals(entry.getValue(), previousFingerprints.get(entry.getKey()))) {
+                diff.filesToUpload.add(entry.getKey());
+            }
+        }
+        for (String path : previousFingerprints.keySet()) {
+            if (!currentFingerprints.containsKey(path)) {
+                diff.filesToDelete.add(path);
+            }
+        }
+
+        diff.changes.sort(Comparator.comparing(Change::getType)
+                                    .thenComparing(change -> VersionKey.parse(change.appVersion))
+                                    .thenComparing(change -> change.extensionVersion.getExtInfo().getName(),
+                                                   Comparator.nullsFirst(Comparator.naturalOrder()))
+                                    .thenComparing(change -> index.getKey(change.extensionVersion)));
+        return diff;
+    }
+
+    /**
+     * Reports whether there was a published snapshot to compare against. If not, this diff
+     * treats everything as new.
+     */
+    public boolean hasSnapshot() {
+        return hasSnapshot;
+    }
+
+    /**
+     * Reports whether nothing has changed since the last upload.
+     */
+    public boolean isEmpty() {
+        return changes.isEmpty() && filesToUpload.isEmpty() && filesToDelete.isEmpty();
+    }
+
+    /**
+     * Returns all changes, ordered by type (added, changed, removed) and then by version.
+     */
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Returns just the changes of the given type.
+     */
+    public List<Change> getChanges(ChangeType type) {
+        return changes.stream().filter(change -> change.type == type).toList();
+    }
+
+    /**
+     * Returns the dist-relative paths of all extension files that are new or modified since the last upload.
+     */
+    public List<String> getFilesToUpload() {
+        return filesToUpload;
+    }
+
+    /**
+     * Returns the dist-relative paths of all extension files that were published but are no longer referenced.
+     */
+    public List<String> getFilesToDelete() {
+        return filesToDelete;
+    }
+
+    /**
+     * Returns a one-line summary of this diff, suitable for a label.
+     */
+    public String getSummary() {
+        if (isEmpty()) {
+            return "No changes";
+        }
+        return getChanges(ChangeType.ADDED).size() + " added, "
+                + getChanges(ChangeType.CHANGED).size() + " changed, "
+                + getChanges(ChangeType.REMOVED).size() + " removed";
+    }
+
+    /**
+     * Returns a human-readable changelog for this diff.
+     */
+    public String toChangelog() {
+        StringBuilder sb = new StringBuilder();
+        if (!hasSnapshot) {
+            sb.append("Nothing has been uploaded to this update source yet.\n\n");
+        }
+        for (ChangeType type : ChangeType.values()) {
+            List<Change> typedChanges = getChanges(type);
+            sb.append(type.name().charAt(0))
+              .append(type.name().substring(1).toLowerCase())
+              .append(" (")
+              .append(typedChanges.size())
+              .append("):\n");
+            for (Change change : typedChanges) {
+                sb.append("    ").append(change).append("\n");
+            }
+            sb.append("\n");
+        }
+        sb.append("Files to upload: ").append(filesToUpload.size()).append("\n");
+        for (String path : filesToUpload) {
+            sb.append("    ").append(path).append("\n");
+        }
+        sb.append("Files to delete: ").append(filesToDelete.size()).append("\n");
+        for (String path : filesToDelete) {
+            sb.append("    ").append(path).append("\n");
+        }
+        return sb.toString();
+    }
+
+    private static boolean isChanged(VersionManifest.ExtensionVersion previous,
+                                     VersionManifest.ExtensionVersion current,
+                                     Map<String, String> previousFingerprints,
+                                     Map<String, String> currentFingerprints) {
+        if (!gson.toJson(previous).equals(gson.toJson(current))) {
+            return true;
+        }
+        List<String> paths = new ArrayList<>(current.getScreenshots());
+        paths.add(current.getDownloadPath());
+        paths.add(current.getSignaturePath());
+        for (String path : paths) {
+            if (path != null && !Objects.equals(previousFingerprints.get(path), currentFingerprints.get(path))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Flattens the given manifest into a map of extension versions, keyed by application version,
+     * extension name, and extension version.
+     */
+    private static Map<String, Change> collect(VersionManifest manifest) {
+        Map<String, Change> versions = new LinkedHashMap<>();
+        if (manifest == null) {
+            return versions;
+        }
+        for (VersionManifest.ApplicationVersion appVersion : manifest.getApplicationVersions()) {
+            for (VersionManifest.Extension extension : appVersion.getExtensions()) {
+                for (VersionManifest.ExtensionVersion version : extension.getVersions()) {
+                    String key = appVersion.getVersion()
+                            + "|" + extension.getName()
+                            + "|" + (version.getExtInfo() == null ? null : version.getExtInfo().getVersion());
+                    versions.put(key, new Change(ChangeType.ADDED, appVersion.getVersion(), version));
+                }
+            }
+        }
+        return versions;
+    }
+}
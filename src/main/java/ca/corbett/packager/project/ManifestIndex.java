@@ -0,0 +1,145 @@
+package ca.corbett.packager.project;
+
+import ca.corbett.updates.VersionManifest;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static ca.corbett.updates.VersionManifest.ApplicationVersion;
+import static ca.corbett.updates.VersionManifest.Extension;
+import static ca.corbett.updates.VersionManifest.ExtensionVersion;
+
+/**
+ * Maintains pre-parsed VersionKeys for every ApplicationVersion and ExtensionVersion
+ * in a VersionManifest. The manifest classes come from swing-extras and so we can't
+ * attach the keys to them directly; instead, they are held here, keyed by object identity.
+ * <p>
+ * The index is built when a Project's manifest is loaded, and rebuilt whenever the manifest
+ * is replaced. Keys for entries that were already indexed are carried over as-is, so
+ * a rebuild only has to parse versions that are actually new. Entries added to the manifest
+ * between rebuilds are indexed the first time they are looked up.
+ * </p>
+ * <p>
+ * The index is used from the EDT as well as from background imports, batch operations, and the
+ * project loader, so it is safe to use from any thread. A rebuild builds complete new maps and
+ * then publishes them all at once; readers never see a map that is still being filled in.
+ * Keys for entries added since the last rebuild are kept in a separate synchronized map.
+ * </p>
+ * <p>
+ * All version sorting, both for display and for manifest output, should go through
+ * the comparators supplied here so that ordering is consistent everywhere.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public class ManifestIndex {
+
+    private static final Comparator<Extension> extensionOrder =
+            Comparator.comparing(Extension::getName, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    /**
+     * The keys from the last rebuild. These maps are never modified once published.
+     */
+    private volatile Map<Object, VersionKey> indexedKeys = Collections.emptyMap();
+
+    /**
+     * Keys for entries that weren't present at the last rebuild, or whose version has changed since.
+     */
+    private volatile Map<Object, VersionKey> recentKeys = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private final Comparator<ApplicationVersion> applicationVersionOrder = Comparator.comparing(this::getKey);
+    private final Comparator<ExtensionVersion> extensionVersionOrder = Comparator.comparing(this::getKey);
+
+    /**
+     * Re-indexes the given VersionManifest, discarding any keys for entries that are no longer present.
+     */
+    public void rebuild(VersionManifest manifest) {
+        Map<Object, VersionKey> newKeys = new IdentityHashMap<>();
+        if (manifest != null) {
+            for (ApplicationVersion appVersion : manifest.getApplicationVersions()) {
+                newKeys.put(appVersion, getKey(appVersion));
+                for (Extension extension : appVersion.getExtensions()) {
+                    for (ExtensionVersion extVersion : extension.getVersions()) {
+                        newKeys.put(extVersion, getKey(extVersion));
+                    }
+                }
+            }
+        }
+        indexedKeys = Collections.unmodifiableMap(newKeys);
+        recentKeys = Collections.synchronizedMap(new IdentityHashMap<>());
+    }
+
+    /**
+     * Returns the VersionKey for the given ApplicationVersion, parsing and caching it if needed.
+     */
+    public VersionKey getKey(ApplicationVersion appVersion) {
+        return getKey(appVersion, appVersion == null ? null : appVersion.getVersion());
+    }
+
+    /**
+     * Returns the VersionKey for the given ExtensionVersion, parsing and caching it if needed.
+     */
+    public VersionKey getKey(ExtensionVersion extVersion) {
+        String version = extVersion == null || extVersion.getExtInfo() == null
+                ? null
+                : extVersion.getExtInfo().getVersion();
+        return getKey(extVersion, version);
+    }
+
+    private VersionKey getKey(Object node, String version) {
+        if (node == null) {
+            return VersionKey.parse(version);
+        }
+        VersionKey key = indexedKeys.get(node);
+        if (key != null && key.isKeyFor(version)) {
+            return key;
+        }
+        Map<Object, VersionKey> recent = recentKeys;
+        key = recent.get(node);
+        if (key == null || !key.isKeyFor(version)) {
+            key = VersionKey.parse(version);
+            recent.put(node, key);
+        }
+        return key;
+    }
+
+    /**
+     * Orders ApplicationVersions numerically by version.
+     */
+    public Comparator<ApplicationVersion> applicationVersionOrder() {
+        return applicationVersionOrder;
+    }
+
+    /**
+     * Orders Extensions alphabetically by name.
+     */
+    public Comparator<Extension> extensionOrder() {
+        return extensionOrder;
+    }
+
+    /**
+     * Orders ExtensionVersions numerically by version.
+     */
+    public Comparator<ExtensionVersion> extensionVersionOrder() {
+        return extensionVersionOrder;
+    }
+
+    /**
+     * Sorts the given VersionManifest in place: application versions and extension versions
+     * numerically, and extensions by name. This gives a stable, predictable manifest output.
+     */
+    public void sort(VersionManifest manifest) {
+        if (manifest == null) {
+            return;
+        }
+        manifest.getApplicationVersions().sort(applicationVersionOrder);
+        for (ApplicationVersion appVersion : manifest.getApplicationVersions()) {
+            appVersion.getExtensions().sort(extensionOrder);
+            for (Extension extension : appVersion.getExtensions()) {
+                extension.getVersions().sort(extensionVersionOrder);
+            }
+        }
+    }
+}
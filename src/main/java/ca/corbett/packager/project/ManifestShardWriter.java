@@ -0,0 +1,171 @@
+package ca.corbett.packager.project;
+
+import ca.corbett.updates.VersionManifest;
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Writes a VersionManifest out as a set of shards: one small index file, plus one manifest
+ * file per application version. A client application only cares about extensions for its own
+ * version, so it can download the index, pick out the shard for its version, and download just
+ * that, instead of downloading the entire manifest history on every update check.
+ * <p>
+ * Each shard is itself a complete, valid VersionManifest containing exactly one ApplicationVersion,
+ * so clients can parse it with exactly the same code that parses the full manifest.
+ * All files are written in compact json, and each also gets a gzip-compressed variant with a .gz
+ * extension, for web servers that can serve precompressed files. The layout under dist is:
+ * </p>
+ * <pre>
+ * manifest/index.json
+ * manifest/index.json.gz
+ * manifest/app-1.0.json
+ * manifest/app-1.0.json.gz
+ * ...
+ * </pre>
+ * <p>
+ * Paths in the index are relative to the dist directory, the same as jar download paths
+ * in the version manifest. Clients should always look shards up through the index, since
+ * two versions that differ only in unsafe characters (or only in case, which matters on some
+ * file systems) can't share a file name, and the later one gets a hash suffix instead.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public class ManifestShardWriter {
+
+    public static final String SHARD_DIR_NAME = "manifest";
+    public static final String INDEX_FILE_NAME = "index.json";
+
+    private final Gson gson;
+
+    public ManifestShardWriter(Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * Generates all shards for the given manifest into the given directory, and returns the list
+     * of files that were written. Any previous contents of the directory are removed first, so
+     * that shards for deleted application versions don't linger.
+     */
+    public List<File> write(VersionManifest manifest, File shardDir) throws IOException {
+        clean(shardDir);
+        if (!shardDir.exists() && !shardDir.mkdirs()) {
+            throw new IOException("Unable to create directory " + shardDir.getAbsolutePath());
+        }
+
+        List<File> writtenFiles = new ArrayList<>();
+        Set<String> usedNames = new HashSet<>();
+        ShardIndex index = new ShardIndex();
+        index.applicationName = manifest.getApplicationName();
+        index.manifestGenerated = manifest.getManifestGenerated() == null
+                ? null
+                : manifest.getManifestGenerated().toString();
+
+        for (VersionManifest.ApplicationVersion appVersion : manifest.getApplicationVersions()) {
+            VersionManifest shard = new VersionManifest();
+            shard.setApplicationName(manifest.getApplicationName());
+            shard.setManifestGenerated(manifest.getManifestGenerated());
+            shard.addApplicationVersion(appVersion);
+
+            String shardName = getShardFileName(appVersion.getVersion());
+            if (!usedNames.add(shardName.toLowerCase(Locale.ROOT))) {
+                shardName = getDisambiguatedShardFileName(appVersion.getVersion());
+                if (!usedNames.add(shardName.toLowerCase(Locale.ROOT))) {
+                    throw new IOException("Application version \"" + appVersion.getVersion()
+                                                  + "\" has the same shard file name as another version: "
+                                                  + shardName);
+                }
+            }
+            writtenFiles.addAll(writeWithGzip(shard, new File(shardDir, shardName)));
+
+            ShardEntry entry = new ShardEntry();
+            entry.version = appVersion.getVersion();
+            entry.manifestPath = SHARD_DIR_NAME + "/" + shardName;
+            entry.extensionCount = appVersion.getExtensions().size();
+            index.applicationVersions.add(entry);
+        }
+
+        writtenFiles.addAll(writeWithGzip(index, new File(shardDir, INDEX_FILE_NAME)));
+        return writtenFiles;
+    }
+
+    /**
+     * Removes all files from the given shard directory. The directory itself is left in place.
+     */
+    public static void clean(File shardDir) throws IOException {
+        File[] files = shardDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isFile()) {
+                    Files.delete(file.toPath());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the shard file name for the given application version. Any characters that might
+     * not be safe in a file name or url are replaced with underscores.
+     */
+    public static String getShardFileName(String appVersion) {
+        String version = appVersion == null || appVersion.isBlank() ? "unknown" : appVersion;
+        return "app-" + version.replaceAll("[^A-Za-z0-9._-]", "_") + ".json";
+    }
+
+    /**
+     * Returns a shard file name for the given application version that includes a short hash of
+     * the version string, for use when the plain shard file name is already taken.
+     */
+    static String getDisambiguatedShardFileName(String appVersion) {
+        String plainName = getShardFileName(appVersion);
+        String hash = HexFormat.of().formatHex(
+                sha256(String.valueOf(appVersion).getBytes(StandardCharsets.UTF_8)), 0, 4);
+        return plainName.substring(0, plainName.length() - ".json".length()) + "-" + hash + ".json";
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private List<File> writeWithGzip(Object object, File file) throws IOException {
+        File gzFile = new File(file.getParentFile(), file.getName() + ".gz");
+        JsonFileWriter.writeJson(gson, object, file);
+        JsonFileWriter.writeGzippedJson(gson, object, gzFile);
+        return List.of(file, gzFile);
+    }
+
+    /**
+     * The index file for a sharded manifest. This is serialized by Gson, so field names matter.
+     */
+    public static class ShardIndex {
+        public String applicationName;
+        public String manifestGenerated;
+        public List<ShardEntry> applicationVersions = new ArrayList<>();
+    }
+
+    /**
+     * One application version's entry in the ShardIndex.
+     */
+    public static class ShardEntry {
+        public String version;
+        public String manifestPath;
+        public int extensionCount;
+    }
+}
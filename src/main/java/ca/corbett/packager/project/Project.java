@@ -1,8 +1,9 @@
 package ca.corbett.packager.project;
 
-import ca.corbett.extras.crypt.SignatureUtil;
 import ca.corbett.extras.io.FileSystemUtil;
 import ca.corbett.extras.properties.FileBasedProperties;
+import ca.corbett.packager.io.KeyFiles;
+import ca.corbett.packager.io.SigningScheme;
 import ca.corbett.updates.UpdateSources;
 import ca.corbett.updates.VersionManifest;
 import com.google.gson.Gson;
@@ -15,6 +16,11 @@ import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -34,6 +40,10 @@ public class Project {
 
     private static final Logger log = Logger.getLogger(Project.class.getName());
 
+    public static final int DEFAULT_SCREENSHOT_MAX_DIMENSION = 1920;
+    public static final int DEFAULT_SCREENSHOT_QUALITY = 85;
+    public static final List<String> DEFAULT_JAR_STRIP_PATTERNS = List.of("**/*.java", "META-INF/maven/**");
+
     private String name;
     private final FileBasedProperties props;
     private final File projectDir;
@@ -44,9 +54,17 @@ public class Project {
     private PublicKey publicKey;
 
     private UpdateSources updateSources;
-    private VersionManifest versionManifest;
+    private volatile VersionManifest versionManifest;
+    private final ReadWriteLock manifestLock = new ReentrantReadWriteLock();
+    private final ManifestIndex manifestIndex;
+    private final ThumbnailCache thumbnailCache;
+    private final ProjectFileIndex distFileIndex;
+    private final ChecksumManifestWriter checksumWriter;
+    private final DeltaPatchWriter deltaPatchWriter;
+    private final JarIntegrityCache jarIntegrityCache;
 
     private final Gson gson;
+    private final Gson compactGson;
 
     private Project(String name, FileBasedProperties props) {
         this(name, props, null, null);
@@ -63,7 +81,15 @@ public class Project {
         this.updateSources = new UpdateSources(name);
         this.versionManifest = new VersionManifest();
         versionManifest.setApplicationName(name);
+        this.manifestIndex = new ManifestIndex();
+        this.thumbnailCache = new ThumbnailCache(new File(projectDir, "cache" + File.separator + "thumbnails"));
+        this.jarIntegrityCache = new JarIntegrityCache(
+                new File(projectDir, "cache" + File.separator + "jar-integrity.json"));
+        this.distFileIndex = new ProjectFileIndex(distDir);
         this.gson = new GsonBuilder().setPrettyPrinting().create();
+        this.compactGson = new GsonBuilder().create();
+        this.checksumWriter = new ChecksumManifestWriter(gson);
+        this.deltaPatchWriter = new DeltaPatchWriter(gson);
     }
 
     /**
@@ -83,6 +109,13 @@ public class Project {
         props.saveWithoutException();
     }
 
+    /**
+     * Returns the .extpkg properties file for this Project.
+     */
+    public File getProjectFile() {
+        return props.getFile();
+    }
+
     /**
      * Returns the containing directory for this Project.
      */
@@ -104,6 +137,200 @@ public class Project {
         return extensionsDir;
     }
 
+    /**
+     * Returns the directory where original, unprocessed screenshots are kept when they are
+     * imported (this is projectDir/originals). This is outside the dist directory, so these
+     * are never uploaded, but they are available if screenshots ever need to be re-processed.
+     */
+    public File getOriginalsDir() {
+        return new File(projectDir, "originals");
+    }
+
+    /**
+     * Returns the maximum width or height, in pixels, of imported screenshots. Larger screenshots
+     * are scaled down to fit when they are imported.
+     */
+    public int getScreenshotMaxDimension() {
+        return props.getInteger("screenshotMaxDimension", DEFAULT_SCREENSHOT_MAX_DIMENSION);
+    }
+
+    /**
+     * Sets the maximum width or height, in pixels, of imported screenshots.
+     */
+    public void setScreenshotMaxDimension(int maxDimension) {
+        props.setInteger("screenshotMaxDimension", maxDimension);
+        props.saveWithoutException();
+    }
+
+    /**
+     * Returns the jpeg quality, from 1 to 100, with which imported screenshots are re-encoded.
+     */
+    public int getScreenshotQuality() {
+        return props.getInteger("screenshotQuality", DEFAULT_SCREENSHOT_QUALITY);
+    }
+
+    /**
+     * Sets the jpeg quality, from 1 to 100, with which imported screenshots are re-encoded.
+     */
+    public void setScreenshotQuality(int quality) {
+        props.setInteger("screenshotQuality", quality);
+        props.saveWithoutException();
+    }
+
+    /**
+     * Returns the inbox directory for this project, or null if none is set. If set, extension jars
+     * that are dropped into this directory are imported automatically. See InboxWatcher.
+     */
+    public File getInboxDir() {
+        String inboxDir = props.getString("inboxDir", "");
+        return inboxDir.isBlank() ? null : new File(inboxDir);
+    }
+
+    /**
+     * Sets the inbox directory for this project, or null to stop watching for new jars.
+     */
+    public void setInboxDir(File inboxDir) {
+        props.setString("inboxDir", inboxDir == null ? "" : inboxDir.getAbsolutePath());
+        props.saveWithoutException();
+    }
+
+    /**
+     * Reports whether jars that are imported from the inbox directory should be signed automatically.
+     */
+    public boolean isInboxAutoSign() {
+        return props.getBoolean("inboxAutoSign", false);
+    }
+
+    /**
+     * Sets whether jars that are imported from the inbox directory should be signed automatically.
+     */
+    public void setInboxAutoSign(boolean autoSign) {
+        props.setBoolean("inboxAutoSign", autoSign);
+        props.saveWithoutException();
+    }
+
+    /**
+     * Reports whether imported jars should be rewritten into a canonical form (sorted entries,
+     * fixed timestamps, stable manifest) so that rebuilding an unchanged extension produces an
+     * identical jar. See JarNormalizer.
+     */
+    public boolean isNormalizeJars() {
+        return props.getBoolean("normalizeJars", false);
+    }
+
+    /**
+     * Sets whether imported jars should be normalized. This only affects jars imported from now on.
+     */
+    public void setNormalizeJars(boolean normalize) {
+        props.setBoolean("normalizeJars", normalize);
+        props.saveWithoutException();
+    }
+
+    /**
+     * Reports whether imported jars should be recompressed, and stripped of any entries that
+     * match our jar strip patterns, to reduce their download size. See JarOptimizer.
+     */
+    public boolean isOptimizeJars() {
+        return props.getBoolean("optimizeJars", false);
+    }
+
+    /**
+     * Sets whether imported jars should be optimized. This only affects jars imported from now on.
+     */
+    public void setOptimizeJars(boolean optimize) {
+        props.setBoolean("optimizeJars", optimize);
+        props.saveWithoutException();
+    }
+
+    /**
+     * Returns the glob patterns for jar entries that are removed when a jar is optimized,
+     * without blanks or repeats. These are edited on the ProjectCard.
+     */
+    public List<String> getJarStripPatterns() {
+        return parseJarStripPatterns(props.getString("jarStripPatterns", String.join(",", DEFAULT_JAR_STRIP_PATTERNS)));
+    }
+
+    /**
+     * Sets the glob patterns for jar entries that are removed when a jar is optimized.
+     * An empty list means that nothing is removed, and jars are only recompressed.
+     * Blank and repeated patterns are dropped.
+     */
+    public void setJarStripPatterns(List<String> patterns) {
+        props.setString("jarStripPatterns", String.join(",", parseJarStripPatterns(String.join(",", patterns))));
+        props.saveWithoutException();
+    }
+
+    /**
+     * Splits the given comma-separated list of jar strip patterns, trims each one, and drops
+     * any that are blank or repeated.
+     */
+    public static List<String> parseJarStripPatterns(String patterns) {
+        List<String> result = new ArrayList<>();
+        for (String pattern : patterns.split(",")) {
+            if (!pattern.isBlank() && !result.contains(pattern.trim())) {
+                result.add(pattern.trim());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ThumbnailCache for this project. Thumbnails are stored in projectDir/cache/thumbnails,
+     * which is outside the dist directory so that they are never uploaded.
+     */
+    public ThumbnailCache getThumbnailCache() {
+        return thumbnailCache;
+    }
+
+    /**
+     * Returns the JarIntegrityCache for this project, which remembers which jars have already
+     * passed an integrity check. It's stored in projectDir/cache, so it is never uploaded.
+     */
+    public JarIntegrityCache getJarIntegrityCache() {
+        return jarIntegrityCache;
+    }
+
+    /**
+     * Checks every jar referenced by the version manifest for damage (see JarIntegrityChecker),
+     * in parallel, skipping jars that have already passed.
+     *
+     * @throws IOException If any jar is damaged. The message lists the damaged jars.
+     */
+    public void verifyJarIntegrity() throws IOException {
+        List<File> jars = new ArrayList<>();
+        readManifest(manifest -> {
+            if (manifest != null) {
+                for (VersionManifest.ApplicationVersion appVersion : manifest.getApplicationVersions()) {
+                    for (VersionManifest.Extension extension : appVersion.getExtensions()) {
+                        for (VersionManifest.ExtensionVersion version : extension.getVersions()) {
+                            if (version.getDownloadPath() != null) {
+                                jars.add(new File(distDir, version.getDownloadPath()));
+                            }
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+
+        Map<File, String> failures = jarIntegrityCache.verifyAll(jars);
+        if (!failures.isEmpty()) {
+            StringBuilder sb = new StringBuilder(failures.size() + " damaged jar(s):");
+            for (Map.Entry<File, String> failure : failures.entrySet()) {
+                sb.append("\n").append(failure.getKey().getName()).append(": ").append(failure.getValue());
+            }
+            throw new IOException(sb.toString());
+        }
+    }
+
+    /**
+     * Returns the ProjectFileIndex for the dist directory of this project. This can be used to find
+     * files under dist without walking the entire directory tree each time.
+     */
+    public ProjectFileIndex getDistFileIndex() {
+        return distFileIndex;
+    }
+
     /**
      * Returns the PrivateKey for this Project, or null if no key pair is set.
      */
@@ -138,13 +365,25 @@ public class Project {
         return new File(distDir, "public.key");
     }
 
+    /**
+     * Returns the signing scheme that this project's key pair was generated with.
+     * Projects created before there was a choice of scheme use RSA.
+     */
+    public SigningScheme getSigningScheme() {
+        return SigningScheme.fromId(props.getString("signatureAlgorithm", ""));
+    }
+
     /**
      * Sets a new KeyPair for this Project, overwriting any previous public and private key.
+     * The signing scheme of the new key pair is recorded in the project settings.
      */
     public void setKeyPair(KeyPair keyPair) throws IOException {
         this.privateKey = keyPair.getPrivate();
         this.publicKey = keyPair.getPublic();
         if (publicKey != null) {
+            props.setString("signatureAlgorithm", SigningScheme.forKey(publicKey).getSignatureAlgorithm());
+            props.save();
+
             UpdateSources newUpdateSources = new UpdateSources(updateSources.getApplicationName());
             List<UpdateSources.UpdateSource> newEntries = new ArrayList<>();
             for (UpdateSources.UpdateSource updateSource : updateSources.getUpdateSources()) {
@@ -184,10 +423,38 @@ public class Project {
     }
 
     /**
-     * Returns the VersionManifest for this Project.
+     * Invokes the given reader with our VersionManifest while holding the manifest read lock, and
+     * returns whatever it returns. Any number of readers can run at once, but none will run while
+     * an update is in progress. The reader must not invoke updateManifest, or it will deadlock.
+     * <p>
+     * VersionManifest is not itself thread-safe, and it is modified by background imports, signing,
+     * and uploads as well as by the UI. So this and updateManifest are the only ways to get at it,
+     * and that goes for the EDT too. This also applies to the lists and signature paths of nodes
+     * that were obtained from the manifest earlier, since those can change at any time.
+     * </p>
      */
-    public VersionManifest getVersionManifest() {
-        return versionManifest;
+    public <T> T readManifest(Function<VersionManifest, T> reader) {
+        manifestLock.readLock().lock();
+        try {
+            return reader.apply(versionManifest);
+        }
+        finally {
+            manifestLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Invokes the given updater with our VersionManifest while holding the manifest write lock,
+     * so that no other reader or updater can see the manifest in a half-modified state.
+     */
+    public void updateManifest(Consumer<VersionManifest> updater) {
+        manifestLock.writeLock().lock();
+        try {
+            updater.accept(versionManifest);
+        }
+        finally {
+            manifestLock.writeLock().unlock();
+        }
     }
 
     /**
@@ -197,11 +464,207 @@ public class Project {
         return new File(distDir, "version_manifest.json");
     }
 
+    /**
+     * Returns the File where the compact (not pretty-printed) version manifest is written
+     * when the project is published. This is dist/version_manifest.min.json.
+     */
+    public File getCompactVersionManifestFile() {
+        return new File(distDir, "version_manifest.min.json");
+    }
+
+    /**
+     * Returns the File where the gzip-compressed version manifest is written when the project
+     * is published. This is dist/version_manifest.json.gz, and it holds the compact form of the
+     * manifest, so that a web server with precompressed file support (such as gzip_static in nginx)
+     * can serve it as-is for requests to version_manifest.json, with a Content-Encoding of gzip.
+     */
+    public File getCompressedVersionManifestFile() {
+        return new File(distDir, "version_manifest.json.gz");
+    }
+
+    /**
+     * Returns all the version manifest files that are generated by publishVersionManifest(),
+     * in the order in which they should be uploaded. This includes the delta patch index and
+     * the signed checksums document, if those are enabled for this project.
+     */
+    public List<File> getPublishedManifestFiles() {
+        List<File> files = new ArrayList<>(List.of(getVersionManifestFile(),
+                                                   getCompactVersionManifestFile(),
+                                                   getCompressedVersionManifestFile()));
+        if (isDeltaPatches()) {
+            files.add(getPatchIndexFile());
+        }
+        if (isChecksumManifest()) {
+            files.add(getChecksumManifestFile());
+            files.add(getChecksumSignatureFile());
+        }
+        return files;
+    }
+
+    /**
+     * Returns the File where the index of delta patches is written when the project is published
+     * with delta patches enabled. This is dist/patches.json.
+     */
+    public File getPatchIndexFile() {
+        return new File(distDir, DeltaPatchWriter.INDEX_FILE_NAME);
+    }
+
+    /**
+     * Reports whether delta patches are enabled for this project. If so, publishing generates
+     * a binary patch between each pair of consecutive versions of each extension, so that clients
+     * can upgrade without downloading the full jar. See DeltaPatchWriter for details.
+     */
+    public boolean isDeltaPatches() {
+        return props.getBoolean("deltaPatches", false);
+    }
+
+    /**
+     * Enables or disables delta patches for this project.
+     */
+    public void setDeltaPatches(boolean enabled) {
+        props.setBoolean("deltaPatches", enabled);
+        props.saveWithoutException();
+    }
+
+    /**
+     * Returns the File where the checksums document is written when the project is published
+     * with the checksum manifest enabled. This is dist/checksums.json.
+     */
+    public File getChecksumManifestFile() {
+        return new File(distDir, ChecksumManifestWriter.CHECKSUM_FILE_NAME);
+    }
+
+    /**
+     * Returns the File where the signature of the checksums document is written. This is dist/checksums.sig.
+     */
+    public File getChecksumSignatureFile() {
+        return new File(distDir, ChecksumManifestWriter.SIGNATURE_FILE_NAME);
+    }
+
+    /**
+     * Reports whether the signed checksum manifest is enabled for this project. If so, publishing
+     * generates a checksums document listing the SHA-256 hash of every file referenced by the version
+     * manifest, and signs that document once, so that individual jars don't need to be signed.
+     * See ChecksumManifestWriter for details.
+     */
+    public boolean isChecksumManifest() {
+        return props.getBoolean("checksumManifest", false);
+    }
+
+    /**
+     * Enables or disables the signed checksum manifest for this project.
+     */
+    public void setChecksumManifest(boolean enabled) {
+        props.setBoolean("checksumManifest", enabled);
+        props.saveWithoutException();
+    }
+
+    /**
+     * Returns the directory in which sharded manifest files are generated when the project is
+     * published with sharded manifest output enabled. This is dist/manifest.
+     */
+    public File getManifestShardDir() {
+        return new File(distDir, ManifestShardWriter.SHARD_DIR_NAME);
+    }
+
+    /**
+     * Reports whether sharded manifest output is enabled for this project. If so, publishing
+     * generates a small index file plus one manifest file per application version, in addition to
+     * the regular version manifest. See ManifestShardWriter for details.
+     */
+    public boolean isShardedManifest() {
+        return props.getBoolean("shardedManifest", false);
+    }
+
+    /**
+     * Enables or disables sharded manifest output for this project.
+     */
+    public void setShardedManifest(boolean sharded) {
+        props.setBoolean("shardedManifest", sharded);
+        props.saveWithoutException();
+    }
+
+    /**
+     * Returns the File in which the snapshot of what was last published to the given UpdateSource
+     * is kept. This is projectDir/published/sourceName.json, with any unsafe characters in the
+     * source name replaced by underscores. The file may not exist.
+     */
+    public File getPublishedSnapshotFile(UpdateSources.UpdateSource updateSource) {
+        String safeName = updateSource.getName().replaceAll("[^A-Za-z0-9._-]", "_");
+        return new File(new File(projectDir, "published"), safeName + ".json");
+    }
+
+    /**
+     * Loads the snapshot of what was last published to the given UpdateSource, or returns null
+     * if nothing has been published there yet (or if the snapshot can't be read).
+     */
+    public PublishedSnapshot loadPublishedSnapshot(UpdateSources.UpdateSource updateSource) {
+        File snapshotFile = getPublishedSnapshotFile(updateSource);
+        if (!snapshotFile.exists()) {
+            return null;
+        }
+        try {
+            return compactGson.fromJson(FileSystemUtil.readFileToString(snapshotFile), PublishedSnapshot.class);
+        }
+        catch (IOException | RuntimeException e) {
+            log.log(Level.WARNING, "Unable to read published snapshot " + snapshotFile.getName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Records the current VersionManifest, and the current state of all extension files that it
+     * references, as having been published to the given UpdateSource. This should be invoked
+     * after a successful upload.
+     */
+    public void savePublishedSnapshot(UpdateSources.UpdateSource updateSource) throws IOException {
+        File snapshotFile = getPublishedSnapshotFile(updateSource);
+        if (!snapshotFile.getParentFile().exists() && !snapshotFile.getParentFile().mkdirs()) {
+            throw new IOException("Unable to create directory " + snapshotFile.getParentFile().getAbsolutePath());
+        }
+        manifestLock.readLock().lock();
+        try {
+            PublishedSnapshot snapshot = new PublishedSnapshot(versionManifest,
+                                                               PublishedSnapshot.fingerprint(versionManifest, distDir));
+            JsonFileWriter.writeJson(compactGson, snapshot, snapshotFile);
+        }
+        finally {
+            manifestLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Computes the differences between what was last published to the given UpdateSource and
+     * the current state of this Project.
+     */
+    public ManifestDiff computeManifestDiff(UpdateSources.UpdateSource updateSource) {
+        PublishedSnapshot snapshot = loadPublishedSnapshot(updateSource);
+        return readManifest(manifest -> ManifestDiff.compute(snapshot,
+                                                             manifest,
+                                                             PublishedSnapshot.fingerprint(manifest, distDir),
+                                                             manifestIndex));
+    }
+
     /**
      * Sets the VersionManifest for this Project.
      */
     public void setVersionManifest(VersionManifest manifest) {
-        this.versionManifest = manifest;
+        manifestLock.writeLock().lock();
+        try {
+            this.versionManifest = manifest;
+            manifestIndex.rebuild(manifest);
+        }
+        finally {
+            manifestLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ManifestIndex for this Project, which holds pre-parsed version sort keys
+     * for our VersionManifest. Use its comparators for any version sorting.
+     */
+    public ManifestIndex getManifestIndex() {
+        return manifestIndex;
     }
 
     /**
@@ -211,10 +674,10 @@ public class Project {
      */
     public void save() throws IOException {
         if (privateKey != null) {
-            SignatureUtil.savePrivateKey(privateKey, getPrivateKeyFile());
+            KeyFiles.savePrivateKey(privateKey, getPrivateKeyFile());
         }
         if (publicKey != null) {
-            SignatureUtil.savePublicKey(publicKey, getPublicKeyFile());
+            KeyFiles.savePublicKey(publicKey, getPublicKeyFile());
         }
         if (updateSources != null) {
             FileSystemUtil.writeStringToFile(gson.toJson(updateSources), getUpdateSourcesFile());
@@ -224,14 +687,89 @@ public class Project {
 
     /**
      * Saves just the VersionManifest for this project. This is exposed separately so it can
-     * be invoked outside of save().
+     * be invoked outside of save(). The manifest is sorted before it is written, so that
+     * application and extension versions always appear in numeric version order.
      */
     public void saveVersionManifest() throws IOException {
-        if (versionManifest != null) {
-            FileSystemUtil.writeStringToFile(gson.toJson(versionManifest), getVersionManifestFile());
+        // Sorting happens in place, so we need the write lock here and not just the read lock:
+        manifestLock.writeLock().lock();
+        try {
+            if (versionManifest != null) {
+                manifestIndex.sort(versionManifest);
+                FileSystemUtil.writeStringToFile(gson.toJson(versionManifest), getVersionManifestFile());
+            }
+        }
+        finally {
+            manifestLock.writeLock().unlock();
         }
     }
 
+    /**
+     * Saves the VersionManifest as with saveVersionManifest(), and then also generates the compact
+     * and gzip-compressed variants of it, so that they are ready to be uploaded alongside it.
+     * Before anything is written, every jar is checked for damage with verifyJarIntegrity().
+     * The variants are streamed straight to disk, so the compact json is never held in memory.
+     * If sharded manifest output is enabled for this project, the manifest shards are also
+     * generated in the manifest shard directory. If delta patches are enabled, patches between
+     * consecutive extension versions are generated and verified; a patch that fails verification
+     * is left out, and the rest of the publish carries on. If the checksum manifest is enabled,
+     * the checksums document is generated and signed.
+     * <p>
+     * Everything after the save works from a private copy of the manifest, so the manifest lock
+     * is only held long enough to take that copy. The UI can keep editing the manifest while
+     * patches and checksums are being generated.
+     * </p>
+     *
+     * @throws IOException If the checksum manifest is enabled but this project has no private key,
+     *                     if any jar is damaged, or if any output file can't be written.
+     */
+    public void publishVersionManifest() throws IOException {
+        if (isChecksumManifest() && privateKey == null) {
+            throw new IOException("The checksum manifest is enabled, but this project has no key pair to sign it.");
+        }
+        verifyJarIntegrity();
+        saveVersionManifest();
+        VersionManifest snapshot = copyVersionManifest();
+        if (snapshot == null) {
+            return;
+        }
+        JsonFileWriter.writeJson(compactGson, snapshot, getCompactVersionManifestFile());
+        JsonFileWriter.writeGzippedJson(compactGson, snapshot, getCompressedVersionManifestFile());
+
+        File shardDir = getManifestShardDir();
+        if (isShardedManifest()) {
+            new ManifestShardWriter(compactGson).write(snapshot, shardDir);
+        }
+        else if (shardDir.exists()) {
+            // Don't leave stale shards lying around to be uploaded if sharding was turned off:
+            ManifestShardWriter.clean(shardDir);
+        }
+
+        // Patches go first, so that they are included in the checksums document:
+        if (isDeltaPatches()) {
+            deltaPatchWriter.write(snapshot, distDir, publicKey);
+        }
+        else {
+            DeltaPatchWriter.clean(distDir);
+        }
+
+        if (isChecksumManifest()) {
+            checksumWriter.write(snapshot, distDir, privateKey);
+        }
+        else {
+            ChecksumManifestWriter.clean(distDir);
+        }
+    }
+
+    /**
+     * Returns a deep copy of the VersionManifest, or null if there isn't one. The read lock is
+     * held only while the manifest is serialized; the copy is built from that after it's released.
+     */
+    private VersionManifest copyVersionManifest() {
+        String json = readManifest(manifest -> manifest == null ? null : gson.toJson(manifest));
+        return json == null ? null : gson.fromJson(json, VersionManifest.class);
+    }
+
     /**
      * Creates a new, empty Project in the given project directory and with the given name.
      * A properties file will be created for the project, and the distribution directory
@@ -265,8 +803,26 @@ public class Project {
     /**
      * Attempts to load an ext-packager Project from the given project file.
      * If any required files are missing, an IOException is thrown.
+     * <p>
+     * This does everything in one go, on the calling thread. See ProjectLoadThread for a way to
+     * load a project in the background, in stages, with progress notification.
+     * </p>
      */
     public static Project fromFile(File projectFile) throws IOException {
+        Project project = open(projectFile);
+        project.loadKeys();
+        project.loadUpdateSources();
+        project.loadVersionManifest();
+        project.rebuildManifestIndex();
+        return project;
+    }
+
+    /**
+     * Reads the given project file and verifies that the project directory structure is in place,
+     * but loads nothing else. The returned Project has no keys, no update sources, and an empty
+     * version manifest until the other load stages have been invoked.
+     */
+    static Project open(File projectFile) throws IOException {
         File projectDir = projectFile.getParentFile();
         File distDir = new File(projectDir, "dist");
         if (!distDir.exists() || !distDir.isDirectory()) {
@@ -282,40 +838,38 @@ public class Project {
         if ("".equals(name)) {
             throw new IOException("Project file appears corrupt.");
         }
+        return new Project(name, props);
+    }
 
-        PublicKey publicKey = null;
-        File publicKeyFile = new File(distDir, "public.key");
+    /**
+     * Invoked internally to load the public and private keys for this Project, if they exist.
+     */
+    void loadKeys() throws IOException {
+        File publicKeyFile = getPublicKeyFile();
         if (publicKeyFile.exists()) {
             try {
-                publicKey = SignatureUtil.loadPublicKey(publicKeyFile);
+                publicKey = KeyFiles.loadPublicKey(publicKeyFile);
             }
             catch (Exception e) {
                 throw new IOException("Unable to load public key: " + e.getMessage(), e);
             }
         }
 
-        PrivateKey privateKey = null;
-        File privateKeyFile = new File(projectDir, "private.key");
+        File privateKeyFile = getPrivateKeyFile();
         if (privateKeyFile.exists()) {
             try {
-                privateKey = SignatureUtil.loadPrivateKey(privateKeyFile);
+                privateKey = KeyFiles.loadPrivateKey(privateKeyFile);
             }
             catch (Exception e) {
                 throw new IOException("Unable to load private key: " + e.getMessage(), e);
             }
         }
-
-        Project project = new Project(name, props, publicKey, privateKey);
-        project.loadUpdateSources();
-        project.loadVersionManifest();
-
-        return project;
     }
 
     /**
      * Invoked internally to load the UpdateSources list for this Project.
      */
-    private void loadUpdateSources() {
+    void loadUpdateSources() {
         // Start by blanking out our current UpdateSources in case the load fails:
         updateSources = new UpdateSources(name);
 
@@ -334,7 +888,7 @@ public class Project {
     /**
      * Invoked internally to load the version manifest for this Project.
      */
-    private void loadVersionManifest() {
+    void loadVersionManifest() {
         // Start by blanking out our current VersionManifest in case the load fails:
         versionManifest = new VersionManifest();
         versionManifest.setApplicationName(name);
@@ -350,4 +904,11 @@ public class Project {
             }
         }
     }
+
+    /**
+     * Invoked internally to rebuild our ManifestIndex after the version manifest has been loaded.
+     */
+    void rebuildManifestIndex() {
+        manifestIndex.rebuild(versionManifest);
+    }
 }
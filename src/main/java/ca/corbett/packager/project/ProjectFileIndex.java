@@ -0,0 +1,135 @@
+package ca.corbett.packager.project;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An in-memory index of the files under a directory tree, for answering "find all files with
+ * this extension" queries without walking the whole tree every time. This matters because such
+ * queries are made on every project load and every save, and saves happen constantly. When the
+ * project lives on a network mount, a full recursive walk can take seconds.
+ * <p>
+ * The index relies on directory modification times: adding, removing, or renaming an entry
+ * in a directory updates that directory's last modified time. So, to bring the index up to date,
+ * we only need one stat per directory, and we only re-list the directories whose time has changed.
+ * We deliberately don't use a WatchService for this, as watch events are unreliable or entirely
+ * missing on most network file systems, which is exactly where this cache is needed most.
+ * </p>
+ * <p>
+ * Some file systems only record modification times to the nearest second or two, so a change made
+ * shortly after we listed a directory might not change its time. To guard against that, a directory
+ * whose time is very recent is re-listed on every query until it has settled.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public class ProjectFileIndex {
+
+    /**
+     * Directories modified within this many milliseconds of being listed are not trusted to be settled.
+     */
+    static final long SETTLE_TIME_MS = 2000;
+
+    private final File rootDir;
+    private final Map<File, DirEntry> directories = new HashMap<>();
+
+    public ProjectFileIndex(File rootDir) {
+        this.rootDir = rootDir;
+    }
+
+    public File getRootDir() {
+        return rootDir;
+    }
+
+    /**
+     * Returns all files anywhere under the root directory with the given extension (case-insensitive),
+     * sorted by path. The index is brought up to date before the query is answered.
+     */
+    public synchronized List<File> findFiles(String extension) {
+        refresh();
+        String suffix = "." + extension.toLowerCase(Locale.ROOT);
+        List<File> results = new ArrayList<>();
+        for (DirEntry entry : directories.values()) {
+            for (File file : entry.files) {
+                if (file.getName().toLowerCase(Locale.ROOT).endsWith(suffix)) {
+                    results.add(file);
+                }
+            }
+        }
+        results.sort(Comparator.comparing(File::getPath));
+        return results;
+    }
+
+    /**
+     * Discards everything in the index, so that the next query re-lists every directory.
+     */
+    public synchronized void invalidate() {
+        directories.clear();
+    }
+
+    /**
+     * Brings the index up to date with the file system, re-listing only those directories
+     * whose modification time has changed, and dropping directories that no longer exist.
+     */
+    synchronized void refresh() {
+        Map<File, DirEntry> visited = new HashMap<>();
+        if (rootDir.isDirectory()) {
+            refresh(rootDir, visited);
+        }
+        directories.clear();
+        directories.putAll(visited);
+    }
+
+    private void refresh(File dir, Map<File, DirEntry> visited) {
+        long lastModified = dir.lastModified();
+        DirEntry entry = directories.get(dir);
+        if (entry == null || !entry.isCurrent(lastModified)) {
+            entry = list(dir, lastModified);
+        }
+        if (entry == null) {
+            return; // directory disappeared or isn't readable
+        }
+        visited.put(dir, entry);
+        for (File subdir : entry.subdirs) {
+            refresh(subdir, visited);
+        }
+    }
+
+    private static DirEntry list(File dir, long lastModified) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return null;
+        }
+        DirEntry entry = new DirEntry(lastModified, System.currentTimeMillis());
+        for (File child : children) {
+            if (child.isDirectory()) {
+                entry.subdirs.add(child);
+            }
+            else {
+                entry.files.add(child);
+            }
+        }
+        return entry;
+    }
+
+    private static class DirEntry {
+        private final long lastModified;
+        private final long listedAt;
+        private final List<File> subdirs = new ArrayList<>();
+        private final List<File> files = new ArrayList<>();
+
+        DirEntry(long lastModified, long listedAt) {
+            this.lastModified = lastModified;
+            this.listedAt = listedAt;
+        }
+
+        boolean isCurrent(long currentLastModified) {
+            return currentLastModified == lastModified && listedAt - lastModified > SETTLE_TIME_MS;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package ca.corbett.packager.project;
+
+import ca.corbett.extras.progress.SimpleProgressWorker;
+
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A worker thread for loading a Project in the background, so that the UI doesn't hang
+ * while a large project is being opened. Loading happens in stages (keys, update sources,
+ * version manifest, manifest index, file scan), and progress is reported after each one.
+ * <p>
+ * As soon as the version manifest and its index are ready, the project is handed to
+ * the ProjectManager on the EDT and becomes the current project, so the UI is usable right
+ * away. The final stage, scanning the dist directory to warm up the project's file index,
+ * carries on in the background after that.
+ * </p>
+ * <p>
+ * The load can be canceled at any point before the project is handed over, in which case
+ * the current project (if any) is left untouched. Use getProject() after completion to see
+ * whether the load succeeded.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public class ProjectLoadThread extends SimpleProgressWorker {
+
+    private static final Logger log = Logger.getLogger(ProjectLoadThread.class.getName());
+
+    private static final int STEP_COUNT = 5;
+
+    private final File projectFile;
+    private volatile Project project;
+
+    ProjectLoadThread(File projectFile) {
+        this.projectFile = projectFile;
+    }
+
+    public File getProjectFile() {
+        return projectFile;
+    }
+
+    /**
+     * Returns the Project that was loaded, or null if the load failed, was canceled,
+     * or hasn't finished yet.
+     */
+    public Project getProject() {
+        return project;
+    }
+
+    @Override
+    public void run() {
+        log.info("Loading project: " + projectFile.getAbsolutePath());
+        fireProgressBegins(STEP_COUNT);
+
+        try {
+            if (!fireProgressUpdate(0, "Loading keys")) {
+                fireProgressCanceled();
+                return;
+            }
+            Project newProject = Project.open(projectFile);
+            newProject.loadKeys();
+
+            if (!fireProgressUpdate(1, "Loading update sources")) {
+                fireProgressCanceled();
+                return;
+            }
+            newProject.loadUpdateSources();
+
+            if (!fireProgressUpdate(2, "Loading version manifest")) {
+                fireProgressCanceled();
+                return;
+            }
+            newProject.loadVersionManifest();
+
+            if (!fireProgressUpdate(3, "Indexing version manifest")) {
+                fireProgressCanceled();
+                return;
+            }
+            newProject.rebuildManifestIndex();
+
+            // The manifest is usable now, so hand the project over to the UI.
+            // Past this point, it's too late to cancel:
+            SwingUtilities.invokeAndWait(() -> ProjectManager.getInstance().installProject(newProject));
+            project = newProject;
+
+            fireProgressUpdate(4, "Scanning project files");
+            newProject.getDistFileIndex().refresh();
+        }
+        catch (IOException ioe) {
+            log.log(Level.SEVERE, "Unable to load project: " + ioe.getMessage(), ioe);
+            fireProgressError("Project load", "Unable to load project: " + ioe.getMessage());
+            return;
+        }
+        catch (InvocationTargetException e) {
+            log.log(Level.SEVERE, "Problem opening project: " + e.getCause().getMessage(), e.getCause());
+            fireProgressError("Project load", "Problem opening project: " + e.getCause().getMessage());
+            return;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fireProgressCanceled();
+            return;
+        }
+
+        fireProgressComplete();
+    }
+}
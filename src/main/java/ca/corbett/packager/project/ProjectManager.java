@@ -1,19 +1,43 @@
 package ca.corbett.packager.project;
 
 import ca.corbett.extensions.AppExtensionInfo;
+import ca.corbett.extras.image.ImageUtil;
 import ca.corbett.extras.io.FileSystemUtil;
+import ca.corbett.packager.io.BundleReader;
+import ca.corbett.packager.io.FileHashCache;
+import ca.corbett.packager.io.JarIntegrityChecker;
+import ca.corbett.packager.io.JarNormalizer;
+import ca.corbett.packager.io.JarOptimizer;
+import ca.corbett.packager.io.ScreenshotTranscoder;
 import ca.corbett.updates.VersionManifest;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.TeeInputStream;
 
 import javax.swing.Timer;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
 
 import static ca.corbett.updates.VersionManifest.ApplicationVersion;
 import static ca.corbett.updates.VersionManifest.Extension;
@@ -30,20 +54,31 @@ public class ProjectManager {
 
     private static final Logger log = Logger.getLogger(ProjectManager.class.getName());
     private static final int DEFERRED_SAVE_TIME_MS = 500;
-    private static ProjectManager instance;
+    private static final int SCREENSHOT_HASH_LENGTH = 16;
+    private static final ProjectManager instance = new ProjectManager();
 
-    private final List<ProjectListener> projectListeners = new ArrayList<>();
-    private Project project;
-    private boolean isProjectIOInProgress = false;
+    private final List<ProjectListener> projectListeners = new CopyOnWriteArrayList<>();
+    private final AsyncListenerDispatcher asyncDispatcher = new AsyncListenerDispatcher();
+    private final AtomicBoolean isProjectIOInProgress = new AtomicBoolean(false);
+    private volatile Project project;
+    private InboxWatcher inboxWatcher;
 
     private ProjectManager() {
 
     }
 
+    /**
+     * Returns the single ProjectManager instance. This is safe to invoke from any thread.
+     * <p>
+     * The ProjectManager itself is safe to use from worker threads: the current project is
+     * published through a volatile field, listeners are held in a copy-on-write list so they can be
+     * added or removed while events are being fired, and the deferred save flag is atomic, so that
+     * concurrent save requests collapse into a single save. Note that this does not make the
+     * VersionManifest itself thread-safe - use Project.readManifest and Project.updateManifest
+     * for that. Events are still fired on whichever thread triggers them, which is normally the EDT.
+     * </p>
+     */
     public static ProjectManager getInstance() {
-        if (instance == null) {
-            instance = new ProjectManager();
-        }
         return instance;
     }
 
@@ -60,11 +95,13 @@ public class ProjectManager {
     public void newProject(String name, File projectDir) throws IOException {
         // Create the project and give listeners a heads-up that we're about to load it:
         Project newProject = Project.createNew(name, projectDir);
+        flushDeferredSave();
         fireProjectWillLoadEvent(newProject);
 
         // Now set it and tell listeners it's loaded:
         project = newProject;
         fireProjectLoadedEvent(project);
+        restartInboxWatcher();
 
         log.info("Created new project: " + project.getName() + " in directory " + projectDir.getAbsolutePath());
     }
@@ -74,31 +111,82 @@ public class ProjectManager {
      */
     public void loadProject(File projectFile) throws IOException {
         log.info("Loading project: " + projectFile.getAbsolutePath());
-        // Load the project and give listeners a heads-up that we're about to load it:
-        Project newProject = Project.fromFile(projectFile);
+        installProject(Project.fromFile(projectFile));
+    }
+
+    /**
+     * Returns a worker that will load the given project file in the background, with progress
+     * notification, and then make it the current project. The worker is not started; the caller
+     * can run it however it likes, for example with a MultiProgressDialog.
+     */
+    public ProjectLoadThread createProjectLoadThread(File projectFile) {
+        return new ProjectLoadThread(projectFile);
+    }
+
+    /**
+     * Returns a worker that will import the given extension jars and build bundles into the given
+     * project in the background, with progress notification. As with createProjectLoadThread,
+     * the worker is not started. See ExtensionImportThread for how to use the results.
+     */
+    public ExtensionImportThread createExtensionImportThread(Project targetProject, Collection<File> jars,
+                                                             Collection<File> bundles) {
+        return new ExtensionImportThread(targetProject, jars, bundles);
+    }
+
+    /**
+     * Makes the given, fully loaded Project the current Project, and notifies listeners.
+     * This must be invoked on the EDT.
+     */
+    void installProject(Project newProject) {
+        // Give listeners a heads-up that we're about to load it:
+        flushDeferredSave();
         fireProjectWillLoadEvent(newProject);
 
         // Now set it and tell listeners it's loaded:
         project = newProject;
         fireProjectLoadedEvent(project);
+        restartInboxWatcher();
+    }
+
+    /**
+     * Stops watching any inbox directory that we were watching, and then starts watching the
+     * current project's inbox directory, if it has one. This should be invoked whenever the
+     * project's inbox settings change.
+     */
+    public synchronized void restartInboxWatcher() {
+        if (inboxWatcher != null) {
+            inboxWatcher.stop();
+            inboxWatcher = null;
+        }
+        if (project == null || project.getInboxDir() == null) {
+            return;
+        }
+        inboxWatcher = new InboxWatcher(project, project.getInboxDir(), project.isInboxAutoSign());
+        try {
+            inboxWatcher.start();
+        }
+        catch (IOException ioe) {
+            log.log(Level.SEVERE, "Unable to watch inbox directory: " + ioe.getMessage(), ioe);
+            inboxWatcher = null;
+        }
     }
 
     /**
      * Saves any changes to the current Project, if one is open.
      */
     public void save() throws IOException {
-        if (project == null) {
+        final Project projectToSave = project;
+        if (projectToSave == null) {
             log.warning("Ignoring request to save project because no project is open.");
             return;
         }
-        if (isProjectIOInProgress) {
+        if (!isProjectIOInProgress.compareAndSet(false, true)) {
             log.fine("Deferred save in progress.");
             return;
         }
 
         // Handle the save asynchronously after a short delay:
-        isProjectIOInProgress = true;
-        Timer timer = new Timer(DEFERRED_SAVE_TIME_MS, e -> deferredSave(project));
+        Timer timer = new Timer(DEFERRED_SAVE_TIME_MS, e -> deferredSave(projectToSave));
         timer.setRepeats(false);
         timer.start();
     }
@@ -108,9 +196,18 @@ public class ProjectManager {
      * of the way document listeners work - we need to give them time
      * to process any pending changes before we attempt to save the
      * Project data.
+     * <p>
+     * If the project was closed or replaced in the meantime, it has already been saved by
+     * flushDeferredSave, so it is skipped here, and listeners never hear about a project
+     * that is no longer current.
+     * </p>
      */
     private void deferredSave(Project projectToSave) {
         try {
+            if (projectToSave != project) {
+                log.fine("Skipping deferred save of " + projectToSave.getName() + ", it is no longer current.");
+                return;
+            }
             projectToSave.save();
             log.info("Project saved: " + projectToSave.getName());
             fireProjectSavedEvent(projectToSave);
@@ -119,7 +216,26 @@ public class ProjectManager {
             log.log(Level.SEVERE, "Error saving project: " + ioe.getMessage(), ioe);
         }
         finally {
-            isProjectIOInProgress = false;
+            isProjectIOInProgress.set(false);
+        }
+    }
+
+    /**
+     * If a deferred save of the current project is pending, saves it right away, because the
+     * current project is about to be closed or replaced, and the deferred save will skip it.
+     * No saved event is fired for it.
+     */
+    private void flushDeferredSave() {
+        Project projectToSave = project;
+        if (projectToSave == null || !isProjectIOInProgress.get()) {
+            return;
+        }
+        try {
+            projectToSave.save();
+            log.info("Project saved: " + projectToSave.getName());
+        }
+        catch (IOException ioe) {
+            log.log(Level.SEVERE, "Error saving project: " + ioe.getMessage(), ioe);
         }
     }
 
@@ -128,12 +244,19 @@ public class ProjectManager {
      * listeners that the project has been closed.
      */
     public void close() {
-        if (project != null) {
-            log.info("Closing current project: " + project.getName());
-            Project oldProject = project;
+        Project oldProject = project;
+        if (oldProject != null) {
+            log.info("Closing current project: " + oldProject.getName());
+            flushDeferredSave();
+            synchronized (this) {
+                if (inboxWatcher != null) {
+                    inboxWatcher.stop();
+                    inboxWatcher = null;
+                }
+            }
             project = null;
-            List<ProjectListener> copy = new ArrayList<>(projectListeners);
-            for (ProjectListener listener : copy) {
+            asyncDispatcher.cancelAll();
+            for (ProjectListener listener : projectListeners) {
                 listener.projectClosed(oldProject);
             }
         }
@@ -146,7 +269,14 @@ public class ProjectManager {
      * Reports whether a Project is currently open.
      */
     public boolean isProjectOpen() {
-        return project != null && !isProjectIOInProgress;
+        return project != null && !isProjectIOInProgress.get();
+    }
+
+    /**
+     * Reports whether a deferred save has been scheduled but has not yet completed.
+     */
+    boolean isSaveInProgress() {
+        return isProjectIOInProgress.get();
     }
 
     /**
@@ -155,13 +285,14 @@ public class ProjectManager {
      * Project does not define a public key.
      */
     public String getPublicKeyAsString() {
-        if (project == null
-                || project.getPublicKey() == null
-                || !project.getPublicKeyFile().exists()) {
+        Project current = project;
+        if (current == null
+                || current.getPublicKey() == null
+                || !current.getPublicKeyFile().exists()) {
             return "";
         }
         try {
-            return FileSystemUtil.readFileToString(project.getPublicKeyFile());
+            return FileSystemUtil.readFileToString(current.getPublicKeyFile());
         }
         catch (IOException ioe) {
             log.log(Level.SEVERE, "Unable to read public key file: " + ioe.getMessage(), ioe);
@@ -175,13 +306,14 @@ public class ProjectManager {
      * Project does not define a private key.
      */
     public String getPrivateKeyAsString() {
-        if (project == null
-                || project.getPrivateKey() == null
-                || !project.getPrivateKeyFile().exists()) {
+        Project current = project;
+        if (current == null
+                || current.getPrivateKey() == null
+                || !current.getPrivateKeyFile().exists()) {
             return "";
         }
         try {
-            return FileSystemUtil.readFileToString(project.getPrivateKeyFile());
+            return FileSystemUtil.readFileToString(current.getPrivateKeyFile());
         }
         catch (IOException ioe) {
             log.log(Level.SEVERE, "Unable to read private key file: " + ioe.getMessage(), ioe);
@@ -189,53 +321,45 @@ public class ProjectManager {
         }
     }
 
-    /**
-     * Shorthand to return the string contents of the current UpdateSources.
-     */
-    public String getUpdateSourcesAsString() {
-        if (project == null || !project.getUpdateSourcesFile().exists()) {
-            return "";
-        }
-        try {
-            return FileSystemUtil.readFileToString(project.getUpdateSourcesFile());
-        }
-        catch (IOException ioe) {
-            log.log(Level.SEVERE, "Unable to read update sources file: " + ioe.getMessage(), ioe);
-            return "";
-        }
-    }
-
-    /**
-     * Shorthand to return the string contents of the current VersionManifest.
-     */
-    public String getVersionManifestAsString() {
-        if (project == null || !project.getVersionManifestFile().exists()) {
-            return "";
-        }
-        try {
-            return FileSystemUtil.readFileToString(project.getVersionManifestFile());
-        }
-        catch (IOException ioe) {
-            log.log(Level.SEVERE, "Unable to read version manifest file: " + ioe.getMessage(), ioe);
-            return "";
-        }
-    }
-
     public AppExtensionInfo getExtInfoFromJar(File jarFile) throws Exception {
         return getExtInfoFromJar(jarFile, null);
     }
 
+    public AppExtensionInfo getExtInfoFromJar(File jarFile, String expectedAppName) throws Exception {
+        return getExtInfoFromJar(project, jarFile, expectedAppName);
+    }
+
     /**
      * Convenience method to extract the extInfo json file from the given jar file, if possible.
-     * Exception will be thrown if the jar can't be read or if the json is missing or can't be parsed.
+     * Exception will be thrown if the jar can't be read, if any entry in it is damaged (see
+     * JarIntegrityChecker), or if the json is missing or can't be parsed.
      * If expectedAppName is not null, then the targetAppVersion of the given jar will be tested
      * against expectedAppName. If they don't match, an exception is thrown.
+     * <p>
+     * The integrity check goes through the given project's JarIntegrityCache, so a jar whose
+     * bytes have already passed (here, or in a pre-publish check) isn't read in full again.
+     * If targetProject is null, the jar is always checked.
+     * </p>
      */
-    public AppExtensionInfo getExtInfoFromJar(File jarFile, String expectedAppName) throws Exception {
+    public AppExtensionInfo getExtInfoFromJar(Project targetProject, File jarFile, String expectedAppName)
+            throws Exception {
         if (jarFile == null || !jarFile.exists() || !jarFile.canRead() || !jarFile.isFile()) {
             throw new Exception("getExtInfoFromJar: supplied jar does not exist or can't be read.");
         }
 
+        // Reading extInfo.json alone wouldn't notice a truncated or corrupted jar:
+        try {
+            if (targetProject == null) {
+                JarIntegrityChecker.verify(jarFile);
+            }
+            else {
+                targetProject.getJarIntegrityCache().verify(jarFile);
+            }
+        }
+        catch (IOException ioe) {
+            throw new Exception("Jar file " + jarFile.getAbsolutePath() + " is damaged: " + ioe.getMessage(), ioe);
+        }
+
         // Parse extInfo.json out of this jar:
         String extInfoStr = FileSystemUtil.extractTextFileFromJar("extInfo.json", jarFile);
         if (extInfoStr == null) {
@@ -260,19 +384,257 @@ public class ProjectManager {
     }
 
     /**
-     * Attempts to import the given extensionJar into the given versionManifest.
-     * If any error occurs, an Exception is thrown and the given versionManifest is not modified.
+     * Imports every extension jar found in the given build bundle (a zip or tar.gz file, see
+     * BundleReader) into the given project, along with any screenshots in the bundle that match
+     * a jar's basename, and returns a new ExtensionVersion for each. Directory structure within
+     * the bundle is ignored. As with prepareExtensionJar, the version manifest is not touched;
+     * the results can be added to it with addImportedExtensionVersions.
+     * <p>
+     * The bundle is read in a single pass. Each jar is streamed into a staging directory inside
+     * the project, and its extInfo.json is parsed from that same stream as it goes by, so nothing
+     * is extracted just to be inspected. Each staged jar is then checked for damage through the
+     * project's JarIntegrityCache (a stream can't see the jar's central directory, so the check
+     * has to be made on the staged file), and moved, rather than copied, into the project's
+     * extensions directory.
+     * </p>
+     * <p>
+     * A jar that can't be imported doesn't stop the others. Its problem is logged and added to
+     * the given problems list, and no ExtensionVersion is returned for it.
+     * An Exception is thrown only if the bundle itself can't be read, in which case nothing
+     * from it is imported.
+     * </p>
+     *
+     * @return The ExtensionVersions that were imported, in bundle order.
+     */
+    public List<ExtensionVersion> prepareExtensionBundle(Project targetProject, File bundle,
+                                                         List<String> problems) throws Exception {
+        String appName = targetProject.readManifest(VersionManifest::getApplicationName);
+        File cacheDir = new File(targetProject.getProjectDir(), "cache");
+        if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+            throw new IOException("Unable to create directory " + cacheDir.getAbsolutePath());
+        }
+        final File stagingDir = Files.createTempDirectory(cacheDir.toPath(), "bundle").toFile();
+        try {
+            Map<File, AppExtensionInfo> stagedJars = new LinkedHashMap<>();
+            BundleReader.read(bundle, (path, contents) -> {
+                String name = path.substring(path.lastIndexOf('/') + 1);
+                if (name.isEmpty() || name.startsWith(".") || path.startsWith("__MACOSX/")) {
+                    return;
+                }
+                File stagedFile = new File(stagingDir, name);
+                boolean isJar = name.toLowerCase(Locale.ROOT).endsWith(".jar");
+                if (!isJar && !isImageFile(stagedFile)) {
+                    return;
+                }
+                if (stagedFile.exists()) {
+                    problems.add(bundle.getName() + ": skipping duplicate file name " + path);
+                    log.warning("Skipping duplicate file name " + path + " in bundle " + bundle.getAbsolutePath());
+                    return;
+                }
+                if (isImageFile(stagedFile)) {
+                    Files.copy(contents, stagedFile.toPath());
+                    return;
+                }
+                try {
+                    stagedJars.put(stagedFile, stageJar(contents, stagedFile));
+                }
+                catch (IOException ioe) {
+                    problems.add(path + ": " + ioe.getMessage());
+                    log.log(Level.WARNING, "Problem with jar " + path + " in bundle " + bundle.getAbsolutePath()
+                            + ": " + ioe.getMessage(), ioe);
+                }
+            });
+
+            List<ExtensionVersion> imported = new ArrayList<>();
+            for (Map.Entry<File, AppExtensionInfo> entry : stagedJars.entrySet()) {
+                File stagedJar = entry.getKey();
+                try {
+                    AppExtensionInfo extInfo = entry.getValue();
+                    if (extInfo == null) {
+                        // The jar couldn't be parsed as a stream; fall back to reading it from disk:
+                        extInfo = getExtInfoFromJar(targetProject, stagedJar, appName);
+                    }
+                    else {
+                        try {
+                            targetProject.getJarIntegrityCache().verify(stagedJar);
+                        }
+                        catch (IOException ioe) {
+                            throw new IOException("Jar file is damaged: " + ioe.getMessage(), ioe);
+                        }
+                        validateExtInfo(extInfo, appName);
+                    }
+                    imported.add(prepareExtension(targetProject, extInfo, stagedJar, true));
+                }
+                catch (Exception e) {
+                    problems.add(stagedJar.getName() + ": " + e.getMessage());
+                    log.log(Level.WARNING, "Problem with jar " + stagedJar.getName() + " in bundle "
+                            + bundle.getAbsolutePath() + ": " + e.getMessage(), e);
+                }
+            }
+            return imported;
+        }
+        finally {
+            FileUtils.deleteDirectory(stagingDir);
+        }
+    }
+
+    /**
+     * Copies the given jar stream to the given staging file, reading extInfo.json out of it on
+     * the way through. This doesn't check the jar for damage: ZipInputStream never gets as far as
+     * the central directory, so the staged file must still be checked with JarIntegrityCache.
+     * Returns null if the jar can't be read as a stream (some jar writers produce stored entries
+     * that ZipInputStream can't handle) - the staged file is still complete in that case, and
+     * should be read from disk instead.
+     *
+     * @throws IOException If the staging file can't be written, or if the jar has no extInfo.json.
+     */
+    private AppExtensionInfo stageJar(InputStream contents, File stagedFile) throws IOException {
+        String extInfoStr = null;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(stagedFile.toPath()))) {
+            InputStream tee = new TeeInputStream(contents, out);
+            try {
+                ZipInputStream jarIn = new ZipInputStream(tee);
+                ZipEntry zipEntry;
+                while ((zipEntry = jarIn.getNextEntry()) != null) {
+                    if (zipEntry.getName().equals("extInfo.json")) {
+                        extInfoStr = new String(jarIn.readAllBytes(), StandardCharsets.UTF_8);
+                        break;
+                    }
+                }
+            }
+            catch (ZipException ze) {
+                log.fine("Unable to stream jar " + stagedFile.getName() + ", checking it on disk: " + ze.getMessage());
+                tee.transferTo(OutputStream.nullOutputStream());
+                return null;
+            }
+            // We still need the rest of the file, whether or not extInfo.json was found:
+            tee.transferTo(OutputStream.nullOutputStream());
+        }
+        if (extInfoStr == null) {
+            throw new IOException("Jar file " + stagedFile.getName() + " does not contain extInfo.json.");
+        }
+        AppExtensionInfo extInfo = AppExtensionInfo.fromJson(extInfoStr);
+        if (extInfo == null) {
+            throw new IOException("Unable to parse extInfo.json from jar file " + stagedFile.getName());
+        }
+        return extInfo;
+    }
+
+    /**
+     * Validates the given extension jar and copies it (and any screenshots) into the given project,
+     * returning a new ExtensionVersion that describes it. The version manifest is not touched,
+     * so this is safe to invoke from a background thread. The result can be added to the manifest
+     * later with addImportedExtensionVersions.
+     */
+    public ExtensionVersion prepareExtensionJar(Project targetProject, File extensionJar) throws Exception {
+        AppExtensionInfo extInfo = getExtInfoFromJar(targetProject, extensionJar,
+                                                     targetProject.readManifest(VersionManifest::getApplicationName));
+        return prepareExtension(targetProject, extInfo, extensionJar, false);
+    }
+
+    /**
+     * Brings the given jar, described by the given (already validated) extInfo, and its screenshots
+     * into the given project, and returns a new ExtensionVersion for it.
      */
-    public ExtensionVersion importExtensionJar(VersionManifest versionManifest, File extensionJar) throws Exception {
-        AppExtensionInfo extInfo = getExtInfoFromJar(extensionJar, versionManifest.getApplicationName());
-        ApplicationVersion appVersion = findOrCreateApplicationVersion(versionManifest, extInfo.getTargetAppVersion());
-        String appVer = appVersion.getVersion();
-        Extension extension = findOrCreateExtension(appVersion, extInfo.getName());
-        ExtensionVersion extensionVersion = findOrCreateExtensionVersion(extension, extInfo, extensionJar, appVer);
-        copyJarToProjectDirectory(extensionVersion, extensionJar, appVer);
+    private ExtensionVersion prepareExtension(Project targetProject, AppExtensionInfo extInfo, File extensionJar,
+                                              boolean moveSource) throws IOException {
+        ExtensionVersion extensionVersion = new ExtensionVersion();
+        extensionVersion.setExtInfo(extInfo);
+        extensionVersion.setDownloadPath(computeExtensionPath(targetProject, extensionVersion, extensionJar.getName()));
+        copyJarToProjectDirectory(targetProject, extensionVersion, extensionJar, extInfo.getTargetAppVersion(),
+                                  moveSource);
+
+        // If the same jar was imported and signed before, its signature survives the copy (see importJar):
+        File signatureFile = ProjectSigner.getSignatureFile(
+                computeExtensionFile(targetProject, extensionVersion, extensionJar.getName()));
+        if (signatureFile.exists()) {
+            extensionVersion.setSignaturePath(
+                    computeExtensionPath(targetProject, extensionVersion, signatureFile.getName()));
+        }
         return extensionVersion;
     }
 
+    /**
+     * Adds the given ExtensionVersions, as returned from prepareExtensionJar or prepareExtensionBundle,
+     * to the given project's version manifest, creating application versions and extensions as needed,
+     * and replacing any existing entry for the same extension version. The rest of the manifest is left as-is.
+     * The project is then saved. This must be invoked on the EDT. If the given project is no longer
+     * the current project, nothing happens.
+     */
+    public void addImportedExtensionVersions(Project targetProject, List<ExtensionVersion> extensionVersions) {
+        if (targetProject != project) {
+            log.warning("Discarding " + extensionVersions.size() + " imported extension(s) for a closed project.");
+            return;
+        }
+        targetProject.updateManifest(manifest -> {
+            for (ExtensionVersion extensionVersion : extensionVersions) {
+                AppExtensionInfo extInfo = extensionVersion.getExtInfo();
+                ApplicationVersion appVersion = findOrCreateApplicationVersion(manifest,
+                                                                               extInfo.getTargetAppVersion());
+                Extension extension = findOrCreateExtension(appVersion, extInfo.getName());
+                for (ExtensionVersion existing : new ArrayList<>(extension.getVersions())) {
+                    if (existing.getExtInfo().getVersion().equals(extInfo.getVersion())) {
+                        log.info("Replacing existing extension " + extInfo.getName()
+                                         + " version " + extInfo.getVersion());
+                        extension.removeVersion(existing);
+                    }
+                }
+                extension.addVersion(extensionVersion);
+            }
+        });
+        try {
+            save();
+        }
+        catch (IOException ioe) {
+            log.log(Level.SEVERE, "Unable to save project after importing extensions: " + ioe.getMessage(), ioe);
+        }
+    }
+
+    /**
+     * Workspace batch operations work on their own copy of each project, loaded from disk. If the given
+     * batch copy is of the current project, this copies what a batch operation can change (signature
+     * paths and the manifest generation time) into the current project, and saves it through the usual
+     * deferred save. Returns false, without changing anything, if the given copy is not of the current
+     * project, in which case the caller can save the copy itself. This must be invoked on the EDT.
+     */
+    public boolean applyBatchChanges(Project batchCopy) throws IOException {
+        final Project current = project;
+        if (current == null
+                || !current.getProjectFile().getAbsoluteFile().equals(batchCopy.getProjectFile().getAbsoluteFile())) {
+            return false;
+        }
+        final Map<String, String> signaturePaths = new LinkedHashMap<>();
+        final Instant generated = batchCopy.readManifest(manifest -> {
+            for (ApplicationVersion appVersion : manifest.getApplicationVersions()) {
+                for (Extension extension : appVersion.getExtensions()) {
+                    for (ExtensionVersion version : extension.getVersions()) {
+                        if (version.getSignaturePath() != null) {
+                            signaturePaths.put(version.getDownloadPath(), version.getSignaturePath());
+                        }
+                    }
+                }
+            }
+            return manifest.getManifestGenerated();
+        });
+        current.updateManifest(manifest -> {
+            for (ApplicationVersion appVersion : manifest.getApplicationVersions()) {
+                for (Extension extension : appVersion.getExtensions()) {
+                    for (ExtensionVersion version : extension.getVersions()) {
+                        String signaturePath = signaturePaths.get(version.getDownloadPath());
+                        if (signaturePath != null) {
+                            version.setSignaturePath(signaturePath);
+                        }
+                    }
+                }
+            }
+            if (generated != null) {
+                manifest.setManifestGenerated(generated);
+            }
+        });
+        save();
+        return true;
+    }
+
     /**
      * Searches the given VersionManifest for an ApplicationVersion with the specified target version,
      * and returns it if it exists. If it does not exist, it will be created, added to the manifest, and returned.
@@ -316,6 +678,15 @@ public class ProjectManager {
      * and returns it if it exists. If it does not exist, it will be created, added to the Extension, and returned.
      */
     public ExtensionVersion findOrCreateExtensionVersion(Extension extension, AppExtensionInfo extInfo, File jarFile, String appVersion) {
+        return findOrCreateExtensionVersion(project, extension, extInfo, jarFile, appVersion);
+    }
+
+    /**
+     * Same as findOrCreateExtensionVersion(Extension, AppExtensionInfo, File, String), but for the given
+     * Project instead of the current one. This is safe to use with projects that aren't open in the UI.
+     */
+    public ExtensionVersion findOrCreateExtensionVersion(Project targetProject, Extension extension,
+                                                         AppExtensionInfo extInfo, File jarFile, String appVersion) {
         for (ExtensionVersion version : extension.getVersions()) {
             if (version.getExtInfo().getName().equals(extInfo.getName())
                     && version.getExtInfo().getVersion().equals(extInfo.getVersion())) {
@@ -325,8 +696,7 @@ public class ProjectManager {
         }
 
         // Get base path:
-        String basePath = ProjectManager.getInstance().getProject().getExtensionsDir()
-                                        .getName() + "/" + appVersion + "/";
+        String basePath = targetProject.getExtensionsDir().getName() + "/" + appVersion + "/";
 
         // Extension version doesn't exist, create it
         log.info("Creating new extension version: " + extInfo.getName() + " version " + extInfo.getVersion());
@@ -424,46 +794,207 @@ public class ProjectManager {
             return; // wonky case but this may not be set if the json is invalid
         }
         String basename = getBasename(extensionVersion.getDownloadPath());
-        File[] files = parentDir.listFiles();
+        removeFilesWithPrefix(parentDir, basename + "_");
+
+        // Also clean up any original screenshots that were kept when they were imported:
+        File originalsDir = new File(getProject().getOriginalsDir(),
+                                     extensionVersion.getExtInfo().getTargetAppVersion());
+        removeFilesWithPrefix(originalsDir, basename + "_");
+    }
+
+    private static void removeFilesWithPrefix(File dir, String prefix) throws IOException {
+        File[] files = dir.listFiles();
         if (files != null) {
             for (File toDelete : files) {
-                String fileName = toDelete.getName();
-                // Check if the file name matches the base name followed by an underscore
-                if (fileName.startsWith(basename + "_")) {
+                if (toDelete.getName().startsWith(prefix)) {
                     Files.delete(toDelete.toPath());
                 }
             }
         }
     }
 
+    /**
+     * Writes the given image out as a new jpeg screenshot for the given ExtensionVersion, and returns
+     * the resulting File. The file is named for a hash of its encoded contents
+     * (basename_screenshot_hash.jpg), so existing screenshot files are never overwritten, and
+     * adding an image that is already present yields the existing file instead of a duplicate.
+     * The ExtensionVersion itself is not modified - that is up to the caller.
+     */
+    public File writeScreenshot(ExtensionVersion extensionVersion, BufferedImage image) throws IOException {
+        String basename = getBasename(extensionVersion.getDownloadPath());
+        File parentDir = computeExtensionFile(extensionVersion, basename).getParentFile();
+        if (!parentDir.exists() && !parentDir.mkdirs()) {
+            throw new IOException("Unable to create directory " + parentDir.getAbsolutePath());
+        }
+        File tmpFile = File.createTempFile("screenshot_", ".jpg", parentDir);
+        try {
+            ImageUtil.saveImage(image, tmpFile);
+            String hash = FileHashCache.computeHash(tmpFile).substring(0, SCREENSHOT_HASH_LENGTH);
+            File screenshotFile = new File(parentDir, basename + "_screenshot_" + hash + ".jpg");
+            if (!screenshotFile.exists()) {
+                Files.move(tmpFile.toPath(), screenshotFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+            return screenshotFile;
+        }
+        finally {
+            Files.deleteIfExists(tmpFile.toPath());
+        }
+    }
+
+    /**
+     * Deletes the file for the given screenshot path, if it exists. This is the screenshot path
+     * as it appears in the version manifest, for example "extensions/1.0/MyExtension-1.0.0_screenshot1.jpg".
+     * The original that the screenshot was transcoded from is deleted from the originals directory too.
+     */
+    public void removeScreenshot(String screenshotPath) throws IOException {
+        File screenshotFile = getProjectFileFromPath(screenshotPath);
+        if (screenshotFile != null) {
+            Files.deleteIfExists(screenshotFile.toPath());
+            removeOriginalScreenshot(screenshotFile);
+        }
+    }
+
+    /**
+     * Deletes the kept original of the given transcoded screenshot. Originals are kept by application
+     * version, which is the name of the directory that the transcoded screenshot lives in. Two originals
+     * can map to the same transcoded name (foo.png and foo.jpg), in which case the one that was imported
+     * second got the alternate name, so an original only matches on its regular name if its alternate
+     * name isn't in use.
+     */
+    private void removeOriginalScreenshot(File screenshotFile) throws IOException {
+        File appVersionDir = screenshotFile.getParentFile();
+        File[] originals = new File(project.getOriginalsDir(), appVersionDir.getName()).listFiles();
+        if (originals == null) {
+            return;
+        }
+        String name = screenshotFile.getName();
+        for (File original : originals) {
+            String alternateName = ScreenshotTranscoder.getAlternateTargetName(original);
+            if (alternateName.equals(name)
+                    || (ScreenshotTranscoder.getTargetName(original).equals(name)
+                    && !new File(appVersionDir, alternateName).exists())) {
+                log.info("Removing original screenshot: " + original.getName());
+                Files.deleteIfExists(original.toPath());
+            }
+        }
+    }
+
     /**
      * Copies the given jar to our project's extensions directory, into a subdirectory named
      * after the given application version. If any screenshots exist for the given jar (matching
-     * the jar's basename but with an image extension), they will also be copied.
+     * the jar's basename but with an image extension), they will also be imported. Screenshots
+     * are transcoded in parallel to the project's configured max dimension and jpeg quality,
+     * and the untouched originals are kept in the project's originals directory.
      */
     public void copyJarToProjectDirectory(ExtensionVersion extensionVersion, File jar, String appVersion)
             throws IOException {
-        File extensionsDir = ProjectManager.getInstance().getProject().getExtensionsDir();
+        copyJarToProjectDirectory(project, extensionVersion, jar, appVersion);
+    }
+
+    /**
+     * Same as copyJarToProjectDirectory(ExtensionVersion, File, String), but for the given Project
+     * instead of the current one. This is safe to use with projects that aren't open in the UI.
+     */
+    public void copyJarToProjectDirectory(Project targetProject, ExtensionVersion extensionVersion, File jar,
+                                          String appVersion) throws IOException {
+        copyJarToProjectDirectory(targetProject, extensionVersion, jar, appVersion, false);
+    }
+
+    /**
+     * If moveSource is set, the given jar is moved into the project instead of copied, where possible.
+     * This is for jars that were staged by us and aren't needed afterwards.
+     */
+    private void copyJarToProjectDirectory(Project targetProject, ExtensionVersion extensionVersion, File jar,
+                                           String appVersion, boolean moveSource) throws IOException {
+        File extensionsDir = targetProject.getExtensionsDir();
         File appVersionDir = new File(extensionsDir, appVersion);
         if (!appVersionDir.exists()) {
             appVersionDir.mkdirs();
         }
         // Get base path:
-        String basePath = ProjectManager.getInstance().getProject().getExtensionsDir()
-                                        .getName() + "/" + appVersion + "/";
+        String basePath = extensionsDir.getName() + "/" + appVersion + "/";
+
+        // Look for screenshots to import first, because moving the jar would hide them:
+        List<File> screenshots = findScreenshots(jar);
 
         // Copy the jar itself:
-        File targetFile = new File(appVersionDir, jar.getName());
-        Files.copy(jar.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        importJar(targetProject, extensionVersion, jar, new File(appVersionDir, jar.getName()), moveSource);
 
-        // Also look for screenshots to import:
-        for (File screenshot : findScreenshots(jar)) {
+        if (screenshots.isEmpty()) {
+            return;
+        }
+        File originalsDir = new File(targetProject.getOriginalsDir(), appVersion);
+        if (!originalsDir.exists()) {
+            originalsDir.mkdirs();
+        }
+        for (File screenshot : screenshots) {
             log.info("Importing extension screenshot: " + screenshot.getName());
-            targetFile = new File(appVersionDir, screenshot.getName());
             Files.copy(screenshot.toPath(),
-                       targetFile.toPath(),
+                       new File(originalsDir, screenshot.getName()).toPath(),
                        StandardCopyOption.REPLACE_EXISTING);
-            extensionVersion.addScreenshot(basePath + targetFile.getName());
+        }
+        ScreenshotTranscoder transcoder = new ScreenshotTranscoder(targetProject.getScreenshotMaxDimension(),
+                                                                   targetProject.getScreenshotQuality());
+        for (File transcoded : transcoder.transcodeAll(screenshots, appVersionDir)) {
+            extensionVersion.addScreenshot(basePath + transcoded.getName());
+        }
+    }
+
+    /**
+     * Copies the given jar to the given target file. If the project asks for it, the jar is
+     * normalized (see JarNormalizer) and then optimized (see JarOptimizer) on the way, which
+     * happens before the jar can be signed, so that any signature covers the final bytes.
+     * If the target already exists with exactly the same bytes, it is left completely alone, so
+     * that its timestamp doesn't change and it isn't seen as modified by the next signing or upload.
+     * If the target is replaced with different bytes, any signature for the old jar is deleted
+     * and dropped from the given ExtensionVersion, since it can no longer be valid.
+     * If moveSource is set and the jar isn't normalized, it is moved rather than copied.
+     */
+    private void importJar(Project targetProject, ExtensionVersion extensionVersion, File jar, File targetFile,
+                           boolean moveSource) throws IOException {
+        File tempFile = File.createTempFile("import", ".jar.tmp", targetFile.getParentFile());
+        try {
+            if (targetProject.isNormalizeJars()) {
+                JarNormalizer.normalize(jar, tempFile);
+            }
+            else if (moveSource) {
+                Files.move(jar.toPath(), tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            else {
+                Files.copy(jar.toPath(), tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (targetProject.isOptimizeJars()) {
+                optimizeJar(targetProject, tempFile);
+            }
+
+            if (targetFile.exists() && Files.mismatch(tempFile.toPath(), targetFile.toPath()) == -1) {
+                log.info("Jar is unchanged, keeping existing copy: " + targetFile.getName());
+                return;
+            }
+            Files.move(tempFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            if (Files.deleteIfExists(ProjectSigner.getSignatureFile(targetFile).toPath())) {
+                log.info("Removed stale signature for replaced jar: " + targetFile.getName());
+                extensionVersion.setSignaturePath(null);
+            }
+        }
+        finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    /**
+     * Optimizes the given jar in place, using the given project's strip patterns, and logs the savings.
+     */
+    private void optimizeJar(Project targetProject, File jarFile) throws IOException {
+        File optimizedFile = File.createTempFile("optimize", ".jar.tmp", jarFile.getParentFile());
+        try {
+            JarOptimizer optimizer = new JarOptimizer(targetProject.getJarStripPatterns());
+            JarOptimizer.Result result = optimizer.optimize(jarFile, optimizedFile);
+            log.info("Optimized jar: " + result);
+            Files.move(optimizedFile.toPath(), jarFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        finally {
+            Files.deleteIfExists(optimizedFile.toPath());
         }
     }
 
@@ -546,14 +1077,21 @@ public class ProjectManager {
      * </PRE>
      */
     public File computeExtensionFile(ExtensionVersion extensionVersion, String path) {
+        return computeExtensionFile(project, extensionVersion, path);
+    }
+
+    /**
+     * Same as computeExtensionFile(ExtensionVersion, String), but for the given Project instead of the current one.
+     */
+    public File computeExtensionFile(Project targetProject, ExtensionVersion extensionVersion, String path) {
         if (extensionVersion == null) {
-            return new File(project.getDistDir(), path);
+            return new File(targetProject.getDistDir(), path);
         }
 
         String subpath = "extensions/" + extensionVersion.getExtInfo().getTargetAppVersion();
         File parentDir = path.contains(subpath)
-                ? project.getDistDir()
-                : new File(project.getDistDir(), subpath);
+                ? targetProject.getDistDir()
+                : new File(targetProject.getDistDir(), subpath);
 
         return new File(parentDir, path);
     }
@@ -568,10 +1106,17 @@ public class ProjectManager {
      * </PRE>
      */
     public String computeExtensionPath(ExtensionVersion version, String path) {
-        if (getProject() == null) {
+        return computeExtensionPath(project, version, path);
+    }
+
+    /**
+     * Same as computeExtensionPath(ExtensionVersion, String), but for the given Project instead of the current one.
+     */
+    public String computeExtensionPath(Project targetProject, ExtensionVersion version, String path) {
+        if (targetProject == null) {
             return null;
         }
-        return getProject().getExtensionsDir().getName()
+        return targetProject.getExtensionsDir().getName()
                 + "/"
                 + version.getExtInfo().getTargetAppVersion()
                 + "/"
@@ -627,21 +1172,31 @@ public class ProjectManager {
         return withoutExtension + "." + newExtension;
     }
 
+    /**
+     * Returns all jar files anywhere under the dist directory of the given project.
+     * This is served from the project's file index, so it's cheap to call repeatedly.
+     */
     public List<File> findAllJars(Project project) {
-        return project == null ? List.of() : FileSystemUtil.findFiles(project.getDistDir(), true, "jar");
+        return project == null ? List.of() : project.getDistFileIndex().findFiles("jar");
     }
 
+    /**
+     * Returns all signature files anywhere under the dist directory of the given project.
+     * This is served from the project's file index, so it's cheap to call repeatedly.
+     */
     public List<File> findAllSignatures(Project project) {
-        return project == null ? List.of() : FileSystemUtil.findFiles(project.getDistDir(), true, "sig");
+        return project == null ? List.of() : project.getDistFileIndex().findFiles("sig");
     }
 
     private boolean isImageFile(File f) {
-        String name = f.getName().toLowerCase();
-        return name.endsWith(".jpg") || name.endsWith(".jpeg") || name.endsWith(".png") || name.endsWith("gif");
+        String name = f.getName().toLowerCase(Locale.ROOT);
+        return name.endsWith(".jpg") || name.endsWith(".jpeg") || name.endsWith(".png") || name.endsWith(".gif");
     }
 
     /**
      * Callers can register to receive notification when a project is loaded or saved.
+     * Listeners that implement AsyncProjectListener will additionally have their view model
+     * computed on a worker thread after each load or save.
      */
     public void addProjectListener(ProjectListener listener) {
         projectListeners.add(listener);
@@ -649,6 +1204,38 @@ public class ProjectManager {
 
     public void removeProjectListener(ProjectListener listener) {
         projectListeners.remove(listener);
+        if (listener instanceof AsyncProjectListener<?> asyncListener) {
+            asyncDispatcher.remove(asyncListener);
+        }
+    }
+
+    /**
+     * Delivers a projectLoaded event for the current project (if there is one) to just the given
+     * listener, as though it had been registered before the project was loaded. This is for listeners
+     * that are created after a project is already open, so they can catch up.
+     */
+    public void replayProjectLoaded(ProjectListener listener) {
+        Project current = project;
+        if (current == null) {
+            return;
+        }
+        listener.projectLoaded(current);
+        if (listener instanceof AsyncProjectListener<?> asyncListener) {
+            asyncDispatcher.dispatch(asyncListener, current);
+        }
+    }
+
+    /**
+     * Recomputes the view model of the given listener for the current project (if there is one),
+     * in the background, exactly as though the project had just been saved. This is for listeners
+     * whose display depends on something that has changed without a save. The listener doesn't
+     * have to be registered with addProjectListener. Must be invoked on the EDT.
+     */
+    public void refreshViewModel(AsyncProjectListener<?> listener) {
+        Project current = project;
+        if (current != null) {
+            asyncDispatcher.dispatch(listener, current);
+        }
     }
 
     /**
@@ -656,8 +1243,8 @@ public class ProjectManager {
      * This is intended for callers who need to know before the load actually happens.
      */
     private void fireProjectWillLoadEvent(Project project) {
-        List<ProjectListener> copy = new ArrayList<>(projectListeners);
-        for (ProjectListener listener : copy) {
+        asyncDispatcher.cancelAll(); // anything still pending is for the old project
+        for (ProjectListener listener : projectListeners) {
             listener.projectWillLoad(project);
         }
     }
@@ -666,9 +1253,11 @@ public class ProjectManager {
      * Notify listeners that the given Project has just been loaded into this ProjectManager instance.
      */
     private void fireProjectLoadedEvent(Project project) {
-        List<ProjectListener> copy = new ArrayList<>(projectListeners);
-        for (ProjectListener listener : copy) {
+        for (ProjectListener listener : projectListeners) {
             listener.projectLoaded(project);
+            if (listener instanceof AsyncProjectListener<?> asyncListener) {
+                asyncDispatcher.dispatch(asyncListener, project);
+            }
         }
     }
 
@@ -676,9 +1265,11 @@ public class ProjectManager {
      * Notify listeners that the given Project has just been persisted.
      */
     private void fireProjectSavedEvent(Project project) {
-        List<ProjectListener> copy = new ArrayList<>(projectListeners);
-        for (ProjectListener listener : copy) {
+        for (ProjectListener listener : projectListeners) {
             listener.projectSaved(project);
+            if (listener instanceof AsyncProjectListener<?> asyncListener) {
+                asyncDispatcher.dispatch(asyncListener, project);
+            }
         }
     }
 }
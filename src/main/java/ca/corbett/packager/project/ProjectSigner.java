@@ -0,0 +1,111 @@
+package ca.corbett.packager.project;
+
+import ca.corbett.packager.io.FileSigner;
+import ca.corbett.updates.VersionManifest;
+
+import java.io.File;
+import java.util.logging.Logger;
+
+/**
+ * Signs extension jars within a given Project, and keeps that project's version manifest
+ * pointing at the resulting signature files. Everything here works on the Project that it's
+ * given, and not on whatever project happens to be open in the UI, so it's safe to sign
+ * several projects at once from different threads, as long as each thread has its own project.
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public final class ProjectSigner {
+
+    private static final Logger log = Logger.getLogger(ProjectSigner.class.getName());
+
+    private ProjectSigner() {
+
+    }
+
+    /**
+     * Returns the signature file that goes with the given jar file. It may or may not exist.
+     */
+    public static File getSignatureFile(File jarFile) {
+        return new File(jarFile.getParentFile(), ProjectManager.getBasename(jarFile.getName()) + ".sig");
+    }
+
+    /**
+     * Signs every jar in the given project that doesn't already have a signature file, and returns
+     * the number of jars that were signed. The project is not saved - that is up to the caller.
+     *
+     * @throws Exception If the project has no key pair, or if any jar fails to sign.
+     */
+    public static int signUnsignedJars(Project project) throws Exception {
+        if (project.getPrivateKey() == null || project.getPublicKey() == null) {
+            throw new Exception("Project " + project.getName() + " has no key pair.");
+        }
+        int signedCount = 0;
+        for (File jarFile : ProjectManager.getInstance().findAllJars(project)) {
+            File sigFile = getSignatureFile(jarFile);
+            if (!sigFile.exists()) {
+                log.info("Signing jar file " + jarFile.getAbsolutePath());
+                signJar(project, jarFile, sigFile);
+                signedCount++;
+            }
+        }
+        return signedCount;
+    }
+
+    /**
+     * Signs the given jar file with the given project's private key, writing the signature to the
+     * given signature file. The ExtensionVersion that owns the jar (if any) is updated with the
+     * path of the new signature file.
+     */
+    public static void signJar(Project project, File jarFile, File sigFile) throws Exception {
+        FileSigner.signFile(jarFile, project.getPrivateKey(), sigFile);
+        project.updateManifest(manifest -> {
+            VersionManifest.ExtensionVersion extVersion = findExtensionVersionFromJar(manifest, jarFile);
+            if (extVersion != null) {
+                extVersion.setSignaturePath(
+                        ProjectManager.getInstance().computeExtensionPath(project, extVersion, sigFile.getName()));
+            }
+            else {
+                log.warning("Unable to find extension version matching jar " + jarFile.getAbsolutePath());
+            }
+        });
+    }
+
+    /**
+     * Signs the given jar file, which belongs to the given ExtensionVersion, and points that
+     * ExtensionVersion at the new signature file. This is for versions that have just been imported
+     * and haven't been added to the project's manifest yet (see InboxWatcher), so, unlike signJar,
+     * it doesn't look anything up in the manifest, and no manifest lock is needed.
+     *
+     * @throws Exception If the project has no key pair, or if the jar fails to sign.
+     */
+    public static void signImportedJar(Project project, File jarFile, VersionManifest.ExtensionVersion extVersion)
+            throws Exception {
+        if (project.getPrivateKey() == null) {
+            throw new Exception("Project " + project.getName() + " has no key pair.");
+        }
+        File sigFile = getSignatureFile(jarFile);
+        log.info("Signing jar file " + jarFile.getAbsolutePath());
+        FileSigner.signFile(jarFile, project.getPrivateKey(), sigFile);
+        extVersion.setSignaturePath(
+                ProjectManager.getInstance().computeExtensionPath(project, extVersion, sigFile.getName()));
+    }
+
+    /**
+     * Given a jar file, searches through the given manifest and returns the ExtensionVersion
+     * that owns that jar. Will return null if no owning ExtensionVersion is found. The caller
+     * must hold the manifest lock (see Project.readManifest).
+     */
+    public static VersionManifest.ExtensionVersion findExtensionVersionFromJar(VersionManifest manifest,
+                                                                               File jarFile) {
+        for (VersionManifest.ApplicationVersion appVersion : manifest.getApplicationVersions()) {
+            for (VersionManifest.Extension extension : appVersion.getExtensions()) {
+                for (VersionManifest.ExtensionVersion candidateVersion : extension.getVersions()) {
+                    if (candidateVersion.getDownloadPath().endsWith(jarFile.getName())) {
+                        return candidateVersion;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,83 @@
+package ca.corbett.packager.project;
+
+import ca.corbett.updates.VersionManifest;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A record of what was last published to a particular UpdateSource: the version manifest
+ * as it was uploaded, plus a cheap fingerprint (size and last modified time) of every
+ * extension file that the manifest referenced at the time. This is compared against the
+ * current state of the project to work out what has changed since the last upload.
+ * See ManifestDiff.
+ * <p>
+ * Snapshots are stored outside the dist directory, in projectDir/published, one per UpdateSource.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public class PublishedSnapshot {
+
+    private VersionManifest manifest;
+    private Map<String, String> fingerprints = new LinkedHashMap<>();
+
+    public PublishedSnapshot() {
+    }
+
+    public PublishedSnapshot(VersionManifest manifest, Map<String, String> fingerprints) {
+        this.manifest = manifest;
+        this.fingerprints = new LinkedHashMap<>(fingerprints);
+    }
+
+    /**
+     * Returns the version manifest as it was when it was published.
+     */
+    public VersionManifest getManifest() {
+        return manifest;
+    }
+
+    /**
+     * Returns the fingerprints of all files referenced by the published manifest, keyed by their
+     * path relative to the dist directory.
+     */
+    public Map<String, String> getFingerprints() {
+        return fingerprints == null ? Map.of() : fingerprints;
+    }
+
+    /**
+     * Fingerprints every file referenced by the given manifest (jars, signatures, and screenshots),
+     * plus any delta patches for those jars (see DeltaPatchWriter), and returns the results keyed
+     * by path relative to the given dist directory. Files that don't exist are omitted.
+     */
+    public static Map<String, String> fingerprint(VersionManifest manifest, File distDir) {
+        Map<String, String> fingerprints = new LinkedHashMap<>();
+        if (manifest == null) {
+            return fingerprints;
+        }
+        for (VersionManifest.ApplicationVersion appVersion : manifest.getApplicationVersions()) {
+            for (VersionManifest.Extension extension : appVersion.getExtensions()) {
+                for (VersionManifest.ExtensionVersion version : extension.getVersions()) {
+                    addFingerprint(fingerprints, distDir, version.getDownloadPath());
+                    addFingerprint(fingerprints, distDir, version.getSignaturePath());
+                    addFingerprint(fingerprints, distDir, DeltaPatchWriter.getPatchPath(version.getDownloadPath()));
+                    for (String screenshot : version.getScreenshots()) {
+                        addFingerprint(fingerprints, distDir, screenshot);
+                    }
+                }
+            }
+        }
+        return fingerprints;
+    }
+
+    private static void addFingerprint(Map<String, String> fingerprints, File distDir, String path) {
+        if (path == null || path.isBlank()) {
+            return;
+        }
+        File file = new File(distDir, path);
+        if (file.isFile()) {
+            fingerprints.put(path, file.length() + ":" + file.lastModified());
+        }
+    }
+}
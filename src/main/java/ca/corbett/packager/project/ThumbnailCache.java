@@ -0,0 +1,109 @@
+package ca.corbett.packager.project;
+
+import ca.corbett.extras.image.ImageUtil;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An on-disk cache of screenshot thumbnails, so that we don't have to decode every
+ * full-resolution screenshot just to show a small preview of it.
+ * <p>
+ * Thumbnails are keyed by the absolute path, size, and last modified time of the source
+ * image, so a thumbnail is automatically regenerated if its source image is replaced.
+ * Stale thumbnails are simply left behind; the whole cache directory can be deleted
+ * at any time and it will be rebuilt on demand.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public class ThumbnailCache {
+
+    private static final Logger log = Logger.getLogger(ThumbnailCache.class.getName());
+
+    /**
+     * The maximum width or height of a cached thumbnail, in pixels.
+     */
+    public static final int THUMBNAIL_SIZE = 256;
+
+    private final File cacheDir;
+
+    public ThumbnailCache(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Returns the directory in which thumbnails are stored. It may not exist yet.
+     */
+    public File getCacheDir() {
+        return cacheDir;
+    }
+
+    /**
+     * Returns the File where the thumbnail for the given source image would be cached.
+     * The file may or may not exist.
+     */
+    public File getThumbnailFile(File sourceImage) {
+        String key = sourceImage.getAbsolutePath() + "|" + sourceImage.length() + "|" + sourceImage.lastModified();
+        return new File(cacheDir, sha1(key) + ".jpg");
+    }
+
+    /**
+     * Returns a thumbnail for the given source image, loading it from the cache if possible.
+     * Otherwise, the source image is decoded, scaled down, and the result is written to the cache.
+     * Failure to write the cache file is logged but is not fatal.
+     *
+     * @throws IOException if the source image can't be read.
+     */
+    public BufferedImage getThumbnail(File sourceImage) throws IOException {
+        File thumbnailFile = getThumbnailFile(sourceImage);
+        if (thumbnailFile.exists()) {
+            try {
+                BufferedImage thumbnail = ImageUtil.loadImage(thumbnailFile);
+                if (thumbnail != null) {
+                    return thumbnail;
+                }
+            }
+            catch (IOException ioe) {
+                log.log(Level.WARNING, "Discarding unreadable thumbnail " + thumbnailFile.getName(), ioe);
+            }
+        }
+
+        BufferedImage sourceImageData = ImageUtil.loadImage(sourceImage);
+        if (sourceImageData == null) {
+            throw new IOException("Unable to decode image: " + sourceImage.getName());
+        }
+        BufferedImage thumbnail = sourceImageData;
+        if (sourceImageData.getWidth() > THUMBNAIL_SIZE || sourceImageData.getHeight() > THUMBNAIL_SIZE) {
+            thumbnail = ImageUtil.scaleImageToFitSquareBounds(sourceImageData, THUMBNAIL_SIZE);
+        }
+        try {
+            if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+                throw new IOException("Unable to create thumbnail cache directory.");
+            }
+            ImageUtil.saveImage(thumbnail, thumbnailFile);
+        }
+        catch (IOException ioe) {
+            log.log(Level.WARNING, "Unable to cache thumbnail for " + sourceImage.getName(), ioe);
+        }
+        return thumbnail;
+    }
+
+    private static String sha1(String input) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return HexFormat.of().formatHex(digest.digest(input.getBytes(StandardCharsets.UTF_8)));
+        }
+        catch (NoSuchAlgorithmException e) {
+            // Every JRE is required to support SHA-1, so this can't really happen:
+            throw new IllegalStateException(e);
+        }
+    }
+}
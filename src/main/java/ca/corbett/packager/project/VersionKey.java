@@ -0,0 +1,121 @@
+package ca.corbett.packager.project;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A pre-parsed, immutable sort key for a version string such as "1.10.2".
+ * Each dot-separated component is parsed once into an int, so that comparing
+ * two keys is a simple walk over two small int arrays with no string allocation.
+ * This gives numeric ordering, meaning that "1.10" correctly sorts after "1.9".
+ * <p>
+ * Only the leading digits of each component are considered, so "1.2-beta" sorts
+ * the same as "1.2". Components with no leading digits count as zero. Missing
+ * trailing components are also treated as zero, so "1.0" and "1.0.0" compare
+ * equal numerically; in that case the shorter key sorts first, and any remaining
+ * tie is broken by comparing the original strings.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public final class VersionKey implements Comparable<VersionKey> {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final String version;
+    private final int[] components;
+
+    private VersionKey(String version, int[] components) {
+        this.version = version;
+        this.components = components;
+    }
+
+    /**
+     * Parses the given version string into a VersionKey. Null or blank input
+     * yields a key that sorts before all non-blank versions.
+     */
+    public static VersionKey parse(String version) {
+        if (version == null || version.isBlank()) {
+            return new VersionKey(version, EMPTY);
+        }
+
+        int count = 1;
+        for (int i = 0; i < version.length(); i++) {
+            if (version.charAt(i) == '.') {
+                count++;
+            }
+        }
+
+        int[] components = new int[count];
+        int index = 0;
+        long value = 0;
+        boolean inDigits = true;
+        for (int i = 0; i < version.length(); i++) {
+            char c = version.charAt(i);
+            if (c == '.') {
+                components[index++] = (int)Math.min(value, Integer.MAX_VALUE);
+                value = 0;
+                inDigits = true;
+            }
+            else if (inDigits && c >= '0' && c <= '9') {
+                value = Math.min(value * 10 + (c - '0'), Integer.MAX_VALUE);
+            }
+            else {
+                inDigits = false; // ignore everything after the leading digits of this component
+            }
+        }
+        components[index] = (int)Math.min(value, Integer.MAX_VALUE);
+        return new VersionKey(version, components);
+    }
+
+    /**
+     * Returns the version string that this key was parsed from.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Reports whether this key was parsed from the given version string.
+     */
+    public boolean isKeyFor(String version) {
+        return Objects.equals(this.version, version);
+    }
+
+    @Override
+    public int compareTo(VersionKey other) {
+        int length = Math.max(components.length, other.components.length);
+        for (int i = 0; i < length; i++) {
+            int a = i < components.length ? components[i] : 0;
+            int b = i < other.components.length ? other.components[i] : 0;
+            if (a != b) {
+                return Integer.compare(a, b);
+            }
+        }
+        if (components.length != other.components.length) {
+            return Integer.compare(components.length, other.components.length);
+        }
+        if (version == null || other.version == null) {
+            return version == null ? (other.version == null ? 0 : -1) : 1;
+        }
+        return version.compareTo(other.version);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof VersionKey other)) {
+            return false;
+        }
+        return Objects.equals(version, other.version) && Arrays.equals(components, other.components);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(version, Arrays.hashCode(components));
+    }
+
+    @Override
+    public String toString() {
+        return version;
+    }
+}
@@ -0,0 +1,139 @@
+package ca.corbett.packager.project;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * A workspace is a list of ext-packager projects that the user works with regularly, so that
+ * batch operations (signing, publishing) can be run across all of them at once, instead of
+ * opening, processing, and closing each project in turn.
+ * <p>
+ * Projects in the workspace are loaded on demand, and each one is an independent Project
+ * instance with its own state, so they can be safely processed in parallel, one thread
+ * per project. This holds even for the current project in the ProjectManager: the workspace
+ * always loads its own copy from disk, so that batch operations never touch the instance
+ * that the UI is working with. See ProjectManager.applyBatchChanges.
+ * </p>
+ * <p>
+ * Only the list of project files is persisted, in a small json file.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public class Workspace {
+
+    private static final Logger log = Logger.getLogger(Workspace.class.getName());
+
+    private final File workspaceFile;
+    private final List<File> projectFiles = new ArrayList<>();
+    private final Map<File, Project> loadedProjects = new ConcurrentHashMap<>();
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    public Workspace(File workspaceFile) {
+        this.workspaceFile = workspaceFile;
+    }
+
+    public File getWorkspaceFile() {
+        return workspaceFile;
+    }
+
+    /**
+     * Returns a copy of the list of project files in this workspace, in the order they were added.
+     */
+    public synchronized List<File> getProjectFiles() {
+        return new ArrayList<>(projectFiles);
+    }
+
+    /**
+     * Adds the given project file to this workspace, if it isn't already there.
+     * Returns false if it was already present.
+     */
+    public synchronized boolean addProjectFile(File projectFile) {
+        File key = projectFile.getAbsoluteFile();
+        if (projectFiles.contains(key)) {
+            return false;
+        }
+        projectFiles.add(key);
+        return true;
+    }
+
+    /**
+     * Removes the given project file from this workspace. The project itself is not touched.
+     */
+    public synchronized boolean removeProjectFile(File projectFile) {
+        File key = projectFile.getAbsoluteFile();
+        loadedProjects.remove(key);
+        return projectFiles.remove(key);
+    }
+
+    /**
+     * Returns the Project for the given project file, loading it if it hasn't been loaded yet.
+     * This may be invoked from any thread. Loading is not synchronized across projects, so
+     * several projects can be loaded in parallel.
+     */
+    public Project getProject(File projectFile) throws IOException {
+        File key = projectFile.getAbsoluteFile();
+        Project project = loadedProjects.get(key);
+        if (project == null) {
+            project = Project.fromFile(key);
+            Project existing = loadedProjects.putIfAbsent(key, project);
+            if (existing != null) {
+                project = existing;
+            }
+        }
+        return project;
+    }
+
+    /**
+     * Discards every project that we've loaded so far, so that the next call to getProject loads
+     * a fresh copy from disk. Batch operations do this before they start, so that they pick up
+     * any changes that were saved since the previous batch.
+     */
+    public void forgetLoadedProjects() {
+        loadedProjects.clear();
+    }
+
+    /**
+     * Replaces our list of project files with whatever is in our workspace file, if it exists.
+     */
+    public synchronized void load() throws IOException {
+        projectFiles.clear();
+        loadedProjects.clear();
+        if (!workspaceFile.exists()) {
+            return;
+        }
+        String[] paths = gson.fromJson(Files.readString(workspaceFile.toPath(), StandardCharsets.UTF_8),
+                                       String[].class);
+        if (paths != null) {
+            for (String path : paths) {
+                addProjectFile(new File(path));
+            }
+        }
+        log.info("Loaded workspace with " + projectFiles.size() + " project(s).");
+    }
+
+    /**
+     * Writes our list of project files out to our workspace file.
+     */
+    public synchronized void save() throws IOException {
+        List<String> paths = new ArrayList<>();
+        for (File projectFile : projectFiles) {
+            paths.add(projectFile.getAbsolutePath());
+        }
+        File parentDir = workspaceFile.getAbsoluteFile().getParentFile();
+        if (!parentDir.exists() && !parentDir.mkdirs()) {
+            throw new IOException("Unable to create directory " + parentDir.getAbsolutePath());
+        }
+        Files.writeString(workspaceFile.toPath(), gson.toJson(paths), StandardCharsets.UTF_8);
+    }
+}
@@ -1,18 +1,18 @@
 package ca.corbett.packager.ui;
 
 import ca.corbett.extras.MessageUtil;
-import ca.corbett.extras.crypt.SignatureUtil;
 import ca.corbett.forms.Alignment;
 import ca.corbett.forms.FormPanel;
 import ca.corbett.forms.Margins;
 import ca.corbett.forms.fields.FormField;
 import ca.corbett.forms.fields.LabelField;
 import ca.corbett.forms.fields.PanelField;
+import ca.corbett.packager.io.FileSigner;
+import ca.corbett.packager.project.AsyncProjectListener;
 import ca.corbett.packager.project.Project;
-import ca.corbett.packager.project.ProjectListener;
 import ca.corbett.packager.project.ProjectManager;
+import ca.corbett.packager.project.ProjectSigner;
 import ca.corbett.packager.ui.dialogs.SignatureChoiceDialog;
-import ca.corbett.updates.VersionManifest;
 
 import javax.swing.JButton;
 import javax.swing.JPanel;
@@ -22,7 +22,6 @@ import java.awt.FlowLayout;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -32,7 +31,7 @@ import java.util.logging.Logger;
  *
  * @author <a href="https://github.com/scorbo2">scorbo2</a>
  */
-public class JarSigningCard extends JPanel implements ProjectListener {
+public class JarSigningCard extends JPanel implements AsyncProjectListener<String> {
 
     private static final Logger log = Logger.getLogger(JarSigningCard.class.getName());
 
@@ -215,7 +214,7 @@ public class JarSigningCard extends JPanel implements ProjectListener {
      */
     private boolean isSignatureValid(File jarFile, File sigFile, Project project) {
         try {
-            return SignatureUtil.verifyFile(jarFile, sigFile, project.getPublicKey());
+            return FileSigner.verifyFile(jarFile, sigFile, project.getPublicKey());
         }
         catch (Exception e) {
             getMessageUtil().error(
@@ -230,38 +229,13 @@ public class JarSigningCard extends JPanel implements ProjectListener {
      */
     private void signJar(File jarFile, File sigFile, Project project) {
         try {
-            SignatureUtil.signFile(jarFile, project.getPrivateKey(), sigFile);
-            VersionManifest.ExtensionVersion extVersion = findExtensionVersionFromJar(project, jarFile);
-            if (extVersion != null) {
-                extVersion.setSignaturePath(
-                        ProjectManager.getInstance().computeExtensionPath(extVersion, sigFile.getName()));
-            }
-            else {
-                log.warning("Unable to find extension version matching jar " + jarFile.getAbsolutePath());
-            }
+            ProjectSigner.signJar(project, jarFile, sigFile);
         }
         catch (Exception e) {
             getMessageUtil().error("Unable to sign jar " + jarFile.getAbsolutePath() + ": " + e.getMessage(), e);
         }
     }
 
-    /**
-     * Given a jar file, searches through the given project's manifest and returns the ExtensionVersion
-     * that owns that jar. Will return null if no owning ExtensionVersion is found.
-     */
-    private VersionManifest.ExtensionVersion findExtensionVersionFromJar(Project project, File jarFile) {
-        for (VersionManifest.ApplicationVersion appVersion : project.getVersionManifest().getApplicationVersions()) {
-            for (VersionManifest.Extension extension : appVersion.getExtensions()) {
-                for (VersionManifest.ExtensionVersion candidateVersion : extension.getVersions()) {
-                    if (candidateVersion.getDownloadPath().endsWith(jarFile.getName())) {
-                        return candidateVersion;
-                    }
-                }
-            }
-        }
-        return null;
-    }
-
     private FormField buildButtonField() {
         PanelField panelField = new PanelField(new FlowLayout(FlowLayout.LEFT));
         JButton button = new JButton("Scan and verify");
@@ -276,23 +250,25 @@ public class JarSigningCard extends JPanel implements ProjectListener {
     }
 
     private void reset() {
-        statusLabel.setText("Not yet scanned.");
-
         Project project = ProjectManager.getInstance().getProject();
-        if (project == null) {
-            return;
-        }
+        statusLabel.setText(project == null ? INITIAL_TEXT : computeStatus(project));
+    }
 
+    /**
+     * Counts the jars in the given project, and how many of them are signed, and returns a status
+     * message describing the result. This may be invoked on a worker thread.
+     */
+    private static String computeStatus(Project project) {
         List<File> jarFiles = ProjectManager.getInstance().findAllJars(project);
-        List<File> sigFiles = new ArrayList<>();
+        int signedCount = 0;
         for (File f : jarFiles) {
             String basename = ProjectManager.getBasename(f.getName());
             File sigFile = new File(f.getParentFile(), basename + ".sig");
             if (sigFile.exists()) {
-                sigFiles.add(sigFile);
+                signedCount++;
             }
         }
-        statusLabel.setText(jarFiles.size() + " jar files present; " + sigFiles.size() + " are signed.");
+        return jarFiles.size() + " jar files present; " + signedCount + " are signed.";
     }
 
     /**
@@ -304,19 +280,35 @@ public class JarSigningCard extends JPanel implements ProjectListener {
     }
 
     /**
-     * Invoked after a project has been loaded - we reset our display.
+     * Invoked after a project has been loaded - we reset our display until the scan completes.
      */
     @Override
     public void projectLoaded(Project project) {
-        reset();
+        statusLabel.setText(INITIAL_TEXT);
     }
 
     /**
-     * Invoked after a project has been saved - we reset our display.
+     * Invoked after a project has been saved - we keep showing the previous status until the scan completes.
      */
     @Override
     public void projectSaved(Project project) {
-        reset();
+        // Nothing to do until the scan completes.
+    }
+
+    /**
+     * Invoked on a worker thread after a project is loaded or saved, to scan its jars.
+     */
+    @Override
+    public String computeViewModel(Project project) {
+        return computeStatus(project);
+    }
+
+    /**
+     * Invoked on the EDT with the results of computeViewModel.
+     */
+    @Override
+    public void applyViewModel(Project project, String status) {
+        statusLabel.setText(status);
     }
 
     /**
@@ -2,12 +2,13 @@ package ca.corbett.packager.ui;
 
 import ca.corbett.extras.MessageUtil;
 import ca.corbett.extras.PopupTextDialog;
-import ca.corbett.extras.crypt.SignatureUtil;
 import ca.corbett.forms.Alignment;
 import ca.corbett.forms.FormPanel;
 import ca.corbett.forms.Margins;
+import ca.corbett.forms.fields.ComboField;
 import ca.corbett.forms.fields.LabelField;
 import ca.corbett.forms.fields.PanelField;
+import ca.corbett.packager.io.SigningScheme;
 import ca.corbett.packager.project.Project;
 import ca.corbett.packager.project.ProjectListener;
 import ca.corbett.packager.project.ProjectManager;
@@ -23,13 +24,16 @@ import java.awt.event.ActionEvent;
 import java.security.KeyPair;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.util.Arrays;
 import java.util.logging.Logger;
 
 /**
  * This card provides a way to generate a key pair for signing extension jars before they are
  * uploaded. Signing is optional but recommended. If this project already has a key pair,
  * you can regenerate it here, but be aware that this requires re-signing and re-uploading
- * ALL extension jars.
+ * ALL extension jars. New key pairs can use either RSA (the default) or Ed25519, which has
+ * much smaller keys and signatures, but which requires client applications that can verify
+ * Ed25519 signatures.
  *
  * @author <a href="https://github.com/scorbo2">scorbo2</a>
  */
@@ -40,6 +44,7 @@ public class KeyPairCard extends JPanel implements ProjectListener {
 
     private final LabelField privateKeyLabel;
     private final LabelField publicKeyLabel;
+    private final ComboField<SigningScheme> schemeField;
 
     public KeyPairCard() {
         setLayout(new BorderLayout());
@@ -53,6 +58,10 @@ public class KeyPairCard extends JPanel implements ProjectListener {
         publicKeyLabel = new LabelField("Public key:", "N/A");
         formPanel.add(publicKeyLabel);
 
+        schemeField = new ComboField<>("Signature algorithm:", Arrays.stream(SigningScheme.values()).toList(), 0);
+        schemeField.setHelpText("Used when generating a new key pair.");
+        formPanel.add(schemeField);
+
         PanelField panelField = new PanelField(new FlowLayout());
         JButton generateKeyButton = new JButton("Generate new");
         generateKeyButton.setPreferredSize(new Dimension(120, 25));
@@ -83,9 +92,21 @@ public class KeyPairCard extends JPanel implements ProjectListener {
             }
         }
 
+        SigningScheme scheme = schemeField.getSelectedItem();
+        if (scheme != SigningScheme.RSA
+                && JOptionPane.showConfirmDialog(MainWindow.getInstance(),
+                                                 "Client applications can only verify " + scheme.getSignatureAlgorithm()
+                                                         + " signatures\nif their update code supports it.\n\n"
+                                                         + "Really generate a " + scheme.getSignatureAlgorithm()
+                                                         + " key pair?",
+                                                 "Confirm signature algorithm",
+                                                 JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) {
+            return;
+        }
+
         ProjectManager.getInstance().removeProjectListener(this);
         try {
-            KeyPair keyPair = SignatureUtil.generateKeyPair();
+            KeyPair keyPair = scheme.generateKeyPair();
             ProjectManager.getInstance().getProject().setKeyPair(keyPair);
             populateFields(ProjectManager.getInstance().getProject());
             ProjectManager.getInstance().save();
@@ -99,6 +120,8 @@ public class KeyPairCard extends JPanel implements ProjectListener {
     }
 
     private void populateFields(Project project) {
+        schemeField.setSelectedItem(project == null ? SigningScheme.RSA : project.getSigningScheme());
+
         PublicKey publicKey = project == null ? null : project.getPublicKey();
         if (publicKey != null) {
             publicKeyLabel.setText("dist/public.key");
@@ -0,0 +1,95 @@
+package ca.corbett.packager.ui;
+
+import ca.corbett.packager.project.Project;
+import ca.corbett.packager.project.ProjectListener;
+import ca.corbett.packager.project.ProjectManager;
+
+import javax.swing.JPanel;
+import java.awt.BorderLayout;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * A placeholder for one of the cards in MainWindow, which defers building the real card until
+ * the user first navigates to it. Most cards are fairly expensive to build, and every card
+ * reacts to every project event, so building them all up front slows down both startup
+ * and every project load and save, for cards that the user may never even look at.
+ * <p>
+ * Until the real card is built, this placeholder listens for project events in its place,
+ * but the only thing it does with them is to note that the card is now stale. When the card
+ * is finally built, it is brought up to date with a replay of the current project (if any),
+ * and from then on, the card receives project events directly.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+class LazyCard extends JPanel implements ProjectListener {
+
+    private static final Logger log = Logger.getLogger(LazyCard.class.getName());
+
+    private final String title;
+    private final Supplier<JPanel> cardFactory;
+    private JPanel card;
+    private boolean isStale;
+
+    LazyCard(String title, Supplier<JPanel> cardFactory) {
+        super(new BorderLayout());
+        this.title = title;
+        this.cardFactory = cardFactory;
+        this.isStale = ProjectManager.getInstance().getProject() != null;
+        ProjectManager.getInstance().addProjectListener(this);
+    }
+
+    public boolean isBuilt() {
+        return card != null;
+    }
+
+    /**
+     * Reports whether project events have arrived that the real card hasn't seen yet.
+     * Always false once the card has been built.
+     */
+    public boolean isStale() {
+        return isStale;
+    }
+
+    /**
+     * Builds the real card if it hasn't been built yet, and returns it. Must be invoked on the EDT.
+     */
+    public JPanel getCard() {
+        if (card != null) {
+            return card;
+        }
+        long startTime = System.currentTimeMillis();
+        ProjectManager.getInstance().removeProjectListener(this);
+        card = cardFactory.get();
+        add(card, BorderLayout.CENTER);
+        if (isStale && card instanceof ProjectListener listener) {
+            ProjectManager.getInstance().replayProjectLoaded(listener);
+        }
+        isStale = false;
+        revalidate();
+        repaint();
+        log.fine("Built card \"" + title + "\" in " + (System.currentTimeMillis() - startTime) + "ms");
+        return card;
+    }
+
+    @Override
+    public void projectWillLoad(Project project) {
+        isStale = true;
+    }
+
+    @Override
+    public void projectLoaded(Project project) {
+        isStale = true;
+    }
+
+    @Override
+    public void projectSaved(Project project) {
+        isStale = true;
+    }
+
+    @Override
+    public void projectClosed(Project project) {
+        isStale = true;
+    }
+}
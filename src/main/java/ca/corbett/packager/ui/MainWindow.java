@@ -4,10 +4,13 @@ import ca.corbett.extras.MessageUtil;
 import ca.corbett.extras.image.ImagePanel;
 import ca.corbett.extras.image.ImagePanelConfig;
 import ca.corbett.extras.image.ImageUtil;
+import ca.corbett.extras.progress.MultiProgressDialog;
+import ca.corbett.extras.progress.SimpleProgressAdapter;
 import ca.corbett.extras.properties.PropertiesDialog;
 import ca.corbett.packager.Version;
 import ca.corbett.packager.project.Project;
 import ca.corbett.packager.project.ProjectListener;
+import ca.corbett.packager.project.ProjectLoadThread;
 import ca.corbett.packager.project.ProjectManager;
 
 import javax.swing.DefaultListModel;
@@ -16,6 +19,7 @@ import javax.swing.JList;
 import javax.swing.JPanel;
 import javax.swing.JSplitPane;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 import java.awt.BorderLayout;
@@ -44,6 +48,7 @@ public class MainWindow extends JFrame implements ProjectListener {
 
     private static final String CARD_INTRO = "Overview";
     private static final String CARD_PROJECT = "Project";
+    private static final String CARD_WORKSPACE = "Workspace";
     private static final String CARD_ABOUT = "About";
     private static final String CARD_KEYPAIR = "Key management";
     private static final String CARD_UPDATE_SOURCES = "Update sources";
@@ -56,7 +61,7 @@ public class MainWindow extends JFrame implements ProjectListener {
     private JList<String> cardList;
     private JPanel contentPanel;
     private File startupProjectFile = null;
-    private LinkedHashMap<String, JPanel> cardMap = new LinkedHashMap<>();
+    private final LinkedHashMap<String, LazyCard> cardMap = new LinkedHashMap<>();
 
     private MainWindow() {
         super(Version.APPLICATION_NAME + " " + Version.VERSION);
@@ -69,18 +74,20 @@ public class MainWindow extends JFrame implements ProjectListener {
         splitPane.setDividerLocation(195);
         add(splitPane, BorderLayout.CENTER);
 
-        cardMap = new LinkedHashMap<>();
-        cardMap.put(CARD_INTRO, new IntroCard());
-        cardMap.put(CARD_PROJECT, new ProjectCard());
-        cardMap.put(CARD_KEYPAIR, new KeyPairCard());
-        cardMap.put(CARD_UPDATE_SOURCES, new UpdateSourcesCard());
-        cardMap.put(CARD_VERSION_MANIFEST, new VersionManifestCard());
-        cardMap.put(CARD_JAR_SIGNING, new JarSigningCard());
-        cardMap.put(CARD_UPLOAD, new UploadCard());
-        cardMap.put(CARD_ABOUT, new AboutCard());
+        // Cards are only built when the user first navigates to them:
+        cardMap.put(CARD_INTRO, new LazyCard(CARD_INTRO, IntroCard::new));
+        cardMap.put(CARD_PROJECT, new LazyCard(CARD_PROJECT, ProjectCard::new));
+        cardMap.put(CARD_WORKSPACE, new LazyCard(CARD_WORKSPACE, WorkspaceCard::new));
+        cardMap.put(CARD_KEYPAIR, new LazyCard(CARD_KEYPAIR, KeyPairCard::new));
+        cardMap.put(CARD_UPDATE_SOURCES, new LazyCard(CARD_UPDATE_SOURCES, UpdateSourcesCard::new));
+        cardMap.put(CARD_VERSION_MANIFEST, new LazyCard(CARD_VERSION_MANIFEST, VersionManifestCard::new));
+        cardMap.put(CARD_JAR_SIGNING, new LazyCard(CARD_JAR_SIGNING, JarSigningCard::new));
+        cardMap.put(CARD_UPLOAD, new LazyCard(CARD_UPLOAD, UploadCard::new));
+        cardMap.put(CARD_ABOUT, new LazyCard(CARD_ABOUT, AboutCard::new));
 
         addContentPanel(cardMap.get(CARD_INTRO), CARD_INTRO);
         addContentPanel(cardMap.get(CARD_PROJECT), CARD_PROJECT);
+        addContentPanel(cardMap.get(CARD_WORKSPACE), CARD_WORKSPACE);
         addContentPanel(cardMap.get(CARD_ABOUT), CARD_ABOUT);
         cardList.setSelectedIndex(0);
     }
@@ -98,13 +105,32 @@ public class MainWindow extends JFrame implements ProjectListener {
         super.setVisible(true);
         ProjectManager.getInstance().addProjectListener(this);
         if (startupProjectFile != null) {
-            try {
-                ProjectManager.getInstance().loadProject(startupProjectFile);
+            loadProject(startupProjectFile, null);
+        }
+    }
+
+    /**
+     * Loads the given project file in the background, showing a progress dialog while it loads.
+     * If the load succeeds, the given callback (if any) is invoked on the EDT afterwards.
+     * Any errors are reported to the user.
+     */
+    public void loadProject(File projectFile, Runnable onLoaded) {
+        final ProjectLoadThread worker = ProjectManager.getInstance().createProjectLoadThread(projectFile);
+        worker.addProgressListener(new SimpleProgressAdapter() {
+            @Override
+            public boolean progressError(String errorSource, String errorDetails) {
+                SwingUtilities.invokeLater(() -> getMessageUtil().error(errorSource, errorDetails));
+                return false;
             }
-            catch (IOException ioe) {
-                getMessageUtil().error("Unable to load startup project: " + ioe.getMessage(), ioe);
+
+            @Override
+            public void progressComplete() {
+                if (worker.getProject() != null && onLoaded != null) {
+                    SwingUtilities.invokeLater(onLoaded);
+                }
             }
-        }
+        });
+        new MultiProgressDialog(this, "Opening project").runWorker(worker, true);
     }
 
     public static MainWindow getInstance() {
@@ -125,7 +151,8 @@ public class MainWindow extends JFrame implements ProjectListener {
     /**
      * Invoked internally to add the given panel as a new card in the content area,
      * using the given title as the menu link in our list on the left, at the
-     * specified index (or at the end if index is -1).
+     * specified index (or at the end if index is -1). The content area is kept in the
+     * same order as the menu list, so that indexes in one are valid in the other.
      */
     private void addContentPanel(JPanel panel, String title, int index) {
         if (index == -1) {
@@ -134,7 +161,7 @@ public class MainWindow extends JFrame implements ProjectListener {
         else {
             cardListModel.insertElementAt("  " + title, index);
         }
-        contentPanel.add(PropertiesDialog.buildScrollPane(panel), title);
+        contentPanel.add(PropertiesDialog.buildScrollPane(panel), title, index);
     }
 
     /**
@@ -184,7 +211,9 @@ public class MainWindow extends JFrame implements ProjectListener {
                 if (e.getValueIsAdjusting() || cardList.getSelectedValue() == null) {
                     return;
                 }
-                ((CardLayout)contentPanel.getLayout()).show(contentPanel, cardList.getSelectedValue().trim());
+                String title = cardList.getSelectedValue().trim();
+                cardMap.get(title).getCard(); // build it now if this is the first visit
+                ((CardLayout)contentPanel.getLayout()).show(contentPanel, title);
             }
         });
 
@@ -245,7 +274,7 @@ public class MainWindow extends JFrame implements ProjectListener {
      */
     @Override
     public void projectWillLoad(Project project) {
-        if (cardListModel.size() > 3) {
+        if (cardListModel.size() > 4) {
             return; // already done - only do it once
         }
         addContentPanel(cardMap.get(CARD_KEYPAIR), CARD_KEYPAIR, 2);
@@ -0,0 +1,56 @@
+package ca.corbett.packager.ui;
+
+import javax.swing.AbstractListModel;
+import java.util.List;
+
+/**
+ * A very thin ListModel that presents a snapshot of a list of manifest nodes, rather than
+ * adding every element to a DefaultListModel one at a time. Swapping in a new snapshot fires a
+ * single event, so the cost of a selection change in the VersionManifestCard is just the rows
+ * that are actually visible, not a per-row event for the whole manifest.
+ * <p>
+ * The model holds on to the list that it is given, without copying it, so that list must be a
+ * snapshot that nothing else modifies, such as the unmodifiable lists from ManifestSortCache.
+ * The manifest lists themselves are sorted on save and modified by background imports and batch
+ * operations, so the JList must never see them directly. Changes to the manifest show up here
+ * only when a new snapshot is supplied.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+class ManifestListModel<T> extends AbstractListModel<T> {
+
+    private List<T> items = List.of();
+
+    /**
+     * Replaces the contents of this model with the given list, which must not be modified afterwards.
+     * Supplying null is the same as supplying an empty list.
+     */
+    public void setItems(List<T> newItems) {
+        int oldSize = items.size();
+        items = newItems == null ? List.of() : newItems;
+        if (oldSize > 0) {
+            fireIntervalRemoved(this, 0, oldSize - 1);
+        }
+        if (!items.isEmpty()) {
+            fireIntervalAdded(this, 0, items.size() - 1);
+        }
+    }
+
+    /**
+     * Empties this model.
+     */
+    public void clear() {
+        setItems(null);
+    }
+
+    @Override
+    public int getSize() {
+        return items.size();
+    }
+
+    @Override
+    public T getElementAt(int index) {
+        return items.get(index);
+    }
+}
@@ -0,0 +1,82 @@
+package ca.corbett.packager.ui;
+
+import ca.corbett.packager.project.ManifestIndex;
+import ca.corbett.packager.project.Project;
+import ca.corbett.updates.VersionManifest;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Sorts the children of manifest nodes lazily, the first time they are displayed,
+ * and remembers the result so that subsequent selection changes don't pay for another sort.
+ * Ordering comes from the Project's ManifestIndex, which holds pre-parsed version keys,
+ * so no strings are allocated during comparison.
+ * <p>
+ * Sorting is done on a copy, which is taken under the project's manifest read lock, and the
+ * manifest's own lists are never modified. The cache is keyed on object identity, and the copies
+ * don't follow later changes to the manifest, so it must be reset whenever the VersionManifest
+ * that it describes is replaced or modified.
+ * </p>
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+class ManifestSortCache {
+
+    private final Map<Object, List<?>> sortedLists = new IdentityHashMap<>();
+    private Project project;
+    private ManifestIndex manifestIndex = new ManifestIndex();
+
+    /**
+     * Returns a sorted, read-only copy of the Extensions of the given ApplicationVersion.
+     * The copy is made and sorted the first time it is requested, and returned as-is thereafter.
+     */
+    @SuppressWarnings("unchecked")
+    public List<VersionManifest.Extension> getSortedExtensions(VersionManifest.ApplicationVersion appVersion) {
+        return (List<VersionManifest.Extension>)sortedLists.computeIfAbsent(appVersion, node -> {
+            List<VersionManifest.Extension> extensions = copy(appVersion::getExtensions);
+            extensions.sort(manifestIndex.extensionOrder());
+            return List.copyOf(extensions);
+        });
+    }
+
+    /**
+     * Returns a sorted, read-only copy of the versions of the given Extension.
+     * The copy is made and sorted the first time it is requested, and returned as-is thereafter.
+     */
+    @SuppressWarnings("unchecked")
+    public List<VersionManifest.ExtensionVersion> getSortedVersions(VersionManifest.Extension extension) {
+        return (List<VersionManifest.ExtensionVersion>)sortedLists.computeIfAbsent(extension, node -> {
+            List<VersionManifest.ExtensionVersion> versions = copy(extension::getVersions);
+            versions.sort(manifestIndex.extensionVersionOrder());
+            return List.copyOf(versions);
+        });
+    }
+
+    /**
+     * Discards all cached sort results, and uses the given Project's manifest lock and ManifestIndex
+     * from now on. If the given project is null, the cache is empty and a new empty index is used.
+     */
+    public void reset(Project newProject) {
+        sortedLists.clear();
+        project = newProject;
+        manifestIndex = newProject == null ? new ManifestIndex() : newProject.getManifestIndex();
+    }
+
+    /**
+     * Returns the ManifestIndex currently used for ordering.
+     */
+    public ManifestIndex getManifestIndex() {
+        return manifestIndex;
+    }
+
+    /**
+     * Returns a copy of the given manifest list, taken while holding our project's manifest read lock.
+     */
+    private <T> List<T> copy(Supplier<List<T>> list) {
+        return project == null ? new ArrayList<>() : project.readManifest(manifest -> new ArrayList<>(list.get()));
+    }
+}
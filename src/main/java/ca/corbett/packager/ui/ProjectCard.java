@@ -1,17 +1,19 @@
 package ca.corbett.packager.ui;
 
 import ca.corbett.extras.MessageUtil;
-import ca.corbett.extras.PopupTextDialog;
 import ca.corbett.forms.Alignment;
 import ca.corbett.forms.FormPanel;
 import ca.corbett.forms.Margins;
+import ca.corbett.forms.fields.CheckBoxField;
 import ca.corbett.forms.fields.LabelField;
 import ca.corbett.forms.fields.PanelField;
+import ca.corbett.forms.fields.ShortTextField;
 import ca.corbett.packager.AppConfig;
 import ca.corbett.packager.project.Project;
 import ca.corbett.packager.project.ProjectListener;
 import ca.corbett.packager.project.ProjectManager;
 import ca.corbett.packager.ui.dialogs.NewProjectDialog;
+import ca.corbett.packager.ui.dialogs.TextFileViewerDialog;
 
 import javax.swing.AbstractAction;
 import javax.swing.JButton;
@@ -24,6 +26,7 @@ import java.awt.FlowLayout;
 import java.awt.event.ActionEvent;
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 import java.util.logging.Logger;
 
 /**
@@ -40,7 +43,16 @@ public class ProjectCard extends JPanel implements ProjectListener {
     private final LabelField projectDirField;
     private final LabelField updateSourcesField;
     private final LabelField versionManifestField;
+    private final LabelField inboxField;
+    private final CheckBoxField inboxAutoSignField;
+    private final CheckBoxField normalizeJarsField;
+    private final CheckBoxField optimizeJarsField;
+    private final ShortTextField stripPatternsField;
+    private final ShortTextField screenshotMaxDimensionField;
+    private final ShortTextField screenshotQualityField;
     private final JButton closeButton;
+    private final JButton inboxButton;
+    private final JButton clearInboxButton;
 
     public ProjectCard() {
         setLayout(new BorderLayout());
@@ -60,6 +72,52 @@ public class ProjectCard extends JPanel implements ProjectListener {
         versionManifestField = new LabelField("Version manifest", "N/A");
         formPanel.add(versionManifestField);
 
+        inboxField = new LabelField("Inbox directory:", "N/A");
+        inboxField.setHelpText("Extension jars dropped into this directory are imported automatically.");
+        formPanel.add(inboxField);
+
+        inboxAutoSignField = new CheckBoxField("Sign jars imported from the inbox", false);
+        inboxAutoSignField.setEnabled(false);
+        inboxAutoSignField.addValueChangedListener(field -> inboxAutoSignChanged());
+        formPanel.add(inboxAutoSignField);
+
+        normalizeJarsField = new CheckBoxField("Normalize imported jars", false);
+        normalizeJarsField.setHelpText("Rewrites imported jars with sorted entries, fixed timestamps, and a stable "
+                                               + "manifest, so that rebuilding an unchanged extension doesn't "
+                                               + "produce a new jar that has to be signed and uploaded again.");
+        normalizeJarsField.setEnabled(false);
+        normalizeJarsField.addValueChangedListener(field -> normalizeJarsChanged());
+        formPanel.add(normalizeJarsField);
+
+        optimizeJarsField = new CheckBoxField("Optimize imported jars", false);
+        optimizeJarsField.setHelpText("Recompresses imported jars at the maximum level and removes unneeded "
+                                              + "entries, such as source files, to shrink downloads.");
+        optimizeJarsField.setEnabled(false);
+        optimizeJarsField.addValueChangedListener(field -> optimizeJarsChanged());
+        formPanel.add(optimizeJarsField);
+
+        stripPatternsField = new ShortTextField("Strip from jars:", 25);
+        stripPatternsField.setHelpText("Comma-separated glob patterns for jar entries that optimization removes, "
+                                               + "for example **/*.java. Leave blank to only recompress.");
+        stripPatternsField.setAllowBlank(true);
+        stripPatternsField.setEnabled(false);
+        stripPatternsField.addValueChangedListener(field -> stripPatternsChanged());
+        formPanel.add(stripPatternsField);
+
+        screenshotMaxDimensionField = new ShortTextField("Screenshot max size:", 6);
+        screenshotMaxDimensionField.setHelpText("The maximum width or height, in pixels, of imported screenshots. "
+                                                        + "Larger screenshots are scaled down to fit.");
+        screenshotMaxDimensionField.setEnabled(false);
+        screenshotMaxDimensionField.addValueChangedListener(field -> screenshotMaxDimensionChanged());
+        formPanel.add(screenshotMaxDimensionField);
+
+        screenshotQualityField = new ShortTextField("Screenshot quality:", 6);
+        screenshotQualityField.setHelpText("The jpeg quality, from 1 to 100, with which imported screenshots "
+                                                   + "are re-encoded.");
+        screenshotQualityField.setEnabled(false);
+        screenshotQualityField.addValueChangedListener(field -> screenshotQualityChanged());
+        formPanel.add(screenshotQualityField);
+
         PanelField buttonPanel = new PanelField(new FlowLayout(FlowLayout.LEFT));
         JButton btn = new JButton("Open");
         btn.setPreferredSize(new Dimension(90, 24));
@@ -77,6 +135,18 @@ public class ProjectCard extends JPanel implements ProjectListener {
         closeButton.addActionListener(e -> ProjectManager.getInstance().close());
         buttonPanel.getPanel().add(closeButton);
 
+        inboxButton = new JButton("Set inbox");
+        inboxButton.setEnabled(false);
+        inboxButton.setPreferredSize(new Dimension(90, 24));
+        inboxButton.addActionListener(e -> showChooseInboxDialog());
+        buttonPanel.getPanel().add(inboxButton);
+
+        clearInboxButton = new JButton("Clear inbox");
+        clearInboxButton.setEnabled(false);
+        clearInboxButton.setPreferredSize(new Dimension(100, 24));
+        clearInboxButton.addActionListener(e -> setInboxDir(null));
+        buttonPanel.getPanel().add(clearInboxButton);
+
         formPanel.add(buttonPanel);
         add(formPanel, BorderLayout.CENTER);
 
@@ -89,18 +159,12 @@ public class ProjectCard extends JPanel implements ProjectListener {
     private void showBrowseProjectDialog() {
         JFileChooser fileChooser = createProjectFileChooser();
         if (fileChooser.showOpenDialog(MainWindow.getInstance()) == JFileChooser.APPROVE_OPTION) {
-            try {
-                File selectedFile = fileChooser.getSelectedFile();
-                ProjectManager.getInstance().loadProject(selectedFile);
-                populateFields(ProjectManager.getInstance().getProject());
-
+            final File selectedFile = fileChooser.getSelectedFile();
+            MainWindow.getInstance().loadProject(selectedFile, () -> {
                 // Remember this file browse location for next time:
                 AppConfig.getInstance().setProjectBaseDir(selectedFile);
                 AppConfig.getInstance().save();
-            }
-            catch (IOException ioe) {
-                getMessageUtil().error("Error reading project file: " + ioe.getMessage(), ioe);
-            }
+            });
         }
     }
 
@@ -125,6 +189,102 @@ public class ProjectCard extends JPanel implements ProjectListener {
         }
     }
 
+    /**
+     * Invoked internally to show a directory chooser for the current project's inbox directory.
+     */
+    private void showChooseInboxDialog() {
+        Project project = ProjectManager.getInstance().getProject();
+        if (project == null) {
+            return;
+        }
+        JFileChooser fileChooser = new JFileChooser(project.getInboxDir() == null
+                                                            ? project.getProjectDir()
+                                                            : project.getInboxDir());
+        fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        fileChooser.setMultiSelectionEnabled(false);
+        if (fileChooser.showOpenDialog(MainWindow.getInstance()) == JFileChooser.APPROVE_OPTION) {
+            setInboxDir(fileChooser.getSelectedFile());
+        }
+    }
+
+    private void setInboxDir(File inboxDir) {
+        Project project = ProjectManager.getInstance().getProject();
+        if (project == null) {
+            return;
+        }
+        project.setInboxDir(inboxDir);
+        ProjectManager.getInstance().restartInboxWatcher();
+        populateFields(project);
+    }
+
+    private void inboxAutoSignChanged() {
+        Project project = ProjectManager.getInstance().getProject();
+        if (project == null || project.isInboxAutoSign() == inboxAutoSignField.isChecked()) {
+            return;
+        }
+        project.setInboxAutoSign(inboxAutoSignField.isChecked());
+        ProjectManager.getInstance().restartInboxWatcher();
+    }
+
+    private void normalizeJarsChanged() {
+        Project project = ProjectManager.getInstance().getProject();
+        if (project == null || project.isNormalizeJars() == normalizeJarsField.isChecked()) {
+            return;
+        }
+        project.setNormalizeJars(normalizeJarsField.isChecked());
+    }
+
+    private void optimizeJarsChanged() {
+        Project project = ProjectManager.getInstance().getProject();
+        if (project == null || project.isOptimizeJars() == optimizeJarsField.isChecked()) {
+            return;
+        }
+        project.setOptimizeJars(optimizeJarsField.isChecked());
+    }
+
+    private void stripPatternsChanged() {
+        Project project = ProjectManager.getInstance().getProject();
+        if (project == null) {
+            return;
+        }
+        List<String> patterns = Project.parseJarStripPatterns(stripPatternsField.getText());
+        if (!patterns.equals(project.getJarStripPatterns())) {
+            project.setJarStripPatterns(patterns);
+        }
+    }
+
+    private void screenshotMaxDimensionChanged() {
+        Project project = ProjectManager.getInstance().getProject();
+        int maxDimension = parseSetting(screenshotMaxDimensionField.getText(), 1, Integer.MAX_VALUE);
+        if (project == null || maxDimension == -1 || project.getScreenshotMaxDimension() == maxDimension) {
+            return;
+        }
+        project.setScreenshotMaxDimension(maxDimension);
+    }
+
+    private void screenshotQualityChanged() {
+        Project project = ProjectManager.getInstance().getProject();
+        int quality = parseSetting(screenshotQualityField.getText(), 1, 100);
+        if (project == null || quality == -1 || project.getScreenshotQuality() == quality) {
+            return;
+        }
+        project.setScreenshotQuality(quality);
+    }
+
+    /**
+     * Returns the given text as a number, or -1 if it isn't a number between min and max.
+     * Invalid input is ignored, so that the project setting doesn't change while a value is half typed.
+     */
+    private static int parseSetting(String text, int min, int max) {
+        try {
+            int value = Integer.parseInt(text.trim());
+            return value < min || value > max ? -1 : value;
+        }
+        catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     private void populateFields(Project project) {
         if (project == null) {
             projectNameField.setText("N/A");
@@ -133,29 +293,58 @@ public class ProjectCard extends JPanel implements ProjectListener {
             updateSourcesField.clearHyperlink();
             versionManifestField.setText("N/A");
             versionManifestField.clearHyperlink();
+            inboxField.setText("N/A");
+            inboxAutoSignField.setChecked(false);
+            inboxAutoSignField.setEnabled(false);
+            normalizeJarsField.setChecked(false);
+            normalizeJarsField.setEnabled(false);
+            optimizeJarsField.setChecked(false);
+            optimizeJarsField.setEnabled(false);
+            stripPatternsField.setText("");
+            stripPatternsField.setEnabled(false);
+            screenshotMaxDimensionField.setText("");
+            screenshotMaxDimensionField.setEnabled(false);
+            screenshotQualityField.setText("");
+            screenshotQualityField.setEnabled(false);
+            inboxButton.setEnabled(false);
+            clearInboxButton.setEnabled(false);
             return;
         }
 
+        File inboxDir = project.getInboxDir();
+        inboxField.setText(inboxDir == null ? "(none)" : inboxDir.getAbsolutePath());
+        inboxAutoSignField.setChecked(project.isInboxAutoSign());
+        inboxAutoSignField.setEnabled(inboxDir != null);
+        normalizeJarsField.setChecked(project.isNormalizeJars());
+        normalizeJarsField.setEnabled(true);
+        optimizeJarsField.setChecked(project.isOptimizeJars());
+        optimizeJarsField.setEnabled(true);
+        stripPatternsField.setText(String.join(", ", project.getJarStripPatterns()));
+        stripPatternsField.setEnabled(true);
+        screenshotMaxDimensionField.setText(Integer.toString(project.getScreenshotMaxDimension()));
+        screenshotMaxDimensionField.setEnabled(true);
+        screenshotQualityField.setText(Integer.toString(project.getScreenshotQuality()));
+        screenshotQualityField.setEnabled(true);
+        inboxButton.setEnabled(true);
+        clearInboxButton.setEnabled(inboxDir != null);
+
         projectNameField.setText(project.getName());
         projectDirField.setText(project.getProjectDir().getAbsolutePath());
+        // The hyperlinks read their files lazily, when clicked, and not on every load and save:
         String filename = "update_sources.json";
         updateSourcesField.setText(filename);
-        updateSourcesField.setHyperlink(createHyperlinkAction(filename,
-                                                              ProjectManager.getInstance().getUpdateSourcesAsString()));
+        updateSourcesField.setHyperlink(createHyperlinkAction(filename, project.getUpdateSourcesFile()));
 
         filename = "dist/version_manifest.json";
         versionManifestField.setText(filename);
-        versionManifestField.setHyperlink(createHyperlinkAction(filename,
-                                                                ProjectManager.getInstance()
-                                                                              .getVersionManifestAsString()));
+        versionManifestField.setHyperlink(createHyperlinkAction(filename, project.getVersionManifestFile()));
     }
 
-    private static AbstractAction createHyperlinkAction(String title, String contents) {
+    private static AbstractAction createHyperlinkAction(String title, File file) {
         return new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                new PopupTextDialog(MainWindow.getInstance(), title, contents, false)
-                        .setVisible(true);
+                TextFileViewerDialog.showFile(MainWindow.getInstance(), title, file);
             }
         };
     }
@@ -163,7 +352,7 @@ public class ProjectCard extends JPanel implements ProjectListener {
     /**
      * Creates and returns a JFileChooser suitable for choosing ext-packager project files.
      */
-    private static JFileChooser createProjectFileChooser() {
+    static JFileChooser createProjectFileChooser() {
         JFileChooser fileChooser = new JFileChooser(AppConfig.getInstance().getProjectBaseDir());
         fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
         fileChooser.setMultiSelectionEnabled(false);
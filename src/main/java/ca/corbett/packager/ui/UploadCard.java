@@ -1,6 +1,7 @@
 package ca.corbett.packager.ui;
 
 import ca.corbett.extras.MessageUtil;
+import ca.corbett.extras.PopupTextDialog;
 import ca.corbett.extras.progress.MultiProgressDialog;
 import ca.corbett.extras.progress.SimpleProgressAdapter;
 import ca.corbett.forms.Alignment;
@@ -18,17 +19,21 @@ import ca.corbett.forms.validators.ValidationResult;
 import ca.corbett.packager.io.FileSystemUploadThread;
 import ca.corbett.packager.io.FtpParams;
 import ca.corbett.packager.io.FtpUploadThread;
+import ca.corbett.packager.project.AsyncProjectListener;
+import ca.corbett.packager.project.ManifestDiff;
 import ca.corbett.packager.project.Project;
-import ca.corbett.packager.project.ProjectListener;
 import ca.corbett.packager.project.ProjectManager;
 import ca.corbett.updates.UpdateSources;
 
+import javax.swing.AbstractAction;
 import javax.swing.JButton;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
@@ -41,7 +46,7 @@ import java.util.logging.Logger;
  *
  * @author <a href="https://github.com/scorbo2">scorbo2</a>
  */
-public class UploadCard extends JPanel implements ProjectListener {
+public class UploadCard extends JPanel implements AsyncProjectListener<UploadCard.ValidationMessages> {
 
     private static final Logger log = Logger.getLogger(UploadCard.class.getName());
 
@@ -52,6 +57,7 @@ public class UploadCard extends JPanel implements ProjectListener {
     private final CheckValidator jarsPresentValidator;
     private final CheckValidator jarsSignedValidator;
     private final ComboField<String> sourceCombo;
+    private final LabelField changesField;
     private final LabelField targetDirField;
     private final ShortTextField ftpHostField;
     private final ShortTextField ftpUsernameField;
@@ -59,6 +65,10 @@ public class UploadCard extends JPanel implements ProjectListener {
     private final ShortTextField ftpTargetDirField;
     private final CheckBoxField ftpSaveParamsCheckbox;
     private final CheckBoxField cleanDirBeforeUpload;
+    private final CheckBoxField shardedManifestCheckbox;
+    private final CheckBoxField checksumManifestCheckbox;
+    private final CheckBoxField deltaPatchesCheckbox;
+    private final ChangesCalculator changesCalculator = new ChangesCalculator();
 
     public UploadCard() {
         setLayout(new BorderLayout());
@@ -85,6 +95,9 @@ public class UploadCard extends JPanel implements ProjectListener {
         sourceCombo.addValueChangedListener(field -> comboValueChanged());
         formPanel.add(sourceCombo);
 
+        changesField = new LabelField("Changes since last upload:", "N/A");
+        formPanel.add(changesField);
+
         // Controls specific to file-based upload sources:
         targetDirField = new LabelField("Target dir:", "");
         targetDirField.setVisible(false);
@@ -117,6 +130,25 @@ public class UploadCard extends JPanel implements ProjectListener {
         formPanel.add(ftpSaveParamsCheckbox);
         formPanel.add(cleanDirBeforeUpload);
 
+        shardedManifestCheckbox = new CheckBoxField("Also publish manifest sharded by application version", false);
+        shardedManifestCheckbox.setHelpText("Generates a small index file plus one manifest file per application "
+                                                    + "version, under the \"manifest\" directory.");
+        shardedManifestCheckbox.addValueChangedListener(field -> shardedManifestChanged());
+        formPanel.add(shardedManifestCheckbox);
+
+        checksumManifestCheckbox = new CheckBoxField("Publish a signed checksum manifest", false);
+        checksumManifestCheckbox.setHelpText("Generates checksums.json with the SHA-256 of every published file, "
+                                                     + "and signs just that one file, so jars needn't be signed.");
+        checksumManifestCheckbox.addValueChangedListener(field -> checksumManifestChanged());
+        formPanel.add(checksumManifestCheckbox);
+
+        deltaPatchesCheckbox = new CheckBoxField("Publish delta patches between extension versions", false);
+        deltaPatchesCheckbox.setHelpText("Generates a verified binary patch from each extension version to the "
+                                                 + "next, listed in patches.json, so upgrades needn't download "
+                                                 + "the whole jar.");
+        deltaPatchesCheckbox.addValueChangedListener(field -> deltaPatchesChanged());
+        formPanel.add(deltaPatchesCheckbox);
+
         PanelField panelField = new PanelField(new FlowLayout(FlowLayout.LEFT));
         JButton button = new JButton("Upload");
         button.setPreferredSize(new Dimension(90, 24));
@@ -136,10 +168,12 @@ public class UploadCard extends JPanel implements ProjectListener {
         Project project = ProjectManager.getInstance().getProject();
         int selectedIndex = sourceCombo.getSelectedIndex();
         if (project == null || selectedIndex == -1) {
+            updateChangesField(null, null);
             return;
         }
 
         UpdateSources.UpdateSource updateSource = project.getUpdateSources().getUpdateSources().get(selectedIndex);
+        updateChangesField(project, updateSource);
         if (updateSource.getBaseUrl().getProtocol().equalsIgnoreCase("file")) {
             setFileUploadControlsVisible(true);
             try {
@@ -166,6 +200,60 @@ public class UploadCard extends JPanel implements ProjectListener {
         formPanel.validateForm(); // revalidate form as visible controls may have changed.
     }
 
+    /**
+     * Starts computing the diff between what was last uploaded to the given UpdateSource and the current
+     * state of the given Project. This has to look at every file in the dist directory, so it's done on
+     * a worker thread, and the summary shows up in our changes field when it's ready.
+     */
+    private void updateChangesField(Project project, UpdateSources.UpdateSource updateSource) {
+        changesField.clearHyperlink();
+        changesCalculator.updateSource = updateSource;
+        if (project == null || updateSource == null) {
+            changesField.setText("N/A");
+            return;
+        }
+        changesField.setText("Checking...");
+        ProjectManager.getInstance().refreshViewModel(changesCalculator);
+    }
+
+    /**
+     * Shows a summary of the given diff in our changes field. Clicking on the summary shows the full changelog.
+     */
+    private void showChanges(UpdateSources.UpdateSource updateSource, ManifestDiff diff) {
+        changesField.setText(diff.hasSnapshot() ? diff.getSummary() : "Never uploaded");
+        changesField.setHyperlink(new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                new PopupTextDialog(MainWindow.getInstance(),
+                                    "Changes since last upload to " + updateSource.getName(),
+                                    diff.toChangelog(),
+                                    true).setVisible(true);
+            }
+        });
+    }
+
+    private void shardedManifestChanged() {
+        Project project = ProjectManager.getInstance().getProject();
+        if (project != null && project.isShardedManifest() != shardedManifestCheckbox.isChecked()) {
+            project.setShardedManifest(shardedManifestCheckbox.isChecked());
+        }
+    }
+
+    private void checksumManifestChanged() {
+        Project project = ProjectManager.getInstance().getProject();
+        if (project != null && project.isChecksumManifest() != checksumManifestCheckbox.isChecked()) {
+            project.setChecksumManifest(checksumManifestCheckbox.isChecked());
+            ProjectManager.getInstance().refreshViewModel(this); // the jar signing check depends on this
+        }
+    }
+
+    private void deltaPatchesChanged() {
+        Project project = ProjectManager.getInstance().getProject();
+        if (project != null && project.isDeltaPatches() != deltaPatchesCheckbox.isChecked()) {
+            project.setDeltaPatches(deltaPatchesCheckbox.isChecked());
+        }
+    }
+
     private void setFileUploadControlsVisible(boolean visible) {
         targetDirField.setVisible(visible);
         cleanDirBeforeUpload.setCheckBoxText("Clean target directory before copying");
@@ -210,6 +298,7 @@ public class UploadCard extends JPanel implements ProjectListener {
             File targetDir = new File(targetDirField.getText());
             if (isTargetDirValid(targetDir)) {
                 FileSystemUploadThread worker = new FileSystemUploadThread(project,
+                                                                           updateSource,
                                                                            targetDir,
                                                                            cleanDirBeforeUpload.isChecked());
                 worker.addProgressListener(new UploadProgressListener());
@@ -305,44 +394,34 @@ public class UploadCard extends JPanel implements ProjectListener {
         }
     }
 
-    private void validateForm(Project project) {
-        if (project == null) {
-            setAllValidation("No project loaded.");
-            formPanel.validateForm();
-            return;
-        }
-
-        setAllValidation(null);
-
+    /**
+     * Checks the given project for anything that would prevent a successful upload. This involves scanning
+     * the dist directory, so it's invoked on a worker thread, and must not touch any of our form fields.
+     */
+    private static ValidationMessages computeValidation(Project project) {
+        ValidationMessages messages = new ValidationMessages();
         if (project.getPrivateKey() == null || project.getPublicKey() == null) {
-            keyPairValidator.setMessage("Project has no key pair - unable to sign.");
+            messages.keyPair = "Project has no key pair - unable to sign.";
         }
         if (project.getUpdateSources() == null || project.getUpdateSources().getUpdateSources().isEmpty()) {
-            updateSourceValidator.setMessage("Project has no update source defined.");
+            messages.updateSource = "Project has no update source defined.";
         }
         List<File> jarFiles = ProjectManager.getInstance().findAllJars(project);
         if (jarFiles.isEmpty()) {
-            jarsPresentValidator.setMessage("Project contains no extension jars.");
+            messages.jarsPresent = "Project contains no extension jars.";
         }
         List<File> sigFiles = ProjectManager.getInstance().findAllSignatures(project);
+        if (project.isChecksumManifest()) {
+            // Individual jar signatures are optional when the checksum manifest is signed instead.
+            return messages;
+        }
         if (sigFiles.isEmpty()) {
-            jarsSignedValidator.setMessage("No jar signatures detected.");
+            messages.jarsSigned = "No jar signatures detected.";
         }
         else if (sigFiles.size() != jarFiles.size()) {
-            jarsSignedValidator.setMessage(
-                    "Only " + sigFiles.size() + " jars of " + jarFiles.size() + " have been signed.");
-        }
-        else {
-            jarsSignedValidator.setMessage(null);
+            messages.jarsSigned = "Only " + sigFiles.size() + " jars of " + jarFiles.size() + " have been signed.";
         }
-        formPanel.validateForm();
-    }
-
-    private void setAllValidation(String message) {
-        keyPairValidator.setMessage(message);
-        updateSourceValidator.setMessage(message);
-        jarsPresentValidator.setMessage(message);
-        jarsSignedValidator.setMessage(message);
+        return messages;
     }
 
     /**
@@ -359,7 +438,9 @@ public class UploadCard extends JPanel implements ProjectListener {
     @Override
     public void projectLoaded(Project project) {
         populateSourceFromProject(project);
-        validateForm(project);
+        shardedManifestCheckbox.setChecked(project.isShardedManifest());
+        checksumManifestCheckbox.setChecked(project.isChecksumManifest());
+        deltaPatchesCheckbox.setChecked(project.isDeltaPatches());
     }
 
     /**
@@ -368,7 +449,30 @@ public class UploadCard extends JPanel implements ProjectListener {
     @Override
     public void projectSaved(Project project) {
         populateSourceFromProject(project);
-        validateForm(project);
+    }
+
+    /**
+     * Invoked on a worker thread after a project is loaded or saved, to check it for upload readiness.
+     */
+    @Override
+    public ValidationMessages computeViewModel(Project project) {
+        return computeValidation(project);
+    }
+
+    /**
+     * Invoked on the EDT with the results of computeViewModel.
+     */
+    @Override
+    public void applyViewModel(Project project, ValidationMessages messages) {
+        // Drop the result if the project has changed since it was requested:
+        if (project != ProjectManager.getInstance().getProject()) {
+            return;
+        }
+        keyPairValidator.setMessage(messages.keyPair);
+        updateSourceValidator.setMessage(messages.updateSource);
+        jarsPresentValidator.setMessage(messages.jarsPresent);
+        jarsSignedValidator.setMessage(messages.jarsSigned);
+        formPanel.validateForm();
     }
 
     /**
@@ -380,6 +484,75 @@ public class UploadCard extends JPanel implements ProjectListener {
         populateSourceFromProject(null);
     }
 
+    /**
+     * The validation messages computed for a project, one per check. A null message means that check passed.
+     */
+    static class ValidationMessages {
+        private String keyPair;
+        private String updateSource;
+        private String jarsPresent;
+        private String jarsSigned;
+    }
+
+    /**
+     * Computes the ManifestDiff for the selected UpdateSource in the background, through the same
+     * dispatcher as our other upload checks, so that a newer selection supersedes an older one.
+     * It isn't registered as a project listener; updateChangesField asks for each refresh.
+     */
+    private class ChangesCalculator implements AsyncProjectListener<ChangesCalculator.Changes> {
+
+        /**
+         * The UpdateSource whose changes we should show. Only modified on the EDT.
+         */
+        private volatile UpdateSources.UpdateSource updateSource;
+
+        @Override
+        public Changes computeViewModel(Project project) {
+            UpdateSources.UpdateSource source = updateSource;
+            return source == null ? null : new Changes(source, project.computeManifestDiff(source));
+        }
+
+        @Override
+        public void applyViewModel(Project project, Changes changes) {
+            // Drop the result if the selection or project has changed since it was requested:
+            if (changes != null
+                    && changes.updateSource == updateSource
+                    && project == ProjectManager.getInstance().getProject()) {
+                showChanges(changes.updateSource, changes.diff);
+            }
+        }
+
+        @Override
+        public void projectWillLoad(Project project) {
+            // Not registered as a listener, so this is never invoked.
+        }
+
+        @Override
+        public void projectLoaded(Project project) {
+            // Not registered as a listener, so this is never invoked.
+        }
+
+        @Override
+        public void projectSaved(Project project) {
+            // Not registered as a listener, so this is never invoked.
+        }
+
+        @Override
+        public void projectClosed(Project project) {
+            // Not registered as a listener, so this is never invoked.
+        }
+
+        private static class Changes {
+            private final UpdateSources.UpdateSource updateSource;
+            private final ManifestDiff diff;
+
+            Changes(UpdateSources.UpdateSource updateSource, ManifestDiff diff) {
+                this.updateSource = updateSource;
+                this.diff = diff;
+            }
+        }
+    }
+
     private static class CheckValidator implements FieldValidator<FormField> {
 
         private String message;
@@ -423,6 +596,7 @@ public class UploadCard extends JPanel implements ProjectListener {
         @Override
         public void progressComplete() {
             getMessageUtil().info("Upload complete!");
+            SwingUtilities.invokeLater(() -> comboValueChanged()); // refresh the changes since last upload
         }
     }
 }
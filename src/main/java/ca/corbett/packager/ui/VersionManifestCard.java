@@ -1,8 +1,12 @@
 package ca.corbett.packager.ui;
 
+import ca.corbett.extensions.AppExtensionInfo;
 import ca.corbett.extras.LookAndFeelManager;
 import ca.corbett.extras.MessageUtil;
+import ca.corbett.extras.PopupTextDialog;
 import ca.corbett.extras.io.FileSystemUtil;
+import ca.corbett.extras.progress.MultiProgressDialog;
+import ca.corbett.extras.progress.SimpleProgressAdapter;
 import ca.corbett.forms.Alignment;
 import ca.corbett.forms.FormPanel;
 import ca.corbett.forms.Margins;
@@ -11,16 +15,16 @@ import ca.corbett.forms.fields.ListField;
 import ca.corbett.forms.fields.PanelField;
 import ca.corbett.forms.fields.ShortTextField;
 import ca.corbett.packager.AppConfig;
+import ca.corbett.packager.io.BundleReader;
+import ca.corbett.packager.project.ExtensionImportThread;
 import ca.corbett.packager.project.Project;
 import ca.corbett.packager.project.ProjectListener;
 import ca.corbett.packager.project.ProjectManager;
 import ca.corbett.packager.ui.dialogs.ExtensionVersionDialog;
 import ca.corbett.updates.VersionManifest;
-import ca.corbett.updates.VersionStringComparator;
 
 import javax.swing.AbstractAction;
 import javax.swing.ActionMap;
-import javax.swing.DefaultListModel;
 import javax.swing.InputMap;
 import javax.swing.JButton;
 import javax.swing.JComponent;
@@ -34,6 +38,7 @@ import javax.swing.JPopupMenu;
 import javax.swing.KeyStroke;
 import javax.swing.ListCellRenderer;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
 import javax.swing.filechooser.FileFilter;
 import java.awt.BorderLayout;
 import java.awt.Color;
@@ -47,11 +52,12 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.File;
 import java.io.IOException;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.logging.Level;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 /**
@@ -65,12 +71,23 @@ import java.util.logging.Logger;
 public class VersionManifestCard extends JPanel implements ProjectListener {
 
     private static final Logger log = Logger.getLogger(VersionManifestCard.class.getName());
+
+    /**
+     * Values used to give our lists a reasonable default cell size without measuring every row.
+     */
+    private static final String PROTOTYPE_NAME = "A reasonably long extension name";
+    private static final String PROTOTYPE_VERSION = "10.10.10";
+
     private MessageUtil messageUtil;
     private final FormPanel formPanel;
     private final ShortTextField appNameField;
     private final ListField<VersionManifest.ApplicationVersion> appVersionListField;
     private final ListField<VersionManifest.Extension> extensionListField;
     private final ListField<VersionManifest.ExtensionVersion> extensionVersionListField;
+    private final ManifestListModel<VersionManifest.ApplicationVersion> appVersionListModel;
+    private final ManifestListModel<VersionManifest.Extension> extensionListModel;
+    private final ManifestListModel<VersionManifest.ExtensionVersion> extensionVersionListModel;
+    private final ManifestSortCache sortCache;
     private boolean autoSave = false;
 
     @SuppressWarnings("unchecked")
@@ -80,8 +97,13 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
         formPanel.setBorderMargin(new Margins(12));
         formPanel.add(LabelField.createBoldHeaderLabel("Version manifest", 20));
 
+        appVersionListModel = new ManifestListModel<>();
+        extensionListModel = new ManifestListModel<>();
+        extensionVersionListModel = new ManifestListModel<>();
+        sortCache = new ManifestSortCache();
+
         appNameField = new ShortTextField("Application name:", 15);
-        appNameField.addValueChangedListener(field -> saveChanges());
+        appNameField.addValueChangedListener(field -> appNameChanged());
         appNameField.setAllowBlank(false);
         formPanel.add(appNameField);
 
@@ -103,7 +125,8 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
     }
 
     /**
-     * Pops a file browser for automatically importing extension jars.
+     * Pops a file browser for automatically importing extension jars, either directly or
+     * from within zip or tar.gz build bundles.
      */
     private void importExtensions() {
         JFileChooser fileChooser = createExtensionFileChooser();
@@ -112,40 +135,60 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
         }
 
         Set<File> extensionJars = new HashSet<>();
+        Set<File> bundles = new HashSet<>();
         for (File file : fileChooser.getSelectedFiles()) {
             if (file.isFile()) {
-                extensionJars.add(file);
+                if (BundleReader.isBundle(file)) {
+                    bundles.add(file);
+                }
+                else {
+                    extensionJars.add(file);
+                }
             }
             else if (file.isDirectory()) {
                 extensionJars.addAll(FileSystemUtil.findFiles(file, true, "jar"));
             }
         }
-        int succeeded = 0;
-        VersionManifest versionManifest = generateVersionManifest();
-        for (File candidateJar : extensionJars) {
-            try {
-                ProjectManager.getInstance().importExtensionJar(versionManifest, candidateJar);
-                succeeded++;
+        final ExtensionImportThread worker = ProjectManager.getInstance()
+                .createExtensionImportThread(ProjectManager.getInstance().getProject(), extensionJars, bundles);
+        worker.addProgressListener(new SimpleProgressAdapter() {
+            @Override
+            public void progressComplete() {
+                SwingUtilities.invokeLater(() -> importComplete(worker));
             }
-            catch (Exception e) {
-                log.log(Level.WARNING, "Problem with jar " + candidateJar.getAbsolutePath() + ": " + e.getMessage(), e);
+
+            @Override
+            public void progressCanceled() {
+                // Whatever was prepared before the cancel is already in the project directory:
+                SwingUtilities.invokeLater(() -> importComplete(worker));
             }
+        });
+        new MultiProgressDialog(MainWindow.getInstance(), "Importing extensions").runWorker(worker, true);
+    }
+
+    /**
+     * Invoked on the EDT when an ExtensionImportThread finishes, to add whatever it imported to
+     * the version manifest and report any jars that couldn't be imported.
+     */
+    private void importComplete(ExtensionImportThread worker) {
+        Project project = worker.getProject();
+        List<VersionManifest.ExtensionVersion> imported = worker.getImported();
+        if (!imported.isEmpty()) {
+            ProjectManager.getInstance().addImportedExtensionVersions(project, imported);
+            populateFields(project);
         }
 
-        if (succeeded != extensionJars.size()) {
-            getMessageUtil().warning("Warning", "Not all jars could be imported. See log for details.");
+        List<String> problems = worker.getProblems();
+        if (!problems.isEmpty()) {
+            String text = "Imported " + imported.size() + " extension jar(s). The following could not be imported:\n\n"
+                    + String.join("\n", problems);
+            new PopupTextDialog(MainWindow.getInstance(), "Import problems", text, true).setVisible(true);
         }
-        if (succeeded > 0) {
-            getMessageUtil().info("Successfully imported " + succeeded + " extension jars.");
-            populateFields(versionManifest);
+        else if (!imported.isEmpty()) {
+            getMessageUtil().info("Successfully imported " + imported.size() + " extension jars.");
         }
     }
 
-    private void addApplicationVersion(VersionManifest.ApplicationVersion version) {
-        DefaultListModel<VersionManifest.ApplicationVersion> listModel = (DefaultListModel<VersionManifest.ApplicationVersion>)appVersionListField.getListModel();
-        listModel.addElement(version);
-    }
-
     /**
      * Deletes the currently selected application version.
      */
@@ -163,8 +206,10 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
             return;
         }
 
-        VersionManifest.ApplicationVersion appVersion = appVersionListField.getListModel().getElementAt(selectedIndex);
-        appVersionListField.getListModel().removeElementAt(selectedIndex);
+        // Take it out of the manifest first, so that nothing else can reach it while its files are removed:
+        Project project = ProjectManager.getInstance().getProject();
+        VersionManifest.ApplicationVersion appVersion = appVersionListModel.getElementAt(selectedIndex);
+        project.updateManifest(manifest -> manifest.removeApplicationVersion(appVersion));
         try {
             ProjectManager.getInstance().removeApplicationVersion(appVersion); // file cleanup
         }
@@ -173,7 +218,8 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
                                    "Not all files associated with this version could be removed: "
                                            + ioe.getMessage(), ioe);
         }
-        populateFields(generateVersionManifest());
+        saveChanges();
+        populateFields(project);
     }
 
     /**
@@ -195,9 +241,12 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
             return;
         }
 
-        DefaultListModel<VersionManifest.Extension> listModel = (DefaultListModel<VersionManifest.Extension>)extensionListField.getListModel();
-        VersionManifest.Extension extension = listModel.getElementAt(selectedExtensionIndex);
-        listModel.removeElementAt(selectedExtensionIndex);
+        // Take it out of the manifest first, so that nothing else can reach it while its files are removed:
+        Project project = ProjectManager.getInstance().getProject();
+        VersionManifest.ApplicationVersion appVersion = appVersionListModel.getElementAt(
+                selectedApplicationVersionIndex);
+        VersionManifest.Extension extension = extensionListModel.getElementAt(selectedExtensionIndex);
+        project.updateManifest(manifest -> appVersion.removeExtension(extension));
         try {
             ProjectManager.getInstance().removeExtension(extension); // file cleanup
         }
@@ -206,15 +255,8 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
                                    "Not all files associated with this extension could be removed: "
                                            + ioe.getMessage(), ioe);
         }
-
-        // Also remove it from the selected ApplicationVersion / Extension
-        DefaultListModel<VersionManifest.ApplicationVersion> appVersionListModel =
-                (DefaultListModel<VersionManifest.ApplicationVersion>)appVersionListField.getListModel();
-        VersionManifest.ApplicationVersion appVersion = appVersionListModel.getElementAt(
-                selectedApplicationVersionIndex);
-        appVersion.removeExtension(extension);
-
-        populateFields(generateVersionManifest());
+        saveChanges();
+        populateFields(project);
     }
 
     /**
@@ -238,10 +280,12 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
             return;
         }
 
-        DefaultListModel<VersionManifest.ExtensionVersion> listModel =
-                (DefaultListModel<VersionManifest.ExtensionVersion>)extensionVersionListField.getListModel();
-        VersionManifest.ExtensionVersion extensionVersion = listModel.getElementAt(selectedExtensionVersionIndex);
-        listModel.removeElementAt(selectedExtensionVersionIndex);
+        // Take it out of the manifest first, so that nothing else can reach it while its files are removed:
+        Project project = ProjectManager.getInstance().getProject();
+        VersionManifest.Extension extension = extensionListModel.getElementAt(selectedExtensionIndex);
+        VersionManifest.ExtensionVersion extensionVersion = extensionVersionListModel.getElementAt(
+                selectedExtensionVersionIndex);
+        project.updateManifest(manifest -> extension.removeVersion(extensionVersion));
         try {
             ProjectManager.getInstance().removeExtensionVersion(extensionVersion); // file cleanup
         }
@@ -250,15 +294,8 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
                                    "Not all files associated with this extension version could be removed: "
                                            + ioe.getMessage(), ioe);
         }
-
-        // Also remove it from the selected ApplicationVersion / Extension
-        DefaultListModel<VersionManifest.ApplicationVersion> appVersionListModel =
-                (DefaultListModel<VersionManifest.ApplicationVersion>)appVersionListField.getListModel();
-        VersionManifest.ApplicationVersion appVersion = appVersionListModel.getElementAt(
-                selectedApplicationVersionIndex);
-        appVersion.getExtensions().get(selectedExtensionIndex).removeVersion(extensionVersion);
-
-        populateFields(generateVersionManifest());
+        saveChanges();
+        populateFields(project);
     }
 
     private int getSelectedApplicationVersionIndex() {
@@ -277,21 +314,30 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
     }
 
     /**
-     * Given the current state of our UI fields, generate and return a VersionManifest.
+     * Invoked when the application name field changes. The manifest is only updated and saved if the
+     * name is valid and actually differs from what's already there, so that populating the field
+     * doesn't write anything back.
      */
-    private VersionManifest generateVersionManifest() {
-        VersionManifest manifest = new VersionManifest();
-        manifest.setApplicationName(appNameField.getText());
-        DefaultListModel<VersionManifest.ApplicationVersion> listModel = (DefaultListModel<VersionManifest.ApplicationVersion>)appVersionListField.getListModel();
-        for (int i = 0; i < listModel.size(); i++) {
-            manifest.addApplicationVersion(listModel.getElementAt(i));
+    private void appNameChanged() {
+        if (!autoSave || !formPanel.isFormValid()) {
+            return;
         }
-        //manifest.setManifestGenerated(); // Don't set this here... it will get set when uploading.
-        return manifest;
+        Project project = ProjectManager.getInstance().getProject();
+        if (project == null) {
+            return;
+        }
+        String appName = appNameField.getText();
+        if (appName.equals(project.readManifest(manifest -> manifest == null ? null : manifest.getApplicationName()))) {
+            return;
+        }
+        saveChanges();
     }
 
     /**
-     * Invoked internally to commit changes to the version manifest.
+     * Invoked internally to commit changes to the version manifest. Changes to the manifest itself
+     * are made in place, under the manifest lock, as they happen, so all that's left to copy over
+     * from our UI fields here is the application name. This is only called after something has
+     * actually been changed; nothing is saved just because the project was loaded or saved.
      */
     private void saveChanges() {
         if (!autoSave) {
@@ -301,7 +347,12 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
             return;
         }
 
-        ProjectManager.getInstance().getProject().setVersionManifest(generateVersionManifest());
+        Project project = ProjectManager.getInstance().getProject();
+        if (project == null) {
+            return;
+        }
+        String appName = appNameField.getText();
+        project.updateManifest(manifest -> manifest.setApplicationName(appName));
         ProjectManager.getInstance().removeProjectListener(this);
         try {
             ProjectManager.getInstance().save();
@@ -314,37 +365,44 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
         }
     }
 
-    private void populateFields(VersionManifest versionManifest) {
-        autoSave = false; // wait until we're fully populated before saving
+    /**
+     * Shows the version manifest of the given project, or clears our fields if the given project is null.
+     * The application versions are copied out of the manifest under its read lock. Nothing is saved here,
+     * since this is invoked whenever the project is loaded or saved.
+     */
+    private void populateFields(Project project) {
+        autoSave = false; // don't treat our own field updates as edits
 
         try {
             // Blank out our current values:
             appNameField.setText("");
-            appVersionListField.getListModel().clear();
-            extensionListField.getListModel().clear();
-            extensionVersionListField.getListModel().clear();
+            appVersionListModel.clear();
+            extensionListModel.clear();
+            extensionVersionListModel.clear();
+            sortCache.reset(project);
 
-            // If we have no manifest, we're done:
-            if (versionManifest == null) {
+            // If we have no project, we're done:
+            if (project == null) {
                 return;
             }
 
-            // Populate based on given manifest:
-            List<VersionManifest.ApplicationVersion> sortedList = versionManifest
-                    .getApplicationVersions()
-                    .stream()
-                    .sorted(Comparator.comparing(VersionManifest.ApplicationVersion::getVersion))
-                    .toList();
-            for (VersionManifest.ApplicationVersion version : sortedList) {
-                addApplicationVersion(version);
-            }
+            // Populate based on its manifest:
+            List<VersionManifest.ApplicationVersion> sortedList = new ArrayList<>();
+            String appName = project.readManifest(manifest -> {
+                if (manifest == null) {
+                    return "";
+                }
+                sortedList.addAll(manifest.getApplicationVersions());
+                return manifest.getApplicationName();
+            });
+            sortedList.sort(sortCache.getManifestIndex().applicationVersionOrder());
+            appVersionListModel.setItems(Collections.unmodifiableList(sortedList));
 
             // Now we can set a more intelligent default value for application name:
-            appNameField.setText(versionManifest.getApplicationName());
+            appNameField.setText(appName);
         }
         finally {
             autoSave = true;
-            saveChanges(); // save once after we're populated
         }
     }
 
@@ -362,7 +420,7 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
      */
     @Override
     public void projectLoaded(Project project) {
-        populateFields(project.getVersionManifest());
+        populateFields(project);
     }
 
     /**
@@ -371,7 +429,7 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
      */
     @Override
     public void projectSaved(Project project) {
-        populateFields(project.getVersionManifest());
+        populateFields(project);
     }
 
     /**
@@ -385,67 +443,34 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
     /**
      * Will populate the subordinate list boxes based on whatever is selected in the app version list box.
      * Will clear the subordinate list boxes if no app version is selected.
+     * The extension list is sorted only the first time it is shown, so this is cheap to call repeatedly.
      */
     private void appVersionSelectionChanged() {
-        DefaultListModel<VersionManifest.ExtensionVersion> extensionVersionListModel =
-                (DefaultListModel<VersionManifest.ExtensionVersion>)extensionVersionListField.getListModel();
         extensionVersionListModel.clear();
 
-        DefaultListModel<VersionManifest.Extension> extensionListModel =
-                (DefaultListModel<VersionManifest.Extension>)extensionListField.getListModel();
-        extensionListModel.clear();
-
         int[] selectedIndexes = appVersionListField.getSelectedIndexes();
         if (selectedIndexes.length == 0) {
+            extensionListModel.clear();
             return;
         }
 
-        DefaultListModel<VersionManifest.ApplicationVersion> appVersionListModel =
-                (DefaultListModel<VersionManifest.ApplicationVersion>)appVersionListField.getListModel();
         VersionManifest.ApplicationVersion appVersion = appVersionListModel.getElementAt(selectedIndexes[0]);
-        List<VersionManifest.Extension> extensions = appVersion.getExtensions();
-        extensions.sort(new Comparator<VersionManifest.Extension>() {
-            @Override
-            public int compare(VersionManifest.Extension o1, VersionManifest.Extension o2) {
-                if (o1.getName() == null || o2.getName() == null) {
-                    return 0;
-                }
-                return o1.getName().compareTo(o2.getName());
-            }
-        });
-        for (VersionManifest.Extension extension : extensions) {
-            extensionListModel.addElement(extension);
-        }
+        extensionListModel.setItems(sortCache.getSortedExtensions(appVersion));
     }
 
+    /**
+     * Will populate the extension version list box based on whatever is selected in the extension list box.
+     * The version list is sorted only the first time it is shown, so this is cheap to call repeatedly.
+     */
     private void extensionSelectionChanged() {
-        DefaultListModel<VersionManifest.ExtensionVersion> extensionVersionListModel =
-                (DefaultListModel<VersionManifest.ExtensionVersion>)extensionVersionListField.getListModel();
-        extensionVersionListModel.clear();
-
         int[] selectedIndexes = extensionListField.getSelectedIndexes();
         if (selectedIndexes.length == 0) {
+            extensionVersionListModel.clear();
             return;
         }
 
-        DefaultListModel<VersionManifest.Extension> extensionListModel =
-                (DefaultListModel<VersionManifest.Extension>)extensionListField.getListModel();
         VersionManifest.Extension extension = extensionListModel.getElementAt(selectedIndexes[0]);
-        List<VersionManifest.ExtensionVersion> extensionVersions = extension.getVersions();
-        extensionVersions.sort(new Comparator<VersionManifest.ExtensionVersion>() {
-            @Override
-            public int compare(VersionManifest.ExtensionVersion o1, VersionManifest.ExtensionVersion o2) {
-                if (o1 == null || o2 == null || o1.getExtInfo() == null || o2.getExtInfo() == null) {
-                    return 0;
-                }
-                String v1 = VersionStringComparator.convertVersionToSafeCompareString(o1.getExtInfo().getVersion());
-                String v2 = VersionStringComparator.convertVersionToSafeCompareString(o2.getExtInfo().getVersion());
-                return v1.compareTo(v2);
-            }
-        });
-        for (VersionManifest.ExtensionVersion extensionVersion : extensionVersions) {
-            extensionVersionListModel.addElement(extensionVersion);
-        }
+        extensionVersionListModel.setItems(sortCache.getSortedVersions(extension));
     }
 
     private void editSelectedExtensionVersion() {
@@ -455,13 +480,12 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
             return;
         }
 
-        DefaultListModel<VersionManifest.ExtensionVersion> extensionVersionListModel =
-                (DefaultListModel<VersionManifest.ExtensionVersion>)extensionVersionListField.getListModel();
         VersionManifest.ExtensionVersion extensionVersion = extensionVersionListModel.getElementAt(selectedIndexes[0]);
         ExtensionVersionDialog dialog = new ExtensionVersionDialog(extensionVersion);
         dialog.setVisible(true);
         if (dialog.wasOkayed()) {
             saveChanges();
+            extensionVersionListField.getList().repaint();
         }
     }
 
@@ -476,6 +500,9 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
         listField.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         listField.setShouldExpand(true);
         listField.setCellRenderer(new AppVersionListCellRenderer());
+        VersionManifest.ApplicationVersion prototype = new VersionManifest.ApplicationVersion();
+        prototype.setVersion(PROTOTYPE_VERSION);
+        useVirtualListModel(listField, appVersionListModel, prototype);
         listField.addValueChangedListener(field -> appVersionSelectionChanged());
 
         addDeleteKeyboardHandler(listField, new AbstractAction() {
@@ -514,6 +541,9 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
         listField.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         listField.setShouldExpand(true);
         listField.setCellRenderer(new ExtensionListCellRenderer());
+        VersionManifest.Extension prototype = new VersionManifest.Extension();
+        prototype.setName(PROTOTYPE_NAME);
+        useVirtualListModel(listField, extensionListModel, prototype);
         listField.addValueChangedListener(field -> extensionSelectionChanged());
 
         addDeleteKeyboardHandler(listField, new AbstractAction() {
@@ -552,6 +582,9 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
         listField.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         listField.setShouldExpand(true);
         listField.setCellRenderer(new ExtensionVersionListCellRenderer());
+        VersionManifest.ExtensionVersion prototype = new VersionManifest.ExtensionVersion();
+        prototype.setExtInfo(new AppExtensionInfo.Builder(PROTOTYPE_NAME).setVersion(PROTOTYPE_VERSION).build());
+        useVirtualListModel(listField, extensionVersionListModel, prototype);
 
         listField.getList().addMouseListener(new MouseAdapter() {
             @Override
@@ -605,6 +638,16 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
         return messageUtil;
     }
 
+    /**
+     * Replaces the default list model of the given ListField with the given ManifestListModel,
+     * and gives the list a prototype cell value so that JList can size its cells without
+     * rendering every row in the list. This keeps large manifests responsive.
+     */
+    private static <T> void useVirtualListModel(ListField<T> listField, ManifestListModel<T> model, T prototype) {
+        listField.getList().setModel(model);
+        listField.getList().setPrototypeCellValue(prototype);
+    }
+
     private static void addDeleteKeyboardHandler(ListField<?> listField, AbstractAction action) {
         // Allow delete key to delete selected item:
         InputMap inputMap = listField.getList().getInputMap(JComponent.WHEN_FOCUSED);
@@ -646,6 +689,15 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
         });
     }
 
+    /**
+     * Invokes the given reader while holding the current project's manifest read lock, since the
+     * manifest nodes in our lists can be modified by background imports while we're painting them.
+     */
+    private static String readNode(Supplier<String> reader) {
+        Project project = ProjectManager.getInstance().getProject();
+        return project == null ? reader.get() : project.readManifest(manifest -> reader.get());
+    }
+
     /**
      * A custom list cell renderer for displaying ApplicationVersion instances in a user-friendly way.
      *
@@ -656,7 +708,7 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
 
         @Override
         public Component getListCellRendererComponent(JList<? extends VersionManifest.ApplicationVersion> list, VersionManifest.ApplicationVersion value, int index, boolean isSelected, boolean cellHasFocus) {
-            setText(value.getVersion() + " (" + value.getExtensions().size() + " extensions)");
+            setText(readNode(() -> value.getVersion() + " (" + value.getExtensions().size() + " extensions)"));
             setOpaque(true);
             Color selectedFg = LookAndFeelManager.getLafColor("List.selectionForeground", Color.WHITE);
             Color selectedBg = LookAndFeelManager.getLafColor("List.selectionBackground", Color.BLUE);
@@ -678,7 +730,7 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
 
         @Override
         public Component getListCellRendererComponent(JList<? extends VersionManifest.Extension> list, VersionManifest.Extension value, int index, boolean isSelected, boolean cellHasFocus) {
-            setText(value.getName() + " (" + value.getVersions().size() + " versions)");
+            setText(readNode(() -> value.getName() + " (" + value.getVersions().size() + " versions)"));
             setOpaque(true);
             Color selectedFg = LookAndFeelManager.getLafColor("List.selectionForeground", Color.WHITE);
             Color selectedBg = LookAndFeelManager.getLafColor("List.selectionBackground", Color.BLUE);
@@ -698,7 +750,8 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
 
         @Override
         public Component getListCellRendererComponent(JList<? extends VersionManifest.ExtensionVersion> list, VersionManifest.ExtensionVersion value, int index, boolean isSelected, boolean cellHasFocus) {
-            setText(value.getExtInfo().getVersion() + " (" + value.getScreenshots().size() + " screenshots)");
+            setText(readNode(() -> value.getExtInfo().getVersion()
+                    + " (" + value.getScreenshots().size() + " screenshots)"));
             setOpaque(true);
             Color selectedFg = LookAndFeelManager.getLafColor("List.selectionForeground", Color.WHITE);
             Color selectedBg = LookAndFeelManager.getLafColor("List.selectionBackground", Color.BLUE);
@@ -711,7 +764,7 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
     }
 
     /**
-     * Creates and returns a JFileChooser suitable for choosing jars or directories of jars.
+     * Creates and returns a JFileChooser suitable for choosing jars, directories of jars, or bundles of jars.
      */
     private static JFileChooser createExtensionFileChooser() {
         JFileChooser fileChooser = new JFileChooser(AppConfig.getInstance().getProjectBaseDir());
@@ -720,12 +773,12 @@ public class VersionManifestCard extends JPanel implements ProjectListener {
         fileChooser.setFileFilter(new FileFilter() {
             @Override
             public boolean accept(File f) {
-                return f.isDirectory() || f.getName().endsWith(".jar");
+                return f.isDirectory() || f.getName().endsWith(".jar") || BundleReader.isBundle(f);
             }
 
             @Override
             public String getDescription() {
-                return "Jar files (*.jar)";
+                return "Jar files and bundles (*.jar, *.zip, *.tar.gz)";
             }
         });
         return fileChooser;
@@ -0,0 +1,187 @@
+package ca.corbett.packager.ui;
+
+import ca.corbett.extras.MessageUtil;
+import ca.corbett.extras.PopupTextDialog;
+import ca.corbett.extras.progress.MultiProgressDialog;
+import ca.corbett.extras.progress.SimpleProgressAdapter;
+import ca.corbett.forms.Alignment;
+import ca.corbett.forms.FormPanel;
+import ca.corbett.forms.Margins;
+import ca.corbett.forms.fields.LabelField;
+import ca.corbett.forms.fields.ListField;
+import ca.corbett.forms.fields.PanelField;
+import ca.corbett.packager.Version;
+import ca.corbett.packager.io.WorkspaceBatchThread;
+import ca.corbett.packager.project.Workspace;
+
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * This card manages the user's workspace: a list of projects that can be signed or published
+ * all at once, in parallel, without having to open each one in turn. Any project in the
+ * workspace can also be opened as the current project from here.
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public class WorkspaceCard extends JPanel {
+
+    private static final Logger log = Logger.getLogger(WorkspaceCard.class.getName());
+
+    private MessageUtil messageUtil;
+    private final Workspace workspace;
+    private final ListField<File> projectListField;
+
+    public WorkspaceCard() {
+        workspace = new Workspace(Version.WORKSPACE_FILE);
+        try {
+            workspace.load();
+        }
+        catch (IOException ioe) {
+            log.warning("Unable to load workspace: " + ioe.getMessage());
+        }
+
+        setLayout(new BorderLayout());
+        FormPanel formPanel = new FormPanel(Alignment.TOP_LEFT);
+        formPanel.setBorderMargin(new Margins(12));
+        formPanel.add(LabelField.createBoldHeaderLabel("Workspace", 20));
+        formPanel.add(LabelField.createPlainHeaderLabel("Sign or publish several projects at once."));
+
+        projectListField = new ListField<>("Projects:", workspace.getProjectFiles());
+        projectListField.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        projectListField.setShouldExpand(true);
+        formPanel.add(projectListField);
+
+        PanelField buttonPanel = new PanelField(new FlowLayout(FlowLayout.LEFT));
+        buttonPanel.getPanel().add(createButton("Add", e -> addProject()));
+        buttonPanel.getPanel().add(createButton("Remove", e -> removeProject()));
+        buttonPanel.getPanel().add(createButton("Open", e -> openProject()));
+        formPanel.add(buttonPanel);
+
+        buttonPanel = new PanelField(new FlowLayout(FlowLayout.LEFT));
+        buttonPanel.getPanel().add(createButton("Sign all",
+                                                e -> runBatch(WorkspaceBatchThread.Operation.SIGN_MISSING)));
+        buttonPanel.getPanel().add(createButton("Publish all",
+                                                e -> runBatch(WorkspaceBatchThread.Operation.PUBLISH)));
+        formPanel.add(buttonPanel);
+
+        add(formPanel, BorderLayout.CENTER);
+    }
+
+    /**
+     * Prompts for a project file and adds it to the workspace.
+     */
+    private void addProject() {
+        JFileChooser fileChooser = ProjectCard.createProjectFileChooser();
+        if (fileChooser.showOpenDialog(MainWindow.getInstance()) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        if (workspace.addProjectFile(fileChooser.getSelectedFile())) {
+            workspaceChanged();
+        }
+    }
+
+    /**
+     * Removes the selected project from the workspace. The project itself is left alone on disk.
+     */
+    private void removeProject() {
+        File selected = projectListField.getList().getSelectedValue();
+        if (selected == null) {
+            JOptionPane.showMessageDialog(MainWindow.getInstance(), "Nothing selected.");
+            return;
+        }
+        workspace.removeProjectFile(selected);
+        workspaceChanged();
+    }
+
+    /**
+     * Opens the selected project as the current project.
+     */
+    private void openProject() {
+        File selected = projectListField.getList().getSelectedValue();
+        if (selected == null) {
+            JOptionPane.showMessageDialog(MainWindow.getInstance(), "Nothing selected.");
+            return;
+        }
+        MainWindow.getInstance().loadProject(selected, null);
+    }
+
+    /**
+     * Runs the given batch operation across all projects in the workspace, and shows a summary when done.
+     */
+    private void runBatch(WorkspaceBatchThread.Operation operation) {
+        List<File> projectFiles = workspace.getProjectFiles();
+        if (projectFiles.isEmpty()) {
+            getMessageUtil().info("There are no projects in the workspace.");
+            return;
+        }
+        if (operation == WorkspaceBatchThread.Operation.PUBLISH
+                && JOptionPane.showConfirmDialog(MainWindow.getInstance(),
+                                                 "Publish all " + projectFiles.size() + " projects?",
+                                                 "Confirm",
+                                                 JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        final WorkspaceBatchThread worker = new WorkspaceBatchThread(workspace, operation);
+        worker.addProgressListener(new SimpleProgressAdapter() {
+            @Override
+            public boolean progressError(String errorSource, String errorDetails) {
+                SwingUtilities.invokeLater(() -> getMessageUtil().error(errorSource, errorDetails));
+                return false;
+            }
+
+            @Override
+            public void progressComplete() {
+                SwingUtilities.invokeLater(() -> batchComplete(worker));
+            }
+        });
+        new MultiProgressDialog(MainWindow.getInstance(), "Workspace batch").runWorker(worker, true);
+    }
+
+    private void batchComplete(WorkspaceBatchThread worker) {
+        StringBuilder sb = new StringBuilder();
+        for (WorkspaceBatchThread.Result result : worker.getResults()) {
+            sb.append(result).append("\n");
+        }
+        new PopupTextDialog(MainWindow.getInstance(), "Workspace batch results", sb.toString(), true)
+                .setVisible(true);
+    }
+
+    private void workspaceChanged() {
+        projectListField.getListModel().clear();
+        projectListField.getListModel().addAll(workspace.getProjectFiles());
+        try {
+            workspace.save();
+        }
+        catch (IOException ioe) {
+            getMessageUtil().error("Unable to save workspace: " + ioe.getMessage(), ioe);
+        }
+    }
+
+    private static JButton createButton(String label, ActionListener listener) {
+        JButton button = new JButton(label);
+        button.setPreferredSize(new Dimension(100, 24));
+        button.addActionListener(listener);
+        return button;
+    }
+
+    private MessageUtil getMessageUtil() {
+        if (messageUtil == null) {
+            messageUtil = new MessageUtil(MainWindow.getInstance(), log);
+        }
+        return messageUtil;
+    }
+}
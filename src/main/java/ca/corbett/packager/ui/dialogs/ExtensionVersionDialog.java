@@ -2,7 +2,6 @@ package ca.corbett.packager.ui.dialogs;
 
 import ca.corbett.extras.MessageUtil;
 import ca.corbett.extras.PopupTextDialog;
-import ca.corbett.extras.image.ImageUtil;
 import ca.corbett.extras.io.FileSystemUtil;
 import ca.corbett.extras.io.HyperlinkUtil;
 import ca.corbett.extras.properties.PropertiesDialog;
@@ -10,6 +9,8 @@ import ca.corbett.forms.Alignment;
 import ca.corbett.forms.FormPanel;
 import ca.corbett.forms.fields.ImageListField;
 import ca.corbett.forms.fields.LabelField;
+import ca.corbett.forms.fields.PanelField;
+import ca.corbett.packager.project.Project;
 import ca.corbett.packager.project.ProjectManager;
 import ca.corbett.packager.ui.MainWindow;
 import ca.corbett.updates.VersionManifest;
@@ -18,8 +19,10 @@ import javax.swing.AbstractAction;
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
+import javax.swing.JComboBox;
 import javax.swing.JDialog;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
@@ -27,6 +30,11 @@ import java.awt.event.ActionEvent;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -35,6 +43,21 @@ import java.util.logging.Logger;
  * <p>
  * Can add or remove screenshots here, but all other details are read-only on this dialog.
  * </p>
+ * <p>
+ * Screenshots are shown as thumbnails from the project's ThumbnailCache, and are loaded
+ * on a background thread after the dialog is shown, so that opening the dialog doesn't
+ * have to wait for every full-resolution image to be decoded.
+ * </p>
+ * <p>
+ * Full-resolution screenshots are only decoded when the user asks to view one, in a
+ * ScreenshotViewerDialog.
+ * </p>
+ * <p>
+ * Each thumbnail remembers which screenshot it came from, so when the list is modified,
+ * only newly added images are written out and only removed ones are deleted. Unchanged
+ * screenshot files are left alone, byte for byte. Screenshots that couldn't be loaded never
+ * appear in the list, so they can't be removed here, and they are always kept.
+ * </p>
  *
  * @author <a href="https://github.com/scorbo2">scorbo2</a>
  */
@@ -43,15 +66,22 @@ public class ExtensionVersionDialog extends JDialog {
     private static final Logger log = Logger.getLogger(ExtensionVersionDialog.class.getName());
     private MessageUtil messageUtil;
     private boolean wasOkayed;
+    private final Project project;
     private final VersionManifest.ExtensionVersion extensionVersion;
     private boolean screenshotsModified = false;
     private ImageListField screenshotsField;
+    private LabelField screenshotsLoadingField;
+    private final Map<Object, String> thumbnailPaths = new IdentityHashMap<>();
+    private final List<String> unloadedPaths = new ArrayList<>();
+    private boolean addingThumbnail = false;
+    private volatile boolean isClosed = false;
 
     public ExtensionVersionDialog(VersionManifest.ExtensionVersion version) {
         super(MainWindow.getInstance(), "Extension version: "
                 +version.getExtInfo().getName()
                 + " "
                 + version.getExtInfo().getVersion(), true);
+        this.project = ProjectManager.getInstance().getProject();
         this.extensionVersion = version;
         setSize(new Dimension(new Dimension(575, 510)));
         setMinimumSize(new Dimension(400, 400));
@@ -62,6 +92,7 @@ public class ExtensionVersionDialog extends JDialog {
         add(buildButtonPanel(), BorderLayout.SOUTH);
         setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
         wasOkayed = false;
+        loadScreenshots();
     }
 
     public boolean wasOkayed() {
@@ -98,7 +129,7 @@ public class ExtensionVersionDialog extends JDialog {
         addHyperlinkField(formPanel, "Release notes:", extensionVersion.getExtInfo().getReleaseNotes());
 
         formPanel.add(new LabelField("Download jar:", extensionVersion.getDownloadPath()));
-        String signaturePath = extensionVersion.getSignaturePath();
+        String signaturePath = project.readManifest(manifest -> extensionVersion.getSignaturePath());
         if (signaturePath != null && !signaturePath.isBlank()) {
             File signatureFile = ProjectManager.getInstance().getProjectFileFromPath(signaturePath);
             LabelField labelField = new LabelField("Signature:", signaturePath);
@@ -125,27 +156,115 @@ public class ExtensionVersionDialog extends JDialog {
             formPanel.add(labelField);
         }
 
+        screenshotsLoadingField = new LabelField("Screenshots:", "Loading...");
+        screenshotsLoadingField.setVisible(false);
+        formPanel.add(screenshotsLoadingField);
+
         screenshotsField = new ImageListField("Screenshots:", 1);
         screenshotsField.setShouldExpand(true);
         screenshotsField.getImageListPanel().setOwnerWindow(this);
-        for (String screenshotPath : extensionVersion.getScreenshots()) {
-            try {
-                File screenshotFile = ProjectManager.getInstance().getProjectFileFromPath(screenshotPath);
-                if (screenshotFile == null) {
-                    throw new IOException("Screenshot file not found.");
-                }
-                screenshotsField.addImage(ImageUtil.loadImage(screenshotFile));
-            }
-            catch (IOException ioe) {
-                getMessageUtil().error("Error loading screenshot "+screenshotPath+": "+ioe.getMessage(), ioe);
+        screenshotsField.addValueChangedListener(field -> {
+            if (!addingThumbnail) {
+                screenshotsModified = true;
             }
-        }
-        screenshotsField.addValueChangedListener(field -> screenshotsModified = true);
+        });
         formPanel.add(screenshotsField);
+        addFullSizeField(formPanel);
 
     	return formPanel;
     }
 
+    /**
+     * Kicks off a background thread to load thumbnails for all screenshots in our ExtensionVersion.
+     * Thumbnails are added to the screenshots field as they become available. The field is disabled
+     * until loading is complete, so that the list can't be modified while it's still incomplete.
+     */
+    private void loadScreenshots() {
+        List<String> screenshotPaths = project.readManifest(
+                manifest -> new ArrayList<>(extensionVersion.getScreenshots()));
+        if (screenshotPaths.isEmpty()) {
+            return;
+        }
+
+        screenshotsField.setEnabled(false);
+        screenshotsLoadingField.setText("Loading " + screenshotPaths.size() + " screenshot(s)...");
+        screenshotsLoadingField.setVisible(true);
+        Thread thread = new Thread(() -> {
+            for (String screenshotPath : screenshotPaths) {
+                if (isClosed) {
+                    return;
+                }
+                try {
+                    File screenshotFile = ProjectManager.getInstance().getProjectFileFromPath(screenshotPath);
+                    if (screenshotFile == null || !screenshotFile.exists()) {
+                        throw new IOException("Screenshot file not found.");
+                    }
+                    BufferedImage thumbnail = project.getThumbnailCache().getThumbnail(screenshotFile);
+                    SwingUtilities.invokeLater(() -> addThumbnail(thumbnail, screenshotPath));
+                }
+                catch (IOException ioe) {
+                    log.log(Level.SEVERE, "Error loading screenshot " + screenshotPath
+                            + ": " + ioe.getMessage(), ioe);
+                    SwingUtilities.invokeLater(() -> unloadedPaths.add(screenshotPath));
+                }
+            }
+            SwingUtilities.invokeLater(() -> {
+                screenshotsLoadingField.setVisible(false);
+                screenshotsField.setEnabled(true);
+            });
+        }, "ScreenshotLoader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Invoked on the EDT to add a loaded thumbnail to our screenshots field.
+     * We remember which screenshot each thumbnail came from, so that it can be kept as-is when saving.
+     */
+    private void addThumbnail(BufferedImage thumbnail, String screenshotPath) {
+        if (isClosed) {
+            return;
+        }
+        thumbnailPaths.put(thumbnail, screenshotPath);
+        addingThumbnail = true;
+        try {
+            screenshotsField.addImage(thumbnail);
+        }
+        finally {
+            addingThumbnail = false;
+        }
+    }
+
+    /**
+     * Adds a way to view any of our existing screenshots at full resolution, since the screenshots
+     * field only ever holds thumbnails of them. The full-resolution image is decoded on demand,
+     * off the EDT, by the ScreenshotViewerDialog.
+     */
+    private void addFullSizeField(FormPanel formPanel) {
+        List<String> screenshotPaths = project.readManifest(
+                manifest -> new ArrayList<>(extensionVersion.getScreenshots()));
+        if (screenshotPaths.isEmpty()) {
+            return;
+        }
+        JComboBox<String> screenshotCombo = new JComboBox<>();
+        for (String screenshotPath : screenshotPaths) {
+            screenshotCombo.addItem(screenshotPath.substring(screenshotPath.lastIndexOf('/') + 1));
+        }
+        JButton viewButton = new JButton("View full size");
+        viewButton.addActionListener(e -> {
+            int index = screenshotCombo.getSelectedIndex();
+            if (index >= 0) {
+                File screenshotFile = ProjectManager.getInstance().getProjectFileFromPath(screenshotPaths.get(index));
+                ScreenshotViewerDialog.showFile(this, screenshotFile);
+            }
+        });
+
+        PanelField panelField = new PanelField(new FlowLayout(FlowLayout.LEFT));
+        panelField.getPanel().add(screenshotCombo);
+        panelField.getPanel().add(viewButton);
+        formPanel.add(panelField);
+    }
+
     private void addHyperlinkField(FormPanel formPanel, String label, String text) {
         if (text == null || text.isBlank()) {
             return;
@@ -168,30 +287,45 @@ public class ExtensionVersionDialog extends JDialog {
 //    		return;
 //    	}
 
-        // If any screenshot was added or removed, nuke the entire existing list and rebuild it
-        // from our ImageListField. This is not terribly surgical but there's currently no way of knowing
-        // which images map to which existing file(s) after a modification is made, so...
+        // If any screenshot was added or removed, work out which is which. Thumbnails of existing
+        // screenshots map back to their original files, which are kept untouched. Anything else is
+        // new and gets written out. Any original that is no longer in the list gets deleted, except
+        // for those that failed to load - the user never saw them, so they can't have removed them.
+        isClosed = true;
         if (screenshotsModified) {
             try {
-                ProjectManager.getInstance().removeAllScreenshots(extensionVersion);
-                extensionVersion.clearScreenshots();
-                String basename = ProjectManager.getBasename(extensionVersion.getDownloadPath());
+                ProjectManager projectManager = ProjectManager.getInstance();
+                List<String> originalPaths = project.readManifest(
+                        manifest -> new ArrayList<>(extensionVersion.getScreenshots()));
+                List<String> newPaths = new ArrayList<>(unloadedPaths);
                 for (int i = 0; i < screenshotsField.getImageCount(); i++) {
-                    File screenshotFile = ProjectManager.getInstance()
-                                                        .computeExtensionFile(
-                                                                extensionVersion,
-                                                                basename + "_screenshot" + (i + 1) + ".jpg");
                     Object rawImage = screenshotsField.getImageListPanel().getImageAt(i);
-                    if (rawImage instanceof ImageIcon) {
-                        log.warning("Animated GIF screenshots are not supported - skipping.");
-                        continue;
+                    String path = thumbnailPaths.get(rawImage);
+                    if (path == null) {
+                        if (rawImage instanceof ImageIcon) {
+                            log.warning("Animated GIF screenshots are not supported - skipping.");
+                            continue;
+                        }
+                        File screenshotFile = projectManager.writeScreenshot(extensionVersion,
+                                                                             (BufferedImage)rawImage);
+                        path = projectManager.computeExtensionPath(extensionVersion, screenshotFile.getName());
+                    }
+                    if (!newPaths.contains(path)) {
+                        newPaths.add(path);
                     }
-                    ImageUtil.saveImage((BufferedImage)rawImage, screenshotFile);
-                    extensionVersion.addScreenshot("extensions/"
-                                                           + extensionVersion.getExtInfo().getTargetAppVersion()
-                                                           + "/"
-                                                           + screenshotFile.getName());
                 }
+
+                for (String path : originalPaths) {
+                    if (!newPaths.contains(path)) {
+                        projectManager.removeScreenshot(path);
+                    }
+                }
+                project.updateManifest(manifest -> {
+                    extensionVersion.clearScreenshots();
+                    for (String path : newPaths) {
+                        extensionVersion.addScreenshot(path);
+                    }
+                });
             }
             catch (IOException ioe) {
                 getMessageUtil().error("Error updating screenshots: " + ioe.getMessage(), ioe);
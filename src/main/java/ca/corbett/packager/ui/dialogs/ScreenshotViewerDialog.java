@@ -0,0 +1,115 @@
+package ca.corbett.packager.ui.dialogs;
+
+import ca.corbett.extras.MessageUtil;
+import ca.corbett.extras.image.ImagePanel;
+import ca.corbett.extras.image.ImagePanelConfig;
+import ca.corbett.extras.image.ImageUtil;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Window;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A read-only viewer for a single screenshot at full resolution. Screenshots are otherwise only
+ * shown as thumbnails (see ThumbnailCache), so this is the only place where a full-resolution
+ * screenshot is decoded just to be looked at. The dialog opens right away with a loading message,
+ * and the image is decoded on a background thread and swapped in when it's ready.
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public class ScreenshotViewerDialog extends JDialog {
+
+    private static final Logger log = Logger.getLogger(ScreenshotViewerDialog.class.getName());
+
+    private final JLabel loadingLabel;
+    private volatile boolean isClosed = false;
+
+    private ScreenshotViewerDialog(Window owner, File screenshotFile) {
+        super(owner, "Screenshot: " + screenshotFile.getName(), ModalityType.MODELESS);
+        setSize(new Dimension(800, 600));
+        setLocationRelativeTo(owner);
+        setLayout(new BorderLayout());
+        setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+
+        loadingLabel = new JLabel("Loading...", SwingConstants.CENTER);
+        add(loadingLabel, BorderLayout.CENTER);
+
+        JButton closeButton = new JButton("Close");
+        closeButton.setPreferredSize(new Dimension(90, 25));
+        closeButton.addActionListener(e -> dispose());
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(closeButton);
+        buttonPanel.setBorder(BorderFactory.createRaisedBevelBorder());
+        add(buttonPanel, BorderLayout.SOUTH);
+
+        loadImage(screenshotFile);
+    }
+
+    /**
+     * Shows the given screenshot in a new, non-modal viewer dialog. If the file doesn't exist,
+     * an error is shown instead.
+     */
+    public static void showFile(Window owner, File screenshotFile) {
+        if (screenshotFile == null || !screenshotFile.exists()) {
+            new MessageUtil(owner, log).error("Screenshot file not found: "
+                                                      + (screenshotFile == null ? "(none)" : screenshotFile.getName()));
+            return;
+        }
+        new ScreenshotViewerDialog(owner, screenshotFile).setVisible(true);
+    }
+
+    @Override
+    public void dispose() {
+        isClosed = true;
+        super.dispose();
+    }
+
+    /**
+     * Decodes the given screenshot on a background thread, and shows it on the EDT when it's ready.
+     * If the dialog is closed before then, the decoded image is simply dropped.
+     */
+    private void loadImage(File screenshotFile) {
+        Thread thread = new Thread(() -> {
+            try {
+                BufferedImage image = ImageUtil.loadImage(screenshotFile);
+                if (image == null) {
+                    throw new IOException("Unrecognized image format.");
+                }
+                SwingUtilities.invokeLater(() -> showImage(image));
+            }
+            catch (IOException ioe) {
+                log.log(Level.SEVERE, "Error loading screenshot " + screenshotFile.getName()
+                        + ": " + ioe.getMessage(), ioe);
+                SwingUtilities.invokeLater(() -> loadingLabel.setText("Unable to load screenshot: "
+                                                                              + ioe.getMessage()));
+            }
+        }, "ScreenshotViewerLoader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void showImage(BufferedImage image) {
+        if (isClosed) {
+            return;
+        }
+        ImagePanel imagePanel = new ImagePanel(ImagePanelConfig.createSimpleReadOnlyProperties());
+        imagePanel.setImage(image);
+        remove(loadingLabel);
+        add(imagePanel, BorderLayout.CENTER);
+        revalidate();
+        repaint();
+    }
+}
@@ -0,0 +1,201 @@
+package ca.corbett.packager.ui.dialogs;
+
+import ca.corbett.extras.MessageUtil;
+import ca.corbett.packager.io.LineIndexedFile;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.JTextField;
+import javax.swing.text.BadLocationException;
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.Window;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A read-only viewer for potentially large text files, such as a project's version manifest.
+ * Unlike PopupTextDialog, which needs the entire file contents up front, this dialog reads
+ * the file lazily through a LineIndexedFile, and only holds one page of lines at a time.
+ * Nothing is read from disk until the dialog is actually shown. Supports paging and
+ * case-insensitive search. If the file changes on disk while the dialog is open (for example,
+ * because the project was saved), it is re-indexed the next time the user pages or searches.
+ *
+ * @author <a href="https://github.com/scorbo2">scorbo2</a>
+ */
+public class TextFileViewerDialog extends JDialog {
+
+    private static final Logger log = Logger.getLogger(TextFileViewerDialog.class.getName());
+
+    private static final int PAGE_SIZE = 500;
+
+    private final LineIndexedFile indexedFile;
+    private MessageUtil messageUtil;
+    private final JTextArea textArea;
+    private final JLabel pageLabel;
+    private final JTextField searchField;
+    private final JButton prevButton;
+    private final JButton nextButton;
+    private int firstLine;
+    private int lastMatch = -1;
+
+    private TextFileViewerDialog(Window owner, String title, LineIndexedFile indexedFile) {
+        super(owner, title, ModalityType.MODELESS);
+        this.indexedFile = indexedFile;
+        setSize(new Dimension(800, 600));
+        setLocationRelativeTo(owner);
+        setLayout(new BorderLayout());
+        setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+
+        textArea = new JTextArea();
+        textArea.setEditable(false);
+        textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        add(new JScrollPane(textArea), BorderLayout.CENTER);
+
+        pageLabel = new JLabel();
+        searchField = new JTextField(20);
+        searchField.addActionListener(e -> findNext());
+        prevButton = createButton("Previous");
+        prevButton.addActionListener(e -> showPage(firstLine - PAGE_SIZE));
+        nextButton = createButton("Next");
+        nextButton.addActionListener(e -> showPage(firstLine + PAGE_SIZE));
+        JButton findButton = createButton("Find");
+        findButton.addActionListener(e -> findNext());
+        JButton closeButton = createButton("Close");
+        closeButton.addActionListener(e -> dispose());
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(pageLabel);
+        buttonPanel.add(prevButton);
+        buttonPanel.add(nextButton);
+        buttonPanel.add(searchField);
+        buttonPanel.add(findButton);
+        buttonPanel.add(closeButton);
+        buttonPanel.setBorder(BorderFactory.createRaisedBevelBorder());
+        add(buttonPanel, BorderLayout.SOUTH);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                try {
+                    indexedFile.close();
+                }
+                catch (IOException ioe) {
+                    log.log(Level.WARNING, "Unable to close file: " + ioe.getMessage(), ioe);
+                }
+            }
+        });
+
+        showPage(0);
+    }
+
+    /**
+     * Opens the given file and shows it in a new, non-modal viewer dialog. If the file can't
+     * be read, an error is shown instead.
+     */
+    public static void showFile(Window owner, String title, File file) {
+        if (file == null || !file.exists()) {
+            new MessageUtil(owner, log).error("File not found: " + (file == null ? "(none)" : file.getName()));
+            return;
+        }
+        try {
+            new TextFileViewerDialog(owner, title, LineIndexedFile.open(file)).setVisible(true);
+        }
+        catch (IOException ioe) {
+            new MessageUtil(owner, log).error("Unable to read " + file.getName() + ": " + ioe.getMessage(), ioe);
+        }
+    }
+
+    /**
+     * Shows the page of lines that starts at (or near) the given line.
+     */
+    private void showPage(int startLine) {
+        try {
+            reloadIfStale();
+            int lineCount = indexedFile.getLineCount();
+            firstLine = Math.max(0, Math.min(startLine, lineCount - 1));
+            if (lineCount == 0) {
+                textArea.setText("");
+                pageLabel.setText("(empty)");
+            }
+            else {
+                List<String> lines = indexedFile.getLines(firstLine, PAGE_SIZE);
+                textArea.setText(String.join("\n", lines));
+                textArea.setCaretPosition(0);
+                pageLabel.setText("Lines " + (firstLine + 1) + "-" + (firstLine + lines.size()) + " of " + lineCount);
+            }
+            prevButton.setEnabled(firstLine > 0);
+            nextButton.setEnabled(firstLine + PAGE_SIZE < lineCount);
+        }
+        catch (IOException ioe) {
+            getMessageUtil().error("Unable to read " + indexedFile.getFile().getName() + ": " + ioe.getMessage(), ioe);
+        }
+    }
+
+    /**
+     * Finds the next line containing the search text, moves to the page that contains it,
+     * and highlights it.
+     */
+    private void findNext() {
+        String text = searchField.getText();
+        if (text.isBlank()) {
+            return;
+        }
+        try {
+            reloadIfStale();
+            int match = indexedFile.find(text, lastMatch + 1);
+            if (match < 0) {
+                lastMatch = -1;
+                pageLabel.setText("Not found.");
+                return;
+            }
+            lastMatch = match;
+            if (match < firstLine || match >= firstLine + PAGE_SIZE) {
+                showPage(match - (match % PAGE_SIZE));
+            }
+            int row = match - firstLine;
+            textArea.select(textArea.getLineStartOffset(row), textArea.getLineEndOffset(row));
+            textArea.getCaret().setSelectionVisible(true);
+        }
+        catch (IOException ioe) {
+            getMessageUtil().error("Unable to search " + indexedFile.getFile().getName() + ": " + ioe.getMessage(),
+                                   ioe);
+        }
+        catch (BadLocationException ble) {
+            log.warning("Unable to highlight search result: " + ble.getMessage());
+        }
+    }
+
+    private void reloadIfStale() throws IOException {
+        if (indexedFile.isStale()) {
+            log.fine("Re-indexing " + indexedFile.getFile().getName());
+            indexedFile.reload();
+            lastMatch = -1;
+        }
+    }
+
+    private static JButton createButton(String label) {
+        JButton button = new JButton(label);
+        button.setPreferredSize(new Dimension(90, 25));
+        return button;
+    }
+
+    private MessageUtil getMessageUtil() {
+        if (messageUtil == null) {
+            messageUtil = new MessageUtil(this, log);
+        }
+        return messageUtil;
+    }
+}
@@ -0,0 +1,189 @@
+package ca.corbett.packager.io;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BundleReaderTest {
+
+    private static final String LONG_NAME = "build/" + "nested/".repeat(20) + "MyExtension-1.0.0.jar";
+
+    private File tempDir;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        tempDir = Files.createTempDirectory("bundleReaderTest").toFile();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        File[] files = tempDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        tempDir.delete();
+    }
+
+    @Test
+    public void isBundle_withSupportedExtensions_shouldReturnTrue() {
+        assertTrue(BundleReader.isBundle(new File("build.zip")));
+        assertTrue(BundleReader.isBundle(new File("build.tar.gz")));
+        assertTrue(BundleReader.isBundle(new File("BUILD.TGZ")));
+        assertTrue(BundleReader.isBundle(new File("build.tar")));
+        assertFalse(BundleReader.isBundle(new File("MyExtension.jar")));
+    }
+
+    @Test
+    public void read_withZipBundle_shouldReturnFilesOnly() throws Exception {
+        File bundle = new File(tempDir, "build.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(bundle.toPath()))) {
+            out.putNextEntry(new ZipEntry("libs/"));
+            out.closeEntry();
+            out.putNextEntry(new ZipEntry("libs/MyExtension-1.0.0.jar"));
+            out.write("jar".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+            out.putNextEntry(new ZipEntry("MyExtension-1.0.0_screenshot.png"));
+            out.write("png".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+
+        Map<String, String> actual = readAll(bundle);
+
+        assertEquals(Map.of("libs/MyExtension-1.0.0.jar", "jar", "MyExtension-1.0.0_screenshot.png", "png"), actual);
+    }
+
+    @Test
+    public void read_withTarGzBundle_shouldReturnFilesWithFullNames() throws Exception {
+        File bundle = new File(tempDir, "build.tar.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(bundle.toPath()))) {
+            writeTarEntry(out, "libs/", '5', new byte[0]);
+            writeTarEntry(out, "libs/a.jar", '0', "a".repeat(1000).getBytes(StandardCharsets.UTF_8));
+            writeTarEntry(out, "././@LongLink", 'L', (LONG_NAME + "\0").getBytes(StandardCharsets.UTF_8));
+            writeTarEntry(out, LONG_NAME.substring(0, 99), '0', "long".getBytes(StandardCharsets.UTF_8));
+            writeTarEntry(out, "b.png", '0', new byte[0]);
+            out.write(new byte[1024]);
+        }
+
+        Map<String, String> actual = readAll(bundle);
+
+        Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("libs/a.jar", "a".repeat(1000));
+        expected.put(LONG_NAME, "long");
+        expected.put("b.png", "");
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void read_withUstarPrefix_shouldPrependItOnlyForPosixHeaders() throws Exception {
+        File bundle = new File(tempDir, "build.tar");
+        try (OutputStream out = Files.newOutputStream(bundle.toPath())) {
+            writeTarEntry(out, "a.jar", '0', "a".getBytes(StandardCharsets.UTF_8), "ustar", "build/libs");
+            // Old GNU tar keeps the access and change times where the ustar prefix would be:
+            writeTarEntry(out, "b.jar", '0', "b".getBytes(StandardCharsets.UTF_8), "ustar  ",
+                          String.format("%011o", 1_600_000_000));
+            out.write(new byte[1024]);
+        }
+
+        Map<String, String> actual = readAll(bundle);
+
+        Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("build/libs/a.jar", "a");
+        expected.put("b.jar", "b");
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void read_withPartiallyReadEntries_shouldStillFindLaterEntries() throws Exception {
+        File bundle = new File(tempDir, "build.tar");
+        try (OutputStream out = Files.newOutputStream(bundle.toPath())) {
+            writeTarEntry(out, "a.jar", '0', new byte[5000]);
+            writeTarEntry(out, "b.jar", '0', "b".getBytes(StandardCharsets.UTF_8));
+        }
+
+        Map<String, String> actual = new LinkedHashMap<>();
+        BundleReader.read(bundle, (path, contents) -> {
+            actual.put(path, String.valueOf(contents.read()));
+        });
+
+        assertEquals(Map.of("a.jar", "0", "b.jar", String.valueOf((int)'b')), actual);
+    }
+
+    @Test
+    public void read_withTruncatedTar_shouldThrow() throws Exception {
+        File bundle = new File(tempDir, "build.tar");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTarEntry(out, "a.jar", '0', new byte[5000]);
+        Files.write(bundle.toPath(), Arrays.copyOf(out.toByteArray(), 2048));
+
+        assertThrows(IOException.class, () -> readAll(bundle));
+    }
+
+    private static Map<String, String> readAll(File bundle) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        BundleReader.read(bundle, (path, contents) -> {
+            entries.put(path, new String(contents.readAllBytes(), StandardCharsets.UTF_8));
+        });
+        return entries;
+    }
+
+    /**
+     * Writes a minimal ustar header followed by the given contents, padded out to a whole block.
+     */
+    private static void writeTarEntry(OutputStream out, String name, char type, byte[] contents) throws IOException {
+        writeTarEntry(out, name, type, contents, "ustar", "");
+    }
+
+    /**
+     * Writes a tar header with the given magic, and the given text at the ustar prefix offset,
+     * followed by the given contents, padded out to a whole block.
+     */
+    private static void writeTarEntry(OutputStream out, String name, char type, byte[] contents, String magic,
+                                      String prefix) throws IOException {
+        byte[] header = new byte[512];
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(nameBytes, 0, header, 0, Math.min(nameBytes.length, 100));
+        putAscii(header, 100, "0000644");
+        putAscii(header, 124, String.format("%011o", contents.length));
+        putAscii(header, 136, String.format("%011o", 0));
+        header[156] = (byte)type;
+        putAscii(header, 257, magic);
+        if (magic.equals("ustar")) {
+            putAscii(header, 263, "00");
+        }
+        putAscii(header, 345, prefix);
+        Arrays.fill(header, 148, 156, (byte)' ');
+        int checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xFF;
+        }
+        putAscii(header, 148, String.format("%06o", checksum));
+        out.write(header);
+        out.write(contents);
+        out.write(new byte[(512 - contents.length % 512) % 512]);
+    }
+
+    private static void putAscii(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+package ca.corbett.packager.io;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileHashCacheTest {
+
+    private File file;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        file = File.createTempFile("fileHashCacheTest", ".jar");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void computeHash_withKnownContents_shouldMatchSha256() throws Exception {
+        Files.writeString(file.toPath(), "abc", StandardCharsets.UTF_8);
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                     FileHashCache.computeHash(file));
+    }
+
+    @Test
+    public void getHash_withChangedFile_shouldRehash() throws Exception {
+        FileHashCache cache = new FileHashCache();
+        Files.writeString(file.toPath(), "abc", StandardCharsets.UTF_8);
+        String firstHash = cache.getHash(file);
+
+        Files.writeString(file.toPath(), "abcd", StandardCharsets.UTF_8);
+
+        assertEquals(FileHashCache.computeHash(file), cache.getHash(file));
+        assertFalse(firstHash.equals(cache.getHash(file)));
+    }
+
+    @Test
+    public void getHash_withUnchangedSizeAndTime_shouldUseCachedHash() throws Exception {
+        FileHashCache cache = new FileHashCache();
+        Files.writeString(file.toPath(), "abc", StandardCharsets.UTF_8);
+        long lastModified = file.lastModified();
+        String firstHash = cache.getHash(file);
+
+        // Same size and same timestamp, so the cache has no way to tell the contents changed:
+        Files.writeString(file.toPath(), "xyz", StandardCharsets.UTF_8);
+        assertTrue(file.setLastModified(lastModified));
+
+        assertEquals(firstHash, cache.getHash(file));
+        cache.retainAll(List.of());
+        assertEquals(FileHashCache.computeHash(file), cache.getHash(file));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package ca.corbett.packager.io;
+
+import ca.corbett.extras.crypt.SignatureUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.KeyPair;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileSignerTest {
+
+    private static final Logger log = Logger.getLogger(FileSignerTest.class.getName());
+
+    private static KeyPair keyPair;
+    private File dataFile;
+    private File sigFile;
+
+    @BeforeAll
+    public static void initialize() throws Exception {
+        keyPair = SignatureUtil.generateKeyPair();
+    }
+
+    @BeforeEach
+    public void setup() throws Exception {
+        dataFile = File.createTempFile("fileSignerTest", ".jar");
+        sigFile = File.createTempFile("fileSignerTest", ".sig");
+        writeRandomBytes(dataFile, 256 * 1024);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(dataFile.toPath());
+        Files.deleteIfExists(sigFile.toPath());
+    }
+
+    @Test
+    public void signMapped_shouldVerifyWithSignatureUtil() throws Exception {
+        FileSigner.writeSignatureFile(FileSigner.signMapped(dataFile, keyPair.getPrivate()), sigFile);
+        assertTrue(SignatureUtil.verifyFile(dataFile, sigFile, keyPair.getPublic()));
+    }
+
+    @Test
+    public void verifyMapped_withSignatureUtilSignature_shouldVerify() throws Exception {
+        SignatureUtil.signFile(dataFile, keyPair.getPrivate(), sigFile);
+        assertTrue(FileSigner.verifyMapped(dataFile, FileSigner.readSignatureFile(sigFile), keyPair.getPublic()));
+    }
+
+    @Test
+    public void verifyMapped_withModifiedFile_shouldFail() throws Exception {
+        byte[] signature = FileSigner.signMapped(dataFile, keyPair.getPrivate());
+        writeRandomBytes(dataFile, 256 * 1024);
+        assertFalse(FileSigner.verifyMapped(dataFile, signature, keyPair.getPublic()));
+    }
+
+    @Test
+    public void signFile_withSmallFile_shouldRoundTrip() throws Exception {
+        FileSigner.signFile(dataFile, keyPair.getPrivate(), sigFile);
+        assertTrue(FileSigner.verifyFile(dataFile, sigFile, keyPair.getPublic()));
+    }
+
+    /**
+     * Compares the stream-based SignatureUtil path against the memory-mapped path on a large file.
+     * This is slow and disk-hungry, so it only runs with -Dextpackager.benchmarks=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "extpackager.benchmarks", matches = "true")
+    public void benchmark_streamVersusMapped() throws Exception {
+        writeRandomBytes(dataFile, 256 * 1024 * 1024);
+
+        long start = System.nanoTime();
+        SignatureUtil.signFile(dataFile, keyPair.getPrivate(), sigFile);
+        assertTrue(SignatureUtil.verifyFile(dataFile, sigFile, keyPair.getPublic()));
+        long streamMs = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        byte[] signature = FileSigner.signMapped(dataFile, keyPair.getPrivate());
+        assertTrue(FileSigner.verifyMapped(dataFile, signature, keyPair.getPublic()));
+        long mappedMs = (System.nanoTime() - start) / 1_000_000;
+
+        log.info("Sign+verify of 256MB file: stream=" + streamMs + "ms, mapped=" + mappedMs + "ms");
+    }
+
+    private static void writeRandomBytes(File file, int size) throws IOException {
+        Random random = new Random();
+        byte[] buffer = new byte[64 * 1024];
+        try (OutputStream out = Files.newOutputStream(file.toPath())) {
+            int remaining = size;
+            while (remaining > 0) {
+                random.nextBytes(buffer);
+                int count = Math.min(buffer.length, remaining);
+                out.write(buffer, 0, count);
+                remaining -= count;
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,150 @@
+package ca.corbett.packager.io;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JarDeltaTest {
+
+    private File tempDir;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        tempDir = Files.createTempDirectory("jarDeltaTest").toFile();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        File[] files = tempDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        tempDir.delete();
+    }
+
+    @Test
+    public void create_withOneChangedEntry_shouldOnlyIncludeThatEntry() throws Exception {
+        Map<String, byte[]> entries = new TreeMap<>();
+        for (int i = 0; i < 20; i++) {
+            entries.put("a/Class" + i + ".class", randomBytes(i, 10_000));
+        }
+        File oldJar = writeJar("old.jar", entries);
+        entries.put("a/Class7.class", randomBytes(99, 10_000));
+        entries.put("a/NewClass.class", randomBytes(100, 10_000));
+        File newJar = writeJar("new.jar", entries);
+        File patch = new File(tempDir, "new.patch");
+        File patched = new File(tempDir, "patched.jar");
+
+        JarDelta.create(oldJar, newJar, patch);
+        JarDelta.apply(oldJar, patch, patched);
+
+        assertArrayEquals(Files.readAllBytes(newJar.toPath()), Files.readAllBytes(patched.toPath()));
+        // Two changed entries of 10k each, plus headers and the central directory:
+        assertTrue(patch.length() < 25_000, "patch is " + patch.length() + " bytes");
+        assertTrue(newJar.length() > 200_000);
+    }
+
+    @Test
+    public void create_withLargeEntries_shouldCompareThemPastTheFirstChunk() throws Exception {
+        byte[] changed = randomBytes(2, 300_000);
+        Map<String, byte[]> entries = new TreeMap<>();
+        entries.put("a/Same.class", randomBytes(1, 300_000));
+        entries.put("a/Changed.class", changed);
+        File oldJar = writeJar("old.jar", entries);
+        // Only the very last byte differs, well past the first 64k that get compared:
+        changed = changed.clone();
+        changed[changed.length - 1]++;
+        entries.put("a/Changed.class", changed);
+        File newJar = writeJar("new.jar", entries);
+        File patch = new File(tempDir, "new.patch");
+        File patched = new File(tempDir, "patched.jar");
+
+        JarDelta.create(oldJar, newJar, patch);
+        JarDelta.apply(oldJar, patch, patched);
+
+        assertArrayEquals(Files.readAllBytes(newJar.toPath()), Files.readAllBytes(patched.toPath()));
+        // The changed entry is included, and the unchanged one isn't:
+        assertTrue(patch.length() > 300_000, "patch is " + patch.length() + " bytes");
+        assertTrue(patch.length() < 320_000, "patch is " + patch.length() + " bytes");
+    }
+
+    @Test
+    public void readHeader_shouldIdentifyBothJars() throws Exception {
+        File oldJar = writeJar("old.jar", Map.of("x.class", randomBytes(1, 100)));
+        File newJar = writeJar("new.jar", Map.of("x.class", randomBytes(2, 100)));
+        File patch = new File(tempDir, "new.patch");
+        JarDelta.create(oldJar, newJar, patch);
+
+        JarDelta.Header header = JarDelta.readHeader(patch);
+
+        assertEquals(FileHashCache.computeHash(oldJar), header.sourceHash);
+        assertEquals(FileHashCache.computeHash(newJar), header.targetHash);
+        assertEquals(newJar.length(), header.targetLength);
+    }
+
+    @Test
+    public void apply_toWrongJar_shouldFail() throws Exception {
+        File oldJar = writeJar("old.jar", Map.of("x.class", randomBytes(1, 100)));
+        File newJar = writeJar("new.jar", Map.of("x.class", randomBytes(2, 100)));
+        File otherJar = writeJar("other.jar", Map.of("x.class", randomBytes(3, 100)));
+        File patch = new File(tempDir, "new.patch");
+        File patched = new File(tempDir, "patched.jar");
+        JarDelta.create(oldJar, newJar, patch);
+
+        assertThrows(IOException.class, () -> JarDelta.apply(otherJar, patch, patched));
+        assertFalse(patched.exists());
+    }
+
+    @Test
+    public void create_withFilesThatArentZips_shouldStillRoundTrip() throws Exception {
+        File oldFile = new File(tempDir, "old.bin");
+        File newFile = new File(tempDir, "new.bin");
+        Files.write(oldFile.toPath(), randomBytes(1, 5000));
+        Files.write(newFile.toPath(), randomBytes(2, 6000));
+        File patch = new File(tempDir, "new.patch");
+        File patched = new File(tempDir, "patched.bin");
+
+        JarDelta.create(oldFile, newFile, patch);
+        JarDelta.apply(oldFile, patch, patched);
+
+        assertArrayEquals(Files.readAllBytes(newFile.toPath()), Files.readAllBytes(patched.toPath()));
+    }
+
+    private File writeJar(String name, Map<String, byte[]> entries) throws IOException {
+        File jarFile = new File(tempDir, name);
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jarFile.toPath()))) {
+            for (Map.Entry<String, byte[]> entry : new TreeMap<>(entries).entrySet()) {
+                ZipEntry zipEntry = new ZipEntry(entry.getKey());
+                zipEntry.setTimeLocal(LocalDateTime.of(2020, 1, 1, 0, 0));
+                out.putNextEntry(zipEntry);
+                out.write(entry.getValue());
+                out.closeEntry();
+            }
+        }
+        return jarFile;
+    }
+
+    private static byte[] randomBytes(long seed, int length) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package ca.corbett.packager.io;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JarIntegrityCheckerTest {
+
+    private File jarFile;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        jarFile = File.createTempFile("jarIntegrityCheckerTest", ".jar");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jarFile.delete();
+    }
+
+    @Test
+    public void verify_withIntactJar_shouldPass() throws Exception {
+        writeJar(jarFile);
+        JarIntegrityChecker.verify(jarFile);
+    }
+
+    @Test
+    public void verify_withCorruptedEntry_shouldNameTheEntry() throws Exception {
+        writeJar(jarFile);
+        byte[] bytes = Files.readAllBytes(jarFile.toPath());
+        int index = indexOf(bytes, "BBBBBBBB".getBytes(StandardCharsets.US_ASCII));
+        bytes[index + 4] = 'X';
+        Files.write(jarFile.toPath(), bytes);
+
+        IOException exception = assertThrows(IOException.class, () -> JarIntegrityChecker.verify(jarFile));
+        assertEquals("Entry b.txt fails its CRC check.", exception.getMessage());
+    }
+
+    @Test
+    public void verify_withTruncatedJar_shouldFail() throws Exception {
+        writeJar(jarFile);
+        byte[] bytes = Files.readAllBytes(jarFile.toPath());
+        Files.write(jarFile.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertThrows(IOException.class, () -> JarIntegrityChecker.verify(jarFile));
+    }
+
+    /**
+     * Writes a jar with two uncompressed entries, so that we can easily find and damage their contents.
+     */
+    private static void writeJar(File file) throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(file.toPath()))) {
+            writeStoredEntry(out, "a.txt", "AAAAAAAA".repeat(100));
+            writeStoredEntry(out, "b.txt", "BBBBBBBB".repeat(100));
+        }
+    }
+
+    private static void writeStoredEntry(ZipOutputStream out, String name, String contents) throws IOException {
+        byte[] bytes = contents.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(bytes.length);
+        entry.setCrc(crc.getValue());
+        out.putNextEntry(entry);
+        out.write(bytes);
+        out.closeEntry();
+    }
+
+    private static int indexOf(byte[] haystack, byte[] needle) {
+        for (int i = 0; i <= haystack.length - needle.length; i++) {
+            if (Arrays.equals(haystack, i, i + needle.length, needle, 0, needle.length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,163 @@
+package ca.corbett.packager.io;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JarNormalizerTest {
+
+    private File tempDir;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        tempDir = Files.createTempDirectory("jarNormalizerTest").toFile();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        File[] files = tempDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        tempDir.delete();
+    }
+
+    @Test
+    public void normalize_withRebuiltJar_shouldProduceIdenticalBytes() throws Exception {
+        File build1 = writeJar("build1.jar", 1_600_000_000_000L, false,
+                               "Manifest-Version: 1.0\r\nBuild-Time: 2020-09-13\r\nMain-Class: a.B\r\n\r\n",
+                               "b/Second.class", "a/First.class", "extInfo.json");
+        File build2 = writeJar("build2.jar", 1_700_000_000_000L, true,
+                               "Main-Class: a.B\r\nBuild-Time: 2023-11-14\r\nManifest-Version: 1.0\r\n\r\n",
+                               "extInfo.json", "a/First.class", "b/Second.class");
+
+        File normalized1 = new File(tempDir, "normalized1.jar");
+        File normalized2 = new File(tempDir, "normalized2.jar");
+        JarNormalizer.normalize(build1, normalized1);
+        JarNormalizer.normalize(build2, normalized2);
+
+        assertArrayEquals(Files.readAllBytes(normalized1.toPath()), Files.readAllBytes(normalized2.toPath()));
+    }
+
+    @Test
+    public void normalize_withNormalizedJar_shouldBeIdempotent() throws Exception {
+        File source = writeJar("source.jar", System.currentTimeMillis(), false,
+                               "Manifest-Version: 1.0\r\nBuilt-By: someone\r\n\r\n",
+                               "z.txt", "a.txt");
+        File once = new File(tempDir, "once.jar");
+        File twice = new File(tempDir, "twice.jar");
+        JarNormalizer.normalize(source, once);
+        JarNormalizer.normalize(once, twice);
+
+        assertArrayEquals(Files.readAllBytes(once.toPath()), Files.readAllBytes(twice.toPath()));
+    }
+
+    @Test
+    public void normalize_withUnsortedEntries_shouldPutManifestFirstAndSortTheRest() throws Exception {
+        File source = writeJar("source.jar", System.currentTimeMillis(), true,
+                               "Manifest-Version: 1.0\r\n\r\n",
+                               "z.txt", "META-INF/extra.txt", "a.txt");
+        File target = new File(tempDir, "target.jar");
+        JarNormalizer.normalize(source, target);
+
+        List<String> names = new ArrayList<>();
+        try (ZipFile zipFile = new ZipFile(target)) {
+            for (ZipEntry entry : Collections.list(zipFile.entries())) {
+                names.add(entry.getName());
+                assertEquals(JarNormalizer.FIXED_TIMESTAMP, entry.getTimeLocal());
+                if (!entry.getName().equals(JarFile.MANIFEST_NAME)) {
+                    assertArrayEquals(entry.getName().getBytes(StandardCharsets.UTF_8),
+                                      zipFile.getInputStream(entry).readAllBytes());
+                }
+            }
+        }
+        assertEquals(List.of(JarFile.MANIFEST_NAME, "META-INF/extra.txt", "a.txt", "z.txt"), names);
+    }
+
+    @Test
+    public void normalizeManifest_withVolatileAttributes_shouldRemoveThem() throws Exception {
+        String longValue = "x".repeat(100) + "\u00e9".repeat(40);
+        String manifestText = "Manifest-Version: 1.0\r\n"
+                + "Bnd-LastModified: 1700000000000\r\n"
+                + "Built-By: someone\r\n"
+                + "Implementation-Title: " + longValue.substring(0, 60) + "\r\n " + longValue.substring(60) + "\r\n"
+                + "\r\n"
+                + "Name: b/\r\nSealed: true\r\n\r\n"
+                + "Name: a/\r\nSealed: false\r\n\r\n";
+        byte[] normalized = JarNormalizer.normalizeManifest(manifestText.getBytes(StandardCharsets.UTF_8));
+        Manifest manifest = new Manifest(new ByteArrayInputStream(normalized));
+
+        assertEquals("1.0", manifest.getMainAttributes().getValue("Manifest-Version"));
+        assertEquals(longValue, manifest.getMainAttributes().getValue("Implementation-Title"));
+        assertNull(manifest.getMainAttributes().getValue("Bnd-LastModified"));
+        assertNull(manifest.getMainAttributes().getValue("Built-By"));
+        assertEquals("false", manifest.getAttributes("a/").getValue("Sealed"));
+        assertEquals("true", manifest.getAttributes("b/").getValue("Sealed"));
+        String text = new String(normalized, StandardCharsets.UTF_8);
+        assertEquals(0, text.indexOf("Manifest-Version"));
+        for (String line : text.split("\r\n")) {
+            assertTrue(line.getBytes(StandardCharsets.UTF_8).length <= 72);
+        }
+    }
+
+    @Test
+    public void normalize_withSignedJar_shouldCopyUnchanged() throws Exception {
+        File source = writeJar("signed.jar", System.currentTimeMillis(), false,
+                               "Manifest-Version: 1.0\r\nBuilt-By: someone\r\n\r\n",
+                               "META-INF/SIGNER.SF", "META-INF/SIGNER.RSA", "a.txt");
+        File target = new File(tempDir, "target.jar");
+        JarNormalizer.normalize(source, target);
+
+        assertArrayEquals(Files.readAllBytes(source.toPath()), Files.readAllBytes(target.toPath()));
+    }
+
+    /**
+     * Writes a jar with the given manifest and the given entries, in the given order. Each entry
+     * simply contains its own name. If manifestLast is set, the manifest goes after the entries.
+     */
+    private File writeJar(String name, long timestamp, boolean manifestLast, String manifest, String... entries)
+            throws Exception {
+        File jarFile = new File(tempDir, name);
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jarFile.toPath()))) {
+            if (!manifestLast) {
+                writeEntry(out, JarFile.MANIFEST_NAME, timestamp, manifest);
+            }
+            for (String entry : entries) {
+                writeEntry(out, entry, timestamp, entry);
+            }
+            if (manifestLast) {
+                writeEntry(out, JarFile.MANIFEST_NAME, timestamp, manifest);
+            }
+        }
+        return jarFile;
+    }
+
+    private static void writeEntry(ZipOutputStream out, String name, long timestamp, String contents)
+            throws Exception {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(timestamp);
+        out.putNextEntry(entry);
+        out.write(contents.getBytes(StandardCharsets.UTF_8));
+        out.closeEntry();
+    }
+}
\ No newline at end of file
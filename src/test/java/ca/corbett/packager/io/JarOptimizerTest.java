@@ -0,0 +1,165 @@
+package ca.corbett.packager.io;
+
+import ca.corbett.extensions.AppExtensionInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JarOptimizerTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2024, 5, 6, 7, 8, 10);
+
+    private File tempDir;
+    private String extInfoJson;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        tempDir = Files.createTempDirectory("jarOptimizerTest").toFile();
+        extInfoJson = new AppExtensionInfo.Builder("MyExtension")
+                .setTargetAppName("TestApp")
+                .setTargetAppVersion("1.0")
+                .setVersion("1.0.0")
+                .build()
+                .toJson();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        File[] files = tempDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        tempDir.delete();
+    }
+
+    @Test
+    public void optimize_withStoredEntries_shouldShrinkJarAndKeepContents() throws Exception {
+        String text = "The quick brown fox jumps over the lazy dog.\n".repeat(2000);
+        File source = writeStoredJar("source.jar", "extInfo.json", extInfoJson, "a/B.class", text);
+        File target = new File(tempDir, "target.jar");
+
+        JarOptimizer.Result result = new JarOptimizer(List.of()).optimize(source, target);
+
+        assertEquals(source.length(), result.originalSize);
+        assertEquals(target.length(), result.optimizedSize);
+        assertTrue(result.getBytesSaved() > 0);
+        assertEquals(0, result.strippedEntries);
+        try (ZipFile zipFile = new ZipFile(target)) {
+            List<String> names = new ArrayList<>();
+            for (ZipEntry entry : Collections.list(zipFile.entries())) {
+                names.add(entry.getName());
+                assertEquals(TIMESTAMP, entry.getTimeLocal());
+            }
+            assertEquals(List.of("extInfo.json", "a/B.class"), names);
+            assertArrayEquals(text.getBytes(StandardCharsets.UTF_8),
+                              zipFile.getInputStream(zipFile.getEntry("a/B.class")).readAllBytes());
+        }
+    }
+
+    @Test
+    public void optimize_withStripPatterns_shouldRemoveMatchingEntries() throws Exception {
+        File source = writeStoredJar("source.jar", "extInfo.json", extInfoJson,
+                                     "a/B.class", "class", "a/B.java", "source",
+                                     "META-INF/maven/x/pom.xml", "pom");
+        File target = new File(tempDir, "target.jar");
+
+        JarOptimizer optimizer = new JarOptimizer(List.of("**/*.java", "META-INF/maven/**", " "));
+        JarOptimizer.Result result = optimizer.optimize(source, target);
+
+        assertEquals(List.of("**/*.java", "META-INF/maven/**"), optimizer.getStripPatterns());
+        assertEquals(2, result.strippedEntries);
+        try (ZipFile zipFile = new ZipFile(target)) {
+            assertEquals(2, zipFile.size());
+            assertTrue(zipFile.getEntry("a/B.class") != null);
+        }
+    }
+
+    @Test
+    public void constructor_withRepeatedPatterns_shouldKeepEachPatternOnce() {
+        JarOptimizer optimizer = new JarOptimizer(List.of("**/*.java", " **/*.java", "docs/*", "**/*.java"));
+
+        assertEquals(List.of("**/*.java", "docs/*"), optimizer.getStripPatterns());
+    }
+
+    @Test
+    public void optimize_withOptimizedJar_shouldProduceIdenticalBytes() throws Exception {
+        File source = writeStoredJar("source.jar", "extInfo.json", extInfoJson, "x.txt", "x".repeat(500));
+        File once = new File(tempDir, "once.jar");
+        File twice = new File(tempDir, "twice.jar");
+        JarOptimizer optimizer = new JarOptimizer(List.of());
+        optimizer.optimize(source, once);
+        JarOptimizer.Result result = optimizer.optimize(once, twice);
+
+        assertEquals(0, result.getBytesSaved());
+        assertArrayEquals(Files.readAllBytes(once.toPath()), Files.readAllBytes(twice.toPath()));
+    }
+
+    @Test
+    public void optimize_withoutExtInfo_shouldFailVerification() throws Exception {
+        File source = writeStoredJar("source.jar", "a.txt", "a");
+        File target = new File(tempDir, "target.jar");
+
+        IOException exception = assertThrows(IOException.class,
+                                             () -> new JarOptimizer(List.of()).optimize(source, target));
+        assertEquals("Optimized jar target.jar does not contain extInfo.json.", exception.getMessage());
+    }
+
+    @Test
+    public void isStripped_withGlobPatterns_shouldMatchExpectedNames() {
+        JarOptimizer optimizer = new JarOptimizer(List.of("**/*.java", "docs/*", "?.tmp"));
+
+        assertTrue(optimizer.isStripped("Root.java"));
+        assertTrue(optimizer.isStripped("a/b/C.java"));
+        assertTrue(optimizer.isStripped("docs/readme.txt"));
+        assertTrue(optimizer.isStripped("x.tmp"));
+        assertFalse(optimizer.isStripped("a/C.class"));
+        assertFalse(optimizer.isStripped("docs/sub/readme.txt"));
+        assertFalse(optimizer.isStripped("xy.tmp"));
+        assertFalse(new JarOptimizer(List.of("**")).isStripped("extInfo.json"));
+        assertFalse(new JarOptimizer(List.of("**")).isStripped("META-INF/MANIFEST.MF"));
+    }
+
+    /**
+     * Writes a jar with the given name/contents pairs, uncompressed, as some builds do.
+     */
+    private File writeStoredJar(String name, String... namesAndContents) throws Exception {
+        File jarFile = new File(tempDir, name);
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jarFile.toPath()))) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                byte[] contents = namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8);
+                CRC32 crc = new CRC32();
+                crc.update(contents);
+                ZipEntry entry = new ZipEntry(namesAndContents[i]);
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(contents.length);
+                entry.setCrc(crc.getValue());
+                entry.setTimeLocal(TIMESTAMP);
+                out.putNextEntry(entry);
+                out.write(contents);
+                out.closeEntry();
+            }
+        }
+        return jarFile;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package ca.corbett.packager.io;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LineIndexedFileTest {
+
+    private File textFile;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        textFile = File.createTempFile("lineIndexedFileTest", ".txt");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        textFile.delete();
+    }
+
+    @Test
+    public void open_withEmptyFile_shouldHaveNoLines() throws Exception {
+        try (LineIndexedFile indexedFile = LineIndexedFile.open(textFile)) {
+            assertEquals(0, indexedFile.getLineCount());
+            assertEquals(-1, indexedFile.find("anything", 0));
+        }
+    }
+
+    @Test
+    public void getLines_withMixedLineEndings_shouldStripTerminators() throws Exception {
+        write("first\r\nsecond\n\nfourth \u00e9\n");
+        try (LineIndexedFile indexedFile = LineIndexedFile.open(textFile)) {
+            assertEquals(4, indexedFile.getLineCount());
+            assertEquals(List.of("first", "second", "", "fourth \u00e9"), indexedFile.getLines(0, 4));
+            assertEquals("second", indexedFile.getLine(1));
+        }
+    }
+
+    @Test
+    public void getLines_pastEndOfFile_shouldReturnRemainingLines() throws Exception {
+        write(generateLines(10));
+        try (LineIndexedFile indexedFile = LineIndexedFile.open(textFile)) {
+            List<String> lines = indexedFile.getLines(8, 5);
+            assertEquals(List.of("line 8", "line 9"), lines);
+            assertThrows(IndexOutOfBoundsException.class, () -> indexedFile.getLines(10, 1));
+        }
+    }
+
+    @Test
+    public void open_withFileLargerThanBuffer_shouldIndexEveryLine() throws Exception {
+        write(generateLines(20000));
+        try (LineIndexedFile indexedFile = LineIndexedFile.open(textFile)) {
+            assertEquals(20000, indexedFile.getLineCount());
+            assertEquals("line 12345", indexedFile.getLine(12345));
+            assertEquals("line 19999", indexedFile.getLine(19999));
+        }
+    }
+
+    @Test
+    public void find_withMatchBeforeStartLine_shouldWrapAround() throws Exception {
+        write(generateLines(3000) + "The End\n");
+        try (LineIndexedFile indexedFile = LineIndexedFile.open(textFile)) {
+            assertEquals(2500, indexedFile.find("LINE 2500", 0));
+            assertEquals(3000, indexedFile.find("the end", 0));
+            assertEquals(5, indexedFile.find("line 5", 2600));
+            assertEquals(-1, indexedFile.find("not there", 100));
+        }
+    }
+
+    @Test
+    public void isStale_afterFileRewritten_shouldReloadNewContents() throws Exception {
+        write("one\ntwo\n");
+        try (LineIndexedFile indexedFile = LineIndexedFile.open(textFile)) {
+            assertFalse(indexedFile.isStale());
+
+            write("one\ntwo\nthree\n");
+            assertTrue(indexedFile.isStale());
+            indexedFile.reload();
+
+            assertFalse(indexedFile.isStale());
+            assertEquals(3, indexedFile.getLineCount());
+            assertEquals("three", indexedFile.getLine(2));
+        }
+    }
+
+    private void write(String contents) throws Exception {
+        Files.writeString(textFile.toPath(), contents, StandardCharsets.UTF_8);
+    }
+
+    private static String generateLines(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append("line ").append(i).append("\n");
+        }
+        return sb.toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,56 @@
+package ca.corbett.packager.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelTasksTest {
+
+    @Test
+    public void runAll_withManyInputs_shouldKeepInputOrder() throws Exception {
+        List<Integer> inputs = IntStream.range(0, 100).boxed().toList();
+
+        List<Integer> results = ParallelTasks.runAll(inputs, i -> i * 2, "doubling");
+
+        assertEquals(IntStream.range(0, 100).map(i -> i * 2).boxed().toList(), results);
+    }
+
+    @Test
+    public void runAll_withSingleInput_shouldRunOnCallingThread() throws Exception {
+        List<Thread> results = ParallelTasks.runAll(List.of(1), i -> Thread.currentThread(), "checking");
+
+        assertSame(Thread.currentThread(), results.get(0));
+    }
+
+    @Test
+    public void runAll_withFailingTask_shouldThrowItsException() {
+        IOException e = assertThrows(IOException.class, () -> ParallelTasks.runAll(List.of(1, 2, 3), i -> {
+            if (i == 2) {
+                throw new IOException("Failed on " + i);
+            }
+            return i;
+        }, "failing"));
+
+        assertEquals("Failed on 2", e.getMessage());
+    }
+
+    @Test
+    public void runAll_fromInsideATask_shouldNotWaitOnThePool() throws Exception {
+        // More outer tasks than there can be pool threads, each of which runs tasks of its own:
+        int count = Runtime.getRuntime().availableProcessors() * 2;
+        List<Integer> inputs = IntStream.range(0, count).boxed().toList();
+
+        List<Integer> results = ParallelTasks.runAll(inputs, i -> ParallelTasks.runAll(List.of(i, i), j -> j, "inner")
+                                                                                .stream()
+                                                                                .mapToInt(Integer::intValue)
+                                                                                .sum(), "outer");
+
+        assertEquals(IntStream.range(0, count).map(i -> i * 2).boxed().toList(), results);
+    }
+}
\ No newline at end of file
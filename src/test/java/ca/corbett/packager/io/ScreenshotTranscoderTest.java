@@ -0,0 +1,88 @@
+package ca.corbett.packager.io;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScreenshotTranscoderTest {
+
+    private File sourceDir;
+    private File targetDir;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        sourceDir = Files.createTempDirectory("transcoderTestSource").toFile();
+        targetDir = new File(Files.createTempDirectory("transcoderTestTarget").toFile(), "out");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        deleteDir(sourceDir);
+        deleteDir(targetDir.getParentFile());
+    }
+
+    @Test
+    public void transcodeAll_withOversizedPng_shouldScaleToJpeg() throws Exception {
+        File source = writeImage("myExt_1.png", 800, 400, BufferedImage.TYPE_INT_ARGB, "png");
+        ScreenshotTranscoder transcoder = new ScreenshotTranscoder(200, 80);
+
+        List<File> results = transcoder.transcodeAll(List.of(source), targetDir);
+
+        assertEquals(1, results.size());
+        assertEquals("myExt_1.jpg", results.get(0).getName());
+        BufferedImage result = ImageIO.read(results.get(0));
+        assertEquals(200, result.getWidth());
+        assertEquals(100, result.getHeight());
+    }
+
+    @Test
+    public void transcodeAll_withSmallJpeg_shouldCopyAsIs() throws Exception {
+        File source = writeImage("myExt_1.jpg", 100, 50, BufferedImage.TYPE_INT_RGB, "jpg");
+        ScreenshotTranscoder transcoder = new ScreenshotTranscoder(200, 80);
+
+        List<File> results = transcoder.transcodeAll(List.of(source), targetDir);
+
+        assertArrayEquals(Files.readAllBytes(source.toPath()), Files.readAllBytes(results.get(0).toPath()));
+    }
+
+    @Test
+    public void transcodeAll_withCollidingNames_shouldKeepBothInOrder() throws Exception {
+        File png = writeImage("myExt_1.png", 300, 300, BufferedImage.TYPE_INT_RGB, "png");
+        File jpg = writeImage("myExt_1.jpg", 300, 300, BufferedImage.TYPE_INT_RGB, "jpg");
+        ScreenshotTranscoder transcoder = new ScreenshotTranscoder(200, 80);
+
+        List<File> results = transcoder.transcodeAll(List.of(png, jpg), targetDir);
+
+        assertEquals("myExt_1.jpg", results.get(0).getName());
+        assertEquals("myExt_1_jpg.jpg", results.get(1).getName());
+        assertTrue(results.get(0).exists());
+        assertTrue(results.get(1).exists());
+    }
+
+    private File writeImage(String name, int width, int height, int type, String format) throws IOException {
+        File file = new File(sourceDir, name);
+        ImageIO.write(new BufferedImage(width, height, type), format, file);
+        return file;
+    }
+
+    private static void deleteDir(File dir) throws IOException {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                deleteDir(file);
+            }
+        }
+        Files.deleteIfExists(dir.toPath());
+    }
+}
\ No newline at end of file
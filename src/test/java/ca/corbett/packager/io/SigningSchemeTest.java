@@ -0,0 +1,152 @@
+package ca.corbett.packager.io;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SigningSchemeTest {
+
+    private static final Logger log = Logger.getLogger(SigningSchemeTest.class.getName());
+
+    private File tempDir;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        tempDir = Files.createTempDirectory("signingSchemeTest").toFile();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        for (File file : tempDir.listFiles()) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(tempDir.toPath());
+    }
+
+    @Test
+    public void fromId_withUnknownOrBlankId_shouldDefaultToRsa() {
+        assertEquals(SigningScheme.ED25519, SigningScheme.fromId("ed25519"));
+        assertEquals(SigningScheme.RSA, SigningScheme.fromId("SHA256withRSA"));
+        assertEquals(SigningScheme.RSA, SigningScheme.fromId(""));
+        assertEquals(SigningScheme.RSA, SigningScheme.fromId("nonsense"));
+    }
+
+    @Test
+    public void forKey_withEd25519Keys_shouldReturnEd25519() throws Exception {
+        KeyPair keyPair = SigningScheme.ED25519.generateKeyPair();
+        assertEquals(SigningScheme.ED25519, SigningScheme.forKey(keyPair.getPublic()));
+        assertEquals(SigningScheme.ED25519, SigningScheme.forKey(keyPair.getPrivate()));
+    }
+
+    @Test
+    public void forKey_withUnsupportedKey_shouldThrow() throws Exception {
+        KeyPair keyPair = KeyPairGenerator.getInstance("EC").generateKeyPair();
+        assertThrows(IllegalArgumentException.class, () -> SigningScheme.forKey(keyPair.getPublic()));
+    }
+
+    @Test
+    public void keyFiles_withEd25519Keys_shouldRoundTripWithHeader() throws Exception {
+        KeyPair keyPair = SigningScheme.ED25519.generateKeyPair();
+        File publicKeyFile = new File(tempDir, "public.key");
+        File privateKeyFile = new File(tempDir, "private.key");
+
+        KeyFiles.savePublicKey(keyPair.getPublic(), publicKeyFile);
+        KeyFiles.savePrivateKey(keyPair.getPrivate(), privateKeyFile);
+
+        assertTrue(Files.readString(publicKeyFile.toPath()).startsWith(KeyFiles.ALGORITHM_HEADER + "Ed25519"));
+        assertEquals(SigningScheme.ED25519, KeyFiles.readScheme(privateKeyFile));
+        assertArrayEquals(keyPair.getPublic().getEncoded(), KeyFiles.loadPublicKey(publicKeyFile).getEncoded());
+        assertArrayEquals(keyPair.getPrivate().getEncoded(), KeyFiles.loadPrivateKey(privateKeyFile).getEncoded());
+    }
+
+    @Test
+    public void readScheme_withLegacyKeyFile_shouldReturnNull() throws Exception {
+        File keyFile = new File(tempDir, "legacy.key");
+        Files.writeString(keyFile.toPath(), "MIIBIjANBgkqhkiG9w0BAQEFAAOCAQ8AMIIBCgKCAQEA");
+        assertNull(KeyFiles.readScheme(keyFile));
+    }
+
+    @Test
+    public void readScheme_withUnknownAlgorithm_shouldThrow() throws Exception {
+        File keyFile = new File(tempDir, "unknown.key");
+        Files.writeString(keyFile.toPath(), KeyFiles.ALGORITHM_HEADER + "Ed448\nAAAA\n");
+        assertThrows(IOException.class, () -> KeyFiles.readScheme(keyFile));
+    }
+
+    @Test
+    public void signFile_withEd25519Key_shouldRoundTrip() throws Exception {
+        KeyPair keyPair = SigningScheme.ED25519.generateKeyPair();
+        File dataFile = createRandomFile("data.jar", 256 * 1024);
+        File sigFile = new File(tempDir, "data.sig");
+
+        FileSigner.signFile(dataFile, keyPair.getPrivate(), sigFile);
+
+        assertTrue(FileSigner.verifyFile(dataFile, sigFile, keyPair.getPublic()));
+        assertFalse(FileSigner.verifyFile(dataFile, sigFile, SigningScheme.ED25519.generateKeyPair().getPublic()));
+    }
+
+    /**
+     * Compares key generation, signing, and verification throughput of each scheme across
+     * a batch of typical jar-sized files. Only runs with -Dextpackager.benchmarks=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "extpackager.benchmarks", matches = "true")
+    public void benchmark_compareSchemes() throws Exception {
+        final int fileCount = 200;
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < fileCount; i++) {
+            files.add(createRandomFile("jar" + i + ".jar", 256 * 1024));
+        }
+
+        for (SigningScheme scheme : SigningScheme.values()) {
+            long start = System.nanoTime();
+            KeyPair keyPair = null;
+            for (int i = 0; i < 10; i++) {
+                keyPair = scheme.generateKeyPair();
+            }
+            long keyGenMicros = (System.nanoTime() - start) / 10_000;
+
+            start = System.nanoTime();
+            for (File file : files) {
+                FileSigner.signFile(file, keyPair.getPrivate(), new File(file.getPath() + ".sig"));
+            }
+            long signMs = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            for (File file : files) {
+                assertTrue(FileSigner.verifyFile(file, new File(file.getPath() + ".sig"), keyPair.getPublic()));
+            }
+            long verifyMs = (System.nanoTime() - start) / 1_000_000;
+
+            log.info(scheme.getSignatureAlgorithm() + ": keygen=" + keyGenMicros + "us/pair, "
+                             + "sign " + fileCount + " jars=" + signMs + "ms, "
+                             + "verify " + fileCount + " jars=" + verifyMs + "ms");
+        }
+    }
+
+    private File createRandomFile(String name, int size) throws IOException {
+        byte[] bytes = new byte[size];
+        new Random().nextBytes(bytes);
+        File file = new File(tempDir, name);
+        Files.write(file.toPath(), bytes);
+        return file;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,146 @@
+package ca.corbett.packager.io;
+
+import ca.corbett.extensions.AppExtensionInfo;
+import ca.corbett.packager.project.Project;
+import ca.corbett.packager.project.ProjectManager;
+import ca.corbett.packager.project.ProjectManagerTest;
+import ca.corbett.packager.project.Workspace;
+import ca.corbett.updates.UpdateSources;
+import ca.corbett.updates.VersionManifest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkspaceBatchThreadTest {
+
+    private File rootDir;
+    private File targetDir;
+    private Project project;
+    private Workspace workspace;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        rootDir = Files.createTempDirectory("workspaceBatchThreadTest").toFile();
+        targetDir = new File(rootDir, "target");
+        targetDir.mkdirs();
+
+        project = Project.createNew("Test", new File(rootDir, "project"));
+        project.setKeyPair(SigningScheme.ED25519.generateKeyPair());
+        UpdateSources updateSources = new UpdateSources("Test");
+        updateSources.addUpdateSource(new UpdateSources.UpdateSource("Local", targetDir.toURI().toURL(),
+                                                                     "version_manifest.json", "public.key"));
+        project.setUpdateSources(updateSources);
+        File jarFile = createJar(project);
+        project.updateManifest(manifest -> manifest.addApplicationVersion(createAppVersion(jarFile)));
+        project.save();
+
+        workspace = new Workspace(new File(rootDir, "workspace.json"));
+        workspace.addProjectFile(project.getProjectFile());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        ProjectManager.getInstance().close();
+        ProjectManagerTest.deleteDirectoryRecursively(rootDir);
+    }
+
+    @Test
+    public void signMissing_withUnsignedJar_shouldSignAndSaveProject() throws Exception {
+        WorkspaceBatchThread.Result result = runBatch(WorkspaceBatchThread.Operation.SIGN_MISSING);
+
+        assertTrue(result.success, result.message);
+        assertEquals("1 jar(s) signed.", result.message);
+        assertTrue(new File(project.getDistDir(), "extensions/1.0/Ext-1.0.0.sig").exists());
+        assertEquals("extensions/1.0/Ext-1.0.0.sig",
+                     getSignaturePath(Project.fromFile(project.getProjectFile())));
+    }
+
+    @Test
+    public void signMissing_withProjectOpenInUI_shouldApplyChangesToOpenProject() throws Exception {
+        ProjectManager projectManager = ProjectManager.getInstance();
+        projectManager.loadProject(project.getProjectFile());
+        Project openProject = projectManager.getProject();
+
+        WorkspaceBatchThread.Result result = runBatch(WorkspaceBatchThread.Operation.SIGN_MISSING);
+
+        assertTrue(result.success, result.message);
+        assertSame(openProject, projectManager.getProject());
+        assertEquals("extensions/1.0/Ext-1.0.0.sig", getSignaturePath(openProject));
+
+        // The open project is saved the usual (deferred) way:
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!projectManager.isProjectOpen() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(projectManager.isProjectOpen());
+        assertEquals("extensions/1.0/Ext-1.0.0.sig",
+                     getSignaturePath(Project.fromFile(project.getProjectFile())));
+    }
+
+    @Test
+    public void publish_withFileSystemSource_shouldCopyDistributionFiles() throws Exception {
+        WorkspaceBatchThread.Result result = runBatch(WorkspaceBatchThread.Operation.PUBLISH);
+
+        assertTrue(result.success, result.message);
+        assertEquals("published to Local", result.message);
+        assertTrue(new File(targetDir, "version_manifest.json").exists());
+        assertTrue(new File(targetDir, "public.key").exists());
+        assertTrue(new File(targetDir, "extensions/1.0/Ext-1.0.0.jar").exists());
+        assertNotNull(Project.fromFile(project.getProjectFile()).readManifest(VersionManifest::getManifestGenerated));
+    }
+
+    private WorkspaceBatchThread.Result runBatch(WorkspaceBatchThread.Operation operation) {
+        WorkspaceBatchThread thread = new WorkspaceBatchThread(workspace, operation);
+        thread.run();
+        List<WorkspaceBatchThread.Result> results = thread.getResults();
+        assertEquals(1, results.size());
+        return results.get(0);
+    }
+
+    private static String getSignaturePath(Project project) {
+        return project.readManifest(manifest -> manifest.getApplicationVersions().get(0)
+                                                        .getExtensions().get(0)
+                                                        .getVersions().get(0)
+                                                        .getSignaturePath());
+    }
+
+    private static File createJar(Project project) throws IOException {
+        File jarFile = new File(project.getExtensionsDir(), "1.0/Ext-1.0.0.jar");
+        jarFile.getParentFile().mkdirs();
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jarFile.toPath()))) {
+            out.putNextEntry(new ZipEntry("Ext.class"));
+            out.write(new byte[]{1, 2, 3, 4});
+            out.closeEntry();
+        }
+        return jarFile;
+    }
+
+    private static VersionManifest.ApplicationVersion createAppVersion(File jarFile) {
+        VersionManifest.ExtensionVersion extensionVersion = new VersionManifest.ExtensionVersion();
+        extensionVersion.setExtInfo(new AppExtensionInfo.Builder("Ext")
+                                            .setTargetAppName("Test")
+                                            .setTargetAppVersion("1.0")
+                                            .setVersion("1.0.0")
+                                            .build());
+        extensionVersion.setDownloadPath("extensions/1.0/" + jarFile.getName());
+        VersionManifest.Extension extension = new VersionManifest.Extension();
+        extension.setName("Ext");
+        extension.addVersion(extensionVersion);
+        VersionManifest.ApplicationVersion appVersion = new VersionManifest.ApplicationVersion();
+        appVersion.setVersion("1.0");
+        appVersion.addExtension(extension);
+        return appVersion;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,104 @@
+package ca.corbett.packager.project;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncListenerDispatcherTest {
+
+    private List<Runnable> workerQueue;
+    private List<Runnable> applierQueue;
+    private AsyncListenerDispatcher dispatcher;
+    private TestListener listener;
+
+    @BeforeEach
+    public void setup() {
+        workerQueue = new ArrayList<>();
+        applierQueue = new ArrayList<>();
+        dispatcher = new AsyncListenerDispatcher(workerQueue::add, applierQueue::add);
+        listener = new TestListener();
+    }
+
+    @Test
+    public void dispatch_withSingleEvent_shouldComputeAndApply() {
+        dispatcher.dispatch(listener, null);
+        runAll(workerQueue);
+        runAll(applierQueue);
+
+        assertEquals(List.of(1), listener.applied);
+    }
+
+    @Test
+    public void dispatch_withNewerEventBeforeApply_shouldDiscardStaleResult() {
+        dispatcher.dispatch(listener, null);
+        runAll(workerQueue); // first result is computed but not yet applied
+        dispatcher.dispatch(listener, null);
+        runAll(workerQueue);
+        runAll(applierQueue);
+
+        assertEquals(List.of(2), listener.applied);
+    }
+
+    @Test
+    public void dispatch_withNewerEventBeforeCompute_shouldSkipStaleComputation() {
+        dispatcher.dispatch(listener, null);
+        dispatcher.dispatch(listener, null);
+        runAll(workerQueue);
+        runAll(applierQueue);
+
+        assertEquals(1, listener.computeCount);
+        assertEquals(List.of(1), listener.applied);
+    }
+
+    @Test
+    public void cancelAll_withPendingResult_shouldNotApply() {
+        dispatcher.dispatch(listener, null);
+        runAll(workerQueue);
+        dispatcher.cancelAll();
+        runAll(applierQueue);
+
+        assertTrue(listener.applied.isEmpty());
+    }
+
+    private static void runAll(List<Runnable> queue) {
+        List<Runnable> copy = new ArrayList<>(queue);
+        queue.clear();
+        copy.forEach(Runnable::run);
+    }
+
+    private static class TestListener implements AsyncProjectListener<Integer> {
+        private int computeCount;
+        private final List<Integer> applied = new ArrayList<>();
+
+        @Override
+        public Integer computeViewModel(Project project) {
+            return ++computeCount;
+        }
+
+        @Override
+        public void applyViewModel(Project project, Integer viewModel) {
+            applied.add(viewModel);
+        }
+
+        @Override
+        public void projectWillLoad(Project project) {
+        }
+
+        @Override
+        public void projectLoaded(Project project) {
+        }
+
+        @Override
+        public void projectSaved(Project project) {
+        }
+
+        @Override
+        public void projectClosed(Project project) {
+        }
+    }
+}
\ No newline at end of file
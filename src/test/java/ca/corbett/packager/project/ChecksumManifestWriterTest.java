@@ -0,0 +1,112 @@
+package ca.corbett.packager.project;
+
+import ca.corbett.packager.io.FileHashCache;
+import ca.corbett.packager.io.FileSigner;
+import ca.corbett.packager.io.SigningScheme;
+import ca.corbett.updates.VersionManifest;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.KeyPair;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChecksumManifestWriterTest {
+
+    private static KeyPair keyPair;
+    private final Gson gson = new Gson();
+    private File distDir;
+
+    @BeforeAll
+    public static void initialize() throws Exception {
+        keyPair = SigningScheme.ED25519.generateKeyPair();
+    }
+
+    @BeforeEach
+    public void setup() throws Exception {
+        distDir = Files.createTempDirectory("checksumManifestWriterTest").toFile();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        ProjectManagerTest.deleteDirectoryRecursively(distDir);
+    }
+
+    @Test
+    public void write_withReferencedFiles_shouldListHashesAndSignDocument() throws Exception {
+        File jar = createFile("extensions/1.0/Ext-1.0.0.jar", "jar contents");
+        createFile("extensions/1.0/Ext-1.0.0.png", "screenshot");
+        VersionManifest manifest = createManifest("1.0.0", "2.0.0"); // no jar on disk for 2.0.0
+
+        List<File> written = new ChecksumManifestWriter(gson).write(manifest, distDir, keyPair.getPrivate());
+
+        ChecksumManifestWriter.ChecksumManifest checksums = readChecksums();
+        assertEquals(2, checksums.files.size());
+        assertEquals(FileHashCache.computeHash(jar), checksums.files.get("extensions/1.0/Ext-1.0.0.jar"));
+        assertTrue(checksums.files.containsKey("extensions/1.0/Ext-1.0.0.png"));
+        assertFalse(checksums.files.containsKey("extensions/1.0/Ext-2.0.0.jar"));
+        assertTrue(FileSigner.verifyFile(written.get(0), written.get(1), keyPair.getPublic()));
+    }
+
+    @Test
+    public void write_afterFileChanged_shouldRehashChangedFile() throws Exception {
+        File jar = createFile("extensions/1.0/Ext-1.0.0.jar", "version one");
+        ChecksumManifestWriter writer = new ChecksumManifestWriter(gson);
+        writer.write(createManifest("1.0.0"), distDir, keyPair.getPrivate());
+        String firstHash = readChecksums().files.get("extensions/1.0/Ext-1.0.0.jar");
+
+        Files.writeString(jar.toPath(), "version two, which is longer");
+        writer.write(createManifest("1.0.0"), distDir, keyPair.getPrivate());
+
+        String secondHash = readChecksums().files.get("extensions/1.0/Ext-1.0.0.jar");
+        assertNotEquals(firstHash, secondHash);
+        assertEquals(FileHashCache.computeHash(jar), secondHash);
+    }
+
+    @Test
+    public void clean_shouldRemoveChecksumFiles() throws Exception {
+        createFile("extensions/1.0/Ext-1.0.0.jar", "jar contents");
+        List<File> written = new ChecksumManifestWriter(gson).write(createManifest("1.0.0"), distDir,
+                                                                    keyPair.getPrivate());
+
+        ChecksumManifestWriter.clean(distDir);
+
+        for (File file : written) {
+            assertFalse(file.exists());
+        }
+    }
+
+    private ChecksumManifestWriter.ChecksumManifest readChecksums() throws IOException {
+        File file = new File(distDir, ChecksumManifestWriter.CHECKSUM_FILE_NAME);
+        return gson.fromJson(Files.readString(file.toPath()), ChecksumManifestWriter.ChecksumManifest.class);
+    }
+
+    private File createFile(String path, String contents) throws IOException {
+        File file = new File(distDir, path);
+        file.getParentFile().mkdirs();
+        Files.writeString(file.toPath(), contents);
+        return file;
+    }
+
+    /**
+     * Returns a manifest as from TestManifests, with one screenshot for each extension version.
+     */
+    private static VersionManifest createManifest(String... extensionVersions) {
+        VersionManifest manifest = TestManifests.createManifest(extensionVersions);
+        for (VersionManifest.ExtensionVersion version : manifest.getApplicationVersions().get(0)
+                                                                .getExtensions().get(0).getVersions()) {
+            version.addScreenshot(version.getDownloadPath().replace(".jar", ".png"));
+        }
+        return manifest;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,158 @@
+package ca.corbett.packager.project;
+
+import ca.corbett.packager.io.FileHashCache;
+import ca.corbett.packager.io.FileSigner;
+import ca.corbett.packager.io.JarDelta;
+import ca.corbett.packager.io.SigningScheme;
+import ca.corbett.updates.VersionManifest;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.KeyPair;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeltaPatchWriterTest {
+
+    private static KeyPair keyPair;
+    private final Gson gson = new Gson();
+    private File distDir;
+
+    @BeforeAll
+    public static void initialize() throws Exception {
+        keyPair = SigningScheme.ED25519.generateKeyPair();
+    }
+
+    @BeforeEach
+    public void setup() throws Exception {
+        distDir = Files.createTempDirectory("deltaPatchWriterTest").toFile();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        ProjectManagerTest.deleteDirectoryRecursively(distDir);
+    }
+
+    @Test
+    public void getPatchPath_shouldReplaceJarExtension() {
+        assertEquals("extensions/1.0/Ext-1.0.0.patch", DeltaPatchWriter.getPatchPath("extensions/1.0/Ext-1.0.0.jar"));
+        assertEquals("extensions/1.0/Ext.patch", DeltaPatchWriter.getPatchPath("extensions/1.0/Ext"));
+        assertNull(DeltaPatchWriter.getPatchPath(null));
+    }
+
+    @Test
+    public void write_withConsecutiveVersions_shouldPublishVerifiedPatches() throws Exception {
+        createJar("1.0.0", 1, 2, 3);
+        createJar("1.2.0", 1, 2, 4);
+        File newest = createJar("1.10.0", 1, 5, 4);
+        File sigFile = new File(distDir, "extensions/1.0/Ext-1.10.0.sig");
+        FileSigner.signFile(newest, keyPair.getPrivate(), sigFile);
+        // Deliberately out of order, to make sure versions are sorted numerically:
+        VersionManifest manifest = TestManifests.createManifest("1.10.0", "1.0.0", "1.2.0");
+        manifest.getApplicationVersions().get(0).getExtensions().get(0).getVersions().get(0)
+                .setSignaturePath("extensions/1.0/Ext-1.10.0.sig");
+
+        File indexFile = new DeltaPatchWriter(gson).write(manifest, distDir, keyPair.getPublic());
+
+        DeltaPatchWriter.PatchIndex index = gson.fromJson(Files.readString(indexFile.toPath()),
+                                                          DeltaPatchWriter.PatchIndex.class);
+        assertEquals(2, index.patches.size());
+        DeltaPatchWriter.Patch patch = index.patches.get(1);
+        assertEquals("1.2.0", patch.fromVersion);
+        assertEquals("1.10.0", patch.toVersion);
+        assertEquals("extensions/1.0/Ext-1.10.0.patch", patch.patchPath);
+        assertEquals(FileHashCache.computeHash(newest), patch.toSha256);
+
+        File patched = new File(distDir, "patched.jar");
+        JarDelta.apply(new File(distDir, patch.fromPath), new File(distDir, patch.patchPath), patched);
+        assertArrayEquals(Files.readAllBytes(newest.toPath()), Files.readAllBytes(patched.toPath()));
+        assertTrue(patch.patchSize < newest.length());
+    }
+
+    @Test
+    public void write_withPatchFailingVerification_shouldDropPatchAndContinue() throws Exception {
+        File oldest = createJar("1.0.0", 1, 2, 3);
+        createJar("1.1.0", 1, 2, 4);
+        createJar("1.2.0", 1, 5, 4);
+        // A signature that the patched 1.1.0 jar can't possibly match:
+        FileSigner.signFile(oldest, keyPair.getPrivate(), new File(distDir, "extensions/1.0/Ext-1.1.0.sig"));
+        VersionManifest manifest = TestManifests.createManifest("1.0.0", "1.1.0", "1.2.0");
+        manifest.getApplicationVersions().get(0).getExtensions().get(0).getVersions().get(1)
+                .setSignaturePath("extensions/1.0/Ext-1.1.0.sig");
+
+        File indexFile = new DeltaPatchWriter(gson).write(manifest, distDir, keyPair.getPublic());
+
+        DeltaPatchWriter.PatchIndex index = gson.fromJson(Files.readString(indexFile.toPath()),
+                                                          DeltaPatchWriter.PatchIndex.class);
+        assertEquals(1, index.patches.size());
+        assertEquals("1.2.0", index.patches.get(0).toVersion);
+        assertFalse(new File(distDir, "extensions/1.0/Ext-1.1.0.patch").exists());
+        assertTrue(new File(distDir, "extensions/1.0/Ext-1.2.0.patch").exists());
+    }
+
+    @Test
+    public void write_withUnchangedJars_shouldKeepExistingPatch() throws Exception {
+        createJar("1.0.0", 1, 2, 3);
+        createJar("1.1.0", 1, 2, 4);
+        DeltaPatchWriter writer = new DeltaPatchWriter(gson);
+        writer.write(TestManifests.createManifest("1.0.0", "1.1.0"), distDir, null);
+        File patchFile = new File(distDir, "extensions/1.0/Ext-1.1.0.patch");
+        assertTrue(patchFile.setLastModified(1_000_000_000_000L));
+
+        new DeltaPatchWriter(gson).write(TestManifests.createManifest("1.0.0", "1.1.0"), distDir, null);
+
+        assertEquals(1_000_000_000_000L, patchFile.lastModified());
+    }
+
+    @Test
+    public void write_afterVersionRemoved_shouldDeleteStalePatch() throws Exception {
+        createJar("1.0.0", 1, 2, 3);
+        createJar("1.1.0", 1, 2, 4);
+        DeltaPatchWriter writer = new DeltaPatchWriter(gson);
+        writer.write(TestManifests.createManifest("1.0.0", "1.1.0"), distDir, null);
+        File patchFile = new File(distDir, "extensions/1.0/Ext-1.1.0.patch");
+        assertTrue(patchFile.exists());
+
+        writer.write(TestManifests.createManifest("1.1.0"), distDir, null);
+        assertFalse(patchFile.exists());
+
+        writer.write(TestManifests.createManifest("1.0.0", "1.1.0"), distDir, null);
+        DeltaPatchWriter.clean(distDir);
+        assertFalse(patchFile.exists());
+        assertFalse(new File(distDir, DeltaPatchWriter.INDEX_FILE_NAME).exists());
+    }
+
+    /**
+     * Writes a jar for the given extension version, with one 20k entry for each of the given seeds.
+     */
+    private File createJar(String version, int... seeds) throws IOException {
+        File jarFile = new File(distDir, "extensions/1.0/Ext-" + version + ".jar");
+        jarFile.getParentFile().mkdirs();
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jarFile.toPath()))) {
+            for (int seed : seeds) {
+                byte[] contents = new byte[20_000];
+                new Random(seed).nextBytes(contents);
+                ZipEntry entry = new ZipEntry("Class" + seed + ".class");
+                entry.setTimeLocal(LocalDateTime.of(2020, 1, 1, 0, 0));
+                out.putNextEntry(entry);
+                out.write(contents);
+                out.closeEntry();
+            }
+        }
+        return jarFile;
+    }
+}
\ No newline at end of file
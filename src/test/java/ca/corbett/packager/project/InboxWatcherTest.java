@@ -0,0 +1,146 @@
+package ca.corbett.packager.project;
+
+import ca.corbett.packager.io.SigningScheme;
+import ca.corbett.updates.VersionManifest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InboxWatcherTest {
+
+    private final ProjectManager projectManager = ProjectManager.getInstance();
+    private File projectDir;
+    private File inboxDir;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        projectDir = new File(System.getProperty("java.io.tmpdir"), "inboxWatcherTest_" + System.currentTimeMillis());
+        projectManager.newProject("Test", projectDir);
+        inboxDir = Files.createTempDirectory("inboxWatcherTest").toFile();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        projectManager.close();
+        ProjectManagerTest.deleteDirectoryRecursively(projectDir);
+        ProjectManagerTest.deleteDirectoryRecursively(inboxDir);
+    }
+
+    @Test
+    public void importReadyFiles_whileJarIsStillGrowing_shouldWaitForStableSize() throws Exception {
+        // GIVEN a jar that is only partly written when it shows up in the inbox:
+        InboxWatcher watcher = new InboxWatcher(projectManager.getProject(), inboxDir, false);
+        byte[] jar = ProjectManagerTest.createJar(ProjectManagerTest.createExtInfoJson("MyExtension"));
+        File jarFile = new File(inboxDir, "MyExtension-1.0.0.jar");
+        Files.write(jarFile.toPath(), Arrays.copyOf(jar, jar.length / 2));
+        watcher.handleEvents(List.of(event(StandardWatchEventKinds.ENTRY_CREATE, jarFile.toPath().getFileName())));
+
+        // WHEN it is checked before the quiet period is up, and again after it grows:
+        watcher.importReadyFiles(System.currentTimeMillis());
+        Files.write(jarFile.toPath(), jar);
+        watcher.importReadyFiles(System.currentTimeMillis() + InboxWatcher.QUIET_PERIOD_MS);
+
+        // THEN it should be left alone, because it's too new and then because its size changed:
+        assertTrue(jarFile.exists());
+
+        // WHEN it is checked once more with the same size:
+        watcher.importReadyFiles(System.currentTimeMillis() + InboxWatcher.QUIET_PERIOD_MS);
+
+        // THEN it should be imported and moved out of the way:
+        assertFalse(jarFile.exists());
+        assertTrue(new File(inboxDir, InboxWatcher.IMPORTED_DIR_NAME + "/MyExtension-1.0.0.jar").exists());
+        SwingUtilities.invokeAndWait(() -> { }); // the manifest is updated on the EDT
+        assertEquals("1.0.0", getImportedVersion(projectManager.getProject()).getExtInfo().getVersion());
+    }
+
+    @Test
+    public void handleEvents_withOverflow_shouldRescanAndSortJarsIntoImportedAndFailed() throws Exception {
+        // GIVEN an inbox with a good jar, a broken jar, and a file that isn't a jar at all:
+        InboxWatcher watcher = new InboxWatcher(projectManager.getProject(), inboxDir, false);
+        File goodJar = new File(inboxDir, "MyExtension-1.0.0.jar");
+        byte[] jar = ProjectManagerTest.createJar(ProjectManagerTest.createExtInfoJson("MyExtension"));
+        Files.write(goodJar.toPath(), jar);
+        File brokenJar = new File(inboxDir, "broken.jar");
+        Files.writeString(brokenJar.toPath(), "This is not a jar file.");
+        File textFile = new File(inboxDir, "readme.txt");
+        Files.writeString(textFile.toPath(), "Not for us.");
+
+        // WHEN we're told that events were lost, and the files sit still for the quiet period:
+        watcher.handleEvents(List.of(event(StandardWatchEventKinds.OVERFLOW, null)));
+        watcher.importReadyFiles(System.currentTimeMillis() + InboxWatcher.QUIET_PERIOD_MS);
+        watcher.importReadyFiles(System.currentTimeMillis() + InboxWatcher.QUIET_PERIOD_MS);
+
+        // THEN each jar should be moved according to whether it imported, and the text file left alone:
+        assertTrue(new File(inboxDir, InboxWatcher.IMPORTED_DIR_NAME + "/MyExtension-1.0.0.jar").exists());
+        assertTrue(new File(inboxDir, InboxWatcher.FAILED_DIR_NAME + "/broken.jar").exists());
+        assertFalse(goodJar.exists());
+        assertFalse(brokenJar.exists());
+        assertTrue(textFile.exists());
+    }
+
+    @Test
+    public void importReadyFiles_withAutoSign_shouldSignImportedJar() throws Exception {
+        // GIVEN a project with a key pair, and an auto-signing watcher with a jar waiting in its inbox:
+        Project project = projectManager.getProject();
+        project.setKeyPair(SigningScheme.ED25519.generateKeyPair());
+        InboxWatcher watcher = new InboxWatcher(project, inboxDir, true);
+        File jarFile = new File(inboxDir, "MyExtension-1.0.0.jar");
+        byte[] jar = ProjectManagerTest.createJar(ProjectManagerTest.createExtInfoJson("MyExtension"));
+        Files.write(jarFile.toPath(), jar);
+        watcher.handleEvents(List.of(event(StandardWatchEventKinds.ENTRY_CREATE, jarFile.toPath().getFileName())));
+
+        // WHEN it is imported:
+        watcher.importReadyFiles(System.currentTimeMillis() + InboxWatcher.QUIET_PERIOD_MS);
+        watcher.importReadyFiles(System.currentTimeMillis() + InboxWatcher.QUIET_PERIOD_MS);
+        SwingUtilities.invokeAndWait(() -> { });
+
+        // THEN its signature should be written next to it and recorded in the manifest:
+        VersionManifest.ExtensionVersion extVersion = getImportedVersion(project);
+        assertNotNull(extVersion.getSignaturePath());
+        File sigFile = projectManager.computeExtensionFile(project, extVersion, "MyExtension-1.0.0.sig");
+        assertTrue(sigFile.exists());
+    }
+
+    /**
+     * Returns the first version of the first extension in the given project's manifest.
+     */
+    private static VersionManifest.ExtensionVersion getImportedVersion(Project project) {
+        return project.readManifest(manifest -> manifest.getApplicationVersions().get(0)
+                                                        .getExtensions().get(0).getVersions().get(0));
+    }
+
+    private static WatchEvent<Path> event(WatchEvent.Kind<?> kind, Path context) {
+        return new WatchEvent<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Kind<Path> kind() {
+                return (Kind<Path>)kind;
+            }
+
+            @Override
+            public int count() {
+                return 1;
+            }
+
+            @Override
+            public Path context() {
+                return context;
+            }
+        };
+    }
+}
\ No newline at end of file
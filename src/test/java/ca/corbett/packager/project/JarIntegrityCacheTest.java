@@ -0,0 +1,90 @@
+package ca.corbett.packager.project;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JarIntegrityCacheTest {
+
+    private File tempDir;
+    private JarIntegrityCache cache;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        tempDir = Files.createTempDirectory("jarIntegrityCacheTest").toFile();
+        cache = new JarIntegrityCache(new File(tempDir, "cache/jar-integrity.json"));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        ProjectManagerTest.deleteDirectoryRecursively(tempDir);
+    }
+
+    @Test
+    public void verifyAll_withGoodAndBadJars_shouldReportOnlyBadJars() throws Exception {
+        List<File> jars = List.of(writeJar("good1.jar"), writeJar("good2.jar"), writeFile("bad.jar", "not a jar"));
+
+        Map<File, String> failures = cache.verifyAll(jars);
+
+        assertEquals(1, failures.size());
+        assertTrue(failures.containsKey(jars.get(2)));
+        assertTrue(cache.getCacheFile().exists());
+    }
+
+    @Test
+    public void verify_withDamagedJar_shouldThrowEveryTime() throws Exception {
+        File jar = writeFile("bad.jar", "not a jar");
+
+        assertThrows(IOException.class, () -> cache.verify(jar));
+        assertThrows(IOException.class, () -> cache.verify(jar));
+        assertEquals(1, cache.getLastCheckedCount());
+    }
+
+    @Test
+    public void verifyAll_withMissingJar_shouldSkipIt() throws Exception {
+        assertTrue(cache.verifyAll(List.of(new File(tempDir, "missing.jar"))).isEmpty());
+    }
+
+    @Test
+    public void verifyAll_withSameBytesUnderNewName_shouldUseCachedResult() throws Exception {
+        File jar = writeJar("first.jar");
+        assertTrue(cache.verifyAll(List.of(jar)).isEmpty());
+
+        // A fresh cache instance, as if the project was reopened, must pick up the saved results:
+        File copy = new File(tempDir, "second.jar");
+        Files.copy(jar.toPath(), copy.toPath());
+        JarIntegrityCache reloaded = new JarIntegrityCache(cache.getCacheFile());
+        assertTrue(reloaded.verifyAll(List.of(jar, copy)).isEmpty());
+        assertEquals(0, reloaded.getLastCheckedCount());
+        assertTrue(Files.readString(cache.getCacheFile().toPath()).contains("second.jar"));
+    }
+
+    private File writeJar(String name) throws IOException {
+        File jarFile = new File(tempDir, name);
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jarFile.toPath()))) {
+            out.putNextEntry(new ZipEntry("extInfo.json"));
+            out.write("{}".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        return jarFile;
+    }
+
+    private File writeFile(String name, String contents) throws IOException {
+        File file = new File(tempDir, name);
+        Files.writeString(file.toPath(), contents);
+        return file;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,72 @@
+package ca.corbett.packager.project;
+
+import ca.corbett.updates.VersionManifest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ManifestDiffTest {
+
+    @Test
+    public void compute_withNoSnapshot_shouldReportEverythingAdded() {
+        VersionManifest current = TestManifests.createManifest("1.0.0", "1.1.0");
+        Map<String, String> fingerprints = Map.of("extensions/1.0/Ext-1.0.0.jar", "1:1",
+                                                  "extensions/1.0/Ext-1.1.0.jar", "1:1");
+
+        ManifestDiff diff = ManifestDiff.compute(null, current, fingerprints, new ManifestIndex());
+
+        assertFalse(diff.hasSnapshot());
+        assertEquals(2, diff.getChanges(ManifestDiff.ChangeType.ADDED).size());
+        assertEquals(2, diff.getFilesToUpload().size());
+    }
+
+    @Test
+    public void compute_withAddedAndRemovedVersions_shouldReportBoth() {
+        VersionManifest previous = TestManifests.createManifest("1.0.0", "1.1.0");
+        VersionManifest current = TestManifests.createManifest("1.1.0", "1.2.0");
+        PublishedSnapshot snapshot = new PublishedSnapshot(previous, Map.of("extensions/1.0/Ext-1.0.0.jar", "1:1",
+                                                                            "extensions/1.0/Ext-1.1.0.jar", "1:1"));
+        Map<String, String> fingerprints = Map.of("extensions/1.0/Ext-1.1.0.jar", "1:1",
+                                                  "extensions/1.0/Ext-1.2.0.jar", "1:1");
+
+        ManifestDiff diff = ManifestDiff.compute(snapshot, current, fingerprints, new ManifestIndex());
+
+        assertEquals("1.2.0", diff.getChanges(ManifestDiff.ChangeType.ADDED)
+                                  .get(0).getExtensionVersion().getExtInfo().getVersion());
+        assertEquals("1.0.0", diff.getChanges(ManifestDiff.ChangeType.REMOVED)
+                                  .get(0).getExtensionVersion().getExtInfo().getVersion());
+        assertTrue(diff.getChanges(ManifestDiff.ChangeType.CHANGED).isEmpty());
+        assertEquals(List.of("extensions/1.0/Ext-1.2.0.jar"), diff.getFilesToUpload());
+        assertEquals(List.of("extensions/1.0/Ext-1.0.0.jar"), diff.getFilesToDelete());
+    }
+
+    @Test
+    public void compute_withModifiedJar_shouldReportChanged() {
+        VersionManifest previous = TestManifests.createManifest("1.0.0");
+        VersionManifest current = TestManifests.createManifest("1.0.0");
+        PublishedSnapshot snapshot = new PublishedSnapshot(previous, Map.of("extensions/1.0/Ext-1.0.0.jar", "1:1"));
+
+        ManifestDiff diff = ManifestDiff.compute(snapshot, current, Map.of("extensions/1.0/Ext-1.0.0.jar", "2:2"),
+                                                 new ManifestIndex());
+
+        assertEquals(1, diff.getChanges(ManifestDiff.ChangeType.CHANGED).size());
+        assertEquals(List.of("extensions/1.0/Ext-1.0.0.jar"), diff.getFilesToUpload());
+    }
+
+    @Test
+    public void compute_withNothingChanged_shouldBeEmpty() {
+        PublishedSnapshot snapshot = new PublishedSnapshot(TestManifests.createManifest("1.0.0"),
+                                                           Map.of("extensions/1.0/Ext-1.0.0.jar", "1:1"));
+
+        ManifestDiff diff = ManifestDiff.compute(snapshot, TestManifests.createManifest("1.0.0"),
+                                                 Map.of("extensions/1.0/Ext-1.0.0.jar", "1:1"), new ManifestIndex());
+
+        assertTrue(diff.isEmpty());
+        assertEquals("No changes", diff.getSummary());
+    }
+}
\ No newline at end of file
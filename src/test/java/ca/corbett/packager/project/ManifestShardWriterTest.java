@@ -0,0 +1,102 @@
+package ca.corbett.packager.project;
+
+import ca.corbett.updates.VersionManifest;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ManifestShardWriterTest {
+
+    private File shardDir;
+    private final Gson gson = new Gson();
+
+    @BeforeEach
+    public void setup() throws Exception {
+        shardDir = new File(Files.createTempDirectory("manifestShardWriterTest").toFile(), "manifest");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        ProjectManagerTest.deleteDirectoryRecursively(shardDir.getParentFile());
+    }
+
+    @Test
+    public void write_withTwoAppVersions_shouldWriteIndexAndOneShardEach() throws Exception {
+        VersionManifest manifest = new VersionManifest();
+        manifest.setApplicationName("Test");
+        manifest.addApplicationVersion(createAppVersion("1.0"));
+        manifest.addApplicationVersion(createAppVersion("2.0"));
+
+        List<File> files = new ManifestShardWriter(gson).write(manifest, shardDir);
+
+        assertEquals(6, files.size());
+        assertTrue(new File(shardDir, "app-1.0.json").exists());
+        assertTrue(new File(shardDir, "app-2.0.json.gz").exists());
+        ManifestShardWriter.ShardIndex index = gson.fromJson(
+                Files.readString(new File(shardDir, ManifestShardWriter.INDEX_FILE_NAME).toPath()),
+                ManifestShardWriter.ShardIndex.class);
+        assertEquals("Test", index.applicationName);
+        assertEquals(2, index.applicationVersions.size());
+        assertEquals("manifest/app-2.0.json", index.applicationVersions.get(1).manifestPath);
+    }
+
+    @Test
+    public void write_withRemovedAppVersion_shouldRemoveStaleShard() throws Exception {
+        VersionManifest manifest = new VersionManifest();
+        manifest.setApplicationName("Test");
+        VersionManifest.ApplicationVersion appVersion = createAppVersion("1.0");
+        manifest.addApplicationVersion(appVersion);
+        new ManifestShardWriter(gson).write(manifest, shardDir);
+
+        manifest.removeApplicationVersion(appVersion);
+        new ManifestShardWriter(gson).write(manifest, shardDir);
+
+        assertFalse(new File(shardDir, "app-1.0.json").exists());
+    }
+
+    @Test
+    public void write_withCollidingShardNames_shouldKeepBothShards() throws Exception {
+        VersionManifest manifest = new VersionManifest();
+        manifest.setApplicationName("Test");
+        manifest.addApplicationVersion(createAppVersion("1.0_a"));
+        manifest.addApplicationVersion(createAppVersion("1.0/a"));
+        manifest.addApplicationVersion(createAppVersion("1.0_A"));
+
+        List<File> files = new ManifestShardWriter(gson).write(manifest, shardDir);
+
+        assertEquals(8, files.size());
+        assertTrue(new File(shardDir, "app-1.0_a.json").exists());
+        assertTrue(new File(shardDir, ManifestShardWriter.getDisambiguatedShardFileName("1.0/a")).exists());
+        assertTrue(new File(shardDir, ManifestShardWriter.getDisambiguatedShardFileName("1.0_A")).exists());
+    }
+
+    @Test
+    public void getDisambiguatedShardFileName_withDifferentVersions_shouldDiffer() {
+        String name = ManifestShardWriter.getDisambiguatedShardFileName("1.0/a");
+        assertTrue(name.startsWith("app-1.0_a-") && name.endsWith(".json"));
+        assertNotEquals(name, ManifestShardWriter.getDisambiguatedShardFileName("1.0_a"));
+    }
+
+    @Test
+    public void getShardFileName_withUnsafeCharacters_shouldReplaceThem() {
+        assertEquals("app-1.0_beta_2.json", ManifestShardWriter.getShardFileName("1.0 beta/2"));
+        assertEquals("app-unknown.json", ManifestShardWriter.getShardFileName(null));
+    }
+
+    private static VersionManifest.ApplicationVersion createAppVersion(String version) {
+        VersionManifest.ApplicationVersion appVersion = new VersionManifest.ApplicationVersion();
+        appVersion.setVersion(version);
+        return appVersion;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,73 @@
+package ca.corbett.packager.project;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProjectFileIndexTest {
+
+    private File rootDir;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        rootDir = Files.createTempDirectory("projectFileIndexTest").toFile();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        ProjectManagerTest.deleteDirectoryRecursively(rootDir);
+    }
+
+    @Test
+    public void findFiles_withNestedFiles_shouldFindOnlyMatchingExtension() throws Exception {
+        createFile("extensions/1.0/a.jar");
+        createFile("extensions/1.0/a.sig");
+        createFile("extensions/2.0/B.JAR");
+        ProjectFileIndex index = new ProjectFileIndex(rootDir);
+
+        List<File> jars = index.findFiles("jar");
+
+        assertEquals(2, jars.size());
+        assertEquals("a.jar", jars.get(0).getName());
+        assertEquals("B.JAR", jars.get(1).getName());
+        assertEquals(1, index.findFiles("sig").size());
+    }
+
+    @Test
+    public void findFiles_afterFilesAddedAndRemoved_shouldReflectChanges() throws Exception {
+        File first = createFile("extensions/1.0/a.jar");
+        ProjectFileIndex index = new ProjectFileIndex(rootDir);
+        assertEquals(1, index.findFiles("jar").size());
+
+        assertTrue(first.delete());
+        createFile("extensions/1.0/b.jar");
+        createFile("extensions/3.0/c.jar");
+        List<File> jars = index.findFiles("jar");
+
+        assertEquals(2, jars.size());
+        assertEquals("b.jar", jars.get(0).getName());
+        assertEquals("c.jar", jars.get(1).getName());
+    }
+
+    @Test
+    public void findFiles_withMissingRootDir_shouldReturnEmptyList() throws Exception {
+        ProjectFileIndex index = new ProjectFileIndex(new File(rootDir, "doesNotExist"));
+
+        assertTrue(index.findFiles("jar").isEmpty());
+    }
+
+    private File createFile(String relativePath) throws IOException {
+        File file = new File(rootDir, relativePath);
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.writeString(file.toPath(), relativePath);
+        return file;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,177 @@
+package ca.corbett.packager.project;
+
+import ca.corbett.updates.VersionManifest;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProjectManagerConcurrencyTest {
+
+    private static final int THREAD_COUNT = 16;
+    private static final int ITERATIONS = 200;
+
+    private final ProjectManager projectManager = ProjectManager.getInstance();
+    private File projectDir;
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        projectDir = Files.createTempDirectory("projectManagerConcurrencyTest").toFile();
+        projectManager.newProject("Test", projectDir);
+        executor = Executors.newFixedThreadPool(THREAD_COUNT);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        projectManager.close();
+        ProjectManagerTest.deleteDirectoryRecursively(projectDir);
+    }
+
+    @Test
+    public void getInstance_fromManyThreads_shouldAlwaysReturnSameInstance() throws Exception {
+        List<Future<ProjectManager>> futures = runConcurrently(ProjectManager::getInstance);
+
+        for (Future<ProjectManager> future : futures) {
+            assertSame(projectManager, future.get());
+        }
+    }
+
+    @Test
+    public void addAndRemoveListeners_whileFiringEvents_shouldNotThrow() throws Exception {
+        final AtomicInteger savedEvents = new AtomicInteger();
+        List<Future<Object>> futures = runConcurrently(() -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                CountingListener listener = new CountingListener(savedEvents);
+                projectManager.addProjectListener(listener);
+                projectManager.removeProjectListener(listener);
+            }
+            return null;
+        });
+
+        // Meanwhile, fire events from this thread:
+        Project project = projectManager.getProject();
+        for (int i = 0; i < ITERATIONS; i++) {
+            projectManager.installProject(project);
+        }
+
+        for (Future<Object> future : futures) {
+            future.get(); // rethrows anything that went wrong, like a ConcurrentModificationException
+        }
+    }
+
+    @Test
+    public void save_fromManyThreads_shouldScheduleSingleDeferredSave() throws Exception {
+        final AtomicInteger savedEvents = new AtomicInteger();
+        CountingListener listener = new CountingListener(savedEvents);
+        projectManager.addProjectListener(listener);
+        try {
+            List<Future<Object>> futures = runConcurrently(() -> {
+                projectManager.save();
+                return null;
+            });
+            for (Future<Object> future : futures) {
+                future.get();
+            }
+            assertTrue(projectManager.isSaveInProgress());
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (projectManager.isSaveInProgress() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+
+            assertFalse(projectManager.isSaveInProgress());
+            assertEquals(1, savedEvents.get());
+        }
+        finally {
+            projectManager.removeProjectListener(listener);
+        }
+    }
+
+    @Test
+    public void updateManifest_fromManyThreads_shouldNotLoseUpdates() throws Exception {
+        final Project project = projectManager.getProject();
+        final Gson gson = new Gson();
+        final AtomicInteger threadIndex = new AtomicInteger();
+        List<Future<Object>> futures = runConcurrently(() -> {
+            int index = threadIndex.getAndIncrement();
+            for (int i = 0; i < ITERATIONS; i++) {
+                final String version = index + "." + i;
+                project.updateManifest(manifest -> {
+                    VersionManifest.ApplicationVersion appVersion = new VersionManifest.ApplicationVersion();
+                    appVersion.setVersion(version);
+                    manifest.addApplicationVersion(appVersion);
+                });
+                // Readers must never see the manifest in a half-modified state:
+                project.readManifest(gson::toJson);
+            }
+            return null;
+        });
+        for (Future<Object> future : futures) {
+            future.get();
+        }
+
+        int count = project.readManifest(manifest -> manifest.getApplicationVersions().size());
+        assertEquals(THREAD_COUNT * ITERATIONS, count);
+    }
+
+    /**
+     * Runs the given task on every pool thread at once, releasing them all together to maximize contention.
+     */
+    private <T> List<Future<T>> runConcurrently(Callable<T> task) throws InterruptedException {
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            futures.add(executor.submit(() -> {
+                startLatch.await(5, TimeUnit.SECONDS);
+                return task.call();
+            }));
+        }
+        startLatch.countDown();
+        return futures;
+    }
+
+    private static class CountingListener implements ProjectListener {
+        private final AtomicInteger savedEvents;
+
+        CountingListener(AtomicInteger savedEvents) {
+            this.savedEvents = savedEvents;
+        }
+
+        @Override
+        public void projectWillLoad(Project project) {
+        }
+
+        @Override
+        public void projectLoaded(Project project) {
+        }
+
+        @Override
+        public void projectSaved(Project project) {
+            savedEvents.incrementAndGet();
+        }
+
+        @Override
+        public void projectClosed(Project project) {
+        }
+    }
+}
\ No newline at end of file
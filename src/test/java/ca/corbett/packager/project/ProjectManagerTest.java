@@ -7,15 +7,28 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ProjectManagerTest {
 
@@ -279,6 +292,254 @@ public class ProjectManagerTest {
         assertEquals("extensions/MyExtension.zip", newFilePath);
     }
 
+    @Test
+    public void writeScreenshot_givenSameImageTwice_shouldReuseFile() throws Exception {
+        // GIVEN an extension version and a screenshot image:
+        VersionManifest.ExtensionVersion version = new VersionManifest.ExtensionVersion();
+        version.setExtInfo(new AppExtensionInfo.Builder("test")
+                                   .setTargetAppName("Test")
+                                   .setTargetAppVersion("1.0")
+                                   .build());
+        version.setDownloadPath("extensions/1.0/MyExtension-1.0.0.jar");
+        BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB);
+
+        // WHEN we write that same screenshot twice:
+        File first = projectManager.writeScreenshot(version, image);
+        File second = projectManager.writeScreenshot(version, image);
+
+        // THEN we should get the same file both times, with no leftover temp files:
+        assertTrue(first.exists());
+        assertEquals(first.getAbsolutePath(), second.getAbsolutePath());
+        assertTrue(first.getName().startsWith("MyExtension-1.0.0_screenshot_"));
+        assertEquals(1, first.getParentFile().list().length);
+    }
+
+    @Test
+    public void close_withDeferredSavePending_shouldSaveNowAndNotFireSavedEvent() throws Exception {
+        // GIVEN a manifest change with a deferred save pending:
+        List<Project> savedProjects = new ArrayList<>();
+        ProjectListener listener = new ProjectListener() {
+            @Override
+            public void projectWillLoad(Project project) {
+            }
+
+            @Override
+            public void projectLoaded(Project project) {
+            }
+
+            @Override
+            public void projectSaved(Project project) {
+                savedProjects.add(project);
+            }
+
+            @Override
+            public void projectClosed(Project project) {
+            }
+        };
+        projectManager.addProjectListener(listener);
+        try {
+            Project project = projectManager.getProject();
+            project.updateManifest(manifest -> manifest.setApplicationName("Renamed"));
+            projectManager.save();
+            assertTrue(projectManager.isSaveInProgress());
+
+            // WHEN the project is closed before the save runs:
+            projectManager.close();
+
+            // THEN the change should already be on disk, and the deferred save should skip the old project:
+            assertTrue(Files.readString(project.getVersionManifestFile().toPath()).contains("Renamed"));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (projectManager.isSaveInProgress() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertFalse(projectManager.isSaveInProgress());
+            assertTrue(savedProjects.isEmpty());
+        }
+        finally {
+            projectManager.removeProjectListener(listener);
+        }
+    }
+
+    @Test
+    public void removeScreenshot_givenExistingScreenshot_shouldDeleteOnlyThatFile() throws Exception {
+        // GIVEN two screenshot files in the project:
+        File keep = projectManager.getProjectFileFromPath("extensions/1.0/MyExtension-1.0.0_keep.jpg");
+        File remove = projectManager.getProjectFileFromPath("extensions/1.0/MyExtension-1.0.0_remove.jpg");
+        keep.getParentFile().mkdirs();
+        Files.writeString(keep.toPath(), "keep");
+        Files.writeString(remove.toPath(), "remove");
+
+        // WHEN we remove one of them:
+        projectManager.removeScreenshot("extensions/1.0/MyExtension-1.0.0_remove.jpg");
+
+        // THEN only that one should be gone:
+        assertTrue(keep.exists());
+        assertFalse(remove.exists());
+    }
+
+    @Test
+    public void removeScreenshot_givenKeptOriginals_shouldDeleteOnlyMatchingOriginal() throws Exception {
+        // GIVEN two originals that were transcoded to the same name, and one that wasn't:
+        File originalsDir = new File(projectManager.getProject().getOriginalsDir(), "1.0");
+        originalsDir.mkdirs();
+        File firstOriginal = new File(originalsDir, "MyExtension-1.0.0_shot.png");
+        File secondOriginal = new File(originalsDir, "MyExtension-1.0.0_shot.jpg");
+        File otherOriginal = new File(originalsDir, "MyExtension-1.0.0_other.png");
+        for (File original : List.of(firstOriginal, secondOriginal, otherOriginal)) {
+            Files.writeString(original.toPath(), "original");
+        }
+        File first = projectManager.getProjectFileFromPath("extensions/1.0/MyExtension-1.0.0_shot.jpg");
+        File second = projectManager.getProjectFileFromPath("extensions/1.0/MyExtension-1_0_0_shot_jpg.jpg");
+        first.getParentFile().mkdirs();
+        Files.writeString(first.toPath(), "first");
+        Files.writeString(second.toPath(), "second");
+
+        // WHEN we remove the one with the alternate name, and then the other one:
+        projectManager.removeScreenshot("extensions/1.0/MyExtension-1_0_0_shot_jpg.jpg");
+        assertTrue(firstOriginal.exists());
+        assertFalse(secondOriginal.exists());
+        projectManager.removeScreenshot("extensions/1.0/MyExtension-1.0.0_shot.jpg");
+
+        // THEN only their originals should be gone:
+        assertFalse(firstOriginal.exists());
+        assertTrue(otherOriginal.exists());
+    }
+
+    @Test
+    public void prepareExtensionBundle_withJarAndScreenshot_shouldImportBoth() throws Exception {
+        // GIVEN a bundle with an extension jar and a matching screenshot, in different directories:
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        contents.put("libs/MyExtension-1.0.0.jar", createJar(createExtInfoJson("MyExtension")));
+        contents.put("screenshots/MyExtension-1.0.0_screenshot.png", createPng());
+        File bundle = createBundle(contents);
+
+        // WHEN we import it:
+        List<String> problems = new ArrayList<>();
+        List<VersionManifest.ExtensionVersion> imported =
+                projectManager.prepareExtensionBundle(projectManager.getProject(), bundle, problems);
+
+        // THEN the jar and its screenshot should both be in the project:
+        assertTrue(problems.isEmpty(), problems.toString());
+        assertEquals(1, imported.size());
+        assertEquals("extensions/1.0/MyExtension-1.0.0.jar", imported.get(0).getDownloadPath());
+        assertTrue(projectManager.getProjectFileFromPath(imported.get(0).getDownloadPath()).exists());
+        assertEquals(1, imported.get(0).getScreenshots().size());
+        assertTrue(projectManager.getProjectFileFromPath(imported.get(0).getScreenshots().get(0)).exists());
+    }
+
+    @Test
+    public void prepareExtensionBundle_withDuplicateNames_shouldImportFirstAndReportSecond() throws Exception {
+        // GIVEN a bundle with two jars of the same name in different directories:
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        contents.put("a/MyExtension-1.0.0.jar", createJar(createExtInfoJson("MyExtension")));
+        contents.put("b/MyExtension-1.0.0.jar", createJar(createExtInfoJson("MyExtension")));
+        File bundle = createBundle(contents);
+
+        // WHEN we import it:
+        List<String> problems = new ArrayList<>();
+        List<VersionManifest.ExtensionVersion> imported =
+                projectManager.prepareExtensionBundle(projectManager.getProject(), bundle, problems);
+
+        // THEN only the first should be imported, and the second reported:
+        assertEquals(1, imported.size());
+        assertEquals(List.of("build.zip: skipping duplicate file name b/MyExtension-1.0.0.jar"), problems);
+    }
+
+    @Test
+    public void prepareExtensionBundle_withJarMissingExtInfo_shouldImportTheOthers() throws Exception {
+        // GIVEN a bundle with one good jar and one jar that has no extInfo.json:
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        contents.put("NotAnExtension-1.0.0.jar", createJar(null));
+        contents.put("MyExtension-1.0.0.jar", createJar(createExtInfoJson("MyExtension")));
+        File bundle = createBundle(contents);
+
+        // WHEN we import it:
+        List<String> problems = new ArrayList<>();
+        List<VersionManifest.ExtensionVersion> imported =
+                projectManager.prepareExtensionBundle(projectManager.getProject(), bundle, problems);
+
+        // THEN the good jar should be imported, and the other one reported:
+        assertEquals(1, imported.size());
+        assertEquals("MyExtension", imported.get(0).getExtInfo().getName());
+        assertEquals(1, problems.size());
+        assertTrue(problems.get(0).contains("does not contain extInfo.json"), problems.get(0));
+        assertFalse(projectManager.getProjectFileFromPath("extensions/1.0/NotAnExtension-1.0.0.jar").exists());
+    }
+
+    @Test
+    public void prepareExtensionBundle_withJarTruncatedBeforeCentralDirectory_shouldReportIt() throws Exception {
+        // GIVEN a bundle with a jar that is cut off right where its central directory starts.
+        // Every entry in it is still readable as a stream:
+        byte[] jar = createJar(createExtInfoJson("MyExtension"));
+        int centralDirectory = indexOf(jar, new byte[]{'P', 'K', 1, 2});
+        File bundle = createBundle(Map.of("MyExtension-1.0.0.jar", Arrays.copyOf(jar, centralDirectory)));
+
+        // WHEN we import it:
+        List<String> problems = new ArrayList<>();
+        List<VersionManifest.ExtensionVersion> imported =
+                projectManager.prepareExtensionBundle(projectManager.getProject(), bundle, problems);
+
+        // THEN it should be reported as damaged, and not imported:
+        assertTrue(imported.isEmpty());
+        assertEquals(1, problems.size());
+        assertTrue(problems.get(0).contains("damaged"), problems.get(0));
+        assertFalse(projectManager.getProjectFileFromPath("extensions/1.0/MyExtension-1.0.0.jar").exists());
+    }
+
+    private File createBundle(Map<String, byte[]> contents) throws IOException {
+        File bundle = new File(projectDir, "build.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(bundle.toPath()))) {
+            for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+                out.putNextEntry(new ZipEntry(entry.getKey()));
+                out.write(entry.getValue());
+                out.closeEntry();
+            }
+        }
+        return bundle;
+    }
+
+    /**
+     * Returns the bytes of a small jar, with the given extInfo.json if it's not null.
+     */
+    static byte[] createJar(String extInfoJson) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            if (extInfoJson != null) {
+                out.putNextEntry(new ZipEntry("extInfo.json"));
+                out.write(extInfoJson.getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+            out.putNextEntry(new ZipEntry("MyExtension.class"));
+            out.write(new byte[]{1, 2, 3, 4});
+            out.closeEntry();
+        }
+        return bytes.toByteArray();
+    }
+
+    static String createExtInfoJson(String name) {
+        return new AppExtensionInfo.Builder(name)
+                .setTargetAppName("Test")
+                .setTargetAppVersion("1.0")
+                .setVersion("1.0.0")
+                .build()
+                .toJson();
+    }
+
+    private static byte[] createPng() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB), "png", bytes);
+        return bytes.toByteArray();
+    }
+
+    private static int indexOf(byte[] haystack, byte[] needle) {
+        for (int i = 0; i <= haystack.length - needle.length; i++) {
+            if (Arrays.equals(haystack, i, i + needle.length, needle, 0, needle.length)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Not found");
+    }
+
     public static void deleteDirectoryRecursively(File rootDir) throws IOException {
         Path path = rootDir.toPath();
         if (Files.exists(path)) {
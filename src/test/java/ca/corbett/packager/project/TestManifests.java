@@ -0,0 +1,40 @@
+package ca.corbett.packager.project;
+
+import ca.corbett.extensions.AppExtensionInfo;
+import ca.corbett.updates.VersionManifest;
+
+/**
+ * Builds small VersionManifests for tests.
+ */
+final class TestManifests {
+
+    private TestManifests() {
+    }
+
+    /**
+     * Returns a manifest for application "Test" with a single application version "1.0", holding a
+     * single extension "Ext" with the given versions, in the given order. Each version's download
+     * path is "extensions/1.0/Ext-[version].jar".
+     */
+    static VersionManifest createManifest(String... extensionVersions) {
+        VersionManifest manifest = new VersionManifest();
+        manifest.setApplicationName("Test");
+        VersionManifest.ApplicationVersion appVersion = new VersionManifest.ApplicationVersion();
+        appVersion.setVersion("1.0");
+        VersionManifest.Extension extension = new VersionManifest.Extension();
+        extension.setName("Ext");
+        for (String version : extensionVersions) {
+            VersionManifest.ExtensionVersion extensionVersion = new VersionManifest.ExtensionVersion();
+            extensionVersion.setExtInfo(new AppExtensionInfo.Builder("Ext")
+                                                .setTargetAppName("Test")
+                                                .setTargetAppVersion("1.0")
+                                                .setVersion(version)
+                                                .build());
+            extensionVersion.setDownloadPath("extensions/1.0/Ext-" + version + ".jar");
+            extension.addVersion(extensionVersion);
+        }
+        appVersion.addExtension(extension);
+        manifest.addApplicationVersion(appVersion);
+        return manifest;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package ca.corbett.packager.project;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VersionKeyTest {
+
+    @Test
+    public void compareTo_withMultiDigitComponents_shouldSortNumerically() {
+        assertTrue(VersionKey.parse("1.10").compareTo(VersionKey.parse("1.9")) > 0);
+        assertTrue(VersionKey.parse("2.0").compareTo(VersionKey.parse("10.0")) < 0);
+    }
+
+    @Test
+    public void compareTo_withEqualVersions_shouldReturnZero() {
+        assertEquals(0, VersionKey.parse("1.2.3").compareTo(VersionKey.parse("1.2.3")));
+    }
+
+    @Test
+    public void compareTo_withMissingTrailingComponent_shouldSortShorterFirst() {
+        assertTrue(VersionKey.parse("1.0").compareTo(VersionKey.parse("1.0.0")) < 0);
+        assertTrue(VersionKey.parse("1.0.1").compareTo(VersionKey.parse("1.0")) > 0);
+    }
+
+    @Test
+    public void compareTo_withNonNumericSuffix_shouldIgnoreSuffix() {
+        assertTrue(VersionKey.parse("1.2-beta").compareTo(VersionKey.parse("1.3")) < 0);
+        assertTrue(VersionKey.parse("1.2-beta").compareTo(VersionKey.parse("1.1")) > 0);
+    }
+
+    @Test
+    public void compareTo_withNullOrBlank_shouldSortFirst() {
+        assertTrue(VersionKey.parse(null).compareTo(VersionKey.parse("0.1")) < 0);
+        assertTrue(VersionKey.parse("").compareTo(VersionKey.parse("0")) < 0);
+        assertEquals(0, VersionKey.parse(null).compareTo(VersionKey.parse(null)));
+    }
+
+    @Test
+    public void sort_withMixedVersions_shouldProduceNumericOrder() {
+        List<VersionKey> keys = new ArrayList<>();
+        for (String version : List.of("1.10", "1.2", "1.9", "1.1.5", "0.9")) {
+            keys.add(VersionKey.parse(version));
+        }
+        keys.sort(null);
+        assertEquals("[0.9, 1.1.5, 1.2, 1.9, 1.10]", keys.toString());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package ca.corbett.packager.project;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkspaceTest {
+
+    private File rootDir;
+    private File projectFileA;
+    private File projectFileB;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        rootDir = Files.createTempDirectory("workspaceTest").toFile();
+        projectFileA = Project.createNew("AppA", new File(rootDir, "a")).getProjectFile();
+        projectFileB = Project.createNew("AppB", new File(rootDir, "b")).getProjectFile();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        ProjectManagerTest.deleteDirectoryRecursively(rootDir);
+    }
+
+    @Test
+    public void addProjectFile_givenDuplicate_shouldIgnoreIt() {
+        Workspace workspace = new Workspace(new File(rootDir, "workspace.json"));
+
+        assertTrue(workspace.addProjectFile(projectFileA));
+        assertFalse(workspace.addProjectFile(projectFileA));
+        assertEquals(1, workspace.getProjectFiles().size());
+    }
+
+    @Test
+    public void load_afterSave_shouldRestoreProjectFilesInOrder() throws Exception {
+        File workspaceFile = new File(rootDir, "workspace.json");
+        Workspace workspace = new Workspace(workspaceFile);
+        workspace.addProjectFile(projectFileB);
+        workspace.addProjectFile(projectFileA);
+        workspace.save();
+
+        Workspace reloaded = new Workspace(workspaceFile);
+        reloaded.load();
+
+        List<File> projectFiles = reloaded.getProjectFiles();
+        assertEquals(2, projectFiles.size());
+        assertEquals(projectFileB.getAbsoluteFile(), projectFiles.get(0));
+        assertEquals(projectFileA.getAbsoluteFile(), projectFiles.get(1));
+    }
+
+    @Test
+    public void getProject_givenTwoProjects_shouldLoadEachIndependentlyOnce() throws Exception {
+        Workspace workspace = new Workspace(new File(rootDir, "workspace.json"));
+        workspace.addProjectFile(projectFileA);
+        workspace.addProjectFile(projectFileB);
+
+        Project projectA = workspace.getProject(projectFileA);
+        Project projectB = workspace.getProject(projectFileB);
+
+        assertEquals("AppA", projectA.getName());
+        assertEquals("AppB", projectB.getName());
+        assertNotSame(projectA, projectB);
+        assertSame(projectA, workspace.getProject(projectFileA));
+    }
+}
\ No newline at end of file